@@ -14,6 +14,9 @@ BEGIN;
 DROP SCHEMA IF EXISTS public CASCADE;
 CREATE SCHEMA public;
 
+-- 商品搜尋用 trigram 索引（中文沒有分詞，tsvector 切不出詞，改用 pg_trgm）
+CREATE EXTENSION IF NOT EXISTS pg_trgm;
+
 -- ============================================================
 -- 1. 無依賴表
 -- ============================================================
@@ -137,7 +140,8 @@ CREATE TABLE product (
   is_active BOOLEAN DEFAULT TRUE,
   weight DECIMAL(8,2),
   dimensions VARCHAR(100),
-  created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+  -- keyset 分頁游標欄位，不可為 NULL
+  created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
   updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
   deleted_at TIMESTAMP NULL
 );
@@ -226,6 +230,9 @@ CREATE TABLE orders (
   deleted_at TIMESTAMP NULL
 );
 
+-- 訂單號區段配號：每次 nextval 換一段 app.order.number-block-size 筆的序號，由應用端在記憶體內發號
+CREATE SEQUENCE order_number_block_seq;
+
 CREATE TABLE order_items (
   id SERIAL PRIMARY KEY,
   order_id INTEGER NOT NULL REFERENCES orders(id) ON DELETE CASCADE,
@@ -363,6 +370,12 @@ CREATE TABLE sitters (
   introduction TEXT,
   price DECIMAL(10,2) NOT NULL,
   avatar_url VARCHAR(500),
+  -- 評價彙總：新增評價時與 sitter_reviews 同一交易內遞增，列表 / 詳情不再即時 AVG
+  rating_sum INTEGER NOT NULL DEFAULT 0,
+  rating_count INTEGER NOT NULL DEFAULT 0,
+  avg_rating DOUBLE PRECISION GENERATED ALWAYS AS (
+    CASE WHEN rating_count = 0 THEN 0 ELSE rating_sum::DOUBLE PRECISION / rating_count END
+  ) STORED,
   created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
   updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP
 );
@@ -415,6 +428,31 @@ CREATE TABLE article_comments (
   created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP
 );
 
+-- 熱門商品 Redis 預扣流水的回寫紀錄。
+-- entry_id = Redis stream entry id,主鍵保證同一筆流水只回寫 product.stock_quantity 一次。
+CREATE TABLE inventory_reservation_log (
+  entry_id VARCHAR(32) PRIMARY KEY,
+  product_id INTEGER NOT NULL REFERENCES product(id),
+  delta INTEGER NOT NULL,
+  reference VARCHAR(64),
+  created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP
+);
+
+-- 交易外寄箱（transactional outbox）：與業務資料同一交易寫入，commit 後由 OutboxDispatcher 投遞給站內 handler。
+-- processed_at IS NULL 代表待投遞；available_at 兼作處理租約與失敗重試的退避時間。
+CREATE TABLE outbox_event (
+  id BIGSERIAL PRIMARY KEY,
+  aggregate_type VARCHAR(50) NOT NULL,
+  aggregate_id BIGINT NOT NULL,
+  event_type VARCHAR(50) NOT NULL,
+  payload TEXT NOT NULL,
+  attempts INTEGER NOT NULL DEFAULT 0,
+  last_error VARCHAR(500),
+  available_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+  created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+  processed_at TIMESTAMP
+);
+
 -- ============================================================
 -- 8. 延遲外鍵約束
 -- ============================================================
@@ -433,8 +471,24 @@ CREATE INDEX idx_product_category ON product(category_id);
 CREATE INDEX idx_product_brand ON product(brand_id);
 CREATE INDEX idx_product_active ON product(is_active);
 CREATE INDEX idx_product_sku ON product(sku);
+-- Keyset 分頁：對齊 ProductMapper *WithCursor 的 ORDER BY，
+-- 讓 (created_at, id) < (?, ?) / (price, id) > (?, ?) 直接 index seek,第 500 頁與第 1 頁成本相同。
+-- 上架商品列表只查 is_active = true,用 partial index 省空間。
+CREATE INDEX idx_product_created_id ON product(created_at DESC, id DESC);
+CREATE INDEX idx_product_active_created_id ON product(created_at DESC, id DESC) WHERE is_active = true;
+CREATE INDEX idx_product_category_created_id ON product(category_id, created_at DESC, id DESC) WHERE is_active = true;
+CREATE INDEX idx_product_active_price_id ON product(price, id) WHERE is_active = true;
+-- 讓 name / description 的 ILIKE '%詞%' 可走索引，insert / update 時由 PG 自動維護
+CREATE INDEX idx_product_name_trgm ON product USING GIN (name gin_trgm_ops);
+CREATE INDEX idx_product_description_trgm ON product USING GIN (description gin_trgm_ops);
 CREATE INDEX idx_cart_member ON cart_items(member_id);
-CREATE INDEX idx_order_member ON orders(member_id);
+CREATE INDEX idx_inventory_reservation_product ON inventory_reservation_log(product_id);
+-- 會員訂單歷史 keyset 分頁：對齊 OrderMapper.findHistoryWithCursor 的 ORDER BY，
+-- 前綴 member_id 同時涵蓋 findByMemberId / countByMemberId，不另建單欄索引。
+CREATE INDEX idx_order_member_created_id ON orders(member_id, created_at DESC, id DESC);
+CREATE INDEX idx_order_items_order ON order_items(order_id);
+-- outbox 待投遞事件：只索引未處理的列，已處理的事件不佔索引空間
+CREATE INDEX idx_outbox_event_pending ON outbox_event(available_at, id) WHERE processed_at IS NULL;
 CREATE INDEX idx_order_status ON orders(status_id);
 -- 冪等性兜底：同一 member + 同一 idempotency_key 永遠只能存在一筆訂單。
 -- 用 partial index 排除無冪等需求的舊資料 / null key，避免誤撞 unique。
@@ -444,6 +498,7 @@ CREATE UNIQUE INDEX idx_orders_member_idempotency_key
 CREATE INDEX idx_article_valid ON article(valid);
 CREATE INDEX idx_sitters_member ON sitters(member_id);
 CREATE INDEX idx_sitter_reviews_sitter ON sitter_reviews(sitter_id);
+CREATE INDEX idx_sitters_avg_rating ON sitters(avg_rating DESC, id DESC);
 CREATE INDEX idx_sitter_bookings_member ON sitter_bookings(member_id);
 CREATE INDEX idx_sitter_bookings_sitter ON sitter_bookings(sitter_id);
 CREATE INDEX idx_recipients_member ON recipients(member_id);
@@ -1,40 +1,111 @@
 package com.smallnine.apiserver.config;
 
-import org.springframework.cache.CacheManager;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.springframework.boot.actuate.metrics.cache.CacheMeterBinderProvider;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.cache.annotation.EnableCaching;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.data.redis.cache.RedisCacheConfiguration;
 import org.springframework.data.redis.cache.RedisCacheManager;
 import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
 import org.springframework.data.redis.serializer.GenericJackson2JsonRedisSerializer;
 import org.springframework.data.redis.serializer.RedisSerializationContext;
 
+import java.nio.charset.StandardCharsets;
 import java.time.Duration;
+import java.util.HashMap;
 import java.util.Map;
+import java.util.Set;
 
+/**
+ * 快取：Caffeine（L1）+ Redis（L2）兩層，L1 以 Redis pub/sub 跨節點失效。
+ */
 @Configuration
 @EnableCaching
 public class CacheConfig {
 
+    @Value("${app.cache.product-stock-ttl-seconds:5}")
+    private long productStockTtlSeconds;
+
+    @Value("${app.cache.local.max-size:10000}")
+    private long localMaxSize;
+
+    @Value("${app.cache.local.ttl-seconds:600}")
+    private long localTtlSeconds;
+
+    @Value("${app.cache.user-details-ttl-seconds:60}")
+    private long userDetailsTtlSeconds;
+
     @Bean
-    public CacheManager cacheManager(RedisConnectionFactory connectionFactory) {
+    public TwoLevelCacheManager cacheManager(RedisConnectionFactory connectionFactory,
+                                             StringRedisTemplate stringRedisTemplate) {
+        // 實體含 LocalDateTime，預設的 ObjectMapper 無法序列化
+        GenericJackson2JsonRedisSerializer serializer = new GenericJackson2JsonRedisSerializer()
+                .configure(mapper -> mapper.registerModule(new JavaTimeModule())
+                        .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS));
+
+        Duration defaultTtl = Duration.ofHours(2);
         RedisCacheConfiguration defaultConfig = RedisCacheConfiguration.defaultCacheConfig()
-                .serializeValuesWith(
-                        RedisSerializationContext.SerializationPair
-                                .fromSerializer(new GenericJackson2JsonRedisSerializer()))
-                .entryTtl(Duration.ofHours(2));
-
-        Map<String, RedisCacheConfiguration> perCacheConfig = Map.of(
-                "vipLevels", defaultConfig.entryTtl(Duration.ofHours(24)),
-                "categories", defaultConfig.entryTtl(Duration.ofHours(6)),
-                "brands", defaultConfig.entryTtl(Duration.ofHours(12)),
-                "products", defaultConfig.entryTtl(Duration.ofHours(2))
+                .serializeValuesWith(RedisSerializationContext.SerializationPair.fromSerializer(serializer))
+                .entryTtl(defaultTtl);
+
+        Map<String, Duration> ttls = Map.of(
+                "vipLevels", Duration.ofHours(24),
+                "categories", Duration.ofHours(6),
+                "brands", Duration.ofHours(12),
+                "products", Duration.ofHours(2),
+                // 庫存變動頻繁，獨立一層短 TTL，避免被長 TTL 的商品資料蓋掉
+                "productStock", Duration.ofSeconds(productStockTtlSeconds)
         );
 
-        return RedisCacheManager.builder(connectionFactory)
+        Map<String, RedisCacheConfiguration> perCacheConfig = new HashMap<>();
+        Map<String, Duration> localTtls = new HashMap<>();
+        Duration localTtl = Duration.ofSeconds(localTtlSeconds);
+        ttls.forEach((name, ttl) -> {
+            perCacheConfig.put(name, defaultConfig.entryTtl(ttl));
+            // L1 不得比 L2 活得久
+            localTtls.put(name, ttl.compareTo(localTtl) < 0 ? ttl : localTtl);
+        });
+
+        RedisCacheManager redisCacheManager = RedisCacheManager.builder(connectionFactory)
                 .cacheDefaults(defaultConfig)
                 .withInitialCacheConfigurations(perCacheConfig)
+                // 只走 L2 的 cache（productStock）由 actuator 內建的 RedisCache 指標輸出命中率
+                .enableStatistics()
                 .build();
+        redisCacheManager.afterPropertiesSet();
+
+        // 認證用的 UserDetails 含密碼雜湊，只放本機；異動時廣播清除，短 TTL 兜底
+        localTtls.put("userDetails", Duration.ofSeconds(userDetailsTtlSeconds));
+
+        // 庫存每次結帳都會清除，加 L1 只會換來大量失效廣播
+        return new TwoLevelCacheManager(redisCacheManager, stringRedisTemplate, localMaxSize,
+                localTtls, defaultTtl.compareTo(localTtl) < 0 ? defaultTtl : localTtl,
+                Set.of("productStock"), Set.of("userDetails"));
+    }
+
+    /**
+     * 讓 actuator 把每個兩層快取輸出成 cache.* 指標（啟動時對 getCacheNames() 逐一綁定）
+     */
+    @Bean
+    public CacheMeterBinderProvider<?> twoLevelCacheMeterBinderProvider() {
+        return new TwoLevelCacheMeterBinder.Provider();
+    }
+
+    @Bean
+    public RedisMessageListenerContainer cacheInvalidationListenerContainer(RedisConnectionFactory connectionFactory,
+                                                                            TwoLevelCacheManager cacheManager) {
+        RedisMessageListenerContainer container = new RedisMessageListenerContainer();
+        container.setConnectionFactory(connectionFactory);
+        container.addMessageListener(
+                (message, pattern) -> cacheManager.onInvalidation(
+                        new String(message.getBody(), StandardCharsets.UTF_8)),
+                new ChannelTopic(TwoLevelCacheManager.INVALIDATION_CHANNEL));
+        return container;
     }
 }
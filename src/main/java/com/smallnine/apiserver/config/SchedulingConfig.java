@@ -0,0 +1,13 @@
+package com.smallnine.apiserver.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+/**
+ * 排程配置
+ * 啟用 @Scheduled 背景工作（如熱門商品庫存回寫）
+ */
+@Configuration
+@EnableScheduling
+public class SchedulingConfig {
+}
@@ -1,6 +1,7 @@
 package com.smallnine.apiserver.config;
 
 import com.smallnine.apiserver.filter.JwtAuthenticationFilter;
+import com.smallnine.apiserver.security.MetricsScrapeAuthenticationManager;
 import java.util.ArrayList;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -37,6 +38,12 @@ public class SecurityConfig {
     @Value("${frontend.url:http://localhost:3000}")
     private String frontendUrls;
 
+    @Value("${app.metrics.scrape-username:prometheus}")
+    private String scrapeUsername;
+
+    @Value("${app.metrics.scrape-password:}")
+    private String scrapePassword;
+
     @Bean
     public PasswordEncoder passwordEncoder() {
         return new BCryptPasswordEncoder();
@@ -73,10 +80,29 @@ public class SecurityConfig {
     }
 
     /**
-     * API filter chain — stateless JWT for all other paths.
+     * Metrics filter chain — /actuator/prometheus 只接受抓取專用的 HTTP Basic 憑證（app.metrics.scrape-*）
      */
     @Bean
     @Order(2)
+    public SecurityFilterChain metricsFilterChain(HttpSecurity http) throws Exception {
+        http
+            .securityMatcher("/actuator/prometheus")
+            .csrf(csrf -> csrf.disable())
+            .sessionManagement(session -> session.sessionCreationPolicy(SessionCreationPolicy.STATELESS))
+            .authenticationManager(new MetricsScrapeAuthenticationManager(scrapeUsername, scrapePassword))
+            .httpBasic(basic -> basic.realmName("metrics"))
+            .authorizeHttpRequests(authz -> authz
+                .anyRequest().hasRole(MetricsScrapeAuthenticationManager.ROLE)
+            );
+
+        return http.build();
+    }
+
+    /**
+     * API filter chain — stateless JWT for all other paths.
+     */
+    @Bean
+    @Order(3)
     public SecurityFilterChain apiFilterChain(HttpSecurity http,
                                               JwtAuthenticationFilter jwtAuthenticationFilter) throws Exception {
         http
@@ -114,6 +140,10 @@ public class SecurityConfig {
 
                 // 健康檢查
                 .requestMatchers("/api/health").permitAll()
+
+                // 監控：health 開放給探針；prometheus 由 metricsFilterChain 驗抓取憑證，其餘端點限管理員
+                .requestMatchers("/actuator/health/**").permitAll()
+                .requestMatchers("/actuator/**").hasRole("ADMIN")
                 .requestMatchers("/api/log-test/**").permitAll()
 
                 // 其餘一律要 JWT
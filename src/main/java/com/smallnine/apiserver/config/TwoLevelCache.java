@@ -0,0 +1,157 @@
+package com.smallnine.apiserver.config;
+
+import org.springframework.cache.Cache;
+import org.springframework.cache.support.AbstractValueAdaptingCache;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BiConsumer;
+
+/**
+ * 兩層快取：Caffeine（L1，本機記憶體）在前、Redis（L2）在後。
+ *
+ * 讀：L1 → L2 → 回源，L2 命中時回填 L1。
+ * 寫 / 清除：先寫 L2 再動 L1，最後廣播失效，讓其他節點丟掉各自的 L1。
+ *
+ * L1 的 key 一律轉成字串（與 RedisCache 的 key 轉換一致），才能跨節點對得上。
+ * L1 存的是共用實例，呼叫端不可修改取回的物件。
+ *
+ * 命中 / 未命中 / 寫入 / 清除次數自本節點啟動起累計，由 TwoLevelCacheMeterBinder 輸出為指標。
+ */
+public class TwoLevelCache extends AbstractValueAdaptingCache {
+
+    private final String name;
+    private final Cache remote;
+    private final com.github.benmanes.caffeine.cache.Cache<String, Object> local;
+    private final BiConsumer<String, String> invalidationPublisher;
+
+    private final LongAdder localHits = new LongAdder();
+    private final LongAdder remoteHits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder puts = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    /**
+     * @param invalidationPublisher (cacheName, key) 廣播失效；key 為 null 代表整個 cache 清空
+     */
+    public TwoLevelCache(String name, Cache remote,
+                         com.github.benmanes.caffeine.cache.Cache<String, Object> local,
+                         BiConsumer<String, String> invalidationPublisher) {
+        super(true);
+        this.name = name;
+        this.remote = remote;
+        this.local = local;
+        this.invalidationPublisher = invalidationPublisher;
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public Object getNativeCache() {
+        return local;
+    }
+
+    @Override
+    protected Object lookup(Object key) {
+        String localKey = localKey(key);
+        Object value = local.getIfPresent(localKey);
+        if (value != null) {
+            localHits.increment();
+            return value;
+        }
+        ValueWrapper wrapper = remote.get(key);
+        if (wrapper == null) {
+            misses.increment();
+            return null;
+        }
+        remoteHits.increment();
+        Object storeValue = toStoreValue(wrapper.get());
+        local.put(localKey, storeValue);
+        return storeValue;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(Object key, Callable<T> valueLoader) {
+        String localKey = localKey(key);
+        Object value = local.getIfPresent(localKey);
+        if (value != null) {
+            localHits.increment();
+            return (T) fromStoreValue(value);
+        }
+        // 回源交給 L2（RedisCache 本身會對同 key 的載入做同步）；有呼叫 loader 才算未命中
+        boolean[] loaded = new boolean[1];
+        T result = remote.get(key, () -> {
+            loaded[0] = true;
+            return valueLoader.call();
+        });
+        (loaded[0] ? misses : remoteHits).increment();
+        local.put(localKey, toStoreValue(result));
+        return result;
+    }
+
+    @Override
+    public void put(Object key, Object value) {
+        puts.increment();
+        remote.put(key, value);
+        local.put(localKey(key), toStoreValue(value));
+        invalidationPublisher.accept(name, localKey(key));
+    }
+
+    @Override
+    public void evict(Object key) {
+        evictions.increment();
+        remote.evict(key);
+        local.invalidate(localKey(key));
+        invalidationPublisher.accept(name, localKey(key));
+    }
+
+    @Override
+    public void clear() {
+        remote.clear();
+        local.invalidateAll();
+        invalidationPublisher.accept(name, null);
+    }
+
+    /**
+     * 收到其他節點的失效廣播時只清本機 L1，不再碰 L2、也不再廣播
+     */
+    void invalidateLocal(String key) {
+        if (key == null) {
+            local.invalidateAll();
+        } else {
+            local.invalidate(key);
+        }
+    }
+
+    long localHitCount() {
+        return localHits.sum();
+    }
+
+    long remoteHitCount() {
+        return remoteHits.sum();
+    }
+
+    long missCount() {
+        return misses.sum();
+    }
+
+    long putCount() {
+        return puts.sum();
+    }
+
+    long evictionCount() {
+        return evictions.sum();
+    }
+
+    long localSize() {
+        return local.estimatedSize();
+    }
+
+    private static String localKey(Object key) {
+        return String.valueOf(key);
+    }
+}
@@ -0,0 +1,107 @@
+package com.smallnine.apiserver.config;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.support.NoOpCache;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 在 RedisCacheManager 前面加一層 Caffeine 的 CacheManager。
+ *
+ * 跨節點失效走 Redis pub/sub（{@link #INVALIDATION_CHANNEL}），訊息格式為
+ * "節點id\ncache名稱\nkey"，key 省略代表整個 cache 清空；自己發出的訊息直接略過。
+ * pub/sub 不保證送達（斷線期間的訊息會遺失），所以 L1 另有 TTL 作為兜底。
+ *
+ * 只放本機的 cache（localOnlyCaches）後面接 NoOpCache：不進 Redis，但清除一樣會廣播。
+ */
+@Slf4j
+public class TwoLevelCacheManager implements CacheManager {
+
+    public static final String INVALIDATION_CHANNEL = "cache:invalidation";
+
+    private final String nodeId = UUID.randomUUID().toString();
+    private final CacheManager remoteCacheManager;
+    private final StringRedisTemplate stringRedisTemplate;
+    private final long localMaxSize;
+    private final Map<String, Duration> localTtls;
+    private final Duration defaultLocalTtl;
+    private final Set<String> remoteOnlyCaches;
+    private final Set<String> localOnlyCaches;
+    private final Map<String, Cache> caches = new ConcurrentHashMap<>();
+
+    /**
+     * @param localTtls 各 cache 的 L1 TTL（應不大於 L2 TTL），未列出的用 defaultLocalTtl
+     * @param remoteOnlyCaches 不加 L1 的 cache（寫入頻繁、每次寫都得廣播的資料）
+     * @param localOnlyCaches 不進 Redis 的 cache（含敏感資料、或只值得放本機的資料）
+     */
+    public TwoLevelCacheManager(CacheManager remoteCacheManager, StringRedisTemplate stringRedisTemplate,
+                                long localMaxSize, Map<String, Duration> localTtls, Duration defaultLocalTtl,
+                                Set<String> remoteOnlyCaches, Set<String> localOnlyCaches) {
+        this.remoteCacheManager = remoteCacheManager;
+        this.stringRedisTemplate = stringRedisTemplate;
+        this.localMaxSize = localMaxSize;
+        this.localTtls = localTtls;
+        this.defaultLocalTtl = defaultLocalTtl;
+        this.remoteOnlyCaches = remoteOnlyCaches;
+        this.localOnlyCaches = localOnlyCaches;
+    }
+
+    @Override
+    public Cache getCache(String name) {
+        Cache cache = caches.get(name);
+        if (cache != null) {
+            return cache;
+        }
+        Cache remote = localOnlyCaches.contains(name) ? new NoOpCache(name) : remoteCacheManager.getCache(name);
+        if (remote == null) {
+            return null;
+        }
+        return caches.computeIfAbsent(name, n -> remoteOnlyCaches.contains(n) ? remote : new TwoLevelCache(
+                n, remote,
+                Caffeine.newBuilder()
+                        .maximumSize(localMaxSize)
+                        .expireAfterWrite(localTtls.getOrDefault(n, defaultLocalTtl))
+                        .build(),
+                this::publishInvalidation));
+    }
+
+    @Override
+    public Collection<String> getCacheNames() {
+        Set<String> names = new LinkedHashSet<>(remoteCacheManager.getCacheNames());
+        names.addAll(localOnlyCaches);
+        return names;
+    }
+
+    /**
+     * 處理其他節點的失效廣播
+     */
+    public void onInvalidation(String message) {
+        String[] parts = message.split("\n", 3);
+        if (parts.length < 2 || nodeId.equals(parts[0])) {
+            return;
+        }
+        if (caches.get(parts[1]) instanceof TwoLevelCache cache) {
+            cache.invalidateLocal(parts.length == 3 ? parts[2] : null);
+        }
+    }
+
+    private void publishInvalidation(String cacheName, String key) {
+        String message = nodeId + "\n" + cacheName + (key != null ? "\n" + key : "");
+        try {
+            stringRedisTemplate.convertAndSend(INVALIDATION_CHANNEL, message);
+        } catch (RuntimeException e) {
+            // 廣播失敗時其他節點的 L1 只能等 TTL 過期
+            log.warn("action=CACHE_INVALIDATION_PUBLISH_FAILED cache={} key={} msg={}", cacheName, key, e.getMessage());
+        }
+    }
+}
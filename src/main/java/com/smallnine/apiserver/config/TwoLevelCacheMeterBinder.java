@@ -0,0 +1,71 @@
+package com.smallnine.apiserver.config;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tag;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CacheMeterBinder;
+import org.springframework.boot.actuate.metrics.cache.CacheMeterBinderProvider;
+import org.springframework.cache.Cache;
+
+/**
+ * 把 TwoLevelCache 的累計次數輸出成標準 cache.* 指標（cache.gets{result=hit|miss} 等），
+ * 另以 cache.level.hits{level=local|remote} 區分 L1 / L2 命中。
+ */
+public class TwoLevelCacheMeterBinder extends CacheMeterBinder<TwoLevelCache> {
+
+    private final TwoLevelCache cache;
+
+    public TwoLevelCacheMeterBinder(TwoLevelCache cache, Iterable<Tag> tags) {
+        super(cache, cache.getName(), tags);
+        this.cache = cache;
+    }
+
+    @Override
+    protected Long size() {
+        return cache.localSize();
+    }
+
+    @Override
+    protected long hitCount() {
+        return cache.localHitCount() + cache.remoteHitCount();
+    }
+
+    @Override
+    protected Long missCount() {
+        return cache.missCount();
+    }
+
+    @Override
+    protected Long evictionCount() {
+        return cache.evictionCount();
+    }
+
+    @Override
+    protected long putCount() {
+        return cache.putCount();
+    }
+
+    @Override
+    protected void bindImplementationSpecificMetrics(MeterRegistry registry) {
+        FunctionCounter.builder("cache.level.hits", cache, TwoLevelCache::localHitCount)
+                .tags(getTagsWithCacheName()).tag("level", "local")
+                .description("L1（本機 Caffeine）命中次數")
+                .register(registry);
+        FunctionCounter.builder("cache.level.hits", cache, TwoLevelCache::remoteHitCount)
+                .tags(getTagsWithCacheName()).tag("level", "remote")
+                .description("L1 未命中、L2（Redis）命中次數")
+                .register(registry);
+    }
+
+    /**
+     * 交給 actuator 的 CacheMetricsRegistrar：不是 TwoLevelCache 的 cache（如只走 L2 的 RedisCache）回 null 交給其他 provider
+     */
+    public static class Provider implements CacheMeterBinderProvider<Cache> {
+
+        @Override
+        public MeterBinder getMeterBinder(Cache cache, Iterable<Tag> tags) {
+            return cache instanceof TwoLevelCache twoLevelCache ? new TwoLevelCacheMeterBinder(twoLevelCache, tags) : null;
+        }
+    }
+}
@@ -3,6 +3,7 @@ package com.smallnine.apiserver.controller;
 import com.smallnine.apiserver.constants.enums.ResponseCode;
 import com.smallnine.apiserver.dto.*;
 import com.smallnine.apiserver.exception.BusinessException;
+import com.smallnine.apiserver.security.VerifiedTokenCache;
 import com.smallnine.apiserver.security.oauth2.OAuth2ExchangeService;
 import com.smallnine.apiserver.service.AuthRateLimitService;
 import com.smallnine.apiserver.service.AuthService;
@@ -17,6 +18,7 @@ import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.authentication.BadCredentialsException;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.security.core.userdetails.UserDetails;
@@ -36,6 +38,7 @@ public class AuthController {
     private final RateLimiterService rateLimiterService;
     private final AuthRateLimitService authRateLimitService;
     private final ClientIpResolver clientIpResolver;
+    private final VerifiedTokenCache verifiedTokenCache;
 
     @Operation(summary = "用戶註冊", description = "註冊新用戶帳號")
     @ApiResponses(value = {
@@ -120,6 +123,32 @@ public class AuthController {
         return ResponseEntity.ok(ApiResponse.success("登出成功"));
     }
 
+    @Operation(summary = "強制登出用戶", description = "撤銷該用戶全部 refresh token，已簽出的 access token 立即失效（停用帳號或調整角色後使用）")
+    @ApiResponses(value = {
+            @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "200", description = "撤銷成功"),
+            @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "403", description = "權限不足"),
+            @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "404", description = "用戶不存在")
+    })
+    @SecurityRequirement(name = "bearerAuth")
+    @PreAuthorize("hasRole('ADMIN')")
+    @PostMapping("/admin/users/{userId}/revoke")
+    public ResponseEntity<ApiResponse<String>> revokeUserAccess(@PathVariable Long userId) {
+        authService.revokeUserAccess(userId);
+        return ResponseEntity.ok(ApiResponse.success("已撤銷該用戶的登入狀態"));
+    }
+
+    @Operation(summary = "token 驗證快取統計", description = "本節點已驗證 token 快取的命中 / 未命中次數")
+    @ApiResponses(value = {
+            @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "200", description = "成功獲取統計"),
+            @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "403", description = "權限不足")
+    })
+    @SecurityRequirement(name = "bearerAuth")
+    @PreAuthorize("hasRole('ADMIN')")
+    @GetMapping("/admin/token-cache/stats")
+    public ResponseEntity<ApiResponse<TokenCacheStats>> getTokenCacheStats() {
+        return ResponseEntity.ok(ApiResponse.success(verifiedTokenCache.getStats()));
+    }
+
     @Operation(summary = "驗證郵箱", description = "通過驗證令牌驗證用戶郵箱")
     @ApiResponses(value = {
             @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "200", description = "郵箱驗證成功"),
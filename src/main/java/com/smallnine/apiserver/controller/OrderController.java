@@ -2,11 +2,14 @@ package com.smallnine.apiserver.controller;
 
 import com.smallnine.apiserver.dto.ApiResponse;
 import com.smallnine.apiserver.dto.CreateOrderRequest;
+import com.smallnine.apiserver.dto.CursorPage;
+import com.smallnine.apiserver.dto.OrderHistoryResponse;
 import com.smallnine.apiserver.dto.OrderItemResponse;
 import com.smallnine.apiserver.dto.OrderResponse;
 import com.smallnine.apiserver.entity.Order;
 import com.smallnine.apiserver.entity.OrderItem;
 import com.smallnine.apiserver.entity.User;
+import com.smallnine.apiserver.idempotency.Idempotent;
 import com.smallnine.apiserver.service.OrderService;
 import com.smallnine.apiserver.utils.AuthUtils;
 import io.swagger.v3.oas.annotations.Operation;
@@ -53,6 +56,22 @@ public class OrderController {
         return ResponseEntity.ok(ApiResponse.success(orders));
     }
 
+    @Operation(summary = "游標分頁獲取訂單歷史",
+            description = "訂單列表連同明細一次回傳；以 nextCursor 取得下一頁，不帶 cursor 為第一頁")
+    @ApiResponses(value = {
+            @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "200", description = "成功獲取訂單歷史"),
+            @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "400", description = "無效的分頁游標或筆數"),
+            @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "401", description = "未授權")
+    })
+    @GetMapping("/history")
+    public ResponseEntity<ApiResponse<CursorPage<OrderHistoryResponse>>> getOrderHistory(
+            @AuthenticationPrincipal UserDetails userDetails,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "10") int size) {
+        User user = AuthUtils.getAuthenticatedUser(userDetails);
+        return ResponseEntity.ok(ApiResponse.success(orderService.findOrderHistory(user.getId(), cursor, size)));
+    }
+
     @Operation(summary = "根據ID獲取訂單", description = "根據訂單ID獲取訂單詳情")
     @ApiResponses(value = {
             @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "200", description = "成功獲取訂單"),
@@ -105,7 +124,7 @@ public class OrderController {
         return ResponseEntity.ok(ApiResponse.success(orderItems));
     }
 
-    @Operation(summary = "從購物車創建訂單", description = "從當前用戶的購物車創建新訂單。可選 Idempotency-Key header 防止重複下單（UUID，24 小時內同 key 回傳同一張單）")
+    @Operation(summary = "從購物車創建訂單", description = "從當前用戶的購物車創建新訂單。可選 Idempotency-Key header 防止重複下單（UUID，24 小時內同 key 重送回放第一次的回應，回應帶 Idempotent-Replayed: true）")
     @ApiResponses(value = {
             @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "201", description = "訂單創建成功"),
             @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "400", description = "購物車為空或庫存不足"),
@@ -113,6 +132,7 @@ public class OrderController {
             @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "409", description = "訂單正在建立中，請稍後重試")
     })
     @PreAuthorize("isAuthenticated()")
+    @Idempotent(scope = "order.create")
     @PostMapping
     public ResponseEntity<ApiResponse<OrderResponse>> createOrder(
             @AuthenticationPrincipal UserDetails userDetails,
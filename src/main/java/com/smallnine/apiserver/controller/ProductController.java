@@ -1,9 +1,14 @@
 package com.smallnine.apiserver.controller;
 
 import com.smallnine.apiserver.dto.ApiResponse;
+import com.smallnine.apiserver.dto.CursorPage;
+import com.smallnine.apiserver.dto.ProductCacheStats;
 import com.smallnine.apiserver.dto.ProductRequest;
 import com.smallnine.apiserver.dto.ProductResponse;
+import com.smallnine.apiserver.dto.ProductSearchResult;
 import com.smallnine.apiserver.entity.Product;
+import com.smallnine.apiserver.service.HotStockService;
+import com.smallnine.apiserver.service.ProductCacheService;
 import com.smallnine.apiserver.service.ProductService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
@@ -27,6 +32,8 @@ import java.util.List;
 public class ProductController {
 
     private final ProductService productService;
+    private final HotStockService hotStockService;
+    private final ProductCacheService productCacheService;
 
     @Operation(summary = "獲取所有商品", description = "分頁獲取商品列表")
     @ApiResponses(value = {
@@ -57,6 +64,18 @@ public class ProductController {
         return ResponseEntity.ok(ApiResponse.success(new ProductResponse(product)));
     }
 
+    @Operation(summary = "根據SKU獲取商品", description = "根據商品SKU獲取單個商品詳情")
+    @ApiResponses(value = {
+            @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "200", description = "成功獲取商品"),
+            @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "404", description = "商品不存在"),
+            @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "500", description = "內部服務器錯誤")
+    })
+    @GetMapping("/sku/{sku}")
+    public ResponseEntity<ApiResponse<ProductResponse>> getProductBySku(@PathVariable String sku) {
+        Product product = productService.findBySku(sku);
+        return ResponseEntity.ok(ApiResponse.success(new ProductResponse(product)));
+    }
+
     @Operation(summary = "搜索商品", description = "根據關鍵字和價格範圍搜索商品")
     @ApiResponses(value = {
             @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "200", description = "搜索成功"),
@@ -77,6 +96,26 @@ public class ProductController {
         return ResponseEntity.ok(ApiResponse.success(products));
     }
 
+    @Operation(summary = "相關度搜尋商品",
+            description = "多個關鍵字以空白分隔，全部需命中名稱或描述；依相關度排序，附命中標示與分類 / 品牌 / 價格區間分面統計")
+    @ApiResponses(value = {
+            @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "200", description = "搜索成功"),
+            @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "400", description = "關鍵字為空或分頁參數錯誤"),
+            @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "500", description = "內部服務器錯誤")
+    })
+    @GetMapping("/search/relevance")
+    public ResponseEntity<ApiResponse<ProductSearchResult>> searchByRelevance(
+            @RequestParam String keyword,
+            @RequestParam(required = false) Long categoryId,
+            @RequestParam(required = false) Long brandId,
+            @RequestParam(required = false) BigDecimal minPrice,
+            @RequestParam(required = false) BigDecimal maxPrice,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "20") int size) {
+        ProductSearchResult result = productService.search(keyword, categoryId, brandId, minPrice, maxPrice, page, size);
+        return ResponseEntity.ok(ApiResponse.success(result));
+    }
+
     @Operation(summary = "根據分類獲取商品", description = "根據分類ID獲取商品列表")
     @ApiResponses(value = {
             @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "200", description = "獲取成功"),
@@ -95,6 +134,53 @@ public class ProductController {
         return ResponseEntity.ok(ApiResponse.success(products));
     }
 
+    @Operation(summary = "游標分頁獲取所有商品",
+            description = "以 nextCursor 取得下一頁，深分頁成本與第一頁相同；不帶 cursor 為第一頁")
+    @ApiResponses(value = {
+            @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "200", description = "成功獲取商品列表"),
+            @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "400", description = "無效的分頁游標或筆數"),
+            @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "500", description = "內部服務器錯誤")
+    })
+    @GetMapping("/cursor")
+    public ResponseEntity<ApiResponse<CursorPage<ProductResponse>>> getAllProductsWithCursor(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "10") int size) {
+        CursorPage<Product> page = productService.findAllWithCursor(cursor, size);
+        return ResponseEntity.ok(ApiResponse.success(page.map(ProductResponse::new)));
+    }
+
+    @Operation(summary = "游標分頁搜索商品", description = "根據關鍵字和價格範圍搜索商品（游標分頁）")
+    @ApiResponses(value = {
+            @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "200", description = "搜索成功"),
+            @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "400", description = "無效的分頁游標或筆數"),
+            @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "500", description = "內部服務器錯誤")
+    })
+    @GetMapping("/search/cursor")
+    public ResponseEntity<ApiResponse<CursorPage<ProductResponse>>> searchProductsWithCursor(
+            @RequestParam(required = false) String keyword,
+            @RequestParam(required = false) BigDecimal minPrice,
+            @RequestParam(required = false) BigDecimal maxPrice,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "10") int size) {
+        CursorPage<Product> page = productService.searchProductsWithCursor(keyword, minPrice, maxPrice, cursor, size);
+        return ResponseEntity.ok(ApiResponse.success(page.map(ProductResponse::new)));
+    }
+
+    @Operation(summary = "游標分頁根據分類獲取商品", description = "根據分類ID獲取商品列表（游標分頁）")
+    @ApiResponses(value = {
+            @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "200", description = "獲取成功"),
+            @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "400", description = "無效的分頁游標或筆數"),
+            @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "500", description = "內部服務器錯誤")
+    })
+    @GetMapping("/category/{categoryId}/cursor")
+    public ResponseEntity<ApiResponse<CursorPage<ProductResponse>>> getProductsByCategoryWithCursor(
+            @PathVariable Long categoryId,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "10") int size) {
+        CursorPage<Product> page = productService.findByCategoryWithCursor(categoryId, cursor, size);
+        return ResponseEntity.ok(ApiResponse.success(page.map(ProductResponse::new)));
+    }
+
     @Operation(summary = "創建商品", description = "創建新商品")
     @ApiResponses(value = {
             @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "201", description = "商品創建成功"),
@@ -162,6 +248,50 @@ public class ProductController {
         return ResponseEntity.ok(ApiResponse.success("庫存更新成功"));
     }
 
+    @Operation(summary = "商品快取統計", description = "本節點商品快取的命中 / 未命中次數")
+    @ApiResponses(value = {
+            @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "200", description = "成功獲取統計"),
+            @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "401", description = "未授權"),
+            @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "500", description = "內部服務器錯誤")
+    })
+    @SecurityRequirement(name = "bearerAuth")
+    @PreAuthorize("hasRole('ADMIN')")
+    @GetMapping("/cache/stats")
+    public ResponseEntity<ApiResponse<ProductCacheStats>> getCacheStats() {
+        return ResponseEntity.ok(ApiResponse.success(productCacheService.getStats()));
+    }
+
+    @Operation(summary = "啟用熱門商品庫存", description = "把商品庫存載入 Redis，搶購期間改由 Redis 原子預扣")
+    @ApiResponses(value = {
+            @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "200", description = "啟用成功"),
+            @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "400", description = "熱門商品庫存功能未啟用"),
+            @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "401", description = "未授權"),
+            @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "404", description = "商品不存在"),
+            @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "500", description = "內部服務器錯誤")
+    })
+    @SecurityRequirement(name = "bearerAuth")
+    @PreAuthorize("hasRole('ADMIN')")
+    @PutMapping("/{id}/hot-stock")
+    public ResponseEntity<ApiResponse<Void>> enableHotStock(@PathVariable Long id) {
+        hotStockService.enable(id);
+        return ResponseEntity.ok(ApiResponse.success("熱門商品庫存已啟用"));
+    }
+
+    @Operation(summary = "停用熱門商品庫存", description = "移除 Redis 庫存計數並把預扣流水全部回寫 DB")
+    @ApiResponses(value = {
+            @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "200", description = "停用成功"),
+            @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "400", description = "熱門商品庫存功能未啟用"),
+            @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "401", description = "未授權"),
+            @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "500", description = "內部服務器錯誤")
+    })
+    @SecurityRequirement(name = "bearerAuth")
+    @PreAuthorize("hasRole('ADMIN')")
+    @DeleteMapping("/{id}/hot-stock")
+    public ResponseEntity<ApiResponse<Void>> disableHotStock(@PathVariable Long id) {
+        hotStockService.disable(id);
+        return ResponseEntity.ok(ApiResponse.success("熱門商品庫存已停用"));
+    }
+
     @Operation(summary = "檢查庫存", description = "檢查商品庫存是否充足")
     @ApiResponses(value = {
             @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "200", description = "庫存檢查完成"),
@@ -8,6 +8,7 @@ import com.smallnine.apiserver.entity.SitterBooking;
 import com.smallnine.apiserver.entity.User;
 import com.smallnine.apiserver.dao.SitterDao;
 import com.smallnine.apiserver.dao.DogDao;
+import com.smallnine.apiserver.dao.UserDao;
 import com.smallnine.apiserver.service.DogService;
 import com.smallnine.apiserver.service.SitterBookingService;
 import com.smallnine.apiserver.utils.AuthUtils;
@@ -33,6 +34,7 @@ public class SitterBookingController {
     private final DogService dogService;
     private final SitterDao sitterDao;
     private final DogDao dogDao;
+    private final UserDao userDao;
 
     @GetMapping("/dogs")
     public ResponseEntity<ApiResponse<List<Dog>>> getMyDogs(
@@ -71,7 +73,8 @@ public class SitterBookingController {
         Map<String, Object> bookingData = new LinkedHashMap<>();
         bookingData.put("booking_id", booking.getId());
         bookingData.put("username", user.getUsername());
-        bookingData.put("email", user.getEmail());
+        // principal 可能由 token claims 組成、不含 email
+        bookingData.put("email", userDao.findById(user.getId()).map(User::getEmail).orElse(""));
         bookingData.put("dog_name", dog != null ? dog.getName() : "");
         bookingData.put("sitter_name", sitter != null ? sitter.getName() : "");
         bookingData.put("start_date", request.getStartDate());
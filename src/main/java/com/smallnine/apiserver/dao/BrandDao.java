@@ -1,5 +1,6 @@
 package com.smallnine.apiserver.dao;
 
+import com.smallnine.apiserver.dto.BrandResponse;
 import com.smallnine.apiserver.entity.Brand;
 import org.apache.ibatis.annotations.Mapper;
 import org.apache.ibatis.annotations.Param;
@@ -30,6 +31,17 @@ public interface BrandDao {
      */
     List<Brand> searchByName(@Param("name") String name, @Param("offset") int offset, @Param("limit") int limit);
     
+    /**
+     * 查詢品牌（分頁）並帶出商品數：先分頁再 LEFT JOIN / GROUP BY，單次查詢
+     */
+    List<BrandResponse> findAllWithProductCount(@Param("offset") int offset, @Param("limit") int limit);
+
+    /**
+     * 根據名稱模糊搜索品牌並帶出商品數（單次查詢）
+     */
+    List<BrandResponse> searchByNameWithProductCount(@Param("name") String name,
+                                                     @Param("offset") int offset, @Param("limit") int limit);
+
     /**
      * 創建品牌
      */
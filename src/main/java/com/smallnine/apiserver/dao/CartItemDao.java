@@ -20,6 +20,11 @@ public interface CartItemDao {
      */
     List<CartItem> findByMemberId(@Param("memberId") Long memberId);
     
+    /**
+     * 根據用戶ID查詢購物車項目，並以 JOIN 一併帶出商品（填入 CartItem.product）
+     */
+    List<CartItem> findByMemberIdWithProduct(@Param("memberId") Long memberId);
+
     /**
      * 根據用戶ID和商品ID查詢購物車項目
      */
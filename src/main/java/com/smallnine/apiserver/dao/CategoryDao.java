@@ -1,5 +1,6 @@
 package com.smallnine.apiserver.dao;
 
+import com.smallnine.apiserver.dto.CategoryResponse;
 import com.smallnine.apiserver.entity.Category;
 import org.apache.ibatis.annotations.Mapper;
 import org.apache.ibatis.annotations.Param;
@@ -40,6 +41,12 @@ public interface CategoryDao {
      */
     List<Category> findTopCategories();
     
+    /**
+     * 查詢所有啟用分類並帶出各自的啟用商品數（單次 GROUP BY，依名稱排序）
+     * 供分類樹、頂級分類、子分類列表在記憶體中組裝，不再逐筆 COUNT
+     */
+    List<CategoryResponse> findActiveWithProductCount();
+
     /**
      * 創建分類
      */
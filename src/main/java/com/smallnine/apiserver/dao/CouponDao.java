@@ -13,4 +13,9 @@ public interface CouponDao {
     List<Coupon> findAllActive();
 
     Optional<Coupon> findById(@Param("id") Long id);
+
+    /**
+     * 調整優惠券使用次數（原子操作）；delta 為負代表退回
+     */
+    int adjustUsedCount(@Param("id") Long id, @Param("delta") int delta);
 }
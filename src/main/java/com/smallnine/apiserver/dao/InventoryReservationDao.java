@@ -0,0 +1,18 @@
+package com.smallnine.apiserver.dao;
+
+import com.smallnine.apiserver.entity.InventoryReservation;
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+
+import java.util.List;
+
+@Mapper
+public interface InventoryReservationDao {
+
+    /**
+     * 寫入預扣流水並把「本次新寫入」的異動量加總回寫 product.stock_quantity（單一 SQL，原子）
+     * 已寫入過的 entryId 會被略過，重送同一批不會重複扣庫存
+     * @return 回寫的商品列數
+     */
+    int applyBatch(@Param("entries") List<InventoryReservation> entries);
+}
@@ -1,9 +1,11 @@
 package com.smallnine.apiserver.dao;
 
+import com.smallnine.apiserver.dto.OrderHistoryResponse;
 import com.smallnine.apiserver.entity.Order;
 import org.apache.ibatis.annotations.Mapper;
 import org.apache.ibatis.annotations.Param;
 
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
 
@@ -26,6 +28,16 @@ public interface OrderDao {
     List<Order> findByMemberId(@Param("memberId") Long memberId, 
                                @Param("offset") int offset, 
                                @Param("limit") int limit);
+
+    /**
+     * 會員訂單歷史（keyset 分頁，依 created_at DESC NULLS LAST, id DESC），明細以同一句 JOIN 帶出
+     * cursorId 為 null 時代表第一頁；cursorId 有值而 cursorCreatedAt 為 null 代表上一頁停在 created_at 為 NULL 的舊訂單。
+     * limit 計的是訂單數，不是明細列數
+     */
+    List<OrderHistoryResponse> findHistoryWithCursor(@Param("memberId") Long memberId,
+                                                     @Param("cursorCreatedAt") LocalDateTime cursorCreatedAt,
+                                                     @Param("cursorId") Long cursorId,
+                                                     @Param("limit") int limit);
     
     /**
      * 根據狀態查詢訂單列表
@@ -75,9 +87,9 @@ public interface OrderDao {
     long count();
     
     /**
-     * 生成唯一訂單號
+     * 領取下一段訂單號區段（order_number_block_seq 的 nextval）
      */
-    boolean existsByOrderNumber(@Param("orderNumber") String orderNumber);
+    long nextOrderNumberBlock();
 
     /**
      * 冪等性兜底：用 (member_id, idempotency_key) 查回 Redis 失敗後 DB unique 攔下的訂單
@@ -0,0 +1,36 @@
+package com.smallnine.apiserver.dao;
+
+import com.smallnine.apiserver.entity.OutboxEvent;
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Mapper
+public interface OutboxEventDao {
+
+    int insert(OutboxEvent event);
+
+    /**
+     * 領取一批到期的待投遞事件：attempts +1 並把 available_at 推後 leaseSeconds 作為租約。
+     * 以 FOR UPDATE SKIP LOCKED 挑選，多節點同時領取不會拿到同一筆
+     */
+    List<OutboxEvent> claimBatch(@Param("limit") int limit,
+                                 @Param("leaseSeconds") long leaseSeconds,
+                                 @Param("maxAttempts") int maxAttempts);
+
+    /**
+     * 標記已處理；已被其他節點處理過時回傳 0
+     */
+    int markProcessed(@Param("id") Long id);
+
+    /**
+     * 記錄失敗原因並在 retryDelaySeconds 後重新開放領取
+     */
+    int markFailed(@Param("id") Long id,
+                   @Param("error") String error,
+                   @Param("retryDelaySeconds") long retryDelaySeconds);
+
+    int deleteProcessedBefore(@Param("before") LocalDateTime before);
+}
@@ -12,4 +12,6 @@ public interface PointsDao {
     List<Points> findByMemberId(@Param("memberId") Long memberId);
 
     int sumByMemberId(@Param("memberId") Long memberId);
+
+    int insert(Points points);
 }
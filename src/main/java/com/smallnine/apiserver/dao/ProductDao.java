@@ -1,9 +1,15 @@
 package com.smallnine.apiserver.dao;
 
+import com.smallnine.apiserver.dto.ProductSearchQuery;
+import com.smallnine.apiserver.dto.SearchFacet;
+import com.smallnine.apiserver.dto.StockChange;
 import com.smallnine.apiserver.entity.Product;
 import org.apache.ibatis.annotations.Mapper;
 import org.apache.ibatis.annotations.Param;
 
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -15,6 +21,22 @@ public interface ProductDao {
      */
     Optional<Product> findById(@Param("id") Long id);
     
+    /**
+     * 根據多個ID批次查詢商品（單次查詢，取代逐筆 findById）
+     */
+    List<Product> findByIds(@Param("ids") Collection<Long> ids);
+
+    /**
+     * 只查庫存（主鍵單欄查詢），供商品快取補上最新庫存
+     */
+    Optional<Integer> findStockById(@Param("id") Long id);
+
+    /**
+     * 鎖列後查庫存（SELECT ... FOR UPDATE），需在交易內呼叫；
+     * 會等進行中的扣減 commit 後讀到最新值
+     */
+    Optional<Integer> findStockByIdForUpdate(@Param("id") Long id);
+
     /**
      * 根據SKU查詢商品
      */
@@ -50,6 +72,19 @@ public interface ProductDao {
      */
     List<Product> searchByName(@Param("name") String name, @Param("offset") int offset, @Param("limit") int limit);
     
+    /**
+     * 相關度搜尋：名稱命中詞數多者優先，再依名稱與關鍵字的 trigram 相似度排序
+     */
+    List<Product> searchRanked(@Param("q") ProductSearchQuery query,
+                               @Param("offset") int offset, @Param("limit") int limit);
+
+    /**
+     * 相關度搜尋的分面統計：總數、分類、品牌、價格區間以 GROUPING SETS 一次算出
+     * @param priceBands 價格區間下界（由小到大，不含 0）
+     */
+    List<SearchFacet> searchFacets(@Param("q") ProductSearchQuery query,
+                                   @Param("priceBands") List<BigDecimal> priceBands);
+
     /**
      * 根據價格範圍查詢商品
      */
@@ -65,6 +100,56 @@ public interface ProductDao {
                                 @Param("maxPrice") java.math.BigDecimal maxPrice,
                                 @Param("offset") int offset, @Param("limit") int limit);
     
+    /**
+     * 查詢啟用的商品（keyset 分頁，依 created_at DESC, id DESC）
+     * cursorCreatedAt 為 null 時代表第一頁
+     */
+    List<Product> findActiveProductsWithCursor(@Param("cursorCreatedAt") LocalDateTime cursorCreatedAt,
+                                               @Param("cursorId") Long cursorId,
+                                               @Param("limit") int limit);
+
+    /**
+     * 查詢所有商品（keyset 分頁）
+     */
+    List<Product> findAllWithCursor(@Param("cursorCreatedAt") LocalDateTime cursorCreatedAt,
+                                    @Param("cursorId") Long cursorId,
+                                    @Param("limit") int limit);
+
+    /**
+     * 根據分類ID查詢商品（keyset 分頁）
+     */
+    List<Product> findByCategoryIdWithCursor(@Param("categoryId") Long categoryId,
+                                             @Param("cursorCreatedAt") LocalDateTime cursorCreatedAt,
+                                             @Param("cursorId") Long cursorId,
+                                             @Param("limit") int limit);
+
+    /**
+     * 根據名稱模糊搜索商品（keyset 分頁）
+     */
+    List<Product> searchByNameWithCursor(@Param("name") String name,
+                                         @Param("cursorCreatedAt") LocalDateTime cursorCreatedAt,
+                                         @Param("cursorId") Long cursorId,
+                                         @Param("limit") int limit);
+
+    /**
+     * 根據價格範圍查詢商品（keyset 分頁，依 price ASC, id ASC）
+     */
+    List<Product> findByPriceRangeWithCursor(@Param("minPrice") BigDecimal minPrice,
+                                             @Param("maxPrice") BigDecimal maxPrice,
+                                             @Param("cursorPrice") BigDecimal cursorPrice,
+                                             @Param("cursorId") Long cursorId,
+                                             @Param("limit") int limit);
+
+    /**
+     * 搜索商品（組合條件，keyset 分頁）
+     */
+    List<Product> searchProductsWithCursor(@Param("keyword") String keyword,
+                                           @Param("minPrice") BigDecimal minPrice,
+                                           @Param("maxPrice") BigDecimal maxPrice,
+                                           @Param("cursorCreatedAt") LocalDateTime cursorCreatedAt,
+                                           @Param("cursorId") Long cursorId,
+                                           @Param("limit") int limit);
+
     /**
      * 創建商品
      */
@@ -90,10 +175,28 @@ public interface ProductDao {
      */
     int decreaseStock(@Param("id") Long id, @Param("quantity") Integer quantity);
 
+    /**
+     * 批次扣減庫存（單一 SQL）
+     * 先依商品 id 由小到大鎖列再扣減，並發結帳不會互相交叉鎖而死鎖；
+     * 只有庫存足夠的列會被扣，回傳成功扣減的商品 id。
+     * 呼叫端需保證 changes 非空且 productId 不重複。
+     */
+    List<Long> decreaseStockBatch(@Param("changes") List<StockChange> changes);
+
     /**
      * 增加商品庫存（原子操作）
      */
     int increaseStock(@Param("id") Long id, @Param("quantity") Integer quantity);
+
+    /**
+     * 依訂單明細批次還庫存（單一 SQL）
+     * 直接 JOIN order_items 彙總各商品數量，鎖列順序與 decreaseStockBatch 相同（商品 id 由小到大），
+     * 大量取消與並發結帳同時進行也不會交叉鎖而死鎖。
+     * @param excludedProductIds 不走 DB 的商品（熱門商品改還 Redis 計數），可為空
+     * @return 實際回補的商品 id
+     */
+    List<Long> increaseStockByOrder(@Param("orderId") Long orderId,
+                                    @Param("excludedProductIds") Collection<Long> excludedProductIds);
     
     /**
      * 統計商品總數
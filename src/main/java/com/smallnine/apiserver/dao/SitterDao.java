@@ -27,5 +27,7 @@ public interface SitterDao {
 
     int update(Sitter sitter);
 
+    int addRating(@Param("id") Long id, @Param("rating") Integer rating);
+
     int deleteById(@Param("id") Long id);
 }
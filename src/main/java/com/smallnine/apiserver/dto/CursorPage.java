@@ -0,0 +1,53 @@
+package com.smallnine.apiserver.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Keyset 分頁結果：不回傳總數與頁碼，只回傳下一頁游標。
+ * 查詢時多撈一筆（size + 1）用來判斷是否還有下一頁。
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Schema(description = "游標分頁回應")
+public class CursorPage<T> {
+
+    @Schema(description = "本頁資料")
+    private List<T> content;
+
+    @Schema(description = "下一頁游標，沒有下一頁時為 null", example = "MjAyNS0wMS0wMVQxMDowMHwxMjM")
+    private String nextCursor;
+
+    @Schema(description = "是否還有下一頁", example = "true")
+    private boolean hasNext;
+
+    @Schema(description = "每頁筆數", example = "10")
+    private int size;
+
+    /**
+     * 由 size + 1 筆查詢結果組出分頁
+     * @param rows DAO 回傳的資料（最多 size + 1 筆）
+     * @param cursorOf 由本頁最後一筆產生游標
+     */
+    public static <T> CursorPage<T> of(List<T> rows, int size, Function<T, String> cursorOf) {
+        boolean hasNext = rows.size() > size;
+        List<T> content = hasNext ? new ArrayList<>(rows.subList(0, size)) : rows;
+        String nextCursor = hasNext ? cursorOf.apply(content.get(content.size() - 1)) : null;
+        return new CursorPage<>(content, nextCursor, hasNext, size);
+    }
+
+    public <R> CursorPage<R> map(Function<T, R> mapper) {
+        List<R> mapped = new ArrayList<>(content.size());
+        for (T item : content) {
+            mapped.add(mapper.apply(item));
+        }
+        return new CursorPage<>(mapped, nextCursor, hasNext, size);
+    }
+}
@@ -0,0 +1,27 @@
+package com.smallnine.apiserver.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 熱門商品 Redis 預扣結果
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class HotStockReserveResult {
+
+    /**
+     * 庫存不足的商品 id；非空代表整批都沒有扣（all-or-nothing）
+     */
+    private List<Long> insufficientProductIds = new ArrayList<>();
+
+    /**
+     * 預扣時發現已不是熱門商品（計數 key 已被停用），需改走 DB 扣庫存的項目
+     */
+    private List<StockChange> notHot = new ArrayList<>();
+}
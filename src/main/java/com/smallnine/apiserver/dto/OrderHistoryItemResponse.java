@@ -0,0 +1,29 @@
+package com.smallnine.apiserver.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.Data;
+
+import java.math.BigDecimal;
+
+@Data
+@Schema(description = "訂單歷史明細")
+public class OrderHistoryItemResponse {
+
+    @Schema(description = "明細ID", example = "456")
+    private Long id;
+
+    @Schema(description = "商品ID", example = "1")
+    private Long productId;
+
+    @Schema(description = "商品名稱（下單時未存快照則為目前名稱）", example = "天然無穀狗糧 2kg")
+    private String productName;
+
+    @Schema(description = "數量", example = "2")
+    private Integer quantity;
+
+    @Schema(description = "單價", example = "799.00")
+    private BigDecimal unitPrice;
+
+    @Schema(description = "小計", example = "1598.00")
+    private BigDecimal totalPrice;
+}
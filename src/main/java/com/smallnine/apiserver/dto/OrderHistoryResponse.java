@@ -0,0 +1,38 @@
+package com.smallnine.apiserver.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.Data;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 會員訂單歷史（讀取模型）：列表頁需要的欄位 + 訂單明細，由 OrderDao.findHistoryWithCursor 一次查出
+ */
+@Data
+@Schema(description = "訂單歷史")
+public class OrderHistoryResponse {
+
+    @Schema(description = "訂單ID", example = "123")
+    private Long id;
+
+    @Schema(description = "訂單號", example = "ORDK7P2M9XQ4HZA")
+    private String orderNumber;
+
+    @Schema(description = "訂單狀態ID", example = "1")
+    private Long statusId;
+
+    @Schema(description = "訂單總額", example = "1598.00")
+    private BigDecimal totalAmount;
+
+    @Schema(description = "配送方式", example = "HOME_DELIVERY")
+    private String deliveryMethod;
+
+    @Schema(description = "下單時間")
+    private LocalDateTime createdAt;
+
+    @Schema(description = "訂單明細")
+    private List<OrderHistoryItemResponse> items = new ArrayList<>();
+}
@@ -0,0 +1,49 @@
+package com.smallnine.apiserver.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 商品快取命中統計（自本節點啟動起累計）
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Schema(description = "商品快取命中統計")
+public class ProductCacheStats {
+
+    @Schema(description = "商品資料命中次數", example = "1200")
+    private long productHits;
+
+    @Schema(description = "商品資料未命中次數", example = "35")
+    private long productMisses;
+
+    @Schema(description = "SKU 對應命中次數", example = "80")
+    private long skuHits;
+
+    @Schema(description = "SKU 對應未命中次數", example = "4")
+    private long skuMisses;
+
+    @Schema(description = "庫存命中次數", example = "900")
+    private long stockHits;
+
+    @Schema(description = "庫存未命中次數", example = "300")
+    private long stockMisses;
+
+    @Schema(description = "商品資料命中率", example = "0.97")
+    public double getProductHitRatio() {
+        return ratio(productHits, productMisses);
+    }
+
+    @Schema(description = "庫存命中率", example = "0.75")
+    public double getStockHitRatio() {
+        return ratio(stockHits, stockMisses);
+    }
+
+    private static double ratio(long hits, long misses) {
+        long total = hits + misses;
+        return total == 0 ? 0 : (double) hits / total;
+    }
+}
@@ -0,0 +1,22 @@
+package com.smallnine.apiserver.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Schema(description = "搜尋命中的商品")
+public class ProductSearchHit {
+
+    @Schema(description = "商品")
+    private ProductResponse product;
+
+    @Schema(description = "名稱（已做 HTML 跳脫，命中處以 <em> 標示）", example = "高級<em>狗糧</em> 2kg")
+    private String highlightedName;
+
+    @Schema(description = "描述摘要（已做 HTML 跳脫，命中處以 <em> 標示）", example = "…適合成犬的<em>狗糧</em>…")
+    private String highlightedDescription;
+}
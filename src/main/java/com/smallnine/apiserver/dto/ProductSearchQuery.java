@@ -0,0 +1,21 @@
+package com.smallnine.apiserver.dto;
+
+import lombok.Data;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+/**
+ * 全文搜尋條件（service 組好後交給 DAO）。
+ * terms 已做 LIKE 跳脫，每個詞都必須出現在名稱或描述中；keyword 為原始字串，只用於相似度排序。
+ */
+@Data
+public class ProductSearchQuery {
+
+    private String keyword;
+    private List<String> terms;
+    private Long categoryId;
+    private Long brandId;
+    private BigDecimal minPrice;
+    private BigDecimal maxPrice;
+}
@@ -0,0 +1,38 @@
+package com.smallnine.apiserver.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 相關度搜尋結果：命中商品 + 依分類 / 品牌 / 價格區間的分面統計
+ */
+@Data
+@NoArgsConstructor
+@Schema(description = "商品搜尋結果")
+public class ProductSearchResult {
+
+    @Schema(description = "本頁商品（依相關度排序）")
+    private List<ProductSearchHit> content = new ArrayList<>();
+
+    @Schema(description = "符合條件的商品總數", example = "42")
+    private long total;
+
+    @Schema(description = "頁碼（從 0 開始）", example = "0")
+    private int page;
+
+    @Schema(description = "每頁筆數", example = "20")
+    private int size;
+
+    @Schema(description = "分類分面")
+    private List<SearchFacet> categories = new ArrayList<>();
+
+    @Schema(description = "品牌分面")
+    private List<SearchFacet> brands = new ArrayList<>();
+
+    @Schema(description = "價格區間分面")
+    private List<SearchFacet> priceBands = new ArrayList<>();
+}
@@ -0,0 +1,26 @@
+package com.smallnine.apiserver.dto;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.Data;
+
+/**
+ * 搜尋結果的分面統計（單一值）
+ */
+@Data
+@Schema(description = "分面統計")
+public class SearchFacet {
+
+    /** category / brand / price / total，僅供組裝用 */
+    @JsonIgnore
+    private String type;
+
+    @Schema(description = "分面值：分類 ID、品牌 ID 或價格區間序號", example = "3")
+    private Long key;
+
+    @Schema(description = "顯示名稱", example = "狗狗主食")
+    private String label;
+
+    @Schema(description = "符合的商品數", example = "12")
+    private long count;
+}
@@ -39,6 +39,7 @@ public class SitterResponse {
         resp.setIntroduction(sitter.getIntroduction());
         resp.setPrice(sitter.getPrice());
         resp.setAvatarUrl(sitter.getAvatarUrl());
+        resp.setRating(sitter.getAvgRating() != null ? sitter.getAvgRating() : 0.0);
         resp.setCreatedAt(sitter.getCreatedAt());
         resp.setUpdatedAt(sitter.getUpdatedAt());
         return resp;
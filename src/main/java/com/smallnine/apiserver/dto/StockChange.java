@@ -0,0 +1,18 @@
+package com.smallnine.apiserver.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 批次庫存異動的單筆項目（扣庫存 / 還庫存共用）
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class StockChange {
+
+    private Long productId;
+
+    private Integer quantity;
+}
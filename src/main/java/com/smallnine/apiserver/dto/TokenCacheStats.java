@@ -0,0 +1,37 @@
+package com.smallnine.apiserver.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 已驗證 token 快取命中統計（自本節點啟動起累計）
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Schema(description = "已驗證 token 快取命中統計")
+public class TokenCacheStats {
+
+    @Schema(description = "是否啟用", example = "true")
+    private boolean enabled;
+
+    @Schema(description = "命中次數（省下的驗簽次數）", example = "52000")
+    private long hits;
+
+    @Schema(description = "未命中次數", example = "800")
+    private long misses;
+
+    @Schema(description = "因容量上限被淘汰的筆數", example = "0")
+    private long evictions;
+
+    @Schema(description = "目前快取筆數（約略值）", example = "640")
+    private long size;
+
+    @Schema(description = "命中率", example = "0.98")
+    public double getHitRatio() {
+        long total = hits + misses;
+        return total == 0 ? 0 : (double) hits / total;
+    }
+}
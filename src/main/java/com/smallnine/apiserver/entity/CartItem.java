@@ -1,5 +1,6 @@
 package com.smallnine.apiserver.entity;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 import lombok.AllArgsConstructor;
@@ -25,6 +26,12 @@ public class CartItem {
     private LocalDateTime createdAt;
     
     private LocalDateTime updatedAt;
+
+    /**
+     * 關聯商品，只有 findByMemberIdWithProduct 會填入；不對外輸出
+     */
+    @JsonIgnore
+    private Product product;
     
     protected void onCreate() {
         createdAt = LocalDateTime.now();
@@ -0,0 +1,30 @@
+package com.smallnine.apiserver.entity;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.AllArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * 熱門商品預扣流水（已回寫 DB 的紀錄）
+ * entryId 為 Redis stream entry id，作為主鍵確保同一筆流水只回寫一次
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class InventoryReservation {
+
+    private String entryId;
+
+    private Long productId;
+
+    /**
+     * 庫存異動量：預扣為負、還庫存為正
+     */
+    private Integer delta;
+
+    private String reference;
+
+    private LocalDateTime createdAt;
+}
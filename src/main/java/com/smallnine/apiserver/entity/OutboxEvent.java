@@ -0,0 +1,45 @@
+package com.smallnine.apiserver.entity;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.AllArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * 交易外寄箱事件：與業務資料同一交易寫入，commit 後由 OutboxDispatcher 投遞
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class OutboxEvent {
+
+    private Long id;
+
+    private String aggregateType;
+
+    private Long aggregateId;
+
+    private String eventType;
+
+    /**
+     * 事件內容（JSON）
+     */
+    private String payload;
+
+    /**
+     * 已領取處理的次數（領取時即 +1，處理中當機也會計入）
+     */
+    private Integer attempts;
+
+    private String lastError;
+
+    /**
+     * 下次可被領取的時間：領取時推後作為租約，失敗時推後作為退避
+     */
+    private LocalDateTime availableAt;
+
+    private LocalDateTime createdAt;
+
+    private LocalDateTime processedAt;
+}
@@ -21,6 +21,8 @@ public class Sitter {
     private String introduction;
     private BigDecimal price;
     private String avatarUrl;
+    private Integer ratingCount;
+    private Double avgRating;
     private LocalDateTime createdAt;
     private LocalDateTime updatedAt;
 }
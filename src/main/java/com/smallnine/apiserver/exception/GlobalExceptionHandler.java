@@ -6,6 +6,7 @@ import com.smallnine.apiserver.logging.AuditLogger;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.AccessDeniedException;
@@ -40,6 +41,22 @@ public class GlobalExceptionHandler {
         return new ResponseEntity<>(response, status);
     }
 
+    /**
+     * 限流異常處理：429 + Retry-After
+     */
+    @ExceptionHandler(RateLimitExceededException.class)
+    public ResponseEntity<ApiResponse<Void>> handleRateLimitExceededException(
+            RateLimitExceededException ex, WebRequest request) {
+
+        log.warn("限流: message={}, retryAfterSeconds={}, 請求: {}",
+                ex.getMessage(), ex.getRetryAfterSeconds(), request.getDescription(false));
+
+        ApiResponse<Void> response = ApiResponse.error(ex.getCode(), ex.getMessage());
+        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(ex.getRetryAfterSeconds()))
+                .body(response);
+    }
+
     /**
      * 資源不存在異常處理
      */
@@ -0,0 +1,30 @@
+package com.smallnine.apiserver.exception;
+
+import com.smallnine.apiserver.constants.enums.ResponseCode;
+
+import java.time.Duration;
+
+/**
+ * 限流拒絕：除了 429 之外，把何時可以重試帶給 GlobalExceptionHandler 寫成 Retry-After header
+ */
+public class RateLimitExceededException extends BusinessException {
+
+    private final Duration retryAfter;
+
+    public RateLimitExceededException(String message, Duration retryAfter) {
+        super(ResponseCode.TOO_MANY_REQUESTS, message);
+        this.retryAfter = retryAfter;
+    }
+
+    public Duration getRetryAfter() {
+        return retryAfter;
+    }
+
+    /**
+     * Retry-After 以秒為單位，無條件進位、至少 1 秒
+     */
+    public long getRetryAfterSeconds() {
+        long millis = retryAfter.toMillis();
+        return Math.max(1, (millis + 999) / 1000);
+    }
+}
@@ -7,6 +7,7 @@ import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.core.userdetails.UserDetails;
@@ -16,6 +17,9 @@ import org.springframework.stereotype.Component;
 import org.springframework.web.filter.OncePerRequestFilter;
 
 import com.smallnine.apiserver.logging.AuditLogger;
+import com.smallnine.apiserver.security.UserPrincipal;
+import com.smallnine.apiserver.security.VerifiedTokenCache;
+import com.smallnine.apiserver.service.UserRevocationService;
 import com.smallnine.apiserver.utils.JwtUtil;
 
 import lombok.RequiredArgsConstructor;
@@ -26,9 +30,15 @@ import lombok.extern.slf4j.Slf4j;
 @RequiredArgsConstructor
 public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
-    private final JwtUtil jwtUtil;
+    private final VerifiedTokenCache verifiedTokenCache;
     private final UserDetailsService userDetailsService;
     private final AuditLogger auditLogger;
+    private final UserRevocationService userRevocationService;
+
+    // 開啟後帶 id / role / enabled claims 的 access token 直接組 principal，不查 member；
+    // 停用帳號靠 Redis 撤銷清單生效
+    @Value("${app.security.stateless-principal.enabled:false}")
+    private boolean statelessPrincipal;
     
     @Override
     protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
@@ -36,30 +46,32 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         
         final String requestTokenHeader = request.getHeader("Authorization");
         
-        String username = null;
-        String jwtToken = null;
+        // 驗簽 + 解析只做一次（含過期檢查，效期內重複的 token 由快取直接給），後面的判斷都讀 ParsedToken
+        JwtUtil.ParsedToken parsed = null;
         
         if (requestTokenHeader != null && requestTokenHeader.startsWith("Bearer ")) {
-            jwtToken = requestTokenHeader.substring(7);
+            String jwtToken = requestTokenHeader.substring(7);
             try {
-                username = jwtUtil.extractUsername(jwtToken);
+                parsed = verifiedTokenCache.parse(jwtToken);
             } catch (Exception e) {
                 log.warn("JWT 解析失敗: uri={}, error={}: {}", request.getRequestURI(), e.getClass().getSimpleName(), e.getMessage());
                 auditLogger.logAccessDenied(request.getRequestURI(), "JWT 解析失敗: " + e.getMessage());
             }
         }
         
+        if (parsed != null && !parsed.isAccessToken()) {
+            // 在查使用者之前擋掉 refresh token，省一次 DB 查詢
+            log.warn("非 access token 嘗試存取 API: uri={}", request.getRequestURI());
+            auditLogger.logAccessDenied(request.getRequestURI(), "非 access token 嘗試存取 API");
+            parsed = null;
+        }
+        
+        String username = parsed == null ? null : parsed.getSubject();
         if (username != null && SecurityContextHolder.getContext().getAuthentication() == null) {
             try {
-                UserDetails userDetails = this.userDetailsService.loadUserByUsername(username);
+                UserDetails userDetails = resolvePrincipal(parsed, request);
                 
-                if (jwtUtil.validateToken(jwtToken, userDetails)) {
-                    if (!jwtUtil.isAccessToken(jwtToken)) {
-                        log.warn("非 access token 嘗試存取 API: uri={}", request.getRequestURI());
-                        auditLogger.logAccessDenied(request.getRequestURI(), "非 access token 嘗試存取 API");
-                        filterChain.doFilter(request, response);
-                        return;
-                    }
+                if (userDetails != null && username.equals(userDetails.getUsername())) {
                     UsernamePasswordAuthenticationToken authToken =
                             new UsernamePasswordAuthenticationToken(
                                     userDetails,
@@ -68,7 +80,7 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
                             );
                     authToken.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
                     SecurityContextHolder.getContext().setAuthentication(authToken);
-                } else {
+                } else if (userDetails != null) {
                     log.warn("JWT 驗證失敗: uri={}, user={}", request.getRequestURI(), username);
                     auditLogger.logAccessDenied(request.getRequestURI(), "JWT 驗證失敗, user=" + username);
                 }
@@ -81,4 +93,29 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         
         filterChain.doFilter(request, response);
     }
+
+    /**
+     * 由 claims 組 principal；舊 token（沒有 claims）、功能未開或 Redis 不可用時退回查 DB。
+     * @return null 代表 token 已撤銷或帳號停用
+     */
+    private UserDetails resolvePrincipal(JwtUtil.ParsedToken parsed, HttpServletRequest request) {
+        if (statelessPrincipal && parsed.hasPrincipalClaims()) {
+            try {
+                if (userRevocationService.isRevoked(parsed.getUserId(), parsed.getIssuedAt())) {
+                    log.warn("已撤銷的 token 嘗試存取 API: uri={}, user={}", request.getRequestURI(), parsed.getSubject());
+                    auditLogger.logAccessDenied(request.getRequestURI(), "token 已撤銷, user=" + parsed.getSubject());
+                    return null;
+                }
+                if (!parsed.getEnabled()) {
+                    auditLogger.logAccessDenied(request.getRequestURI(), "帳號已停用, user=" + parsed.getSubject());
+                    return null;
+                }
+                return UserPrincipal.fromToken(parsed);
+            } catch (RuntimeException e) {
+                log.warn("無狀態 principal 失敗，改查 DB: user={}, error={}: {}",
+                        parsed.getSubject(), e.getClass().getSimpleName(), e.getMessage());
+            }
+        }
+        return this.userDetailsService.loadUserByUsername(parsed.getSubject());
+    }
 }
\ No newline at end of file
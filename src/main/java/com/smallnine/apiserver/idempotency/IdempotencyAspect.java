@@ -0,0 +1,258 @@
+package com.smallnine.apiserver.idempotency;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.smallnine.apiserver.constants.enums.ResponseCode;
+import com.smallnine.apiserver.exception.BusinessException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.http.HttpServletRequest;
+import lombok.extern.slf4j.Slf4j;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.authentication.AnonymousAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Method;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 冪等切面
+ * 處理帶有 @Idempotent 註解的 controller 方法
+ *
+ * 一般重送（第一次已完成）只花一次 Redis 往返：begin script 讀回保存的 status + body
+ * 直接回放，不進 service、不查 DB。第一次還在執行時，最多等 wait-timeout-ms
+ * 看它完成再回放，逾時才回 409。
+ *
+ * 切面使用預設順序（最低優先），排在 @PreAuthorize 之後：未授權的請求不會佔位。
+ *
+ * Redis 故障時降級為直接執行；需要嚴格保證的端點（如下單）另有 DB unique constraint 兜底。
+ *
+ * 指標 http.idempotency{scope, outcome}：
+ *  executed / replayed / replayed_after_wait / in_progress（等待逾時回 409）/
+ *  fingerprint_mismatch / degraded（Redis 故障直接執行）
+ */
+@Slf4j
+@Aspect
+@Component
+public class IdempotencyAspect {
+
+    static final String METRIC_NAME = "http.idempotency";
+    static final String REPLAYED_HEADER = "Idempotent-Replayed";
+    static final String KEY_PREFIX = "idempotency:";
+
+    private static final int MAX_KEY_LENGTH = 128;
+    private static final long INITIAL_POLL_MS = 20;
+    private static final long MAX_POLL_MS = 200;
+
+    private final IdempotencyStore store;
+    private final ObjectMapper objectMapper;
+    private final MeterRegistry meterRegistry;
+    private final long waitTimeoutNanos;
+    private final Duration lockTtl;
+    private final Duration ttl;
+
+    // 每個方法第一次被呼叫時找出 @RequestBody 參數位置並快取；-1 代表沒有
+    private final Map<Method, Integer> bodyParamIndex = new ConcurrentHashMap<>();
+    private final Map<String, Counter> counters = new ConcurrentHashMap<>();
+
+    public IdempotencyAspect(IdempotencyStore store,
+                             ObjectMapper objectMapper,
+                             MeterRegistry meterRegistry,
+                             @Value("${app.idempotency.wait-timeout-ms:2000}") long waitTimeoutMs,
+                             @Value("${app.idempotency.lock-ttl-ms:60000}") long lockTtlMs,
+                             @Value("${app.idempotency.ttl-hours:24}") long ttlHours) {
+        this.store = store;
+        this.objectMapper = objectMapper;
+        this.meterRegistry = meterRegistry;
+        this.waitTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(waitTimeoutMs);
+        this.lockTtl = Duration.ofMillis(lockTtlMs);
+        this.ttl = Duration.ofHours(ttlHours);
+    }
+
+    @Around("@annotation(idempotent)")
+    public Object around(ProceedingJoinPoint joinPoint, Idempotent idempotent) throws Throwable {
+        HttpServletRequest request = currentRequest();
+        String idempotencyKey = request == null ? null : request.getHeader(idempotent.header());
+        if (idempotencyKey == null || idempotencyKey.isBlank()) {
+            return joinPoint.proceed();
+        }
+        if (idempotencyKey.length() > MAX_KEY_LENGTH) {
+            throw new BusinessException(ResponseCode.BAD_REQUEST,
+                    idempotent.header() + " 長度不可超過 " + MAX_KEY_LENGTH);
+        }
+
+        String scope = idempotent.scope();
+        String redisKey = KEY_PREFIX + scope + ":" + principal() + ":" + idempotencyKey;
+        String fingerprint = fingerprint(joinPoint, request);
+        String owner = UUID.randomUUID().toString();
+
+        long deadline = System.nanoTime() + waitTimeoutNanos;
+        long pollMs = INITIAL_POLL_MS;
+        boolean waited = false;
+        while (true) {
+            IdempotencyStore.Entry entry;
+            try {
+                entry = store.begin(redisKey, owner, fingerprint, lockTtl);
+            } catch (RuntimeException e) {
+                log.warn("idempotency=degraded key={} reason={}", redisKey, e.getMessage());
+                count(scope, "degraded");
+                return joinPoint.proceed();
+            }
+
+            if (entry.getState() == IdempotencyStore.State.ACQUIRED) {
+                count(scope, "executed");
+                return execute(joinPoint, redisKey, owner);
+            }
+            if (!fingerprint.equals(entry.getFingerprint())) {
+                count(scope, "fingerprint_mismatch");
+                throw new BusinessException(ResponseCode.BAD_REQUEST,
+                        idempotent.header() + " 已用於內容不同的請求");
+            }
+            if (entry.getState() == IdempotencyStore.State.DONE) {
+                count(scope, waited ? "replayed_after_wait" : "replayed");
+                log.info("idempotency=replayed key={} status={}", redisKey, entry.getStatus());
+                return replay(entry);
+            }
+
+            long remainingNanos = deadline - System.nanoTime();
+            if (remainingNanos <= 0) {
+                count(scope, "in_progress");
+                throw new BusinessException(ResponseCode.CONFLICT, "請求正在處理中，請稍後重試");
+            }
+            try {
+                Thread.sleep(Math.min(pollMs, TimeUnit.NANOSECONDS.toMillis(remainingNanos) + 1));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                count(scope, "in_progress");
+                throw new BusinessException(ResponseCode.CONFLICT, "請求正在處理中，請稍後重試");
+            }
+            pollMs = Math.min(pollMs * 2, MAX_POLL_MS);
+            waited = true;
+        }
+    }
+
+    /**
+     * 取得佔位後執行；只保存 2xx 回應，其他結果釋放佔位讓重送重新執行
+     */
+    private Object execute(ProceedingJoinPoint joinPoint, String redisKey, String owner) throws Throwable {
+        Object result;
+        try {
+            result = joinPoint.proceed();
+        } catch (Throwable t) {
+            release(redisKey, owner);
+            throw t;
+        }
+
+        if (!(result instanceof ResponseEntity<?> response) || !response.getStatusCode().is2xxSuccessful()) {
+            release(redisKey, owner);
+            return result;
+        }
+
+        // 方法已成功（下單等副作用已 commit），保存回應是 best-effort。
+        // 寫入失敗時釋放佔位：留著 PENDING 會讓重送一直等到 lock-ttl 過期
+        try {
+            String body = objectMapper.writeValueAsString(response.getBody());
+            if (!store.complete(redisKey, owner, response.getStatusCode().value(), body, ttl)) {
+                log.warn("idempotency=complete_skipped key={} reason=lock_expired", redisKey);
+            }
+        } catch (Exception e) {
+            release(redisKey, owner);
+            log.error("idempotency=finalize_failed key={} reason={}", redisKey, e.getMessage());
+        }
+        return result;
+    }
+
+    private void release(String redisKey, String owner) {
+        try {
+            store.release(redisKey, owner);
+        } catch (RuntimeException e) {
+            log.warn("idempotency=cleanup_failed key={} reason={}", redisKey, e.getMessage());
+        }
+    }
+
+    /**
+     * 回放保存的回應；body 已是 JSON 字串，由 StringHttpMessageConverter 原樣寫出
+     */
+    private ResponseEntity<String> replay(IdempotencyStore.Entry entry) {
+        return ResponseEntity.status(entry.getStatus())
+                .contentType(MediaType.APPLICATION_JSON)
+                .header(REPLAYED_HEADER, "true")
+                .body(entry.getBody());
+    }
+
+    /**
+     * 請求指紋：method + URI + @RequestBody 的 JSON，SHA-256
+     */
+    private String fingerprint(ProceedingJoinPoint joinPoint, HttpServletRequest request) throws Exception {
+        MessageDigest digest = sha256();
+        digest.update((request.getMethod() + " " + request.getRequestURI() + "\n").getBytes(StandardCharsets.UTF_8));
+        Method method = ((MethodSignature) joinPoint.getSignature()).getMethod();
+        int index = bodyParamIndex.computeIfAbsent(method, IdempotencyAspect::findRequestBody);
+        if (index >= 0) {
+            digest.update(objectMapper.writeValueAsBytes(joinPoint.getArgs()[index]));
+        }
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    private static int findRequestBody(Method method) {
+        Annotation[][] annotations = method.getParameterAnnotations();
+        for (int i = 0; i < annotations.length; i++) {
+            for (Annotation annotation : annotations[i]) {
+                if (annotation instanceof RequestBody) {
+                    return i;
+                }
+            }
+        }
+        return -1;
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static String principal() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication == null || authentication instanceof AnonymousAuthenticationToken) {
+            return "anonymous";
+        }
+        return authentication.getName();
+    }
+
+    private static HttpServletRequest currentRequest() {
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        return attributes instanceof ServletRequestAttributes servlet ? servlet.getRequest() : null;
+    }
+
+    private void count(String scope, String outcome) {
+        counters.computeIfAbsent(scope + "|" + outcome, k -> Counter.builder(METRIC_NAME)
+                        .description("冪等鍵處理結果")
+                        .tag("scope", scope)
+                        .tag("outcome", outcome)
+                        .register(meterRegistry))
+                .increment();
+    }
+}
@@ -0,0 +1,98 @@
+package com.smallnine.apiserver.idempotency;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.RequiredArgsConstructor;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * 冪等紀錄的 Redis 存取，每個操作一支 Lua、一次往返。
+ *
+ * 資料模型：一個 hash
+ *  - state   PENDING（執行中）/ DONE（已完成）
+ *  - owner   佔位者 token，只有本人能 complete / release（完成後刪除）
+ *  - fp      請求指紋，同一 key 換了請求內容要能認出來
+ *  - status / body  完成後的 HTTP status 與回應 JSON，回放時原樣送出
+ *
+ * 刻意用 StringRedisTemplate：body 已是 JSON 字串，
+ * 走共用 RedisTemplate 的 JSON 序列化器會再包一層引號。
+ *
+ * 不吞例外：Redis 故障時由 {@link IdempotencyAspect} 決定降級方式。
+ */
+@Component
+@RequiredArgsConstructor
+public class IdempotencyStore {
+
+    @SuppressWarnings("rawtypes")
+    private static final RedisScript<List> BEGIN_SCRIPT =
+            RedisScript.of(new ClassPathResource("scripts/idempotency_begin.lua"), List.class);
+    private static final RedisScript<Long> COMPLETE_SCRIPT =
+            RedisScript.of(new ClassPathResource("scripts/idempotency_complete.lua"), Long.class);
+    private static final RedisScript<Long> RELEASE_SCRIPT =
+            RedisScript.of(new ClassPathResource("scripts/idempotency_release.lua"), Long.class);
+
+    private final StringRedisTemplate stringRedisTemplate;
+
+    /**
+     * 佔位；key 已存在時讀回既有紀錄
+     * @param lockTtl PENDING 佔位的存活時間，執行者當掉時到期自動釋放
+     */
+    public Entry begin(String key, String owner, String fingerprint, Duration lockTtl) {
+        List<?> reply = stringRedisTemplate.execute(BEGIN_SCRIPT, List.of(key),
+                owner, fingerprint, String.valueOf(lockTtl.toMillis()));
+        if (reply == null || reply.isEmpty()) {
+            throw new IllegalStateException("idempotency begin script returned " + reply);
+        }
+        String state = String.valueOf(reply.get(0));
+        if ("ACQUIRED".equals(state)) {
+            return new Entry(State.ACQUIRED, fingerprint, 0, null);
+        }
+        if ("DONE".equals(state)) {
+            return new Entry(State.DONE, String.valueOf(reply.get(1)),
+                    Integer.parseInt(String.valueOf(reply.get(2))), String.valueOf(reply.get(3)));
+        }
+        // PENDING，或 key 在 HSETNX 與 HMGET 之間不可能出現的空狀態，一律視為執行中
+        return new Entry(State.PENDING, String.valueOf(reply.get(1)), 0, null);
+    }
+
+    /**
+     * 保存完成的回應；回傳 false 代表佔位已過期並被別人取得，本次結果不寫入
+     */
+    public boolean complete(String key, String owner, int status, String body, Duration ttl) {
+        Long written = stringRedisTemplate.execute(COMPLETE_SCRIPT, List.of(key),
+                owner, String.valueOf(status), body, String.valueOf(ttl.toMillis()));
+        return written != null && written == 1L;
+    }
+
+    /**
+     * 釋放自己的佔位，讓下一次重送重新執行
+     */
+    public boolean release(String key, String owner) {
+        Long deleted = stringRedisTemplate.execute(RELEASE_SCRIPT, List.of(key), owner);
+        return deleted != null && deleted == 1L;
+    }
+
+    public enum State {
+        /** 本次請求取得佔位，由本次執行 */
+        ACQUIRED,
+        /** 同一 key 的另一個請求執行中 */
+        PENDING,
+        /** 已完成，可回放 */
+        DONE
+    }
+
+    @Data
+    @AllArgsConstructor
+    public static class Entry {
+        private final State state;
+        private final String fingerprint;
+        private final int status;
+        private final String body;
+    }
+}
@@ -0,0 +1,35 @@
+package com.smallnine.apiserver.idempotency;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * 冪等端點註解
+ * 請求帶 Idempotency-Key header 時，同一使用者、同一 key 的重送直接回放第一次的回應
+ * （status + body），不會再次執行方法；沒帶 header 則照常執行。
+ *
+ * 標註的方法必須回傳 ResponseEntity，只有 2xx 回應會被保存；
+ * 拋例外或非 2xx 時釋放佔位，重送會重新執行。
+ *
+ * 使用示例：
+ * <pre>
+ * {@code @Idempotent(scope = "order.create")}
+ * public ResponseEntity<ApiResponse<OrderResponse>> createOrder(...) { ... }
+ * </pre>
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface Idempotent {
+
+    /**
+     * 冪等範圍名稱，組成 Redis key 的一段（不同端點用不同 scope，key 才不會互相回放）
+     */
+    String scope();
+
+    /**
+     * 攜帶冪等鍵的 header 名稱
+     */
+    String header() default "Idempotency-Key";
+}
@@ -1,27 +1,47 @@
 package com.smallnine.apiserver.interceptor;
 
 import com.smallnine.apiserver.logging.LogContext;
+import com.smallnine.apiserver.logging.StatementStats;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 import org.springframework.web.servlet.HandlerInterceptor;
 import org.springframework.web.servlet.ModelAndView;
 
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
 /**
  * 日誌攔截器
  * 自動記錄所有API請求和響應信息
+ *
+ * sample-rate > 1 時進入取樣模式：不記 REQUEST_START，成功且不慢的請求只有 1/N 記 REQUEST_END；
+ * 失敗（例外或 HTTP 4xx/5xx）與慢請求一律記錄
+ *
+ * REQUEST_END 帶本請求的 SQL 次數 / 耗時；同一 mapper statement 執行超過 repeated-statement-threshold 次
+ * 視為疑似 N+1，記 REPEATED_STATEMENT（該請求也一律記 REQUEST_END）
  */
 @Slf4j
 @Component
 public class LoggingInterceptor implements HandlerInterceptor {
     
     private static final String START_TIME = "startTime";
+
+    @Value("${app.logging.access-log.sample-rate:1}")
+    private int sampleRate;
+
+    @Value("${app.logging.access-log.slow-threshold-ms:2000}")
+    private long slowThresholdMs;
+
+    @Value("${app.db.repeated-statement-threshold:10}")
+    private int repeatedStatementThreshold;
     
     @Override
     public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) throws Exception {
-        long startTime = System.currentTimeMillis();
-        request.setAttribute(START_TIME, startTime);
+        request.setAttribute(START_TIME, System.nanoTime());
 
         // 獲取客戶端IP
         String clientIp = getClientIp(request);
@@ -35,21 +55,18 @@ public class LoggingInterceptor implements HandlerInterceptor {
             LogContext.setTraceId(externalTraceId);
         }
 
-        // 記錄請求開始
-        log.info("action=REQUEST_START method={} uri={} client_ip={} user_agent=\"{}\"",
-                request.getMethod(),
-                request.getRequestURI(),
-                clientIp,
-                request.getHeader("User-Agent"));
-
-        // 記錄請求參數（DEBUG 級別）
-        if (log.isDebugEnabled()) {
-            StringBuilder params = new StringBuilder();
-            request.getParameterMap().forEach((key, values) -> {
-                params.append(key).append("=").append(String.join(",", values)).append(" ");
-            });
-            if (!params.isEmpty()) {
-                log.debug("request_params={}", params.toString().trim());
+        // 取樣模式下不記請求開始，改由 REQUEST_END 帶 client_ip / user_agent
+        if (sampleRate <= 1) {
+            log.info("action=REQUEST_START method={} uri={} client_ip={} user_agent=\"{}\"",
+                    request.getMethod(),
+                    request.getRequestURI(),
+                    clientIp,
+                    request.getHeader("User-Agent"));
+
+            // 記錄請求參數（DEBUG 級別）；沒有參數時不建字串
+            Map<String, String[]> parameterMap = request.getParameterMap();
+            if (!parameterMap.isEmpty() && log.isDebugEnabled()) {
+                log.debug("request_params={}", formatParams(parameterMap));
             }
         }
 
@@ -66,16 +83,48 @@ public class LoggingInterceptor implements HandlerInterceptor {
         try {
             Long startTime = (Long) request.getAttribute(START_TIME);
             if (startTime != null) {
-                long duration = System.currentTimeMillis() - startTime;
+                long duration = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startTime);
+                int httpCode = response.getStatus();
+                boolean failed = ex != null || httpCode >= 400;
+                boolean slow = duration > slowThresholdMs;
+
+                StatementStats stats = LogContext.getStatementStats();
+                int dbStatements = stats != null ? stats.getTotalCount() : 0;
+                long dbTimeMs = stats != null ? stats.getTotalMillis() : 0;
+                Map<String, Integer> repeated = stats != null
+                        ? stats.repeatedOver(repeatedStatementThreshold) : Map.of();
+                LogContext.publishStatementStats();
 
                 // 記錄請求完成（結構化格式）
-                String status = ex != null ? "FAILED" : "SUCCESS";
-                log.info("action=REQUEST_END method={} uri={} status={} http_code={} duration_ms={}",
-                        request.getMethod(),
-                        request.getRequestURI(),
-                        status,
-                        response.getStatus(),
-                        duration);
+                if (sampleRate <= 1) {
+                    log.info("action=REQUEST_END method={} uri={} status={} http_code={} duration_ms={} db_statements={} db_time_ms={}",
+                            request.getMethod(),
+                            request.getRequestURI(),
+                            ex != null ? "FAILED" : "SUCCESS",
+                            httpCode,
+                            duration,
+                            dbStatements,
+                            dbTimeMs);
+                } else if (failed || slow || !repeated.isEmpty()
+                        || ThreadLocalRandom.current().nextInt(sampleRate) == 0) {
+                    log.info("action=REQUEST_END method={} uri={} status={} http_code={} duration_ms={} db_statements={} db_time_ms={} client_ip={} user_agent=\"{}\" sampled={}",
+                            request.getMethod(),
+                            request.getRequestURI(),
+                            ex != null ? "FAILED" : "SUCCESS",
+                            httpCode,
+                            duration,
+                            dbStatements,
+                            dbTimeMs,
+                            LogContext.getClientIp(),
+                            request.getHeader("User-Agent"),
+                            !failed && !slow && repeated.isEmpty());
+                }
+
+                // 疑似 N+1：同一 statement 在一個請求內執行太多次
+                repeated.forEach((statementId, count) ->
+                        log.warn("action=REPEATED_STATEMENT method={} uri={} statement={} count={} threshold={}",
+                                request.getMethod(), request.getRequestURI(), statementId, count,
+                                repeatedStatementThreshold));
 
                 // 記錄異常信息
                 if (ex != null) {
@@ -84,7 +133,7 @@ public class LoggingInterceptor implements HandlerInterceptor {
                 }
 
                 // 性能監控：慢請求警告
-                if (duration > 2000) {
+                if (slow) {
                     log.warn("action=SLOW_REQUEST method={} uri={} duration_ms={}",
                             request.getMethod(), request.getRequestURI(), duration);
                 }
@@ -95,6 +144,17 @@ public class LoggingInterceptor implements HandlerInterceptor {
         }
     }
     
+    private static String formatParams(Map<String, String[]> parameterMap) {
+        StringBuilder params = new StringBuilder();
+        parameterMap.forEach((key, values) -> {
+            if (!params.isEmpty()) {
+                params.append(' ');
+            }
+            params.append(key).append('=').append(String.join(",", values));
+        });
+        return params.toString();
+    }
+
     /**
      * 獲取真實的客戶端IP地址
      */
@@ -0,0 +1,252 @@
+package com.smallnine.apiserver.logging;
+
+import com.smallnine.apiserver.logging.constants.AuditOverflowPolicy;
+import com.smallnine.apiserver.logging.constants.AuditResult;
+import com.smallnine.apiserver.logging.constants.LogConstants;
+import com.smallnine.apiserver.logging.event.AuditEvent;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.slf4j.MDC;
+import org.slf4j.event.Level;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+import static net.logstash.logback.argument.StructuredArguments.entries;
+
+/**
+ * 非同步審計寫出：請求執行緒只把 AuditEvent 放進環形佇列，
+ * 轉 Map、寫各個 appender 都由專屬的 audit-drainer 執行緒批次處理。
+ *
+ * drainer 執行緒沒有請求的 MDC，寫出前以事件上的 traceId / userId / username / clientIp /
+ * requestUri / requestMethod 補回，與同步寫出時的 JSON 欄位一致；
+ * 事件發生時間另以 event_time 欄位記錄（log 本身的時間是寫出時間）。
+ * 關機時先停止收件，等 drainer 把佇列寫完；之後的事件改為同步寫出。
+ * 佇列積壓與丟棄數以 audit.queue.pending / audit.events.dropped 指標輸出。
+ */
+@Component
+public class AsyncAuditWriter implements MeterBinder {
+
+    private static final Logger log = LoggerFactory.getLogger(AsyncAuditWriter.class);
+
+    private static final long BLOCK_PARK_NANOS = TimeUnit.MICROSECONDS.toNanos(50);
+
+    private final boolean enabled;
+    private final AuditOverflowPolicy overflowPolicy;
+    private final long blockTimeoutNanos;
+    private final int sampleRate;
+    private final int batchSize;
+    private final long idleParkNanos;
+    private final long shutdownTimeoutMs;
+    private final AuditRingBuffer<PendingAudit> buffer;
+
+    private final LongAdder dropped = new LongAdder();
+    private final AtomicLong sampleSequence = new AtomicLong();
+    private long reportedDropped;
+
+    private volatile boolean accepting;
+    private volatile Thread drainer;
+
+    public AsyncAuditWriter(@Value("${app.audit.async.enabled:true}") boolean enabled,
+                            @Value("${app.audit.async.buffer-size:8192}") int bufferSize,
+                            @Value("${app.audit.async.batch-size:256}") int batchSize,
+                            @Value("${app.audit.async.overflow-policy:BLOCK}") AuditOverflowPolicy overflowPolicy,
+                            @Value("${app.audit.async.block-timeout-ms:50}") long blockTimeoutMs,
+                            @Value("${app.audit.async.sample-rate:10}") int sampleRate,
+                            @Value("${app.audit.async.idle-park-ms:5}") long idleParkMs,
+                            @Value("${app.audit.async.shutdown-timeout-ms:5000}") long shutdownTimeoutMs) {
+        this.enabled = enabled;
+        this.overflowPolicy = overflowPolicy;
+        this.blockTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(blockTimeoutMs);
+        this.sampleRate = Math.max(1, sampleRate);
+        this.batchSize = Math.max(1, batchSize);
+        this.idleParkNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(1, idleParkMs));
+        this.shutdownTimeoutMs = shutdownTimeoutMs;
+        this.buffer = new AuditRingBuffer<>(bufferSize);
+        this.accepting = enabled;
+    }
+
+    @PostConstruct
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+        Thread thread = new Thread(this::drainLoop, "audit-drainer");
+        thread.setDaemon(true);
+        drainer = thread;
+        thread.start();
+    }
+
+    /**
+     * 關機：停止收件並把佇列中剩下的事件寫完
+     */
+    @PreDestroy
+    public void stop() {
+        accepting = false;
+        Thread thread = drainer;
+        if (thread != null) {
+            LockSupport.unpark(thread);
+            try {
+                thread.join(shutdownTimeoutMs);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        // drainer 逾時未結束，或停止收件前最後一刻才排入的事件，由這裡補寫
+        if (thread == null || !thread.isAlive()) {
+            while (drainBatch() > 0) {
+                // 寫到空為止
+            }
+        }
+        reportDropped();
+    }
+
+    /**
+     * 排入一筆審計事件；未啟用或已關機時直接在呼叫端執行緒寫出
+     */
+    public void submit(Logger target, Level level, AuditEvent event) {
+        if (!accepting) {
+            write(target, level, event);
+            return;
+        }
+        if (overflowPolicy == AuditOverflowPolicy.SAMPLE && !admitSample(event)) {
+            dropped.increment();
+            return;
+        }
+        PendingAudit pending = new PendingAudit(target, level, event);
+        if (buffer.offer(pending)) {
+            return;
+        }
+        if (overflowPolicy == AuditOverflowPolicy.BLOCK) {
+            long deadline = System.nanoTime() + blockTimeoutNanos;
+            while (System.nanoTime() < deadline) {
+                LockSupport.parkNanos(BLOCK_PARK_NANOS);
+                if (buffer.offer(pending)) {
+                    return;
+                }
+            }
+        }
+        dropped.increment();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("audit.queue.pending", this, AsyncAuditWriter::getPendingCount)
+                .description("等待寫出的審計事件數")
+                .register(registry);
+        FunctionCounter.builder("audit.events.dropped", this, AsyncAuditWriter::getDroppedCount)
+                .description("佇列滿載被丟棄的審計事件數")
+                .tag("policy", overflowPolicy.name())
+                .register(registry);
+    }
+
+    public long getDroppedCount() {
+        return dropped.sum();
+    }
+
+    public int getPendingCount() {
+        return buffer.size();
+    }
+
+    public int getCapacity() {
+        return buffer.capacity();
+    }
+
+    // ---- 內部 ----
+
+    private boolean admitSample(AuditEvent event) {
+        if (event.getResult() != AuditResult.SUCCESS || buffer.size() < buffer.capacity() / 2) {
+            return true;
+        }
+        return sampleSequence.incrementAndGet() % sampleRate == 0;
+    }
+
+    private void drainLoop() {
+        while (true) {
+            int written = drainBatch();
+            if (written == 0) {
+                reportDropped();
+                if (!accepting && buffer.size() == 0) {
+                    return;
+                }
+                LockSupport.parkNanos(idleParkNanos);
+            }
+        }
+    }
+
+    /**
+     * 一次最多取 batchSize 筆，逐筆轉成 Map 並寫出
+     */
+    private int drainBatch() {
+        List<PendingAudit> batch = new ArrayList<>(Math.min(batchSize, buffer.size() + 1));
+        PendingAudit pending;
+        while (batch.size() < batchSize && (pending = buffer.poll()) != null) {
+            batch.add(pending);
+        }
+        if (batch.isEmpty()) {
+            return 0;
+        }
+        for (PendingAudit p : batch) {
+            AuditEvent event = p.event();
+            try {
+                Map<String, Object> payload = event.toJsonMap();
+                putIfPresent(LogConstants.TRACE_ID, event.getTraceId());
+                putIfPresent(LogConstants.USER_ID, event.getUserId());
+                putIfPresent(LogConstants.USERNAME, event.getUsername());
+                putIfPresent(LogConstants.CLIENT_IP, event.getClientIp());
+                putIfPresent(LogConstants.REQUEST_URI, event.getRequestUri());
+                putIfPresent(LogConstants.REQUEST_METHOD, event.getRequestMethod());
+                emit(p.target(), p.level(), payload);
+            } catch (RuntimeException e) {
+                // 單筆轉換或寫出失敗不能讓 drainer 停掉
+                log.warn("action=AUDIT_WRITE_FAILED audit_action={} msg={}", event.getAction(), e.getMessage());
+            } finally {
+                MDC.clear();
+            }
+        }
+        return batch.size();
+    }
+
+    private void write(Logger target, Level level, AuditEvent event) {
+        emit(target, level, event.toJsonMap());
+    }
+
+    private static void emit(Logger target, Level level, Map<String, Object> payload) {
+        if (level == Level.WARN) {
+            target.warn("{}", entries(payload));
+        } else {
+            target.info("{}", entries(payload));
+        }
+    }
+
+    private static void putIfPresent(String key, String value) {
+        if (value != null) {
+            MDC.put(key, value);
+        }
+    }
+
+    private void reportDropped() {
+        long total = dropped.sum();
+        if (total > reportedDropped) {
+            log.warn("action=AUDIT_EVENTS_DROPPED dropped={} total={} policy={}",
+                    total - reportedDropped, total, overflowPolicy);
+            reportedDropped = total;
+        }
+    }
+
+    private record PendingAudit(Logger target, Level level, AuditEvent event) {
+    }
+}
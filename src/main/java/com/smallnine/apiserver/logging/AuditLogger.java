@@ -4,12 +4,12 @@ import com.smallnine.apiserver.logging.constants.AuditAction;
 import com.smallnine.apiserver.logging.constants.AuditResult;
 import com.smallnine.apiserver.logging.constants.LogConstants;
 import com.smallnine.apiserver.logging.event.AuditEvent;
+import lombok.RequiredArgsConstructor;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.slf4j.event.Level;
 import org.springframework.stereotype.Component;
 
-import static net.logstash.logback.argument.StructuredArguments.entries;
-
 /**
  * 審計日誌記錄器
  * 專門記錄需要合規審計的操作
@@ -17,18 +17,23 @@ import static net.logstash.logback.argument.StructuredArguments.entries;
  * 使用獨立的 Logger，輸出到獨立的日誌文件
  * LogstashEncoder 會把 StructuredArguments 的欄位提升為 top-level JSON fields
  * 非 JSON appender 仍然看到 key=value 格式（StructuredArguments.entries 的 toString）
+ *
+ * 實際寫出交給 AsyncAuditWriter 在背景執行緒批次處理，呼叫端只負責組事件
  */
 @Component
+@RequiredArgsConstructor
 public class AuditLogger {
 
     private static final Logger auditLog = LoggerFactory.getLogger(LogConstants.AUDIT_LOGGER);
     private static final Logger securityLog = LoggerFactory.getLogger(LogConstants.SECURITY_LOGGER);
 
+    private final AsyncAuditWriter writer;
+
     /**
      * 記錄審計事件
      */
     public void log(AuditEvent event) {
-        auditLog.info("{}", entries(event.toJsonMap()));
+        writer.submit(auditLog, Level.INFO, event);
     }
 
     /**
@@ -41,10 +46,12 @@ public class AuditLogger {
                 .userId(LogContext.getUserId())
                 .username(LogContext.getUsername())
                 .clientIp(LogContext.getClientIp())
+                .requestUri(LogContext.getRequestUri())
+                .requestMethod(LogContext.getRequestMethod())
                 .resource(resource)
                 .resourceId(resourceId)
                 .build();
-        auditLog.info("{}", entries(event.toJsonMap()));
+        writer.submit(auditLog, Level.INFO, event);
     }
 
     /**
@@ -57,10 +64,12 @@ public class AuditLogger {
                 .userId(LogContext.getUserId())
                 .username(LogContext.getUsername())
                 .clientIp(LogContext.getClientIp())
+                .requestUri(LogContext.getRequestUri())
+                .requestMethod(LogContext.getRequestMethod())
                 .resource(resource)
                 .description(reason)
                 .build();
-        auditLog.warn("{}", entries(event.toJsonMap()));
+        writer.submit(auditLog, Level.WARN, event);
     }
 
     // ===== 安全事件快捷方法 =====
@@ -75,8 +84,10 @@ public class AuditLogger {
                 .userId(userId)
                 .username(username)
                 .clientIp(LogContext.getClientIp())
+                .requestUri(LogContext.getRequestUri())
+                .requestMethod(LogContext.getRequestMethod())
                 .build();
-        securityLog.info("{}", entries(event.toJsonMap()));
+        writer.submit(securityLog, Level.INFO, event);
     }
 
     /**
@@ -88,9 +99,11 @@ public class AuditLogger {
                 .traceId(LogContext.getTraceId())
                 .username(username)
                 .clientIp(LogContext.getClientIp())
+                .requestUri(LogContext.getRequestUri())
+                .requestMethod(LogContext.getRequestMethod())
                 .description(reason)
                 .build();
-        securityLog.warn("{}", entries(event.toJsonMap()));
+        writer.submit(securityLog, Level.WARN, event);
     }
 
     /**
@@ -103,8 +116,10 @@ public class AuditLogger {
                 .userId(userId)
                 .username(username)
                 .clientIp(LogContext.getClientIp())
+                .requestUri(LogContext.getRequestUri())
+                .requestMethod(LogContext.getRequestMethod())
                 .build();
-        securityLog.info("{}", entries(event.toJsonMap()));
+        writer.submit(securityLog, Level.INFO, event);
     }
 
     /**
@@ -117,10 +132,12 @@ public class AuditLogger {
                 .userId(LogContext.getUserId())
                 .username(LogContext.getUsername())
                 .clientIp(LogContext.getClientIp())
+                .requestUri(LogContext.getRequestUri())
+                .requestMethod(LogContext.getRequestMethod())
                 .resource(resource)
                 .description(reason)
                 .build();
-        securityLog.warn("{}", entries(event.toJsonMap()));
+        writer.submit(securityLog, Level.WARN, event);
     }
 
     // ===== CRUD 操作審計 =====
@@ -0,0 +1,71 @@
+package com.smallnine.apiserver.logging;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * 有界、無鎖的多生產者 / 單消費者環形佇列。
+ *
+ * 生產者以 CAS 搶 tail 序號後才把元素寫進槽位；消費者看到槽位仍是 null 代表
+ * 該序號已被搶走但還沒寫入，視同暫時沒有資料，下一輪再取。
+ * 消費者先清空槽位再推進 head，生產者看到 head 前進時該槽位一定已可重用。
+ */
+final class AuditRingBuffer<E> {
+
+    private final AtomicReferenceArray<E> slots;
+    private final int mask;
+    private final AtomicLong tail = new AtomicLong();
+    private final AtomicLong head = new AtomicLong();
+
+    /**
+     * @param capacity 會向上取到 2 的次方
+     */
+    AuditRingBuffer(int capacity) {
+        int size = Integer.highestOneBit(Math.max(2, capacity) - 1) << 1;
+        this.slots = new AtomicReferenceArray<>(size);
+        this.mask = size - 1;
+    }
+
+    /**
+     * @return false 代表佇列已滿
+     */
+    boolean offer(E element) {
+        while (true) {
+            long t = tail.get();
+            if (t - head.get() >= slots.length()) {
+                return false;
+            }
+            if (tail.compareAndSet(t, t + 1)) {
+                slots.lazySet((int) (t & mask), element);
+                return true;
+            }
+        }
+    }
+
+    /**
+     * 只能由單一消費者呼叫
+     * @return 沒有可取的元素時回傳 null
+     */
+    E poll() {
+        long h = head.get();
+        int index = (int) (h & mask);
+        E element = slots.get(index);
+        if (element == null) {
+            return null;
+        }
+        slots.lazySet(index, null);
+        head.lazySet(h + 1);
+        return element;
+    }
+
+    /**
+     * 約略值（含已搶序號尚未寫入的槽位）
+     */
+    int size() {
+        return (int) Math.max(0, tail.get() - head.get());
+    }
+
+    int capacity() {
+        return slots.length();
+    }
+}
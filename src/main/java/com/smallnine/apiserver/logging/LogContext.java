@@ -8,9 +8,13 @@ import java.util.UUID;
 /**
  * 日誌上下文管理
  * 統一管理 MDC，確保每條日誌都能追蹤
+ *
+ * 另以 ThreadLocal 保存本請求的 SQL 統計（StatementStats），請求結束時寫回 MDC
  */
 public final class LogContext {
 
+    private static final ThreadLocal<StatementStats> STATEMENT_STATS = new ThreadLocal<>();
+
     private LogContext() {
     }
 
@@ -24,6 +28,7 @@ public final class LogContext {
         MDC.put(LogConstants.REQUEST_METHOD, method);
         MDC.put(LogConstants.REQUEST_URI, uri);
         MDC.put(LogConstants.CLIENT_IP, clientIp);
+        STATEMENT_STATS.set(new StatementStats());
         return traceId;
     }
 
@@ -79,11 +84,53 @@ public final class LogContext {
         return MDC.get(LogConstants.CLIENT_IP);
     }
 
+    /**
+     * 獲取請求路徑
+     */
+    public static String getRequestUri() {
+        return MDC.get(LogConstants.REQUEST_URI);
+    }
+
+    /**
+     * 獲取請求方法
+     */
+    public static String getRequestMethod() {
+        return MDC.get(LogConstants.REQUEST_METHOD);
+    }
+
+    /**
+     * 記錄一次 SQL 執行；不在請求範圍內（排程、背景執行緒）時不統計
+     * @return 這個 statement 在本請求內累計的執行次數，不在請求範圍內時為 0
+     */
+    public static int recordStatement(String statementId, long elapsedNanos) {
+        StatementStats stats = STATEMENT_STATS.get();
+        return stats != null ? stats.record(statementId, elapsedNanos) : 0;
+    }
+
+    /**
+     * 本請求的 SQL 統計，不在請求範圍內時為 null
+     */
+    public static StatementStats getStatementStats() {
+        return STATEMENT_STATS.get();
+    }
+
+    /**
+     * 把本請求的 SQL 次數 / 耗時寫進 MDC，讓之後的日誌（REQUEST_END 等）都帶上
+     */
+    public static void publishStatementStats() {
+        StatementStats stats = STATEMENT_STATS.get();
+        if (stats != null) {
+            MDC.put(LogConstants.DB_STATEMENTS, String.valueOf(stats.getTotalCount()));
+            MDC.put(LogConstants.DB_TIME_MS, String.valueOf(stats.getTotalMillis()));
+        }
+    }
+
     /**
      * 清除所有上下文（請求結束時調用）
      */
     public static void clear() {
         MDC.clear();
+        STATEMENT_STATS.remove();
     }
 
     /**
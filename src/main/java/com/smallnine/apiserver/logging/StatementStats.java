@@ -0,0 +1,48 @@
+package com.smallnine.apiserver.logging;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 單一請求內的 SQL 統計：總次數、總耗時、每個 mapper statement 的執行次數。
+ * 只在請求執行緒上讀寫，不做同步。
+ */
+public final class StatementStats {
+
+    private final Map<String, int[]> countsByStatement = new HashMap<>();
+    private int totalCount;
+    private long totalNanos;
+
+    /**
+     * 記錄一次執行
+     * @return 這個 statement 在本請求內累計的執行次數
+     */
+    public int record(String statementId, long elapsedNanos) {
+        totalCount++;
+        totalNanos += elapsedNanos;
+        int[] count = countsByStatement.computeIfAbsent(statementId, id -> new int[1]);
+        return ++count[0];
+    }
+
+    public int getTotalCount() {
+        return totalCount;
+    }
+
+    public long getTotalMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(totalNanos);
+    }
+
+    /**
+     * 執行次數超過 threshold 的 statement（疑似 N+1），依次數由多到少
+     */
+    public Map<String, Integer> repeatedOver(int threshold) {
+        Map<String, Integer> repeated = new LinkedHashMap<>();
+        countsByStatement.entrySet().stream()
+                .filter(e -> e.getValue()[0] > threshold)
+                .sorted((a, b) -> Integer.compare(b.getValue()[0], a.getValue()[0]))
+                .forEach(e -> repeated.put(e.getKey(), e.getValue()[0]));
+        return repeated;
+    }
+}
@@ -4,6 +4,7 @@ import java.lang.reflect.Method;
 import java.lang.reflect.Parameter;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.aspectj.lang.ProceedingJoinPoint;
 import org.aspectj.lang.annotation.Around;
@@ -11,9 +12,14 @@ import org.aspectj.lang.annotation.Aspect;
 import org.aspectj.lang.reflect.MethodSignature;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.core.DefaultParameterNameDiscoverer;
+import org.springframework.core.ParameterNameDiscoverer;
 import org.springframework.core.annotation.Order;
 import org.springframework.expression.EvaluationContext;
+import org.springframework.expression.Expression;
 import org.springframework.expression.ExpressionParser;
+import org.springframework.expression.spel.SpelCompilerMode;
+import org.springframework.expression.spel.SpelParserConfiguration;
 import org.springframework.expression.spel.standard.SpelExpressionParser;
 import org.springframework.expression.spel.support.StandardEvaluationContext;
 import org.springframework.stereotype.Component;
@@ -27,6 +33,10 @@ import com.smallnine.apiserver.logging.event.AuditEvent;
 /**
  * 審計日誌切面
  * 自動記錄帶有 @Auditable 註解的方法
+ *
+ * 每個方法第一次被呼叫時解析 SpEL、參數名稱與敏感參數標記並快取，
+ * 之後的呼叫只需組 EvaluationContext 與求值；SpEL 以 MIXED 模式編譯成 bytecode，
+ * 參數型別改變（例如可為 null 的參數）時退回直譯，不會讓被審計的呼叫失敗
  */
 @Aspect
 @Component
@@ -36,7 +46,10 @@ public class AuditLogAspect {
     private static final Logger log = LoggerFactory.getLogger(AuditLogAspect.class);
 
     private final AuditLogger auditLogger;
-    private final ExpressionParser spelParser = new SpelExpressionParser();
+    private final ExpressionParser spelParser = new SpelExpressionParser(
+            new SpelParserConfiguration(SpelCompilerMode.MIXED, AuditLogAspect.class.getClassLoader()));
+    private final ParameterNameDiscoverer parameterNameDiscoverer = new DefaultParameterNameDiscoverer();
+    private final Map<Method, AuditMetadata> metadataCache = new ConcurrentHashMap<>();
 
     public AuditLogAspect(AuditLogger auditLogger) {
         this.auditLogger = auditLogger;
@@ -63,11 +76,14 @@ public class AuditLogAspect {
     private void recordAuditLog(ProceedingJoinPoint joinPoint, Auditable auditable,
                                 Object result, Throwable error, long duration) {
         try {
+            AuditMetadata metadata = resolveMetadata(joinPoint, auditable);
             AuditEvent.Builder builder = AuditEvent.builder(auditable.action())
                     .traceId(LogContext.getTraceId())
                     .userId(LogContext.getUserId())
                     .username(LogContext.getUsername())
                     .clientIp(LogContext.getClientIp())
+                    .requestUri(LogContext.getRequestUri())
+                    .requestMethod(LogContext.getRequestMethod())
                     .resource(auditable.resource())
                     .duration(duration);
 
@@ -79,10 +95,9 @@ public class AuditLogAspect {
                 builder.result(AuditResult.SUCCESS);
             }
 
-            // 解析 resourceId（使用 SpEL）
-            String resourceIdExpr = auditable.resourceId();
-            if (!resourceIdExpr.isEmpty()) {
-                String resourceId = evaluateSpelExpression(joinPoint, result, resourceIdExpr);
+            // 解析 resourceId（使用快取的 SpEL）
+            if (metadata.resourceId() != null) {
+                String resourceId = evaluateSpelExpression(joinPoint, metadata, result);
                 builder.resourceId(resourceId);
             }
 
@@ -93,7 +108,7 @@ public class AuditLogAspect {
 
             // 記錄參數（如果啟用）
             if (auditable.logParams()) {
-                Map<String, Object> params = extractMethodParams(joinPoint);
+                Map<String, Object> params = extractMethodParams(joinPoint, metadata);
                 builder.details(params);
             }
 
@@ -109,30 +124,63 @@ public class AuditLogAspect {
         }
     }
 
-    private String evaluateSpelExpression(ProceedingJoinPoint joinPoint, Object result, String expression) {
+    /**
+     * 取得方法的快取資訊；同一方法只解析一次（SpEL 語法錯誤時記一次 warn，之後不再求值）
+     */
+    AuditMetadata resolveMetadata(ProceedingJoinPoint joinPoint, Auditable auditable) {
+        Method method = ((MethodSignature) joinPoint.getSignature()).getMethod();
+        AuditMetadata cached = metadataCache.get(method);
+        return cached != null ? cached : metadataCache.computeIfAbsent(method, m -> buildMetadata(m, auditable));
+    }
+
+    private AuditMetadata buildMetadata(Method method, Auditable auditable) {
+        String[] names = parameterNameDiscoverer.getParameterNames(method);
+        if (names == null) {
+            Parameter[] parameters = method.getParameters();
+            names = new String[parameters.length];
+            for (int i = 0; i < parameters.length; i++) {
+                names[i] = parameters[i].getName();
+            }
+        }
+        boolean[] sensitive = new boolean[names.length];
+        for (int i = 0; i < names.length; i++) {
+            sensitive[i] = isSensitiveParam(names[i]);
+        }
+
+        Expression resourceId = null;
+        String expression = auditable.resourceId();
+        if (!expression.isEmpty()) {
+            try {
+                resourceId = spelParser.parseExpression(expression);
+            } catch (Exception e) {
+                log.warn("SpEL 表達式解析失敗: expression={}, method={}, error={}",
+                        expression, method.getName(), e.getMessage());
+            }
+        }
+        return new AuditMetadata(names, sensitive, resourceId);
+    }
+
+    private String evaluateSpelExpression(ProceedingJoinPoint joinPoint, AuditMetadata metadata, Object result) {
         try {
-            EvaluationContext context = createEvaluationContext(joinPoint, result);
-            Object value = spelParser.parseExpression(expression).getValue(context);
+            EvaluationContext context = createEvaluationContext(joinPoint, metadata, result);
+            Object value = metadata.resourceId().getValue(context);
             return value != null ? value.toString() : null;
         } catch (Exception e) {
             log.warn("SpEL 表達式解析失敗: expression={}, method={}, error={}",
-                    expression, joinPoint.getSignature().toShortString(), e.getMessage());
+                    metadata.resourceId().getExpressionString(), joinPoint.getSignature().toShortString(), e.getMessage());
             return null;
         }
     }
 
-    private EvaluationContext createEvaluationContext(ProceedingJoinPoint joinPoint, Object result) {
+    private EvaluationContext createEvaluationContext(ProceedingJoinPoint joinPoint, AuditMetadata metadata,
+                                                      Object result) {
         StandardEvaluationContext context = new StandardEvaluationContext();
 
         // 添加方法參數
-        MethodSignature signature = (MethodSignature) joinPoint.getSignature();
-        String[] paramNames = signature.getParameterNames();
+        String[] paramNames = metadata.paramNames();
         Object[] args = joinPoint.getArgs();
-
-        if (paramNames != null) {
-            for (int i = 0; i < paramNames.length; i++) {
-                context.setVariable(paramNames[i], args[i]);
-            }
+        for (int i = 0; i < paramNames.length && i < args.length; i++) {
+            context.setVariable(paramNames[i], args[i]);
         }
 
         // 添加返回值
@@ -141,19 +189,16 @@ public class AuditLogAspect {
         return context;
     }
 
-    private Map<String, Object> extractMethodParams(ProceedingJoinPoint joinPoint) {
-        Map<String, Object> params = new HashMap<>();
-        MethodSignature signature = (MethodSignature) joinPoint.getSignature();
-        Method method = signature.getMethod();
-        Parameter[] parameters = method.getParameters();
+    private Map<String, Object> extractMethodParams(ProceedingJoinPoint joinPoint, AuditMetadata metadata) {
+        String[] paramNames = metadata.paramNames();
         Object[] args = joinPoint.getArgs();
+        Map<String, Object> params = new HashMap<>();
 
-        for (int i = 0; i < parameters.length; i++) {
-            String paramName = parameters[i].getName();
-            Object paramValue = args[i];
+        for (int i = 0; i < paramNames.length && i < args.length; i++) {
             // 避免記錄敏感信息
-            if (!isSensitiveParam(paramName)) {
-                params.put(paramName, paramValue != null ? paramValue.toString() : null);
+            if (!metadata.sensitive()[i]) {
+                Object paramValue = args[i];
+                params.put(paramNames[i], paramValue != null ? paramValue.toString() : null);
             }
         }
 
@@ -167,4 +212,13 @@ public class AuditLogAspect {
                 lower.contains("token") ||
                 lower.contains("credential");
     }
+
+    /**
+     * 每個 @Auditable 方法的快取資訊
+     * @param paramNames 參數名稱
+     * @param sensitive 對應參數是否為敏感資訊（不記錄）
+     * @param resourceId 已解析的 resourceId 表達式，未設定或語法錯誤時為 null
+     */
+    record AuditMetadata(String[] paramNames, boolean[] sensitive, Expression resourceId) {
+    }
 }
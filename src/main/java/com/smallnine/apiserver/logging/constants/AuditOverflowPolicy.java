@@ -0,0 +1,13 @@
+package com.smallnine.apiserver.logging.constants;
+
+/**
+ * 審計佇列滿載時的處理方式（被丟棄的事件都會計入 dropped 計數）
+ */
+public enum AuditOverflowPolicy {
+    /** 佇列滿時最多等 block-timeout，仍無空位才丟棄 */
+    BLOCK,
+    /** 佇列滿時直接丟棄 */
+    DROP,
+    /** 佇列使用量過半起，成功事件只保留 1/sample-rate；失敗 / 拒絕事件照常排入，滿了才丟棄 */
+    SAMPLE
+}
@@ -18,6 +18,8 @@ public final class LogConstants {
     public static final String REQUEST_URI = "requestUri";
     public static final String REQUEST_METHOD = "requestMethod";
     public static final String SESSION_ID = "sessionId";
+    public static final String DB_STATEMENTS = "dbStatements";
+    public static final String DB_TIME_MS = "dbTimeMs";
 
     // ===== Logger Names =====
     public static final String AUDIT_LOGGER = "AUDIT";
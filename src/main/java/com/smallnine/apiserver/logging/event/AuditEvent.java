@@ -22,6 +22,8 @@ public class AuditEvent {
     private final String userId;
     private final String username;
     private final String clientIp;
+    private final String requestUri;
+    private final String requestMethod;
     private final String resource;
     private final String resourceId;
     private final String description;
@@ -36,6 +38,8 @@ public class AuditEvent {
         this.userId = builder.userId;
         this.username = builder.username;
         this.clientIp = builder.clientIp;
+        this.requestUri = builder.requestUri;
+        this.requestMethod = builder.requestMethod;
         this.resource = builder.resource;
         this.resourceId = builder.resourceId;
         this.description = builder.description;
@@ -95,7 +99,9 @@ public class AuditEvent {
         if (resourceId != null) map.put("resource_id", resourceId);
         if (description != null) map.put("desc", description);
         if (duration != null) map.put("duration_ms", duration);
-        // traceId 由 MDC 自動提供，不需重複設定
+        // 寫出可能延後到背景執行緒，保留事件實際發生時間
+        map.put("event_time", timestamp.toString());
+        // traceId、requestUri、requestMethod 由 MDC 自動提供（背景寫出時由 AsyncAuditWriter 以事件上的值補回），不需重複設定
 
         return map;
     }
@@ -108,6 +114,8 @@ public class AuditEvent {
     public String getUserId() { return userId; }
     public String getUsername() { return username; }
     public String getClientIp() { return clientIp; }
+    public String getRequestUri() { return requestUri; }
+    public String getRequestMethod() { return requestMethod; }
     public String getResource() { return resource; }
     public String getResourceId() { return resourceId; }
     public String getDescription() { return description; }
@@ -121,6 +129,8 @@ public class AuditEvent {
         private String userId;
         private String username;
         private String clientIp;
+        private String requestUri;
+        private String requestMethod;
         private String resource;
         private String resourceId;
         private String description;
@@ -156,6 +166,16 @@ public class AuditEvent {
             return this;
         }
 
+        public Builder requestUri(String requestUri) {
+            this.requestUri = requestUri;
+            return this;
+        }
+
+        public Builder requestMethod(String requestMethod) {
+            this.requestMethod = requestMethod;
+            return this;
+        }
+
         public Builder resource(String resource) {
             this.resource = resource;
             return this;
@@ -0,0 +1,50 @@
+package com.smallnine.apiserver.metrics;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.stereotype.Component;
+
+/**
+ * 訂單業務指標
+ *
+ * - shop.orders.created：成功建立的訂單數（冪等重送拿回舊訂單不算）
+ * - shop.orders.stock.reservation.failures：結帳時庫存不足被拒的次數
+ * - shop.orders.idempotency：outcome = db_unique_fallback，Redis 冪等紀錄失效後由 DB unique 擋下的重送
+ *   （Redis 層的回放 / 409 見 http.idempotency{scope="order.create"}）
+ */
+@Component
+public class OrderMetrics {
+
+    private final Counter created;
+    private final Counter stockReservationFailures;
+    private final Counter idempotencyDbFallback;
+
+    public OrderMetrics(MeterRegistry meterRegistry) {
+        this.created = Counter.builder("shop.orders.created")
+                .description("成功建立的訂單數")
+                .register(meterRegistry);
+        this.stockReservationFailures = Counter.builder("shop.orders.stock.reservation.failures")
+                .description("結帳時庫存不足被拒的次數")
+                .register(meterRegistry);
+        this.idempotencyDbFallback = idempotency(meterRegistry, "db_unique_fallback");
+    }
+
+    public void orderCreated() {
+        created.increment();
+    }
+
+    public void stockReservationFailed() {
+        stockReservationFailures.increment();
+    }
+
+    public void idempotencyDbFallback() {
+        idempotencyDbFallback.increment();
+    }
+
+    private static Counter idempotency(MeterRegistry meterRegistry, String outcome) {
+        return Counter.builder("shop.orders.idempotency")
+                .description("冪等鍵重複請求次數")
+                .tag("outcome", outcome)
+                .register(meterRegistry);
+    }
+}
@@ -0,0 +1,94 @@
+package com.smallnine.apiserver.metrics;
+
+import com.smallnine.apiserver.logging.LogContext;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.apache.ibatis.cache.CacheKey;
+import org.apache.ibatis.executor.Executor;
+import org.apache.ibatis.mapping.BoundSql;
+import org.apache.ibatis.mapping.MappedStatement;
+import org.apache.ibatis.plugin.Interceptor;
+import org.apache.ibatis.plugin.Intercepts;
+import org.apache.ibatis.plugin.Invocation;
+import org.apache.ibatis.plugin.Signature;
+import org.apache.ibatis.session.ResultHandler;
+import org.apache.ibatis.session.RowBounds;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * MyBatis 語句計時：每個 mapper statement 一組 mybatis.statement timer。
+ *
+ * tag：statement = mapper statement id（如 com.smallnine.apiserver.dao.ProductDao.findById）、
+ * command = SELECT / INSERT / UPDATE / DELETE、outcome = success / error。
+ * 攔截的是最外層 Executor，內部 4 參數 query 轉呼叫 6 參數版本不會重複計時。
+ *
+ * 同一次計時也用於：
+ *  - 超過 slow-statement-threshold-ms 的語句記 SLOW_STATEMENT
+ *  - 累計到本請求的 StatementStats（LogContext），請求結束時由 LoggingInterceptor 檢查 N+1
+ */
+@Slf4j
+@Component
+@Intercepts({
+        @Signature(type = Executor.class, method = "query",
+                args = {MappedStatement.class, Object.class, RowBounds.class, ResultHandler.class}),
+        @Signature(type = Executor.class, method = "query",
+                args = {MappedStatement.class, Object.class, RowBounds.class, ResultHandler.class,
+                        CacheKey.class, BoundSql.class}),
+        @Signature(type = Executor.class, method = "update",
+                args = {MappedStatement.class, Object.class})
+})
+public class StatementMetricsInterceptor implements Interceptor {
+
+    static final String METRIC_NAME = "mybatis.statement";
+
+    private final MeterRegistry meterRegistry;
+    private final long slowThresholdNanos;
+    // 每次查詢都走 registry 查找會多配置 Meter.Id，依 statement 快取
+    private final Map<String, Timer> successTimers = new ConcurrentHashMap<>();
+    private final Map<String, Timer> errorTimers = new ConcurrentHashMap<>();
+
+    public StatementMetricsInterceptor(MeterRegistry meterRegistry,
+                                       @Value("${app.db.slow-statement-threshold-ms:200}") long slowThresholdMs) {
+        this.meterRegistry = meterRegistry;
+        this.slowThresholdNanos = TimeUnit.MILLISECONDS.toNanos(slowThresholdMs);
+    }
+
+    @Override
+    public Object intercept(Invocation invocation) throws Throwable {
+        MappedStatement statement = (MappedStatement) invocation.getArgs()[0];
+        long start = System.nanoTime();
+        boolean success = false;
+        try {
+            Object result = invocation.proceed();
+            success = true;
+            return result;
+        } finally {
+            long elapsed = System.nanoTime() - start;
+            String id = statement.getId();
+            (success
+                    ? successTimers.computeIfAbsent(id, k -> timer(statement, "success"))
+                    : errorTimers.computeIfAbsent(id, k -> timer(statement, "error")))
+                    .record(elapsed, TimeUnit.NANOSECONDS);
+            int executions = LogContext.recordStatement(id, elapsed);
+            if (elapsed > slowThresholdNanos) {
+                log.warn("action=SLOW_STATEMENT statement={} command={} duration_ms={} success={} executions_in_request={}",
+                        id, statement.getSqlCommandType(), TimeUnit.NANOSECONDS.toMillis(elapsed), success, executions);
+            }
+        }
+    }
+
+    private Timer timer(MappedStatement statement, String outcome) {
+        return Timer.builder(METRIC_NAME)
+                .description("MyBatis mapper statement 執行時間")
+                .tag("statement", statement.getId())
+                .tag("command", statement.getSqlCommandType().name())
+                .tag("outcome", outcome)
+                .register(meterRegistry);
+    }
+}
@@ -0,0 +1,29 @@
+package com.smallnine.apiserver.outbox;
+
+import com.smallnine.apiserver.dao.CouponDao;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+/**
+ * 訂單使用優惠券時更新 coupons.used_count：成立 +1、取消 -1
+ */
+@Component
+@RequiredArgsConstructor
+public class OrderCouponHandler implements OrderEventHandler {
+
+    private final CouponDao couponDao;
+
+    @Override
+    public void onOrderCreated(OrderEvent event) {
+        if (event.getCouponId() != null) {
+            couponDao.adjustUsedCount(event.getCouponId(), 1);
+        }
+    }
+
+    @Override
+    public void onOrderCancelled(OrderEvent event) {
+        if (event.getCouponId() != null) {
+            couponDao.adjustUsedCount(event.getCouponId(), -1);
+        }
+    }
+}
@@ -0,0 +1,40 @@
+package com.smallnine.apiserver.outbox;
+
+import com.smallnine.apiserver.entity.Order;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+/**
+ * 訂單領域事件內容（OrderCreated / OrderCancelled 共用），序列化後存入 outbox_event.payload。
+ * 只放 handler 需要的快照欄位，handler 不應再回頭查訂單的當下狀態。
+ */
+@Data
+@NoArgsConstructor
+public class OrderEvent {
+
+    public static final String AGGREGATE_TYPE = "ORDER";
+    public static final String CREATED = "OrderCreated";
+    public static final String CANCELLED = "OrderCancelled";
+
+    private Long orderId;
+
+    private String orderNumber;
+
+    private Long memberId;
+
+    private BigDecimal totalAmount;
+
+    private Long couponId;
+
+    public static OrderEvent of(Order order) {
+        OrderEvent event = new OrderEvent();
+        event.setOrderId(order.getId());
+        event.setOrderNumber(order.getOrderNumber());
+        event.setMemberId(order.getMemberId());
+        event.setTotalAmount(order.getTotalAmount());
+        event.setCouponId(order.getCouponId() == null ? null : order.getCouponId().longValue());
+        return event;
+    }
+}
@@ -0,0 +1,17 @@
+package com.smallnine.apiserver.outbox;
+
+/**
+ * 訂單事件的站內 handler，由 OutboxDispatcher 在 commit 後非同步呼叫。
+ *
+ * 同一筆事件的所有 handler 與「標記已處理」在同一個交易內執行：任一 handler 拋例外則整筆 rollback、
+ * 稍後重試，因此 handler 只應寫 DB，不可做無法回滾的外部呼叫。
+ * 重試與多節點下同一訂單的 Created / Cancelled 不保證依序處理，handler 的寫入須可交換（例如點數用正負流水）。
+ */
+public interface OrderEventHandler {
+
+    default void onOrderCreated(OrderEvent event) {
+    }
+
+    default void onOrderCancelled(OrderEvent event) {
+    }
+}
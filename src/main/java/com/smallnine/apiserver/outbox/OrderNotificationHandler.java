@@ -0,0 +1,40 @@
+package com.smallnine.apiserver.outbox;
+
+import com.smallnine.apiserver.entity.Notification;
+import com.smallnine.apiserver.service.NotificationService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+/**
+ * 訂單成立 / 取消時寫一筆站內通知
+ */
+@Component
+@RequiredArgsConstructor
+public class OrderNotificationHandler implements OrderEventHandler {
+
+    static final String TYPE = "order";
+
+    private final NotificationService notificationService;
+
+    @Override
+    public void onOrderCreated(OrderEvent event) {
+        notify(event, "訂單已成立",
+                "您的訂單 " + event.getOrderNumber() + " 已成立，金額 NT$" + event.getTotalAmount().toPlainString());
+    }
+
+    @Override
+    public void onOrderCancelled(OrderEvent event) {
+        notify(event, "訂單已取消", "您的訂單 " + event.getOrderNumber() + " 已取消");
+    }
+
+    private void notify(OrderEvent event, String title, String message) {
+        Notification notification = new Notification();
+        notification.setMemberId(event.getMemberId());
+        notification.setTitle(title);
+        notification.setMessage(message);
+        notification.setType(TYPE);
+        notification.setIsRead(false);
+        notification.setActionUrl("/orders/" + event.getOrderId());
+        notificationService.create(notification);
+    }
+}
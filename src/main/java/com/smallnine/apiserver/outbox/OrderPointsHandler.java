@@ -0,0 +1,64 @@
+package com.smallnine.apiserver.outbox;
+
+import com.smallnine.apiserver.dao.PointsDao;
+import com.smallnine.apiserver.entity.Points;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * 訂單回饋點數：成立時依金額發放，取消時寫一筆等額負點數沖銷。
+ * 點數是正負流水（餘額 = SUM），發放與沖銷的處理順序對結果沒有影響。
+ */
+@Component
+public class OrderPointsHandler implements OrderEventHandler {
+
+    static final String REFERENCE_TYPE = "ORDER";
+
+    private final PointsDao pointsDao;
+    private final BigDecimal amountPerPoint;
+
+    public OrderPointsHandler(PointsDao pointsDao,
+                              @Value("${app.points.order-amount-per-point:100}") BigDecimal amountPerPoint) {
+        this.pointsDao = pointsDao;
+        this.amountPerPoint = amountPerPoint;
+    }
+
+    @Override
+    public void onOrderCreated(OrderEvent event) {
+        int points = pointsFor(event);
+        if (points > 0) {
+            insert(event, points, "訂單 " + event.getOrderNumber() + " 消費回饋");
+        }
+    }
+
+    @Override
+    public void onOrderCancelled(OrderEvent event) {
+        int points = pointsFor(event);
+        if (points > 0) {
+            insert(event, -points, "訂單 " + event.getOrderNumber() + " 取消，扣回回饋點數");
+        }
+    }
+
+    /**
+     * 每滿 amountPerPoint 元得 1 點，不足的部分捨去
+     */
+    int pointsFor(OrderEvent event) {
+        if (event.getTotalAmount() == null || amountPerPoint.signum() <= 0) {
+            return 0;
+        }
+        return event.getTotalAmount().divide(amountPerPoint, 0, RoundingMode.DOWN).intValue();
+    }
+
+    private void insert(OrderEvent event, int points, String description) {
+        Points entry = new Points();
+        entry.setMemberId(event.getMemberId());
+        entry.setPoints(points);
+        entry.setDescription(description);
+        entry.setReferenceId(Math.toIntExact(event.getOrderId()));
+        entry.setReferenceType(REFERENCE_TYPE);
+        pointsDao.insert(entry);
+    }
+}
@@ -0,0 +1,294 @@
+package com.smallnine.apiserver.outbox;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.smallnine.apiserver.dao.OutboxEventDao;
+import com.smallnine.apiserver.entity.OutboxEvent;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 交易外寄箱投遞端。
+ *
+ * outbox-dispatcher 執行緒輪詢領取到期事件（OutboxPublisher 在 commit 後會喚醒它，不必等輪詢間隔），
+ * 交給固定大小的 worker pool 執行 handler。同一個 aggregate 的事件在同一個 worker 內依 id 順序處理。
+ *
+ * 每筆事件在獨立交易內「先標記已處理、再執行 handler」：
+ * 標記的 UPDATE 會鎖列，租約過期被其他節點重領時，後到者會等前者 commit 後拿到 0 而略過，handler 不會重複生效。
+ * handler 失敗則整筆 rollback，依 attempts 指數退避後重試；達 max-attempts 後停留在表中等人工處理。
+ */
+@Component
+@Slf4j
+public class OutboxDispatcher {
+
+    private static final int MAX_ERROR_LENGTH = 500;
+    private static final long MAX_RETRY_DELAY_SECONDS = 300;
+    private static final String METRIC_NAME = "outbox.events";
+
+    private final OutboxEventDao outboxEventDao;
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate transactionTemplate;
+    private final List<OrderEventHandler> orderEventHandlers;
+    private final MeterRegistry meterRegistry;
+
+    private final boolean enabled;
+    private final int batchSize;
+    private final long pollIntervalNanos;
+    private final long leaseSeconds;
+    private final int maxAttempts;
+    private final int retentionDays;
+    private final long shutdownTimeoutMs;
+    private final ThreadPoolExecutor workers;
+    private final Map<String, Counter> counters = new ConcurrentHashMap<>();
+
+    private volatile boolean running;
+    private volatile Thread poller;
+
+    public OutboxDispatcher(OutboxEventDao outboxEventDao,
+                            ObjectMapper objectMapper,
+                            PlatformTransactionManager transactionManager,
+                            List<OrderEventHandler> orderEventHandlers,
+                            MeterRegistry meterRegistry,
+                            @Value("${app.outbox.enabled:true}") boolean enabled,
+                            @Value("${app.outbox.batch-size:100}") int batchSize,
+                            @Value("${app.outbox.workers:4}") int workerCount,
+                            @Value("${app.outbox.poll-interval-ms:1000}") long pollIntervalMs,
+                            @Value("${app.outbox.lease-seconds:60}") long leaseSeconds,
+                            @Value("${app.outbox.max-attempts:10}") int maxAttempts,
+                            @Value("${app.outbox.retention-days:7}") int retentionDays,
+                            @Value("${app.outbox.shutdown-timeout-ms:5000}") long shutdownTimeoutMs) {
+        this.outboxEventDao = outboxEventDao;
+        this.objectMapper = objectMapper;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.orderEventHandlers = orderEventHandlers;
+        this.meterRegistry = meterRegistry;
+        this.enabled = enabled;
+        this.batchSize = Math.max(1, batchSize);
+        this.pollIntervalNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(1, pollIntervalMs));
+        this.leaseSeconds = leaseSeconds;
+        this.maxAttempts = maxAttempts;
+        this.retentionDays = retentionDays;
+        this.shutdownTimeoutMs = shutdownTimeoutMs;
+
+        // 一批最多 batchSize 個任務，佇列容量等於批次大小即不會被拒絕；CallerRuns 只是保險
+        int size = Math.max(1, workerCount);
+        AtomicInteger sequence = new AtomicInteger();
+        this.workers = new ThreadPoolExecutor(size, size, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(this.batchSize),
+                r -> {
+                    Thread thread = new Thread(r, "outbox-worker-" + sequence.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.CallerRunsPolicy());
+    }
+
+    @PostConstruct
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+        running = true;
+        Thread thread = new Thread(this::pollLoop, "outbox-dispatcher");
+        thread.setDaemon(true);
+        poller = thread;
+        thread.start();
+    }
+
+    /**
+     * 關機：等目前這批處理完；未處理的事件留在表中，由下次啟動或其他節點接手
+     */
+    @PreDestroy
+    public void stop() {
+        running = false;
+        Thread thread = poller;
+        if (thread != null) {
+            LockSupport.unpark(thread);
+            try {
+                thread.join(shutdownTimeoutMs);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        workers.shutdown();
+    }
+
+    /**
+     * 有新事件 commit：讓 poller 立刻領取下一批
+     */
+    public void wakeUp() {
+        Thread thread = poller;
+        if (thread != null) {
+            LockSupport.unpark(thread);
+        }
+    }
+
+    /**
+     * 領取並處理一批事件，處理完才回傳
+     * @return 本批領取的事件數
+     */
+    public int dispatchBatch() {
+        List<OutboxEvent> claimed = new ArrayList<>(outboxEventDao.claimBatch(batchSize, leaseSeconds, maxAttempts));
+        if (claimed.isEmpty()) {
+            return 0;
+        }
+        // RETURNING 不保證順序
+        claimed.sort(Comparator.comparing(OutboxEvent::getId));
+
+        Map<String, List<OutboxEvent>> byAggregate = new LinkedHashMap<>();
+        for (OutboxEvent event : claimed) {
+            byAggregate.computeIfAbsent(event.getAggregateType() + ":" + event.getAggregateId(),
+                    k -> new ArrayList<>()).add(event);
+        }
+        List<Callable<Void>> tasks = new ArrayList<>(byAggregate.size());
+        for (List<OutboxEvent> events : byAggregate.values()) {
+            tasks.add(() -> {
+                events.forEach(this::process);
+                return null;
+            });
+        }
+        try {
+            for (Future<Void> future : workers.invokeAll(tasks)) {
+                future.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            // process 自行吞下例外，走到這裡代表 bug；事件的租約到期後會被重領
+            log.error("action=OUTBOX_DISPATCH result=failed msg={}", e.getCause().getMessage());
+        }
+        return claimed.size();
+    }
+
+    @Scheduled(fixedDelayString = "${app.outbox.purge-interval-ms:3600000}")
+    public void purgeProcessed() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            int deleted = outboxEventDao.deleteProcessedBefore(LocalDateTime.now().minusDays(retentionDays));
+            if (deleted > 0) {
+                log.info("action=OUTBOX_PURGE deleted={}", deleted);
+            }
+        } catch (RuntimeException e) {
+            log.warn("action=OUTBOX_PURGE result=failed msg={}", e.getMessage());
+        }
+    }
+
+    // ---- 內部 ----
+
+    private void pollLoop() {
+        while (running) {
+            int claimed = 0;
+            try {
+                claimed = dispatchBatch();
+            } catch (RuntimeException e) {
+                log.warn("action=OUTBOX_CLAIM result=failed msg={}", e.getMessage());
+            }
+            // 滿批代表可能還有，直接領下一批
+            if (claimed < batchSize && running) {
+                LockSupport.parkNanos(pollIntervalNanos);
+            }
+        }
+    }
+
+    private void process(OutboxEvent event) {
+        try {
+            Boolean handled = transactionTemplate.execute(status -> {
+                if (outboxEventDao.markProcessed(event.getId()) == 0) {
+                    return false;
+                }
+                route(event);
+                return true;
+            });
+            record(event, Boolean.TRUE.equals(handled) ? "processed" : "skipped");
+        } catch (RuntimeException e) {
+            handleFailure(event, e);
+        }
+    }
+
+    private void route(OutboxEvent event) {
+        switch (event.getEventType()) {
+            case OrderEvent.CREATED -> {
+                OrderEvent payload = read(event, OrderEvent.class);
+                orderEventHandlers.forEach(handler -> handler.onOrderCreated(payload));
+            }
+            case OrderEvent.CANCELLED -> {
+                OrderEvent payload = read(event, OrderEvent.class);
+                orderEventHandlers.forEach(handler -> handler.onOrderCancelled(payload));
+            }
+            default -> log.warn("action=OUTBOX_UNKNOWN_EVENT id={} type={}", event.getId(), event.getEventType());
+        }
+    }
+
+    private <T> T read(OutboxEvent event, Class<T> type) {
+        try {
+            return objectMapper.readValue(event.getPayload(), type);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("outbox 事件內容無法解析: id=" + event.getId(), e);
+        }
+    }
+
+    private void handleFailure(OutboxEvent event, RuntimeException e) {
+        int attempts = event.getAttempts() == null ? 1 : event.getAttempts();
+        String error = e.getClass().getSimpleName() + ": " + e.getMessage();
+        if (error.length() > MAX_ERROR_LENGTH) {
+            error = error.substring(0, MAX_ERROR_LENGTH);
+        }
+        try {
+            outboxEventDao.markFailed(event.getId(), error, retryDelaySeconds(attempts));
+        } catch (RuntimeException markError) {
+            // 記不下來也無妨：租約到期後同樣會被重領
+            log.warn("action=OUTBOX_MARK_FAILED result=failed id={} msg={}", event.getId(), markError.getMessage());
+        }
+        if (attempts >= maxAttempts) {
+            record(event, "exhausted");
+            log.error("action=OUTBOX_EXHAUSTED id={} type={} aggregateId={} attempts={} msg={}",
+                    event.getId(), event.getEventType(), event.getAggregateId(), attempts, error);
+        } else {
+            record(event, "failed");
+            log.warn("action=OUTBOX_RETRY id={} type={} aggregateId={} attempts={} msg={}",
+                    event.getId(), event.getEventType(), event.getAggregateId(), attempts, error);
+        }
+    }
+
+    /**
+     * 指數退避：2、4、8 ... 秒，上限 5 分鐘
+     */
+    static long retryDelaySeconds(int attempts) {
+        return Math.min(MAX_RETRY_DELAY_SECONDS, 1L << Math.min(attempts, 30));
+    }
+
+    private void record(OutboxEvent event, String outcome) {
+        counters.computeIfAbsent(event.getEventType() + "|" + outcome, k -> Counter.builder(METRIC_NAME)
+                        .description("交易外寄箱事件投遞結果")
+                        .tag("type", event.getEventType())
+                        .tag("outcome", outcome)
+                        .register(meterRegistry))
+                .increment();
+    }
+}
@@ -0,0 +1,54 @@
+package com.smallnine.apiserver.outbox;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.smallnine.apiserver.dao.OutboxEventDao;
+import com.smallnine.apiserver.entity.OutboxEvent;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * 交易外寄箱寫入端：事件與業務資料在同一個交易內落地，
+ * 不會出現「訂單已 commit 但事件遺失」或「事件已送出但訂單 rollback」。
+ */
+@Component
+@RequiredArgsConstructor
+public class OutboxPublisher {
+
+    private final OutboxEventDao outboxEventDao;
+    private final ObjectMapper objectMapper;
+    private final OutboxDispatcher outboxDispatcher;
+
+    /**
+     * 在呼叫端的交易內寫入事件；commit 後喚醒 dispatcher 立即投遞，不必等下一輪輪詢
+     * @throws org.springframework.transaction.IllegalTransactionStateException 呼叫端沒有交易
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void publish(String aggregateType, Long aggregateId, String eventType, Object payload) {
+        OutboxEvent event = new OutboxEvent();
+        event.setAggregateType(aggregateType);
+        event.setAggregateId(aggregateId);
+        event.setEventType(eventType);
+        event.setPayload(toJson(eventType, payload));
+        outboxEventDao.insert(event);
+
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                outboxDispatcher.wakeUp();
+            }
+        });
+    }
+
+    private String toJson(String eventType, Object payload) {
+        try {
+            return objectMapper.writeValueAsString(payload);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("outbox 事件序列化失敗: " + eventType, e);
+        }
+    }
+}
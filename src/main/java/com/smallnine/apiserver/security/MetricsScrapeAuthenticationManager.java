@@ -0,0 +1,42 @@
+package com.smallnine.apiserver.security;
+
+import org.springframework.security.authentication.AuthenticationManager;
+import org.springframework.security.authentication.BadCredentialsException;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.List;
+
+/**
+ * /actuator/prometheus 專用的抓取憑證驗證（HTTP Basic），只掛在 metrics filter chain，不是全域的 AuthenticationManager。
+ *
+ * 刻意不走 BCrypt：Prometheus 每 15 秒抓一次，憑證是部署時注入的隨機字串，常數時間比對即可。
+ * 密碼未設定時一律拒絕（fail-closed），不會因為漏設環境變數而把指標公開。
+ */
+public class MetricsScrapeAuthenticationManager implements AuthenticationManager {
+
+    public static final String ROLE = "METRICS";
+
+    private final String username;
+    private final byte[] password;
+
+    public MetricsScrapeAuthenticationManager(String username, String password) {
+        this.username = username;
+        this.password = password == null ? new byte[0] : password.getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Override
+    public Authentication authenticate(Authentication authentication) {
+        Object credentials = authentication.getCredentials();
+        if (password.length == 0 || credentials == null
+                || !username.equals(authentication.getName())
+                || !MessageDigest.isEqual(password, credentials.toString().getBytes(StandardCharsets.UTF_8))) {
+            throw new BadCredentialsException("指標抓取憑證錯誤");
+        }
+        return UsernamePasswordAuthenticationToken.authenticated(
+                username, null, List.of(new SimpleGrantedAuthority("ROLE_" + ROLE)));
+    }
+}
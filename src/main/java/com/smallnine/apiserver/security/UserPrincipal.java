@@ -1,6 +1,7 @@
 package com.smallnine.apiserver.security;
 
 import com.smallnine.apiserver.entity.User;
+import com.smallnine.apiserver.utils.JwtUtil;
 import lombok.Getter;
 import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
@@ -18,6 +19,20 @@ public class UserPrincipal implements UserDetails {
         this.user = user;
     }
 
+    /**
+     * 由已驗簽的 access token claims 組 principal，不查 DB。
+     * 只有 id / username / role / 啟用狀態，沒有密碼與個人資料（其餘欄位是 User 的預設值）；需要完整會員資料請以 id 重新查詢。
+     * @throws IllegalArgumentException role claim 不是合法的角色
+     */
+    public static UserPrincipal fromToken(JwtUtil.ParsedToken token) {
+        User user = new User();
+        user.setId(token.getUserId());
+        user.setUsername(token.getSubject());
+        user.setRole(User.Role.valueOf(token.getRole()));
+        user.setEmailValidated(token.getEnabled());
+        return new UserPrincipal(user);
+    }
+
     @Override
     public Collection<? extends GrantedAuthority> getAuthorities() {
         String roleName = (user.getRole() != null) ? user.getRole().name() : User.Role.USER.name();
@@ -0,0 +1,100 @@
+package com.smallnine.apiserver.security;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import com.smallnine.apiserver.dto.TokenCacheStats;
+import com.smallnine.apiserver.utils.JwtUtil;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 已驗證 token 的本機快取：同一顆 access token 在效期內重複出現時不再驗簽、解 JSON。
+ *
+ * key 是 token 的 SHA-256（不在記憶體留原始 token），每筆在 token 的 exp 時過期。
+ * 只快取驗證成功的結果；存的是完整的 ParsedToken，type / 撤銷等檢查照常由呼叫端做。
+ * 啟用時以 cache.*{cache=verifiedTokens} 指標輸出命中率。
+ */
+@Component
+public class VerifiedTokenCache implements MeterBinder {
+
+    private final JwtUtil jwtUtil;
+    private final boolean enabled;
+    private final Cache<String, JwtUtil.ParsedToken> cache;
+    private final LongAdder sizeEvictions = new LongAdder();
+
+    public VerifiedTokenCache(JwtUtil jwtUtil,
+                              @Value("${app.security.token-cache.enabled:false}") boolean enabled,
+                              @Value("${app.security.token-cache.max-size:10000}") long maxSize) {
+        this.jwtUtil = jwtUtil;
+        this.enabled = enabled;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfter(Expiry.creating((String key, JwtUtil.ParsedToken token) ->
+                        Duration.between(Instant.now(), token.getExpiresAt())))
+                .removalListener((String key, JwtUtil.ParsedToken token, RemovalCause cause) -> {
+                    if (cause == RemovalCause.SIZE) {
+                        sizeEvictions.increment();
+                    }
+                })
+                .recordStats()
+                .build();
+    }
+
+    /**
+     * 與 {@link JwtUtil#parse(String)} 相同語意，命中時省掉驗簽
+     * @throws io.jsonwebtoken.JwtException 簽章錯誤、格式錯誤或已過期
+     */
+    public JwtUtil.ParsedToken parse(String token) {
+        if (!enabled) {
+            return jwtUtil.parse(token);
+        }
+        String key = sha256(token);
+        JwtUtil.ParsedToken cached = cache.getIfPresent(key);
+        // Caffeine 的過期清理是惰性的，取出時再確認一次
+        if (cached != null && cached.getExpiresAt().isAfter(Instant.now())) {
+            return cached;
+        }
+        JwtUtil.ParsedToken parsed = jwtUtil.parse(token);
+        if (parsed.getExpiresAt() != null) {
+            cache.put(key, parsed);
+        }
+        return parsed;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        if (enabled) {
+            CaffeineCacheMetrics.monitor(registry, cache, "verifiedTokens");
+        }
+    }
+
+    public TokenCacheStats getStats() {
+        CacheStats stats = cache.stats();
+        return new TokenCacheStats(enabled, stats.hitCount(), stats.missCount(),
+                sizeEvictions.sum(), cache.estimatedSize());
+    }
+
+    private static String sha256(String token) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.UTF_8));
+            return Base64.getEncoder().withoutPadding().encodeToString(digest);
+        } catch (NoSuchAlgorithmException e) {
+            // 每個 JRE 都必須提供 SHA-256
+            throw new IllegalStateException(e);
+        }
+    }
+}
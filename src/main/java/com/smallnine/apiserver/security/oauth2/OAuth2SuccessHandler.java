@@ -62,7 +62,7 @@ public class OAuth2SuccessHandler implements AuthenticationSuccessHandler {
         try {
             User user = resolveUser(profile);
 
-            String accessToken = jwtUtil.generateAccessToken(user.getUsername());
+            String accessToken = jwtUtil.generateAccessToken(user);
             RefreshToken refreshToken = refreshTokenService.createRefreshToken(user, null);
             long accessExpiresAt = System.currentTimeMillis() + jwtUtil.getAccessTokenExpirationTime();
 
@@ -3,9 +3,9 @@ package com.smallnine.apiserver.service;
 import java.time.Duration;
 
 /**
- * #H2 認證端點分散式限流（Redis 計數）。
+ * #H2 認證端點分散式限流（Redis Lua，每個操作一次往返）。
  *
- * 提供登入失敗保護（帳號/IP 計數與鎖定）與一般 per-IP 固定視窗 throttle。
+ * 提供登入失敗保護（帳號/IP 計數與鎖定）與一般 per-IP GCRA throttle。
  * 實作見 {@link com.smallnine.apiserver.service.impl.AuthRateLimitServiceImpl}。
  */
 public interface AuthRateLimitService {
@@ -19,6 +19,6 @@ public interface AuthRateLimitService {
     /** 登入成功：清掉該帳號的失敗計數與鎖定（IP 計數保留，視窗自然過期）。 */
     void recordLoginSuccess(String usernameOrEmail);
 
-    /** 該 IP 對某 action 在固定視窗內超過 limit 即丟 429。Redis 故障時放行。 */
+    /** 該 IP 對某 action 在 window 內超過 limit 即丟 429（帶 Retry-After）。Redis 故障時放行。 */
     void assertIpQuota(String action, String ip, long limit, Duration window);
 }
\ No newline at end of file
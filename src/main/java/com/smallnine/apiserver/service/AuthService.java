@@ -14,6 +14,8 @@ public interface AuthService {
 
     void logout(String refreshToken);
 
+    void revokeUserAccess(Long userId);
+
     void verifyEmail(String token);
 
     void resendVerificationEmail(String email);
@@ -10,6 +10,8 @@ public interface CartService {
 
     List<CartItem> getCartItems(Long memberId);
 
+    List<CartItem> getCartItemsWithProduct(Long memberId);
+
     CartItem addToCart(Long memberId, Long productId, Integer quantity);
 
     CartItem updateCartItemQuantity(Long memberId, Long cartItemId, Integer quantity);
@@ -20,12 +22,16 @@ public interface CartService {
 
     BigDecimal calculateCartTotal(Long memberId);
 
+    BigDecimal calculateCartTotal(List<CartItem> cartItems);
+
     long getCartItemCount(Long memberId);
 
     long countCartItems(Long memberId);
 
     boolean validateCartStock(Long memberId);
 
+    boolean validateCartStock(List<CartItem> cartItems);
+
     CartValidationResult validateCart(Long memberId);
 
     void refreshCartPrices(Long memberId);
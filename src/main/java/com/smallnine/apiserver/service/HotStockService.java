@@ -0,0 +1,42 @@
+package com.smallnine.apiserver.service;
+
+import com.smallnine.apiserver.dto.HotStockReserveResult;
+import com.smallnine.apiserver.dto.StockChange;
+
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * 熱門商品（搶購 SKU）Redis 庫存引擎。
+ * 被標記為熱門的商品改由 Redis 計數預扣，避免大量結帳搶同一筆 product 列鎖；
+ * 預扣流水由 reconciler 非同步回寫 DB。
+ */
+public interface HotStockService {
+
+    boolean isHot(Long productId);
+
+    /**
+     * 熱門商品的即時可售庫存（Redis 計數）；非熱門商品回傳 empty
+     */
+    Optional<Integer> getAvailableStock(Long productId);
+
+    /**
+     * 原子預扣（all-or-nothing）。成功時若有進行中的交易，交易未 commit 會自動還回。
+     */
+    HotStockReserveResult reserve(List<StockChange> changes);
+
+    /**
+     * 還庫存；有進行中的交易時延到 commit 後才執行
+     */
+    void release(List<StockChange> changes);
+
+    void enable(Long productId);
+
+    void disable(Long productId);
+
+    /**
+     * 把一批預扣流水回寫 DB
+     * @return 本次處理的流水筆數
+     */
+    int reconcile();
+}
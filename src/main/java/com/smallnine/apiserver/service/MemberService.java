@@ -10,6 +10,7 @@ public interface MemberService {
 
     /**
      * 更新會員資料，回傳更新後的頭像 URL（若有更新）
+     * @param user 目前登入者；只會用到 id，完整資料由 DB 重讀
      */
     String updateProfile(User user, String username, String realname, String email,
                          String birthDate, String gender, String phone, MultipartFile avatar);
@@ -0,0 +1,13 @@
+package com.smallnine.apiserver.service;
+
+/**
+ * 訂單號產生器：不查 DB 判斷重複，保證不重複且不可預測。
+ * 實作見 {@link com.smallnine.apiserver.service.impl.OrderNumberGeneratorImpl}。
+ */
+public interface OrderNumberGenerator {
+
+    /**
+     * 取得下一個訂單號（ORD + 12 碼）
+     */
+    String next();
+}
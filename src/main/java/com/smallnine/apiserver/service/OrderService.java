@@ -1,6 +1,8 @@
 package com.smallnine.apiserver.service;
 
 import com.smallnine.apiserver.dto.CreateOrderRequest;
+import com.smallnine.apiserver.dto.CursorPage;
+import com.smallnine.apiserver.dto.OrderHistoryResponse;
 import com.smallnine.apiserver.entity.Order;
 import com.smallnine.apiserver.entity.OrderItem;
 
@@ -14,6 +16,11 @@ public interface OrderService {
 
     List<Order> findUserOrders(Long memberId, int page, int size);
 
+    /**
+     * 會員訂單歷史（含明細），游標分頁；一頁只查一次 DB
+     */
+    CursorPage<OrderHistoryResponse> findOrderHistory(Long memberId, String cursor, int size);
+
     List<OrderItem> findOrderItems(Long orderId, Long memberId);
 
     Order createOrderFromCart(Long memberId, CreateOrderRequest request);
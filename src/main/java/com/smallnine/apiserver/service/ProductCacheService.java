@@ -0,0 +1,47 @@
+package com.smallnine.apiserver.service;
+
+import com.smallnine.apiserver.dto.ProductCacheStats;
+import com.smallnine.apiserver.entity.Product;
+
+import java.util.Collection;
+
+/**
+ * 商品快取：商品資料（products，長 TTL）與庫存（productStock，短 TTL）分兩層，
+ * 價格等資料快取再久也不會蓋掉庫存。
+ * 所有讀取失敗都視為未命中，快取不可用時直接回源 DB。
+ */
+public interface ProductCacheService {
+
+    /**
+     * @return 快取的商品資料（stockQuantity 不可信，需另外取庫存）；未命中回傳 null
+     */
+    Product getProduct(Long id);
+
+    void putProduct(Product product);
+
+    /**
+     * @return SKU 對應的商品 id；未命中回傳 null
+     */
+    Long getIdBySku(String sku);
+
+    void putSku(String sku, Long id);
+
+    /**
+     * @return 快取的庫存；未命中回傳 null
+     */
+    Integer getStock(Long id);
+
+    void putStock(Long id, Integer stockQuantity);
+
+    /**
+     * 商品資料異動：清除商品、SKU 對應與庫存（交易 commit 後執行）
+     */
+    void evictProduct(Long id, String... skus);
+
+    /**
+     * 庫存異動：只清庫存層（交易 commit 後執行）
+     */
+    void evictStock(Collection<Long> ids);
+
+    ProductCacheStats getStats();
+}
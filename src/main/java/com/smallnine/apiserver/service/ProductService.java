@@ -1,7 +1,10 @@
 package com.smallnine.apiserver.service;
 
+import com.smallnine.apiserver.dto.CursorPage;
 import com.smallnine.apiserver.dto.ProductDTO;
 import com.smallnine.apiserver.dto.ProductRequest;
+import com.smallnine.apiserver.dto.ProductSearchResult;
+import com.smallnine.apiserver.dto.StockChange;
 import com.smallnine.apiserver.entity.Product;
 
 import java.math.BigDecimal;
@@ -11,6 +14,8 @@ public interface ProductService {
 
     Product findById(Long id);
 
+    Product findBySku(String sku);
+
     List<Product> findActiveProducts(int page, int size);
 
     List<Product> findAll(int page, int size);
@@ -27,6 +32,22 @@ public interface ProductService {
 
     List<Product> searchProducts(String keyword, BigDecimal minPrice, BigDecimal maxPrice, int page, int size);
 
+    ProductSearchResult search(String keyword, Long categoryId, Long brandId,
+                               BigDecimal minPrice, BigDecimal maxPrice, int page, int size);
+
+    CursorPage<Product> findActiveProductsWithCursor(String cursor, int size);
+
+    CursorPage<Product> findAllWithCursor(String cursor, int size);
+
+    CursorPage<Product> findByCategoryWithCursor(Long categoryId, String cursor, int size);
+
+    CursorPage<Product> searchByNameWithCursor(String name, String cursor, int size);
+
+    CursorPage<Product> findByPriceRangeWithCursor(BigDecimal minPrice, BigDecimal maxPrice, String cursor, int size);
+
+    CursorPage<Product> searchProductsWithCursor(String keyword, BigDecimal minPrice, BigDecimal maxPrice,
+                                                 String cursor, int size);
+
     Product createProduct(ProductRequest request);
 
     Product createProduct(ProductDTO productDTO);
@@ -45,6 +66,8 @@ public interface ProductService {
 
     boolean decreaseStock(Long id, Integer quantity);
 
+    List<Long> decreaseStockBatch(List<StockChange> changes);
+
     long countProducts();
 
     long countByCategoryId(Long categoryId);
@@ -1,9 +1,9 @@
 package com.smallnine.apiserver.service;
 
 /**
- * #H1 認證端點限流（純記憶體 token bucket）。
+ * #H1 認證端點限流（Redis GCRA，Redis 故障時退回本機 token bucket）。
  *
- * 僅適用單機；多機 / 分散式限流（登入端點）見 {@link AuthRateLimitService}。
+ * 登入失敗保護與 per-IP throttle 見 {@link AuthRateLimitService}。
  * 實作見 {@link com.smallnine.apiserver.service.impl.RateLimiterServiceImpl}。
  */
 public interface RateLimiterService {
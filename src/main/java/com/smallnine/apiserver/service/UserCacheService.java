@@ -0,0 +1,23 @@
+package com.smallnine.apiserver.service;
+
+import org.springframework.security.core.userdetails.UserDetails;
+
+import java.util.function.Supplier;
+
+/**
+ * 認證用的 UserDetails 快取（以 username 為 key）。
+ * 只放本機 L1：內容含密碼雜湊，不寫進 Redis；會員資料異動時清除並廣播到其他節點，
+ * 廣播遺失時靠短 TTL 兜底。取回的是共用實例，呼叫端不可修改。
+ */
+public interface UserCacheService {
+
+    /**
+     * 命中直接回傳，未命中由 loader 載入後放入快取；loader 拋出的例外原樣往外拋
+     */
+    UserDetails get(String username, Supplier<UserDetails> loader);
+
+    /**
+     * 會員資料（帳號、密碼、信箱驗證、角色）異動後清除（交易結束後執行，rollback 也會清）
+     */
+    void evict(String... usernames);
+}
@@ -0,0 +1,23 @@
+package com.smallnine.apiserver.service;
+
+import java.time.Instant;
+
+/**
+ * 使用者層級的 access token 撤銷清單（Redis）。
+ * access token 改由 claims 組 principal 後不再每次查 member，
+ * 停用帳號 / 強制登出要靠這份清單在數秒內生效。
+ * 記錄的是撤銷時間：在此之前簽發的 token 一律無效，之後重新登入拿到的 token 不受影響。
+ */
+public interface UserRevocationService {
+
+    /**
+     * 撤銷該使用者目前所有 access token；紀錄保留到這些 token 全數過期為止
+     */
+    void revoke(Long userId);
+
+    /**
+     * @param issuedAt token 的簽發時間
+     * @throws org.springframework.dao.DataAccessException Redis 不可用，呼叫端應改走 DB 查詢
+     */
+    boolean isRevoked(Long userId, Instant issuedAt);
+}
@@ -1,25 +1,36 @@
 package com.smallnine.apiserver.service.impl;
 
-import com.smallnine.apiserver.constants.enums.ResponseCode;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
 import com.smallnine.apiserver.exception.BusinessException;
+import com.smallnine.apiserver.exception.RateLimitExceededException;
 import com.smallnine.apiserver.service.AuthRateLimitService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
 import org.springframework.stereotype.Component;
 
 import java.time.Duration;
+import java.util.List;
 import java.util.Locale;
 
 /**
- * #H2 認證端點分散式限流（Redis 計數）。
+ * #H2 認證端點分散式限流（Redis Lua）。
  *
- * 刻意不引 bucket4j-redis：本專案既有 Redis 用法都是 RedisTemplate
- * （見 OAuth2CodeStore / OrderServiceImpl），INCR+EXPIRE 對「暴力破解
- * 防護 / 失敗計數 / 鎖定」已足夠，少一個依賴、好 mock 測。
+ * 每個操作只有一次 Redis 往返，且在 Lua 內原子完成：
+ *  - 前置檢查：login_guard.lua 一次 PTTL 帳號鎖 + IP 鎖
+ *  - 登入失敗：login_failure.lua 帳號 / IP 各 INCR + PEXPIRE，達門檻寫 lock key
+ *  - per-IP throttle：GCRA（見 {@link GcraRateLimiter}）
  *
- * 失敗達門檻就寫一支「lock key」，前置檢查只用 hasKey 判斷——不回讀
- * INCR 的數值，避開 value 序列化器（JSON）反序列化純數字字串的雷。
+ * 刻意用 StringRedisTemplate：計數與 Lua 參數都是純數字字串，
+ * 走共用 RedisTemplate 的 JSON 序列化器會多一層引號。
+ *
+ * 本地 near-cache 只記「已知生效中的鎖」與其到期時間：被鎖的帳號 / IP 在到期前
+ * 不再打 Redis（攻擊流量集中在這條路徑）。鎖只會自然過期，登入成功也必須先通過
+ * 前置檢查才會清鎖，所以本地副本不會比 Redis 多擋人。未上鎖的正常登入仍走一次
+ * guard script——別的節點剛寫下的鎖必須立刻看得到。
  *
  * **fail-open**：Redis 故障時一律放行並記 warn——限流器壞掉不能把所有人
  * 擋在登入外（可用性優先於限流）。
@@ -37,6 +48,9 @@ public class AuthRateLimitServiceImpl implements AuthRateLimitService {
     private static final long IP_FAIL_LIMIT = 20;
     private static final Duration IP_FAIL_WINDOW = Duration.ofMinutes(15);
     private static final Duration IP_LOCK = Duration.ofMinutes(15);
+    // lock key 沒有 TTL（不該發生）時本地最多記多久
+    private static final Duration UNBOUNDED_LOCK_LOCAL_TTL = Duration.ofMinutes(1);
+    private static final long MAX_TRACKED_LOCKS = 100_000;
 
     private static final String K_USER_FAIL = "rl:login:userfail:";
     private static final String K_USER_LOCK = "rl:login:lock:";
@@ -44,23 +58,54 @@ public class AuthRateLimitServiceImpl implements AuthRateLimitService {
     private static final String K_IP_LOCK = "rl:login:iplock:";
     private static final String K_IP_QUOTA = "rl:ip:";
 
-    private final RedisTemplate<String, Object> redisTemplate;
+    @SuppressWarnings("rawtypes")
+    private static final RedisScript<List> GUARD_SCRIPT =
+            RedisScript.of(new ClassPathResource("scripts/login_guard.lua"), List.class);
+    @SuppressWarnings("rawtypes")
+    private static final RedisScript<List> FAILURE_SCRIPT =
+            RedisScript.of(new ClassPathResource("scripts/login_failure.lua"), List.class);
+
+    private final StringRedisTemplate stringRedisTemplate;
+    private final GcraRateLimiter gcraRateLimiter;
+
+    /** lock key → 鎖到期時間（epoch 毫秒） */
+    private final Cache<String, Long> activeLocks = Caffeine.newBuilder()
+            .maximumSize(MAX_TRACKED_LOCKS)
+            .expireAfterWrite(Duration.ofMillis(Math.max(USERNAME_LOCK.toMillis(), IP_LOCK.toMillis())))
+            .build();
 
     // ---- 登入失敗保護 ----
 
     @Override
     public void assertLoginAllowed(String usernameOrEmail, String ip) {
         String user = norm(usernameOrEmail);
+        String userLock = K_USER_LOCK + user;
+        String ipLock = K_IP_LOCK + ip;
+
+        long now = System.currentTimeMillis();
+        Long userLockedUntil = lockedUntil(userLock, now);
+        if (userLockedUntil != null) {
+            throw accountLocked(user, ip, userLockedUntil - now);
+        }
+        Long ipLockedUntil = lockedUntil(ipLock, now);
+        if (ipLockedUntil != null) {
+            throw ipLocked(ip, ipLockedUntil - now);
+        }
+
         try {
-            if (locked(K_USER_LOCK + user)) {
-                log.warn("action=login user={} ip={} result=blocked reason=account_locked", user, ip);
-                throw new BusinessException(ResponseCode.TOO_MANY_REQUESTS,
-                        "嘗試次數過多，帳號已暫時鎖定，請 15 分鐘後再試");
+            List<?> reply = stringRedisTemplate.execute(GUARD_SCRIPT, List.of(userLock, ipLock));
+            int which = reply == null ? 0 : (int) toLong(reply.get(0));
+            if (which == 0) {
+                return;
             }
-            if (locked(K_IP_LOCK + ip)) {
-                log.warn("action=login ip={} result=blocked reason=ip_locked", ip);
-                throw new BusinessException(ResponseCode.TOO_MANY_REQUESTS, "嘗試次數過多，請稍後再試");
+            long remaining = toLong(reply.get(1));
+            Duration retryAfter = remaining > 0 ? Duration.ofMillis(remaining) : UNBOUNDED_LOCK_LOCAL_TTL;
+            if (which == 1) {
+                rememberLock(userLock, now, retryAfter);
+                throw accountLocked(user, ip, retryAfter.toMillis());
             }
+            rememberLock(ipLock, now, retryAfter);
+            throw ipLocked(ip, retryAfter.toMillis());
         } catch (BusinessException e) {
             throw e;
         } catch (RuntimeException e) {
@@ -71,16 +116,26 @@ public class AuthRateLimitServiceImpl implements AuthRateLimitService {
     @Override
     public void recordLoginFailure(String usernameOrEmail, String ip) {
         String user = norm(usernameOrEmail);
+        String userLock = K_USER_LOCK + user;
+        String ipLock = K_IP_LOCK + ip;
         try {
-            long userFails = bumpSliding(K_USER_FAIL + user, USERNAME_FAIL_WINDOW);
-            if (userFails >= USERNAME_FAIL_LIMIT) {
-                redisTemplate.opsForValue().set(K_USER_LOCK + user, "1", USERNAME_LOCK);
-                log.warn("action=login user={} result=locked fail_count={}", user, userFails);
+            List<?> reply = stringRedisTemplate.execute(FAILURE_SCRIPT,
+                    List.of(K_USER_FAIL + user, userLock, K_IP_FAIL + ip, ipLock),
+                    String.valueOf(USERNAME_FAIL_WINDOW.toMillis()), String.valueOf(USERNAME_FAIL_LIMIT),
+                    String.valueOf(USERNAME_LOCK.toMillis()),
+                    String.valueOf(IP_FAIL_WINDOW.toMillis()), String.valueOf(IP_FAIL_LIMIT),
+                    String.valueOf(IP_LOCK.toMillis()));
+            if (reply == null || reply.size() < 4) {
+                return;
+            }
+            long now = System.currentTimeMillis();
+            if (toLong(reply.get(1)) == 1L) {
+                rememberLock(userLock, now, USERNAME_LOCK);
+                log.warn("action=login user={} result=locked fail_count={}", user, toLong(reply.get(0)));
             }
-            long ipFails = bumpSliding(K_IP_FAIL + ip, IP_FAIL_WINDOW);
-            if (ipFails >= IP_FAIL_LIMIT) {
-                redisTemplate.opsForValue().set(K_IP_LOCK + ip, "1", IP_LOCK);
-                log.warn("action=login ip={} result=locked fail_count={}", ip, ipFails);
+            if (toLong(reply.get(3)) == 1L) {
+                rememberLock(ipLock, now, IP_LOCK);
+                log.warn("action=login ip={} result=locked fail_count={}", ip, toLong(reply.get(2)));
             }
         } catch (RuntimeException e) {
             log.warn("action=login result=ratelimit_degraded reason=redis_unavailable msg={}", e.getMessage());
@@ -90,49 +145,68 @@ public class AuthRateLimitServiceImpl implements AuthRateLimitService {
     @Override
     public void recordLoginSuccess(String usernameOrEmail) {
         String user = norm(usernameOrEmail);
+        activeLocks.invalidate(K_USER_LOCK + user);
         try {
-            redisTemplate.delete(K_USER_FAIL + user);
-            redisTemplate.delete(K_USER_LOCK + user);
+            stringRedisTemplate.delete(List.of(K_USER_FAIL + user, K_USER_LOCK + user));
         } catch (RuntimeException e) {
             log.warn("action=login result=ratelimit_degraded reason=redis_unavailable msg={}", e.getMessage());
         }
     }
 
-    // ---- 一般 per-IP 固定視窗 throttle（register / oauth-exchange 等）----
+    // ---- 一般 per-IP throttle（register / oauth-exchange 等）----
 
     @Override
     public void assertIpQuota(String action, String ip, long limit, Duration window) {
         String key = K_IP_QUOTA + action + ":" + ip;
+        GcraRateLimiter.Decision decision;
         try {
-            Long count = redisTemplate.opsForValue().increment(key);
-            if (count != null && count == 1L) {
-                redisTemplate.expire(key, window);
-            }
-            if (count != null && count > limit) {
-                log.warn("action={} ip={} result=blocked reason=ip_quota count={}", action, ip, count);
-                throw new BusinessException(ResponseCode.TOO_MANY_REQUESTS, "請求過於頻繁，請稍後再試");
-            }
-        } catch (BusinessException e) {
-            throw e;
+            decision = gcraRateLimiter.tryAcquire(key, limit, window);
         } catch (RuntimeException e) {
             log.warn("action={} result=ratelimit_degraded reason=redis_unavailable msg={}", action, e.getMessage());
+            return;
+        }
+        if (!decision.isAllowed()) {
+            log.warn("action={} ip={} result=blocked reason=ip_quota retry_after_ms={}",
+                    action, ip, decision.getRetryAfter().toMillis());
+            throw new RateLimitExceededException("請求過於頻繁，請稍後再試", decision.getRetryAfter());
         }
     }
 
     // ---- 內部 ----
 
-    /** 滑動視窗：每次命中都把計數 +1 並把 TTL 重設為 window（持續攻擊就持續鎖）。 */
-    private long bumpSliding(String key, Duration window) {
-        Long c = redisTemplate.opsForValue().increment(key);
-        redisTemplate.expire(key, window);
-        return c == null ? 0L : c;
+    /** 本地已知鎖的到期時間；沒有或已過期回 null */
+    private Long lockedUntil(String lockKey, long now) {
+        Long until = activeLocks.getIfPresent(lockKey);
+        if (until == null) {
+            return null;
+        }
+        if (until <= now) {
+            activeLocks.invalidate(lockKey);
+            return null;
+        }
+        return until;
+    }
+
+    private void rememberLock(String lockKey, long now, Duration remaining) {
+        activeLocks.put(lockKey, now + remaining.toMillis());
+    }
+
+    private RateLimitExceededException accountLocked(String user, String ip, long remainingMillis) {
+        log.warn("action=login user={} ip={} result=blocked reason=account_locked", user, ip);
+        return new RateLimitExceededException("嘗試次數過多，帳號已暫時鎖定，請 15 分鐘後再試",
+                Duration.ofMillis(remainingMillis));
+    }
+
+    private RateLimitExceededException ipLocked(String ip, long remainingMillis) {
+        log.warn("action=login ip={} result=blocked reason=ip_locked", ip);
+        return new RateLimitExceededException("嘗試次數過多，請稍後再試", Duration.ofMillis(remainingMillis));
     }
 
-    private boolean locked(String key) {
-        return Boolean.TRUE.equals(redisTemplate.hasKey(key));
+    private static long toLong(Object value) {
+        return value instanceof Number n ? n.longValue() : Long.parseLong(String.valueOf(value));
     }
 
     private String norm(String s) {
         return s == null ? "" : s.trim().toLowerCase(Locale.ROOT);
     }
-}
\ No newline at end of file
+}
@@ -13,6 +13,8 @@ import com.smallnine.apiserver.logging.AuditLogger;
 import com.smallnine.apiserver.logging.LogContext;
 import com.smallnine.apiserver.service.MailService;
 import com.smallnine.apiserver.service.RefreshTokenService;
+import com.smallnine.apiserver.service.UserCacheService;
+import com.smallnine.apiserver.service.UserRevocationService;
 import com.smallnine.apiserver.dao.UserDao;
 import com.smallnine.apiserver.utils.JwtUtil;
 import lombok.RequiredArgsConstructor;
@@ -41,6 +43,8 @@ public class AuthServiceImpl implements AuthService {
     private final RefreshTokenService refreshTokenService;
     private final AuditLogger auditLogger;
     private final MailService mailService;
+    private final UserRevocationService userRevocationService;
+    private final UserCacheService userCacheService;
     
     @Transactional
     public UserResponse register(RegisterRequest request) {
@@ -102,7 +106,7 @@ public class AuthServiceImpl implements AuthService {
             throw new BadCredentialsException("用戶名或密碼錯誤");
         }
 
-        String accessToken = jwtUtil.generateAccessToken(user.getUsername());
+        String accessToken = jwtUtil.generateAccessToken(user);
         // login 不踢其他裝置:傳 null 表示不撤銷既有 refresh token
         RefreshToken refreshTokenEntity = refreshTokenService.createRefreshToken(user, null);
         LocalDateTime expiresAt = LocalDateTime.now().plusSeconds(jwtUtil.getAccessTokenExpirationTime() / 1000);
@@ -140,12 +144,14 @@ public class AuthServiceImpl implements AuthService {
                     // 帳號既已停用,該 user 全部裝置 session 一併撤銷,不只手上這顆。
                     if (!user.isEnabled()) {
                         refreshTokenService.revokeByUser(user);
+                        revokeAccessTokensQuietly(user.getId());
+                        userCacheService.evict(user.getUsername());
                         log.warn("action=refresh_token username={} user_id={} result=failure reason=account_disabled",
                                 user.getUsername(), user.getId());
                         throw new AccountDisabledException();
                     }
 
-                    String newAccessToken = jwtUtil.generateAccessToken(user.getUsername());
+                    String newAccessToken = jwtUtil.generateAccessToken(user);
                     // Refresh rotation:撤銷剛用掉的這顆 + 發新顆,其他裝置 session 不動
                     RefreshToken newRefreshToken = refreshTokenService.createRefreshToken(user, requestRefreshToken);
                     LocalDateTime expiresAt = LocalDateTime.now().plusSeconds(jwtUtil.getAccessTokenExpirationTime() / 1000);
@@ -157,6 +163,29 @@ public class AuthServiceImpl implements AuthService {
                 .orElseThrow(() -> new TokenRefreshException(requestRefreshToken, "更新令牌無效或已過期"));
     }
     
+    /**
+     * 強制登出：撤銷全部 refresh token，並讓已簽出的 access token 立即失效。
+     * admin 在 DB 停用帳號或調整角色後呼叫，不必等 access token 自然過期。
+     */
+    @Transactional
+    public void revokeUserAccess(Long userId) {
+        User user = userDao.findById(userId)
+                .orElseThrow(() -> new BusinessException(ResponseCode.USER_NOT_FOUND));
+        refreshTokenService.revokeByUser(user);
+        userRevocationService.revoke(userId);
+        userCacheService.evict(user.getUsername());
+        log.info("action=revoke_user_access user_id={} result=success", userId);
+    }
+
+    private void revokeAccessTokensQuietly(Long userId) {
+        try {
+            userRevocationService.revoke(userId);
+        } catch (RuntimeException e) {
+            // 停用帳號的主要防線是這裡拋出的 AccountDisabledException，撤銷清單失敗只記錄
+            log.warn("action=refresh_token user_id={} revoke_access_tokens=failed msg={}", userId, e.getMessage());
+        }
+    }
+
     @Transactional
     public void logout(String refreshToken) {
         if (refreshToken != null) {
@@ -190,6 +219,7 @@ public class AuthServiceImpl implements AuthService {
         user.setResetToken(null);
         user.setResetTokenExpiry(null);
         userDao.update(user);
+        userCacheService.evict(user.getUsername());
 
         log.info("action=verify_email user_id={} username={} result=success", user.getId(), user.getUsername());
     }
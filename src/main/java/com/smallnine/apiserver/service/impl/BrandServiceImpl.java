@@ -16,7 +16,6 @@ import org.springframework.stereotype.Component;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
-import java.util.ArrayList;
 import java.util.List;
 
 @Component
@@ -40,27 +39,15 @@ public class BrandServiceImpl implements BrandService {
 
     @Cacheable(value = "brands", key = "'all:' + #page + ':' + #size")
     public List<BrandResponse> findAllBrands(int page, int size) {
-        List<Brand> brands = findAll(page, size);
-        List<BrandResponse> responses = new ArrayList<>();
-        for (Brand brand : brands) {
-            BrandResponse response = BrandResponse.fromEntity(brand);
-            response.setProductCount(brandDao.countProductsByBrandId(brand.getId()));
-            responses.add(response);
-        }
-        return responses;
+        int offset = page * size;
+        return brandDao.findAllWithProductCount(offset, size);
     }
 
+    @Cacheable(value = "brands", key = "'search:' + #name + ':' + #page + ':' + #size")
     public List<BrandResponse> searchByName(String name, int page, int size) {
         int offset = page * size;
         String safeName = SqlSecurityUtil.escapeLikePattern(name);
-        List<Brand> brands = brandDao.searchByName(safeName, offset, size);
-        List<BrandResponse> responses = new ArrayList<>();
-        for (Brand brand : brands) {
-            BrandResponse response = BrandResponse.fromEntity(brand);
-            response.setProductCount(brandDao.countProductsByBrandId(brand.getId()));
-            responses.add(response);
-        }
-        return responses;
+        return brandDao.searchByNameWithProductCount(safeName, offset, size);
     }
 
     @CacheEvict(value = "brands", allEntries = true)
@@ -10,13 +10,18 @@ import com.smallnine.apiserver.exception.BusinessException;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import com.smallnine.apiserver.service.CartService;
+import com.smallnine.apiserver.service.ProductService;
 import org.springframework.stereotype.Component;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 
 @Component
 @RequiredArgsConstructor
@@ -25,6 +30,7 @@ public class CartServiceImpl implements CartService {
     
     private final CartItemDao cartItemDao;
     private final ProductDao productDao;
+    private final ProductService productService;
     
     /**
      * 查詢用戶購物車
@@ -32,6 +38,13 @@ public class CartServiceImpl implements CartService {
     public List<CartItem> getCartItems(Long memberId) {
         return cartItemDao.findByMemberId(memberId);
     }
+
+    /**
+     * 查詢用戶購物車（JOIN 商品，一次查詢帶回驗證所需資料）
+     */
+    public List<CartItem> getCartItemsWithProduct(Long memberId) {
+        return cartItemDao.findByMemberIdWithProduct(memberId);
+    }
     
     /**
      * 添加商品到購物車
@@ -45,9 +58,8 @@ public class CartServiceImpl implements CartService {
             throw new BusinessException(ResponseCode.INVALID_QUANTITY, "商品數量必須大於0");
         }
         
-        // 驗證商品是否存在且可用
-        Product product = productDao.findById(productId)
-                .orElseThrow(() -> new BusinessException(ResponseCode.PRODUCT_NOT_FOUND));
+        // 驗證商品是否存在且可用（走商品快取；庫存只是預檢，結帳扣減時才由 DB 條件更新把關）
+        Product product = productService.findById(productId);
         
         if (!product.getIsActive()) {
             throw new BusinessException(ResponseCode.PRODUCT_INACTIVE);
@@ -116,8 +128,7 @@ public class CartServiceImpl implements CartService {
         }
         
         // 驗證商品庫存
-        Product product = productDao.findById(cartItem.getProductId())
-                .orElseThrow(() -> new BusinessException(ResponseCode.PRODUCT_NOT_FOUND));
+        Product product = productService.findById(cartItem.getProductId());
         
         if (product.getStockQuantity() < quantity) {
             throw new BusinessException(ResponseCode.INSUFFICIENT_STOCK);
@@ -166,8 +177,13 @@ public class CartServiceImpl implements CartService {
      * 計算購物車總金額
      */
     public BigDecimal calculateCartTotal(Long memberId) {
-        List<CartItem> cartItems = cartItemDao.findByMemberId(memberId);
-        
+        return calculateCartTotal(cartItemDao.findByMemberId(memberId));
+    }
+
+    /**
+     * 以已載入的購物車項目計算總金額（不再查 DB）
+     */
+    public BigDecimal calculateCartTotal(List<CartItem> cartItems) {
         BigDecimal total = BigDecimal.ZERO;
         for (CartItem item : cartItems) {
             total = total.add(item.getUnitPrice().multiply(BigDecimal.valueOf(item.getQuantity())));
@@ -193,16 +209,22 @@ public class CartServiceImpl implements CartService {
      * 驗證購物車商品庫存
      */
     public boolean validateCartStock(Long memberId) {
-        List<CartItem> cartItems = cartItemDao.findByMemberId(memberId);
-        
+        return validateCartStock(cartItemDao.findByMemberIdWithProduct(memberId));
+    }
+
+    /**
+     * 以已載入的購物車項目驗證庫存；未帶商品的項目以一次 findByIds 批次補齊
+     */
+    public boolean validateCartStock(List<CartItem> cartItems) {
+        Map<Long, Product> products = resolveProducts(cartItems);
+
         for (CartItem item : cartItems) {
-            Optional<Product> productOpt = productDao.findById(item.getProductId());
-            if (productOpt.isEmpty()) {
+            Product product = products.get(item.getProductId());
+            if (product == null) {
                 log.warn("購物車中商品不存在: productId={}", item.getProductId());
                 return false;
             }
             
-            Product product = productOpt.get();
             if (!product.getIsActive()) {
                 log.warn("購物車中商品已下架: productId={}", item.getProductId());
                 return false;
@@ -221,17 +243,16 @@ public class CartServiceImpl implements CartService {
     @Override
     public CartValidationResult validateCart(Long memberId) {
         CartValidationResult result = new CartValidationResult();
-        List<CartItem> cartItems = cartItemDao.findByMemberId(memberId);
+        List<CartItem> cartItems = cartItemDao.findByMemberIdWithProduct(memberId);
 
         for (CartItem item : cartItems) {
-            Optional<Product> productOpt = productDao.findById(item.getProductId());
-            if (productOpt.isEmpty()) {
+            Product product = item.getProduct();
+            if (product == null) {
                 result.addError(CartValidationResult.ErrorType.PRODUCT_NOT_FOUND,
                         item.getProductId(), "商品不存在");
                 continue;
             }
 
-            Product product = productOpt.get();
             if (!product.getIsActive()) {
                 result.addError(CartValidationResult.ErrorType.PRODUCT_INACTIVE,
                         item.getProductId(), "商品已下架");
@@ -256,17 +277,40 @@ public class CartServiceImpl implements CartService {
     @Override
     @Transactional
     public void refreshCartPrices(Long memberId) {
-        List<CartItem> cartItems = cartItemDao.findByMemberId(memberId);
+        List<CartItem> cartItems = cartItemDao.findByMemberIdWithProduct(memberId);
 
         for (CartItem item : cartItems) {
-            productDao.findById(item.getProductId()).ifPresent(product -> {
-                BigDecimal currentPrice = product.getSalePrice() != null ? product.getSalePrice() : product.getPrice();
-                if (currentPrice.compareTo(item.getUnitPrice()) != 0) {
-                    item.setUnitPrice(currentPrice);
-                    item.setUpdatedAt(LocalDateTime.now());
-                    cartItemDao.update(item);
-                }
-            });
+            Product product = item.getProduct();
+            if (product == null) {
+                continue;
+            }
+            BigDecimal currentPrice = product.getSalePrice() != null ? product.getSalePrice() : product.getPrice();
+            if (currentPrice.compareTo(item.getUnitPrice()) != 0) {
+                item.setUnitPrice(currentPrice);
+                item.setUpdatedAt(LocalDateTime.now());
+                cartItemDao.update(item);
+            }
+        }
+    }
+
+    /**
+     * 取得購物車項目對應的商品：優先用 JOIN 帶回的 product，其餘一次批次查詢
+     */
+    private Map<Long, Product> resolveProducts(List<CartItem> cartItems) {
+        Map<Long, Product> products = new HashMap<>();
+        Set<Long> missing = new HashSet<>();
+        for (CartItem item : cartItems) {
+            if (item.getProduct() != null) {
+                products.put(item.getProductId(), item.getProduct());
+            } else {
+                missing.add(item.getProductId());
+            }
+        }
+        if (!missing.isEmpty()) {
+            for (Product product : productDao.findByIds(missing)) {
+                products.put(product.getId(), product);
+            }
         }
+        return products;
     }
-}
\ No newline at end of file
+}
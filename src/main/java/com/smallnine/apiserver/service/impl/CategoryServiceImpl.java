@@ -17,7 +17,10 @@ import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 
 @Component
 @RequiredArgsConstructor
@@ -45,36 +48,42 @@ public class CategoryServiceImpl implements CategoryService {
 
     @Cacheable(value = "categories", key = "'top'")
     public List<CategoryResponse> findTopCategories() {
-        List<Category> topCategories = categoryDao.findTopCategories();
-        List<CategoryResponse> responses = new ArrayList<>();
-        for (Category category : topCategories) {
-            CategoryResponse response = CategoryResponse.fromEntity(category);
-            response.setProductCount(productDao.countByCategoryId(category.getId()));
-            responses.add(response);
-        }
-        return responses;
+        return findActiveByParent(null);
     }
 
+    /**
+     * 分類樹：一次查出所有啟用分類與商品數，在記憶體中 O(N) 組裝
+     * 停用分類底下的子樹不會出現（與逐層查 is_active = true 的行為一致）
+     */
     @Cacheable(value = "categories", key = "'tree'")
     public List<CategoryResponse> getCategoryTree() {
-        List<Category> topCategories = categoryDao.findTopCategories();
-        List<CategoryResponse> responses = new ArrayList<>();
-        for (Category category : topCategories) {
-            responses.add(buildCategoryTree(category));
+        List<CategoryResponse> categories = categoryDao.findActiveWithProductCount();
+        Map<Long, CategoryResponse> byId = new HashMap<>();
+        for (CategoryResponse category : categories) {
+            byId.put(category.getId(), category);
         }
-        return responses;
+
+        // 查詢已依名稱排序，依序掛上即保持各層的名稱順序
+        List<CategoryResponse> roots = new ArrayList<>();
+        for (CategoryResponse category : categories) {
+            if (category.getParentId() == null) {
+                roots.add(category);
+                continue;
+            }
+            CategoryResponse parent = byId.get(category.getParentId());
+            if (parent != null) {
+                if (parent.getChildren() == null) {
+                    parent.setChildren(new ArrayList<>());
+                }
+                parent.getChildren().add(category);
+            }
+        }
+        return roots;
     }
 
     @Cacheable(value = "categories", key = "'parent:' + #parentId")
     public List<CategoryResponse> findByParentId(Long parentId) {
-        List<Category> categories = categoryDao.findByParentId(parentId);
-        List<CategoryResponse> responses = new ArrayList<>();
-        for (Category category : categories) {
-            CategoryResponse response = CategoryResponse.fromEntity(category);
-            response.setProductCount(productDao.countByCategoryId(category.getId()));
-            responses.add(response);
-        }
-        return responses;
+        return findActiveByParent(parentId);
     }
 
     @CacheEvict(value = "categories", allEntries = true)
@@ -181,19 +190,13 @@ public class CategoryServiceImpl implements CategoryService {
         return categoryDao.countActive();
     }
 
-    private CategoryResponse buildCategoryTree(Category category) {
-        CategoryResponse response = CategoryResponse.fromEntity(category);
-        response.setProductCount(productDao.countByCategoryId(category.getId()));
-
-        List<Category> children = categoryDao.findByParentId(category.getId());
-        if (!children.isEmpty()) {
-            List<CategoryResponse> childResponses = new ArrayList<>();
-            for (Category child : children) {
-                childResponses.add(buildCategoryTree(child));
+    private List<CategoryResponse> findActiveByParent(Long parentId) {
+        List<CategoryResponse> responses = new ArrayList<>();
+        for (CategoryResponse category : categoryDao.findActiveWithProductCount()) {
+            if (Objects.equals(category.getParentId(), parentId)) {
+                responses.add(category);
             }
-            response.setChildren(childResponses);
         }
-
-        return response;
+        return responses;
     }
 }
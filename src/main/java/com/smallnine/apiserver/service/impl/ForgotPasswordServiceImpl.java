@@ -10,6 +10,7 @@ import com.smallnine.apiserver.exception.ResourceNotFoundException;
 import com.smallnine.apiserver.service.ForgotPasswordService;
 import com.smallnine.apiserver.service.MailService;
 import com.smallnine.apiserver.service.OtpService;
+import com.smallnine.apiserver.service.UserCacheService;
 import lombok.RequiredArgsConstructor;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Component;
@@ -26,6 +27,7 @@ public class ForgotPasswordServiceImpl implements ForgotPasswordService {
     private final UserDao userDao;
     private final EmailVerificationDao emailVerificationDao;
     private final PasswordEncoder passwordEncoder;
+    private final UserCacheService userCacheService;
 
     @Override
     public Map<String, String> sendResetOtp(String email) {
@@ -63,6 +65,7 @@ public class ForgotPasswordServiceImpl implements ForgotPasswordService {
                 .orElseThrow(() -> new ResourceNotFoundException("用戶", verification.getEmail()));
 
         userDao.updatePassword(user.getId(), passwordEncoder.encode(newPassword));
+        userCacheService.evict(user.getUsername());
         otpService.cleanup(verification.getEmail());
     }
 }
\ No newline at end of file
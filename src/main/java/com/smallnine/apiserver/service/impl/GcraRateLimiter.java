@@ -0,0 +1,63 @@
+package com.smallnine.apiserver.service.impl;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.RequiredArgsConstructor;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Redis GCRA 限流：每次判斷一支 Lua、一次往返，判斷與扣額原子完成。
+ *
+ * 只存一個 TAT 時間戳（不是計數 + TTL 兩支 key），視窗邊界不會出現
+ * 固定視窗「前後各打滿一次」的雙倍突發。時間以 Redis TIME 為準，各節點時鐘不影響結果。
+ *
+ * 不吞例外：Redis 故障要 fail-open 還是退回本地限流，由呼叫端決定。
+ */
+@Component
+@RequiredArgsConstructor
+public class GcraRateLimiter {
+
+    @SuppressWarnings("rawtypes")
+    private static final RedisScript<List> GCRA_SCRIPT =
+            RedisScript.of(new ClassPathResource("scripts/rate_limit_gcra.lua"), List.class);
+
+    private final StringRedisTemplate stringRedisTemplate;
+
+    /**
+     * 對 key 扣一次額度
+     * @param limit 視窗內允許的次數（同時也是突發上限）
+     * @param window 補滿 limit 次所需的時間
+     */
+    public Decision tryAcquire(String key, long limit, Duration window) {
+        long interval = Math.max(1, window.toMillis() / limit);
+        List<?> reply = stringRedisTemplate.execute(GCRA_SCRIPT, List.of(key),
+                String.valueOf(interval), String.valueOf(limit));
+        if (reply == null || reply.size() < 3) {
+            throw new IllegalStateException("GCRA script returned " + reply);
+        }
+        return new Decision(
+                toLong(reply.get(0)) == 1L,
+                Duration.ofMillis(toLong(reply.get(1))),
+                toLong(reply.get(2)));
+    }
+
+    private static long toLong(Object value) {
+        return value instanceof Number n ? n.longValue() : Long.parseLong(String.valueOf(value));
+    }
+
+    @Data
+    @AllArgsConstructor
+    public static class Decision {
+        private final boolean allowed;
+        /** 被拒時距離下一次可放行的時間；放行時為 0 */
+        private final Duration retryAfter;
+        /** 放行後還能立即再放行的次數 */
+        private final long remaining;
+    }
+}
@@ -0,0 +1,312 @@
+package com.smallnine.apiserver.service.impl;
+
+import com.smallnine.apiserver.constants.enums.ResponseCode;
+import com.smallnine.apiserver.dao.InventoryReservationDao;
+import com.smallnine.apiserver.dao.ProductDao;
+import com.smallnine.apiserver.dto.HotStockReserveResult;
+import com.smallnine.apiserver.dto.StockChange;
+import com.smallnine.apiserver.entity.InventoryReservation;
+import com.smallnine.apiserver.exception.BusinessException;
+import com.smallnine.apiserver.service.HotStockService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.data.domain.Range;
+import org.springframework.data.redis.connection.Limit;
+import org.springframework.data.redis.connection.stream.MapRecord;
+import org.springframework.data.redis.connection.stream.RecordId;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * 熱門商品 Redis 庫存引擎。
+ *
+ * 資料模型：
+ *  - inventory:hot:skus          熱門商品 id 集合
+ *  - inventory:hot:stock:{id}    可售庫存計數（熱門期間的權威值）
+ *  - inventory:hot:reservations  預扣 / 還庫存流水（stream），由 reconciler 回寫 DB
+ *
+ * 熱門期間 DB 的 stock_quantity 會落後 Redis 計數（差額 = 尚未回寫的流水），
+ * 回寫以 inventory_reservation_log 的主鍵保證每筆流水只套用一次。
+ *
+ * 刻意用 StringRedisTemplate：計數與 Lua 參數都是純數字字串，
+ * 走共用 RedisTemplate 的 JSON 序列化器會多一層引號。
+ *
+ * 啟用時在交易內以 SELECT ... FOR UPDATE 鎖住商品列再播種計數：
+ * 進行中的 DB 扣減會先 commit，播種值不會漏扣。
+ *
+ * 注意：各節點的熱門集合是本地快取，最多落後 hot-set-refresh-interval（預設 5 秒）。
+ * 這段期間尚未刷新的節點仍把該商品當一般商品直接扣 DB，而其他節點已在扣 Redis 計數，
+ * 兩邊各自檢查庫存，合計可能超賣。請在活動開始前（至少一個刷新間隔）啟用、活動結束後停用，
+ * 不要在流量高峰時切換。
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class HotStockServiceImpl implements HotStockService {
+
+    static final String HOT_SET_KEY = "inventory:hot:skus";
+    static final String STOCK_KEY_PREFIX = "inventory:hot:stock:";
+    static final String STREAM_KEY = "inventory:hot:reservations";
+
+    @SuppressWarnings("rawtypes")
+    private static final RedisScript<List> RESERVE_SCRIPT =
+            RedisScript.of(new ClassPathResource("scripts/hot_stock_reserve.lua"), List.class);
+    private static final RedisScript<Long> RELEASE_SCRIPT =
+            RedisScript.of(new ClassPathResource("scripts/hot_stock_release.lua"), Long.class);
+    private static final RedisScript<Long> DISABLE_SCRIPT =
+            RedisScript.of(new ClassPathResource("scripts/hot_stock_disable.lua"), Long.class);
+
+    private final StringRedisTemplate stringRedisTemplate;
+    private final ProductDao productDao;
+    private final InventoryReservationDao inventoryReservationDao;
+    private final TransactionTemplate transactionTemplate;
+
+    @Value("${app.inventory.hot-sku.enabled:false}")
+    private boolean enabled;
+
+    @Value("${app.inventory.hot-sku.reconcile-batch-size:500}")
+    private int reconcileBatchSize;
+
+    private volatile Set<Long> hotProductIds = Set.of();
+
+    @Override
+    public boolean isHot(Long productId) {
+        return enabled && hotProductIds.contains(productId);
+    }
+
+    @Override
+    public Optional<Integer> getAvailableStock(Long productId) {
+        if (!isHot(productId)) {
+            return Optional.empty();
+        }
+        String value = stringRedisTemplate.opsForValue().get(STOCK_KEY_PREFIX + productId);
+        return value == null ? Optional.empty() : Optional.of(Integer.parseInt(value));
+    }
+
+    @Override
+    public HotStockReserveResult reserve(List<StockChange> changes) {
+        HotStockReserveResult result = new HotStockReserveResult();
+        List<StockChange> pending = new ArrayList<>(changes);
+
+        // MISSING 時整批未扣：剔除已停用的商品後重試剩下的，已停用的交回呼叫端走 DB
+        while (!pending.isEmpty()) {
+            String ref = UUID.randomUUID().toString();
+            List<?> reply = execute(RESERVE_SCRIPT, pending, ref);
+            String status = String.valueOf(reply.get(0));
+
+            if ("OK".equals(status)) {
+                registerRollbackCompensation(pending, ref);
+                log.info("action=HOT_STOCK_RESERVE ref={} items={}", ref, pending.size());
+                break;
+            }
+
+            Set<Long> ids = new HashSet<>();
+            for (Object pid : reply.subList(1, reply.size())) {
+                ids.add(Long.valueOf(String.valueOf(pid)));
+            }
+            if ("SHORT".equals(status)) {
+                result.getInsufficientProductIds().addAll(ids);
+                log.warn("action=HOT_STOCK_RESERVE_FAILED ref={} productIds={} reason=insufficient_stock", ref, ids);
+                break;
+            }
+
+            evictLocal(ids);
+            List<StockChange> stillHot = new ArrayList<>();
+            for (StockChange change : pending) {
+                (ids.contains(change.getProductId()) ? result.getNotHot() : stillHot).add(change);
+            }
+            pending = stillHot;
+        }
+        return result;
+    }
+
+    @Override
+    public void release(List<StockChange> changes) {
+        if (changes.isEmpty()) {
+            return;
+        }
+        String ref = UUID.randomUUID().toString();
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    releaseNow(changes, ref);
+                }
+            });
+        } else {
+            releaseNow(changes, ref);
+        }
+    }
+
+    @Override
+    public void enable(Long productId) {
+        assertEngineEnabled();
+        // 先把殘留流水回寫完，DB 庫存才是準的。放在鎖列交易外：刪流水不受交易控制，回寫若跟著 rollback 就會遺失
+        drain();
+        // 鎖列到播種完成：並發的 DB 扣減要嘛已 commit 反映在播種值，要嘛等播種後才執行
+        Integer stock = transactionTemplate.execute(status -> {
+            Integer locked = productDao.findStockByIdForUpdate(productId)
+                    .orElseThrow(() -> new BusinessException(ResponseCode.PRODUCT_NOT_FOUND));
+            stringRedisTemplate.opsForValue().setIfAbsent(STOCK_KEY_PREFIX + productId, String.valueOf(locked));
+            stringRedisTemplate.opsForSet().add(HOT_SET_KEY, productId.toString());
+            return locked;
+        });
+
+        Set<Long> updated = new HashSet<>(hotProductIds);
+        updated.add(productId);
+        hotProductIds = Set.copyOf(updated);
+        log.info("action=HOT_STOCK_ENABLE productId={} stock={}", productId, stock);
+    }
+
+    @Override
+    public void disable(Long productId) {
+        assertEngineEnabled();
+        // 原子移除計數與集合：之後的預扣會拿到 MISSING 改走 DB
+        stringRedisTemplate.execute(DISABLE_SCRIPT,
+                List.of(HOT_SET_KEY, STOCK_KEY_PREFIX + productId), productId.toString());
+        evictLocal(Set.of(productId));
+        drain();
+        log.info("action=HOT_STOCK_DISABLE productId={}", productId);
+    }
+
+    @Override
+    public int reconcile() {
+        List<MapRecord<String, Object, Object>> records = stringRedisTemplate.opsForStream()
+                .range(STREAM_KEY, Range.unbounded(), Limit.limit().count(reconcileBatchSize));
+        if (records == null || records.isEmpty()) {
+            return 0;
+        }
+
+        List<InventoryReservation> entries = new ArrayList<>(records.size());
+        List<RecordId> ids = new ArrayList<>(records.size());
+        for (MapRecord<String, Object, Object> record : records) {
+            Map<Object, Object> fields = record.getValue();
+            InventoryReservation entry = new InventoryReservation();
+            entry.setEntryId(record.getId().getValue());
+            entry.setProductId(Long.valueOf(String.valueOf(fields.get("productId"))));
+            entry.setDelta(Integer.valueOf(String.valueOf(fields.get("delta"))));
+            entry.setReference(String.valueOf(fields.get("ref")));
+            entries.add(entry);
+            ids.add(record.getId());
+        }
+
+        // 先回寫 DB 再刪流水；刪除失敗下次重送也會被主鍵擋下，不會重複扣
+        inventoryReservationDao.applyBatch(entries);
+        stringRedisTemplate.opsForStream().delete(STREAM_KEY, ids.toArray(new RecordId[0]));
+        log.debug("action=HOT_STOCK_RECONCILE entries={}", entries.size());
+        return entries.size();
+    }
+
+    @Scheduled(fixedDelayString = "${app.inventory.hot-sku.reconcile-interval-ms:200}")
+    public void scheduledReconcile() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            drain();
+        } catch (RuntimeException e) {
+            log.warn("action=HOT_STOCK_RECONCILE result=failed msg={}", e.getMessage());
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${app.inventory.hot-sku.hot-set-refresh-interval-ms:5000}")
+    public void refreshHotSet() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            Set<String> members = stringRedisTemplate.opsForSet().members(HOT_SET_KEY);
+            Set<Long> ids = new HashSet<>();
+            if (members != null) {
+                for (String member : members) {
+                    ids.add(Long.valueOf(member));
+                }
+            }
+            hotProductIds = Set.copyOf(ids);
+        } catch (RuntimeException e) {
+            log.warn("action=HOT_STOCK_REFRESH result=failed msg={}", e.getMessage());
+        }
+    }
+
+    // ---- 內部 ----
+
+    private void drain() {
+        while (reconcile() >= reconcileBatchSize) {
+            // 一次最多 reconcileBatchSize 筆，滿批代表可能還有
+        }
+    }
+
+    private void releaseNow(List<StockChange> changes, String ref) {
+        try {
+            execute(RELEASE_SCRIPT, changes, ref);
+            log.info("action=HOT_STOCK_RELEASE ref={} items={}", ref, changes.size());
+        } catch (RuntimeException e) {
+            // 還庫存失敗只會少賣不會超賣；留下完整明細供人工補回
+            log.error("action=HOT_STOCK_RELEASE_FAILED ref={} changes={} msg={}", ref, changes, e.getMessage());
+        }
+    }
+
+    /**
+     * 結帳交易 rollback 時把已預扣的量還回去（預扣流水已寫入，補償流水會一併抵銷 DB 回寫）
+     */
+    private void registerRollbackCompensation(List<StockChange> changes, String ref) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if (status != STATUS_COMMITTED) {
+                    log.warn("action=HOT_STOCK_COMPENSATE ref={} items={}", ref, changes.size());
+                    releaseNow(changes, ref);
+                }
+            }
+        });
+    }
+
+    private <T> T execute(RedisScript<T> script, List<StockChange> changes, String ref) {
+        List<String> keys = new ArrayList<>(changes.size() + 1);
+        List<String> args = new ArrayList<>(changes.size() * 2 + 1);
+        keys.add(STREAM_KEY);
+        args.add(ref);
+        for (StockChange change : changes) {
+            keys.add(STOCK_KEY_PREFIX + change.getProductId());
+            args.add(change.getProductId().toString());
+            args.add(change.getQuantity().toString());
+        }
+        try {
+            return stringRedisTemplate.execute(script, keys, args.toArray());
+        } catch (RuntimeException e) {
+            // 熱門商品 fail-closed：Redis 不可用時 DB 庫存是落後值，放行會超賣
+            log.error("action=HOT_STOCK_SCRIPT_FAILED msg={}", e.getMessage());
+            throw new BusinessException(ResponseCode.INTERNAL_SERVER_ERROR, "庫存服務暫時無法使用，請稍後再試");
+        }
+    }
+
+    private void evictLocal(Set<Long> productIds) {
+        Set<Long> updated = new HashSet<>(hotProductIds);
+        updated.removeAll(productIds);
+        hotProductIds = Set.copyOf(updated);
+    }
+
+    private void assertEngineEnabled() {
+        if (!enabled) {
+            throw new BusinessException(ResponseCode.BAD_REQUEST, "熱門商品庫存功能未啟用");
+        }
+    }
+}
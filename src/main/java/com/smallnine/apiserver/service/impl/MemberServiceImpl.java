@@ -8,6 +8,7 @@ import com.smallnine.apiserver.exception.BusinessException;
 import com.smallnine.apiserver.exception.ConcurrentOAuthRegistrationException;
 import com.smallnine.apiserver.service.FileStorageService;
 import com.smallnine.apiserver.service.MemberService;
+import com.smallnine.apiserver.service.UserCacheService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.dao.DataIntegrityViolationException;
@@ -29,10 +30,15 @@ public class MemberServiceImpl implements MemberService {
     private final UserDao userDao;
     private final PasswordEncoder passwordEncoder;
     private final FileStorageService fileStorageService;
+    private final UserCacheService userCacheService;
 
     @Override
     public String updateProfile(User user, String username, String realname, String email,
                                 String birthDate, String gender, String phone, MultipartFile avatar) {
+        // principal 可能由 token claims 組成、只有 id，整筆寫回前先重讀完整資料
+        user = userDao.findById(user.getId())
+                .orElseThrow(() -> new BusinessException(ResponseCode.USER_NOT_FOUND));
+        String previousUsername = user.getUsername();
         if (username != null && !username.isBlank()) user.setUsername(username);
         if (realname != null) user.setRealname(realname);
         if (email != null && !email.isBlank()) user.setEmail(email);
@@ -55,6 +61,7 @@ public class MemberServiceImpl implements MemberService {
         }
 
         userDao.updateProfile(user);
+        userCacheService.evict(previousUsername, user.getUsername());
         return user.getImageUrl();
     }
 
@@ -76,6 +83,7 @@ public class MemberServiceImpl implements MemberService {
         }
 
         userDao.updatePassword(memberId, passwordEncoder.encode(newPassword));
+        userCacheService.evict(user.getUsername());
     }
 
     @Override
@@ -118,6 +126,7 @@ public class MemberServiceImpl implements MemberService {
                 user.setImageUrl(profile.getPicture());
             }
             userDao.update(user);
+            userCacheService.evict(user.getUsername());
             log.info("action=oauth2_link user={} email={}", user.getUsername(), user.getEmail());
             return user;
         }
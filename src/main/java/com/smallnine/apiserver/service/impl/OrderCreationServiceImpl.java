@@ -5,12 +5,16 @@ import com.smallnine.apiserver.constants.enums.ResponseCode;
 import com.smallnine.apiserver.dao.OrderDao;
 import com.smallnine.apiserver.dao.OrderItemDao;
 import com.smallnine.apiserver.dto.CreateOrderRequest;
+import com.smallnine.apiserver.dto.StockChange;
 import com.smallnine.apiserver.entity.CartItem;
 import com.smallnine.apiserver.entity.Order;
 import com.smallnine.apiserver.entity.OrderItem;
 import com.smallnine.apiserver.exception.BusinessException;
+import com.smallnine.apiserver.outbox.OrderEvent;
+import com.smallnine.apiserver.outbox.OutboxPublisher;
 import com.smallnine.apiserver.service.CartService;
 import com.smallnine.apiserver.service.OrderCreationService;
+import com.smallnine.apiserver.service.OrderNumberGenerator;
 import com.smallnine.apiserver.service.ProductService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -18,7 +22,6 @@ import org.springframework.stereotype.Component;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
-import java.security.SecureRandom;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
@@ -32,6 +35,8 @@ public class OrderCreationServiceImpl implements OrderCreationService {
     private final OrderItemDao orderItemDao;
     private final CartService cartService;
     private final ProductService productService;
+    private final OrderNumberGenerator orderNumberGenerator;
+    private final OutboxPublisher outboxPublisher;
 
     /**
      * 從購物車建立訂單（單一交易單元）
@@ -41,33 +46,36 @@ public class OrderCreationServiceImpl implements OrderCreationService {
     public Order create(Long memberId, CreateOrderRequest request, String idempotencyKey) {
         log.info("從購物車創建訂單: memberId={}", memberId);
 
-        // 1. 獲取購物車項目
-        List<CartItem> cartItems = cartService.getCartItems(memberId);
+        // 1. 獲取購物車項目（JOIN 商品，後續驗證與計價都用這份，不再重讀購物車）
+        List<CartItem> cartItems = cartService.getCartItemsWithProduct(memberId);
         if (cartItems.isEmpty()) {
             throw new BusinessException(ResponseCode.CART_EMPTY, "購物車為空，無法創建訂單");
         }
 
         // 2. 驗證庫存
-        if (!cartService.validateCartStock(memberId)) {
+        if (!cartService.validateCartStock(cartItems)) {
             throw new BusinessException(ResponseCode.INSUFFICIENT_STOCK, "購物車中有商品庫存不足");
         }
 
         // 3. 計算訂單金額
-        BigDecimal totalAmount = cartService.calculateCartTotal(memberId);
+        BigDecimal totalAmount = cartService.calculateCartTotal(cartItems);
 
-        // 4. 先扣減所有庫存（原子 SQL，如果任何步驟失敗整個 @Transactional 會 rollback）
+        // 4. 先扣減所有庫存（單一批次 SQL，依商品 id 順序鎖列避免並發結帳死鎖；
+        //    任何商品不足即拋例外，整個 @Transactional rollback 連已扣的一起還原）
+        List<StockChange> stockChanges = new ArrayList<>(cartItems.size());
         for (CartItem cartItem : cartItems) {
-            boolean stockDecreased = productService.decreaseStock(cartItem.getProductId(), cartItem.getQuantity());
-            if (!stockDecreased) {
-                throw new BusinessException(ResponseCode.INSUFFICIENT_STOCK,
-                    "商品庫存不足，訂單創建失敗: productId=" + cartItem.getProductId());
-            }
+            stockChanges.add(new StockChange(cartItem.getProductId(), cartItem.getQuantity()));
+        }
+        List<Long> failedProductIds = productService.decreaseStockBatch(stockChanges);
+        if (!failedProductIds.isEmpty()) {
+            throw new BusinessException(ResponseCode.INSUFFICIENT_STOCK,
+                "商品庫存不足，訂單創建失敗: productIds=" + failedProductIds);
         }
 
         // 5. 創建訂單
         Order order = new Order();
         order.setMemberId(memberId);
-        order.setOrderNumber(generateOrderNumber());
+        order.setOrderNumber(orderNumberGenerator.next());
         order.setStatusId(OrderStatus.PENDING.getId());
         order.setTotalAmount(totalAmount);
         order.setShippingAmount(BigDecimal.ZERO);
@@ -112,31 +120,10 @@ public class OrderCreationServiceImpl implements OrderCreationService {
         // 7. 清空購物車
         cartService.clearCart(memberId);
 
+        // 8. 寫入 OrderCreated 事件（同一交易）；通知、點數、優惠券使用次數由 outbox handler 在 commit 後處理
+        outboxPublisher.publish(OrderEvent.AGGREGATE_TYPE, order.getId(), OrderEvent.CREATED, OrderEvent.of(order));
+
         log.info("訂單創建完成: orderId={}, totalAmount={}", order.getId(), totalAmount);
         return order;
     }
-
-    private static final SecureRandom SECURE_RANDOM = new SecureRandom();
-    private static final String ORDER_NUMBER_CHARS = "ABCDEFGHJKLMNPQRSTUVWXYZ23456789";
-
-    /**
-     * 生成唯一訂單號（不可預測）
-     */
-    private String generateOrderNumber() {
-        String prefix = "ORD";
-
-        for (int attempt = 0; attempt < 10; attempt++) {
-            StringBuilder sb = new StringBuilder(prefix);
-            for (int i = 0; i < 12; i++) {
-                int index = SECURE_RANDOM.nextInt(ORDER_NUMBER_CHARS.length());
-                sb.append(ORDER_NUMBER_CHARS.charAt(index));
-            }
-            String orderNumber = sb.toString();
-            if (!orderDao.existsByOrderNumber(orderNumber)) {
-                return orderNumber;
-            }
-        }
-
-        throw new BusinessException(ResponseCode.INTERNAL_SERVER_ERROR, "無法生成唯一訂單號");
-    }
-}
\ No newline at end of file
+}
@@ -0,0 +1,59 @@
+package com.smallnine.apiserver.service.impl;
+
+import com.smallnine.apiserver.dao.OrderDao;
+import com.smallnine.apiserver.service.OrderNumberGenerator;
+import com.smallnine.apiserver.utils.OrderNumberCodec;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * 區段配號的訂單號產生器。
+ *
+ * 每個節點一次向 PostgreSQL sequence（order_number_block_seq）領一段 block：
+ * nextval = n 代表序號 [n * blockSize, (n + 1) * blockSize) 歸本節點，之後在記憶體內逐一發號，
+ * 一整段用完才再打一次 DB。sequence 不受交易 rollback 影響，各節點拿到的區段不會重疊；
+ * 序號再經 {@link OrderNumberCodec} 置換成不可預測的訂單號。orders.order_number 的 UNIQUE
+ * 只是最後防線。
+ *
+ * 代價：重啟時當前 block 剩下的序號直接作廢（訂單號本來就不要求連續）。
+ * block-size 只能調大不能調小，調小會讓新區段落回已發出的範圍。
+ */
+@Component
+@Slf4j
+public class OrderNumberGeneratorImpl implements OrderNumberGenerator {
+
+    private final OrderDao orderDao;
+    private final OrderNumberCodec codec;
+    private final long blockSize;
+
+    // 以下兩個欄位受 this 保護
+    private long nextSequence;
+    private long blockEnd;
+
+    public OrderNumberGeneratorImpl(OrderDao orderDao,
+                                    @Value("${app.order.number-secret}") String secret,
+                                    @Value("${app.order.number-block-size:1000}") long blockSize) {
+        if (blockSize <= 0) {
+            throw new IllegalArgumentException("app.order.number-block-size must be positive");
+        }
+        this.orderDao = orderDao;
+        this.codec = new OrderNumberCodec(secret);
+        this.blockSize = blockSize;
+    }
+
+    @Override
+    public String next() {
+        return codec.encode(nextSequence());
+    }
+
+    private synchronized long nextSequence() {
+        if (nextSequence >= blockEnd) {
+            long block = orderDao.nextOrderNumberBlock();
+            nextSequence = Math.multiplyExact(block, blockSize);
+            blockEnd = nextSequence + blockSize;
+            log.info("action=ORDER_NUMBER_BLOCK block={} range=[{}, {})", block, nextSequence, blockEnd);
+        }
+        return nextSequence++;
+    }
+}
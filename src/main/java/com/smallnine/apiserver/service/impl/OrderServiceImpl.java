@@ -6,31 +6,50 @@ import com.smallnine.apiserver.dao.OrderDao;
 import com.smallnine.apiserver.dao.OrderItemDao;
 import com.smallnine.apiserver.dao.ProductDao;
 import com.smallnine.apiserver.dto.CreateOrderRequest;
+import com.smallnine.apiserver.dto.CursorPage;
+import com.smallnine.apiserver.dto.OrderHistoryResponse;
+import com.smallnine.apiserver.dto.StockChange;
 import com.smallnine.apiserver.entity.Order;
 import com.smallnine.apiserver.entity.OrderItem;
 import com.smallnine.apiserver.exception.BusinessException;
+import com.smallnine.apiserver.metrics.OrderMetrics;
+import com.smallnine.apiserver.outbox.OrderEvent;
+import com.smallnine.apiserver.outbox.OutboxPublisher;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import com.smallnine.apiserver.service.HotStockService;
 import com.smallnine.apiserver.service.OrderCreationService;
 import com.smallnine.apiserver.service.OrderService;
+import com.smallnine.apiserver.service.ProductCacheService;
+import com.smallnine.apiserver.utils.CursorCodec;
 import org.springframework.dao.DuplicateKeyException;
-import org.springframework.data.redis.core.RedisTemplate;
 import org.springframework.stereotype.Component;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
-import java.util.concurrent.TimeUnit;
+import java.util.Set;
 
 @Component
 @RequiredArgsConstructor
 @Slf4j
 public class OrderServiceImpl implements OrderService {
 
+    private static final int MAX_HISTORY_PAGE_SIZE = 50;
+    // created_at 為 NULL 的舊訂單排在最後，游標排序鍵以此標記（不是合法的 ISO 時間，不會與一般游標混淆）
+    private static final String NULL_CREATED_AT_KEY = "-";
+
     private final OrderDao orderDao;
     private final OrderItemDao orderItemDao;
     private final ProductDao productDao;
-    private final RedisTemplate<String, Object> redisTemplate;
     private final OrderCreationService orderCreationService;
+    private final HotStockService hotStockService;
+    private final ProductCacheService productCacheService;
+    private final OrderMetrics orderMetrics;
+    private final OutboxPublisher outboxPublisher;
 
     /**
      * 根據ID查詢訂單（內部使用，無授權檢查）
@@ -70,6 +89,29 @@ public class OrderServiceImpl implements OrderService {
         return orderDao.findByMemberId(memberId, offset, size);
     }
 
+    /**
+     * 查詢會員訂單歷史（keyset 分頁，含明細）
+     */
+    @Override
+    public CursorPage<OrderHistoryResponse> findOrderHistory(Long memberId, String cursor, int size) {
+        if (size <= 0 || size > MAX_HISTORY_PAGE_SIZE) {
+            throw new BusinessException(ResponseCode.INVALID_PAGINATION);
+        }
+        CursorCodec.Cursor c = CursorCodec.decode(cursor);
+        LocalDateTime cursorCreatedAt = null;
+        if (c != null && !NULL_CREATED_AT_KEY.equals(c.getSortKey())) {
+            try {
+                cursorCreatedAt = LocalDateTime.parse(c.getSortKey());
+            } catch (DateTimeParseException e) {
+                throw CursorCodec.invalid();
+            }
+        }
+        List<OrderHistoryResponse> rows = orderDao.findHistoryWithCursor(
+                memberId, cursorCreatedAt, c == null ? null : c.getId(), size + 1);
+        return CursorPage.of(rows, size, row -> CursorCodec.encode(
+                row.getCreatedAt() == null ? NULL_CREATED_AT_KEY : row.getCreatedAt().toString(), row.getId()));
+    }
+
     /**
      * 查詢訂單項目（帶授權檢查）
      */
@@ -93,67 +135,45 @@ public class OrderServiceImpl implements OrderService {
      */
     @Override
     public Order createOrderFromCart(Long memberId, CreateOrderRequest request) {
-        return orderCreationService.create(memberId, request, null);
+        return create(memberId, request, null);
     }
 
+    /**
+     * 從購物車創建訂單（帶冪等鍵）
+     * Redis 佔位與回放由 controller 上的 @Idempotent 處理；這裡只負責 DB 兜底：
+     * Redis 故障或紀錄過期後重送，會撞到 (member_id, idempotency_key) unique，查回既有訂單
+     */
     @Override
     public Order createOrderFromCart(Long memberId, CreateOrderRequest request, String idempotencyKey) {
         if (idempotencyKey == null) {
-            return orderCreationService.create(memberId, request, null);
+            return create(memberId, request, null);
         }
-
-        String redisKey = "order:idempotency:" + memberId + ":" + idempotencyKey;
-
-        // SETNX 原子佔位，防止並行請求同時通過（Redis 快路徑）
-        Boolean acquired = redisTemplate.opsForValue()
-                .setIfAbsent(redisKey, "PENDING", 24, TimeUnit.HOURS);
-
-        if (Boolean.FALSE.equals(acquired)) {
-            // 鍵已存在，查回已建立的訂單
-            Object existingOrderId = redisTemplate.opsForValue().get(redisKey);
-            if (existingOrderId != null && !"PENDING".equals(existingOrderId.toString())) {
-                return orderDao.findById(Long.parseLong(existingOrderId.toString()))
-                        .orElseThrow(() -> new BusinessException(ResponseCode.ORDER_NOT_FOUND));
-            }
-            throw new BusinessException(ResponseCode.CONFLICT, "訂單正在建立中，請稍後重試");
-        }
-
-        Order order;
         try {
             // 透過獨立 bean 呼叫，讓 @Transactional 切面真正啟動獨立交易
-            // DB commit 完成後才會回到這裡，避免 Redis 寫了 orderId 但 DB rollback
-            order = orderCreationService.create(memberId, request, idempotencyKey);
+            return create(memberId, request, idempotencyKey);
         } catch (DuplicateKeyException dup) {
-            // DB unique constraint 兜底：Redis 失效時 retry 撞到 (member_id, idempotency_key) unique。
-            // 表示同鍵的訂單已被先前一次 commit 寫入；查回那筆給呼叫者，整筆交易已 rollback、不會多扣庫存。
-            log.warn("idempotency=db_unique_fallback key={} memberId={}", redisKey, memberId);
-            order = orderDao.findByMemberAndIdempotencyKey(memberId, idempotencyKey)
+            // 同鍵的訂單已被先前一次 commit 寫入；整筆交易已 rollback、不會多扣庫存
+            log.warn("idempotency=db_unique_fallback memberId={} key={}", memberId, idempotencyKey);
+            orderMetrics.idempotencyDbFallback();
+            return orderDao.findByMemberAndIdempotencyKey(memberId, idempotencyKey)
                     .orElseThrow(() -> new BusinessException(ResponseCode.ORDER_NOT_FOUND));
-        } catch (Exception e) {
-            // 其他例外：Redis 清除若失敗，記 warn 但保留原始業務例外（不被 cleanup 例外蓋掉）
-            try {
-                redisTemplate.delete(redisKey);
-            } catch (Exception cleanup) {
-                log.warn("idempotency=cleanup_failed key={} reason={}", redisKey, cleanup.getMessage());
-            }
-            throw e;
         }
+    }
 
-        // DB 已 commit，訂單建立成功；Redis 收尾是 best-effort。
-        // PENDING→orderId 寫入失敗時嘗試 delete(key) 自癒：留著 PENDING 會讓
-        // 24h 內 retry 永遠 CONFLICT。TTL 過後 retry 也不會重複下單——DB unique constraint 會擋下。
+    /**
+     * 建立訂單並記錄業務指標
+     */
+    private Order create(Long memberId, CreateOrderRequest request, String idempotencyKey) {
         try {
-            redisTemplate.opsForValue().set(redisKey, order.getId().toString(), 24, TimeUnit.HOURS);
-        } catch (Exception finalizeEx) {
-            try {
-                redisTemplate.delete(redisKey);
-            } catch (Exception cleanup) {
-                log.warn("idempotency=cleanup_failed key={} reason={}", redisKey, cleanup.getMessage());
+            Order order = orderCreationService.create(memberId, request, idempotencyKey);
+            orderMetrics.orderCreated();
+            return order;
+        } catch (BusinessException e) {
+            if (e.getCode() == ResponseCode.INSUFFICIENT_STOCK.getCode()) {
+                orderMetrics.stockReservationFailed();
             }
-            log.error("idempotency=finalize_failed key={} orderId={} reason={}",
-                    redisKey, order.getId(), finalizeEx.getMessage());
+            throw e;
         }
-        return order;
     }
 
     /**
@@ -183,9 +203,20 @@ public class OrderServiceImpl implements OrderService {
                     "無法從 " + currentStatus.getDescription() + " 轉換到 " + newStatus.getDescription());
         }
 
-        int updatedRows = orderDao.updateStatus(orderId, statusId);
-        if (updatedRows == 0) {
-            throw new BusinessException(ResponseCode.ORDER_NOT_FOUND);
+        if (newStatus == OrderStatus.CANCELLED) {
+            // 管理員取消同樣要還庫存：以讀到的狀態做 CAS，和會員取消並發時只有一方會還
+            int cancelled = orderDao.cancelIfCancellable(
+                    orderId, OrderStatus.CANCELLED.getId(), List.of(currentStatus.getId()));
+            if (cancelled == 0) {
+                throw new BusinessException(ResponseCode.ORDER_STATUS_ERROR, "訂單狀態已變更，請重新整理後再試");
+            }
+            restock(orderId);
+            outboxPublisher.publish(OrderEvent.AGGREGATE_TYPE, orderId, OrderEvent.CANCELLED, OrderEvent.of(order));
+        } else {
+            int updatedRows = orderDao.updateStatus(orderId, statusId);
+            if (updatedRows == 0) {
+                throw new BusinessException(ResponseCode.ORDER_NOT_FOUND);
+            }
         }
 
         log.info("訂單狀態更新成功: orderId={}, oldStatus={}, newStatus={}",
@@ -212,15 +243,34 @@ public class OrderServiceImpl implements OrderService {
                     "訂單已取消，或目前狀態無法取消");
         }
 
-        // 確認唯一勝出後才還庫存（原子操作）
-        List<OrderItem> orderItems = orderItemDao.findByOrderId(orderId);
-        for (OrderItem item : orderItems) {
-            productDao.increaseStock(item.getProductId(), item.getQuantity());
-        }
+        // 確認唯一勝出後才還庫存
+        restock(orderId);
+
+        outboxPublisher.publish(OrderEvent.AGGREGATE_TYPE, orderId, OrderEvent.CANCELLED, OrderEvent.of(order));
 
         log.info("訂單取消成功: orderId={}", orderId);
     }
 
+    /**
+     * 取消勝出後還庫存：一般商品以單一 SQL 依商品 id 順序批次回補 DB，
+     * 熱門商品還到 Redis 計數（commit 後才執行）
+     */
+    private void restock(Long orderId) {
+        List<StockChange> hotItems = new ArrayList<>();
+        Set<Long> hotProductIds = new HashSet<>();
+        for (OrderItem item : orderItemDao.findByOrderId(orderId)) {
+            if (hotStockService.isHot(item.getProductId())) {
+                hotItems.add(new StockChange(item.getProductId(), item.getQuantity()));
+                hotProductIds.add(item.getProductId());
+            }
+        }
+        List<Long> restockedIds = productDao.increaseStockByOrder(orderId, hotProductIds);
+        hotStockService.release(hotItems);
+        productCacheService.evictStock(restockedIds);
+        log.info("action=ORDER_RESTOCK orderId={} dbProducts={} hotProducts={}",
+                orderId, restockedIds.size(), hotProductIds.size());
+    }
+
     /**
      * 刪除訂單（帶授權檢查）
      */
@@ -0,0 +1,160 @@
+package com.smallnine.apiserver.service.impl;
+
+import com.smallnine.apiserver.dto.ProductCacheStats;
+import com.smallnine.apiserver.entity.Product;
+import com.smallnine.apiserver.service.ProductCacheService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 以 CacheManager 的 products / productStock 兩個 cache 實作商品快取。
+ *
+ * key 設計：
+ *  - products    id:{id}  → Product；sku:{sku} → 商品 id（只存對應，商品資料只有一份）
+ *  - productStock {id}    → 庫存
+ *
+ * 清除一律延到 commit 之後：交易中清掉的話，commit 前的讀取會把舊值放回快取。
+ */
+@Component
+@Slf4j
+public class ProductCacheServiceImpl implements ProductCacheService {
+
+    static final String PRODUCT_CACHE = "products";
+    static final String STOCK_CACHE = "productStock";
+
+    private final Cache productCache;
+    private final Cache stockCache;
+
+    private final LongAdder productHits = new LongAdder();
+    private final LongAdder productMisses = new LongAdder();
+    private final LongAdder skuHits = new LongAdder();
+    private final LongAdder skuMisses = new LongAdder();
+    private final LongAdder stockHits = new LongAdder();
+    private final LongAdder stockMisses = new LongAdder();
+
+    public ProductCacheServiceImpl(CacheManager cacheManager) {
+        this.productCache = cacheManager.getCache(PRODUCT_CACHE);
+        this.stockCache = cacheManager.getCache(STOCK_CACHE);
+    }
+
+    @Override
+    public Product getProduct(Long id) {
+        Product product = get(productCache, "id:" + id, Product.class);
+        (product != null ? productHits : productMisses).increment();
+        return product;
+    }
+
+    @Override
+    public void putProduct(Product product) {
+        put(productCache, "id:" + product.getId(), product);
+    }
+
+    @Override
+    public Long getIdBySku(String sku) {
+        // JSON 序列化後小數字會被還原成 Integer，統一以 Number 取值
+        Number id = get(productCache, "sku:" + sku, Number.class);
+        (id != null ? skuHits : skuMisses).increment();
+        return id != null ? id.longValue() : null;
+    }
+
+    @Override
+    public void putSku(String sku, Long id) {
+        put(productCache, "sku:" + sku, id);
+    }
+
+    @Override
+    public Integer getStock(Long id) {
+        Number stock = get(stockCache, id.toString(), Number.class);
+        (stock != null ? stockHits : stockMisses).increment();
+        return stock != null ? stock.intValue() : null;
+    }
+
+    @Override
+    public void putStock(Long id, Integer stockQuantity) {
+        put(stockCache, id.toString(), stockQuantity);
+    }
+
+    @Override
+    public void evictProduct(Long id, String... skus) {
+        afterCommit(() -> {
+            evict(productCache, "id:" + id);
+            for (String sku : skus) {
+                if (sku != null) {
+                    evict(productCache, "sku:" + sku);
+                }
+            }
+            evict(stockCache, id.toString());
+        });
+    }
+
+    @Override
+    public void evictStock(Collection<Long> ids) {
+        if (ids.isEmpty()) {
+            return;
+        }
+        List<Long> snapshot = List.copyOf(ids);
+        afterCommit(() -> snapshot.forEach(id -> evict(stockCache, id.toString())));
+    }
+
+    @Override
+    public ProductCacheStats getStats() {
+        return new ProductCacheStats(
+                productHits.sum(), productMisses.sum(),
+                skuHits.sum(), skuMisses.sum(),
+                stockHits.sum(), stockMisses.sum());
+    }
+
+    // ---- 內部：快取故障一律降級回 DB，不影響主流程 ----
+
+    private <T> T get(Cache cache, String key, Class<T> type) {
+        try {
+            return cache.get(key, type);
+        } catch (RuntimeException e) {
+            log.warn("action=PRODUCT_CACHE_GET_FAILED cache={} key={} msg={}", cache.getName(), key, e.getMessage());
+            return null;
+        }
+    }
+
+    private void put(Cache cache, String key, Object value) {
+        // 寫入交易中讀到的可能是尚未 commit 的值，不放進快取
+        if (TransactionSynchronizationManager.isActualTransactionActive()
+                && !TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            return;
+        }
+        try {
+            cache.put(key, value);
+        } catch (RuntimeException e) {
+            log.warn("action=PRODUCT_CACHE_PUT_FAILED cache={} key={} msg={}", cache.getName(), key, e.getMessage());
+        }
+    }
+
+    private void evict(Cache cache, String key) {
+        try {
+            cache.evict(key);
+        } catch (RuntimeException e) {
+            // 清除失敗只能等 TTL 過期；庫存層 TTL 很短，商品層記錄下來供人工清除
+            log.error("action=PRODUCT_CACHE_EVICT_FAILED cache={} key={} msg={}", cache.getName(), key, e.getMessage());
+        }
+    }
+
+    private void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+}
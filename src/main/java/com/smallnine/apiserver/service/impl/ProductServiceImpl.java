@@ -2,33 +2,85 @@ package com.smallnine.apiserver.service.impl;
 
 import com.smallnine.apiserver.constants.enums.ResponseCode;
 import com.smallnine.apiserver.dao.ProductDao;
+import com.smallnine.apiserver.dto.CursorPage;
+import com.smallnine.apiserver.dto.HotStockReserveResult;
 import com.smallnine.apiserver.dto.ProductDTO;
 import com.smallnine.apiserver.dto.ProductRequest;
+import com.smallnine.apiserver.dto.ProductResponse;
+import com.smallnine.apiserver.dto.ProductSearchHit;
+import com.smallnine.apiserver.dto.ProductSearchQuery;
+import com.smallnine.apiserver.dto.ProductSearchResult;
+import com.smallnine.apiserver.dto.SearchFacet;
+import com.smallnine.apiserver.dto.StockChange;
 import com.smallnine.apiserver.entity.Product;
 import com.smallnine.apiserver.exception.BusinessException;
 import com.smallnine.apiserver.logging.annotation.Auditable;
 import com.smallnine.apiserver.logging.constants.AuditAction;
+import com.smallnine.apiserver.utils.CursorCodec;
+import com.smallnine.apiserver.utils.SearchHighlighter;
 import com.smallnine.apiserver.utils.SqlSecurityUtil;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.BeanUtils;
+import org.springframework.cache.annotation.CacheEvict;
+import com.smallnine.apiserver.service.HotStockService;
+import com.smallnine.apiserver.service.ProductCacheService;
 import com.smallnine.apiserver.service.ProductService;
 import org.springframework.stereotype.Component;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
 
 @Component
 @RequiredArgsConstructor
 @Slf4j
 public class ProductServiceImpl implements ProductService {
 
+    private static final int MAX_CURSOR_PAGE_SIZE = 100;
+    private static final int MAX_SEARCH_TERMS = 5;
+    private static final int SNIPPET_RADIUS = 40;
+    /** 價格區間分面的下界（width_bucket 門檻），區間 0 為低於第一個門檻 */
+    private static final List<BigDecimal> PRICE_BANDS = List.of(
+            new BigDecimal("300"), new BigDecimal("1000"), new BigDecimal("3000"));
+
     private final ProductDao productDao;
+    private final HotStockService hotStockService;
+    private final ProductCacheService productCacheService;
 
+    /**
+     * 讀取商品（read-through 快取）。
+     * 商品資料走長 TTL 快取，庫存另外從短 TTL 庫存層取，價格快取不會蓋掉庫存。
+     */
     public Product findById(Long id) {
-        return productDao.findById(id)
+        Product cached = productCacheService.getProduct(id);
+        if (cached == null) {
+            return cacheLoaded(loadProduct(id));
+        }
+        // 本機快取回傳的是共用實例，複製後才能補上庫存
+        Product product = copyOf(cached);
+        product.setStockQuantity(currentStock(id));
+        return withHotStock(product);
+    }
+
+    public Product findBySku(String sku) {
+        Long id = productCacheService.getIdBySku(sku);
+        if (id != null) {
+            return findById(id);
+        }
+        Product product = productDao.findBySku(sku)
                 .orElseThrow(() -> new BusinessException(ResponseCode.PRODUCT_NOT_FOUND));
+        productCacheService.putSku(sku, product.getId());
+        return cacheLoaded(product);
     }
 
     public List<Product> findActiveProducts(int page, int size) {
@@ -72,12 +124,116 @@ public class ProductServiceImpl implements ProductService {
         return productDao.searchProducts(safeKeyword, minPrice, maxPrice, offset, size);
     }
 
+    /**
+     * 相關度搜尋：多個關鍵字（空白分隔）需全部命中名稱或描述，
+     * 依名稱命中數與相似度排序，並附上分類 / 品牌 / 價格區間分面統計
+     */
+    public ProductSearchResult search(String keyword, Long categoryId, Long brandId,
+                                      BigDecimal minPrice, BigDecimal maxPrice, int page, int size) {
+        validateCursorPageSize(size);
+        if (page < 0) {
+            throw new BusinessException(ResponseCode.INVALID_PAGINATION);
+        }
+        List<String> terms = splitSearchTerms(keyword);
+        if (terms.isEmpty()) {
+            throw new BusinessException(ResponseCode.BAD_REQUEST, "搜尋關鍵字不可為空");
+        }
+
+        ProductSearchQuery query = new ProductSearchQuery();
+        query.setKeyword(String.join(" ", terms));
+        query.setTerms(terms.stream().map(SqlSecurityUtil::escapeLikePattern).toList());
+        query.setCategoryId(categoryId);
+        query.setBrandId(brandId);
+        query.setMinPrice(minPrice);
+        query.setMaxPrice(maxPrice);
+
+        ProductSearchResult result = new ProductSearchResult();
+        result.setPage(page);
+        result.setSize(size);
+        for (SearchFacet facet : productDao.searchFacets(query, PRICE_BANDS)) {
+            switch (facet.getType()) {
+                case "total" -> result.setTotal(facet.getCount());
+                case "category" -> result.getCategories().add(facet);
+                case "brand" -> result.getBrands().add(facet);
+                case "price" -> {
+                    facet.setLabel(priceBandLabel(facet.getKey().intValue()));
+                    result.getPriceBands().add(facet);
+                }
+                default -> log.warn("action=PRODUCT_SEARCH_UNKNOWN_FACET type={}", facet.getType());
+            }
+        }
+        result.getPriceBands().sort(Comparator.comparing(SearchFacet::getKey));
+
+        // 沒有命中就不必再跑排序查詢
+        if (result.getTotal() > 0) {
+            for (Product product : productDao.searchRanked(query, page * size, size)) {
+                result.getContent().add(new ProductSearchHit(
+                        new ProductResponse(product),
+                        SearchHighlighter.highlight(product.getName(), terms),
+                        SearchHighlighter.snippet(product.getDescription(), terms, SNIPPET_RADIUS)));
+            }
+        }
+        log.debug("action=PRODUCT_SEARCH terms={} total={}", terms.size(), result.getTotal());
+        return result;
+    }
+
+    public CursorPage<Product> findActiveProductsWithCursor(String cursor, int size) {
+        validateCursorPageSize(size);
+        CursorCodec.Cursor c = CursorCodec.decode(cursor);
+        List<Product> rows = productDao.findActiveProductsWithCursor(createdAtOf(c), idOf(c), size + 1);
+        return CursorPage.of(rows, size, this::createdAtCursor);
+    }
+
+    public CursorPage<Product> findAllWithCursor(String cursor, int size) {
+        validateCursorPageSize(size);
+        CursorCodec.Cursor c = CursorCodec.decode(cursor);
+        List<Product> rows = productDao.findAllWithCursor(createdAtOf(c), idOf(c), size + 1);
+        return CursorPage.of(rows, size, this::createdAtCursor);
+    }
+
+    public CursorPage<Product> findByCategoryWithCursor(Long categoryId, String cursor, int size) {
+        validateCursorPageSize(size);
+        CursorCodec.Cursor c = CursorCodec.decode(cursor);
+        List<Product> rows = productDao.findByCategoryIdWithCursor(categoryId, createdAtOf(c), idOf(c), size + 1);
+        return CursorPage.of(rows, size, this::createdAtCursor);
+    }
+
+    public CursorPage<Product> searchByNameWithCursor(String name, String cursor, int size) {
+        validateCursorPageSize(size);
+        CursorCodec.Cursor c = CursorCodec.decode(cursor);
+        String safeName = SqlSecurityUtil.escapeLikePattern(name);
+        List<Product> rows = productDao.searchByNameWithCursor(safeName, createdAtOf(c), idOf(c), size + 1);
+        return CursorPage.of(rows, size, this::createdAtCursor);
+    }
+
+    public CursorPage<Product> findByPriceRangeWithCursor(BigDecimal minPrice, BigDecimal maxPrice,
+                                                          String cursor, int size) {
+        validateCursorPageSize(size);
+        CursorCodec.Cursor c = CursorCodec.decode(cursor);
+        List<Product> rows = productDao.findByPriceRangeWithCursor(
+                minPrice, maxPrice, priceOf(c), idOf(c), size + 1);
+        return CursorPage.of(rows, size, p -> CursorCodec.encode(p.getPrice().toPlainString(), p.getId()));
+    }
+
+    public CursorPage<Product> searchProductsWithCursor(String keyword, BigDecimal minPrice, BigDecimal maxPrice,
+                                                        String cursor, int size) {
+        validateCursorPageSize(size);
+        CursorCodec.Cursor c = CursorCodec.decode(cursor);
+        String safeKeyword = SqlSecurityUtil.escapeLikePattern(keyword);
+        List<Product> rows = productDao.searchProductsWithCursor(
+                safeKeyword, minPrice, maxPrice, createdAtOf(c), idOf(c), size + 1);
+        return CursorPage.of(rows, size, this::createdAtCursor);
+    }
+
+    // 品牌 / 分類列表快取內含商品數，商品增刪改時一併清除
+    @CacheEvict(value = {"brands", "categories"}, allEntries = true)
     @Transactional
     public Product createProduct(ProductRequest request) {
         ProductDTO productDTO = convertRequestToDTO(request);
         return createProduct(productDTO);
     }
 
+    @CacheEvict(value = {"brands", "categories"}, allEntries = true)
     @Transactional
     @Auditable(action = AuditAction.CREATE, resource = "Product", resourceId = "#result.id")
     public Product createProduct(ProductDTO productDTO) {
@@ -97,16 +253,20 @@ public class ProductServiceImpl implements ProductService {
         return product;
     }
 
+    @CacheEvict(value = {"brands", "categories"}, allEntries = true)
     @Transactional
     public Product updateProduct(Long id, ProductRequest request) {
         ProductDTO productDTO = convertRequestToDTO(request);
         return updateProduct(id, productDTO);
     }
 
+    @CacheEvict(value = {"brands", "categories"}, allEntries = true)
     @Transactional
     @Auditable(action = AuditAction.UPDATE, resource = "Product", resourceId = "#id")
     public Product updateProduct(Long id, ProductDTO productDTO) {
-        Product existingProduct = findById(id);
+        // 整列回寫，必須以 DB 現值為基礎，不能用快取
+        Product existingProduct = loadProduct(id);
+        String oldSku = existingProduct.getSku();
 
         if (productDTO.getSku() != null && !productDTO.getSku().equals(existingProduct.getSku())) {
             if (productDao.existsBySku(productDTO.getSku())) {
@@ -114,20 +274,28 @@ public class ProductServiceImpl implements ProductService {
             }
         }
 
+        if (productDTO.getStockQuantity() != null
+                && !productDTO.getStockQuantity().equals(existingProduct.getStockQuantity())) {
+            assertNotHot(id);
+        }
+
         updateEntityFromDTO(existingProduct, productDTO);
         existingProduct.setUpdatedAt(LocalDateTime.now());
 
         productDao.update(existingProduct);
+        productCacheService.evictProduct(id, oldSku, existingProduct.getSku());
         log.debug("action=UPDATE_PRODUCT id={} name={}", id, existingProduct.getName());
 
         return existingProduct;
     }
 
+    @CacheEvict(value = {"brands", "categories"}, allEntries = true)
     @Transactional
     @Auditable(action = AuditAction.DELETE, resource = "Product", resourceId = "#id")
     public void deleteProduct(Long id) {
-        Product product = findById(id);
+        Product product = loadProduct(id);
         productDao.deleteById(id);
+        productCacheService.evictProduct(id, product.getSku());
         log.debug("action=DELETE_PRODUCT id={} name={}", id, product.getName());
     }
 
@@ -147,20 +315,23 @@ public class ProductServiceImpl implements ProductService {
         if (stockQuantity < 0) {
             throw new BusinessException(ResponseCode.INVALID_QUANTITY, "庫存數量不能為負");
         }
+        assertNotHot(id);
 
-        Product product = findById(id);
+        Product product = loadProduct(id);
         Integer oldStock = product.getStockQuantity();
 
         int updatedRows = productDao.updateStock(id, stockQuantity);
         if (updatedRows == 0) {
             throw new BusinessException(ResponseCode.INTERNAL_SERVER_ERROR, "庫存更新失敗");
         }
+        productCacheService.evictStock(List.of(id));
 
         log.info("action=UPDATE_STOCK id={} name={} oldStock={} newStock={}",
                 id, product.getName(), oldStock, stockQuantity);
     }
 
     public boolean checkStock(Long id, int quantity) {
+        // 熱門商品由 findById 換成 Redis 計數；一般商品取短 TTL 庫存層，實際扣減仍由 DB 條件更新把關
         Product product = findById(id);
         return product.getStockQuantity() >= quantity;
     }
@@ -171,16 +342,88 @@ public class ProductServiceImpl implements ProductService {
             throw new BusinessException(ResponseCode.INVALID_QUANTITY, "減少數量必須大於0");
         }
 
+        if (hotStockService.isHot(id)) {
+            HotStockReserveResult reserved = hotStockService.reserve(List.of(new StockChange(id, quantity)));
+            if (!reserved.getInsufficientProductIds().isEmpty()) {
+                log.warn("action=DECREASE_STOCK_FAILED id={} quantity={} reason=insufficient_stock", id, quantity);
+                return false;
+            }
+            if (reserved.getNotHot().isEmpty()) {
+                log.info("action=DECREASE_STOCK id={} quantity={} engine=redis", id, quantity);
+                return true;
+            }
+            // 剛被停用熱門模式，改走 DB
+        }
+
         int updatedRows = productDao.decreaseStock(id, quantity);
         if (updatedRows == 0) {
             log.warn("action=DECREASE_STOCK_FAILED id={} quantity={} reason=insufficient_stock", id, quantity);
             return false;
         }
 
+        productCacheService.evictStock(List.of(id));
         log.info("action=DECREASE_STOCK id={} quantity={}", id, quantity);
         return true;
     }
 
+    /**
+     * 批次扣減庫存（單一 SQL，依商品 id 順序鎖列）
+     * 熱門商品改走 Redis 預扣，交易 rollback 時自動還回。
+     * @return 庫存不足而扣減失敗的商品 id；空集合代表全部成功。
+     *         部分失敗時已扣的列仍在交易內，呼叫端應拋例外讓整筆 rollback。
+     */
+    @Transactional
+    public List<Long> decreaseStockBatch(List<StockChange> changes) {
+        // 同商品合併數量，TreeMap 依 id 排序讓 VALUES 也保持穩定順序
+        Map<Long, Integer> merged = new TreeMap<>();
+        for (StockChange change : changes) {
+            if (change.getQuantity() == null || change.getQuantity() <= 0) {
+                throw new BusinessException(ResponseCode.INVALID_QUANTITY, "減少數量必須大於0");
+            }
+            merged.merge(change.getProductId(), change.getQuantity(), Integer::sum);
+        }
+        if (merged.isEmpty()) {
+            return List.of();
+        }
+
+        // 熱門商品先走 Redis 預扣（不持有任何 DB 列鎖），其餘走單一批次 SQL
+        List<StockChange> hot = new ArrayList<>();
+        List<StockChange> batch = new ArrayList<>(merged.size());
+        merged.forEach((id, qty) -> (hotStockService.isHot(id) ? hot : batch).add(new StockChange(id, qty)));
+
+        if (!hot.isEmpty()) {
+            HotStockReserveResult reserved = hotStockService.reserve(hot);
+            if (!reserved.getInsufficientProductIds().isEmpty()) {
+                log.warn("action=DECREASE_STOCK_BATCH_FAILED failedIds={} reason=insufficient_stock engine=redis",
+                        reserved.getInsufficientProductIds());
+                return reserved.getInsufficientProductIds();
+            }
+            if (!reserved.getNotHot().isEmpty()) {
+                batch.addAll(reserved.getNotHot());
+                batch.sort(Comparator.comparing(StockChange::getProductId));
+            }
+        }
+
+        List<Long> failed = new ArrayList<>();
+        if (!batch.isEmpty()) {
+            Set<Long> decreased = new HashSet<>(productDao.decreaseStockBatch(batch));
+            for (StockChange change : batch) {
+                if (!decreased.contains(change.getProductId())) {
+                    failed.add(change.getProductId());
+                }
+            }
+        }
+
+        if (failed.isEmpty()) {
+            productCacheService.evictStock(batch.stream().map(StockChange::getProductId).toList());
+            log.info("action=DECREASE_STOCK_BATCH items={}", merged.size());
+        } else {
+            log.warn("action=DECREASE_STOCK_BATCH_FAILED items={} failedIds={} reason=insufficient_stock",
+                    merged.size(), failed);
+        }
+        return failed;
+    }
+
     public long countProducts() {
         return productDao.count();
     }
@@ -189,6 +432,101 @@ public class ProductServiceImpl implements ProductService {
         return productDao.countByCategoryId(categoryId);
     }
 
+    private List<String> splitSearchTerms(String keyword) {
+        if (keyword == null || keyword.isBlank()) {
+            return List.of();
+        }
+        return Arrays.stream(keyword.trim().split("\\s+"))
+                .distinct()
+                .limit(MAX_SEARCH_TERMS)
+                .toList();
+    }
+
+    private String priceBandLabel(int band) {
+        if (band == 0) {
+            return "0 - " + PRICE_BANDS.get(0).toPlainString();
+        }
+        if (band >= PRICE_BANDS.size()) {
+            return PRICE_BANDS.get(PRICE_BANDS.size() - 1).toPlainString() + "+";
+        }
+        return PRICE_BANDS.get(band - 1).toPlainString() + " - " + PRICE_BANDS.get(band).toPlainString();
+    }
+
+    private Product loadProduct(Long id) {
+        return productDao.findById(id)
+                .orElseThrow(() -> new BusinessException(ResponseCode.PRODUCT_NOT_FOUND));
+    }
+
+    private Product cacheLoaded(Product product) {
+        productCacheService.putProduct(product);
+        productCacheService.putStock(product.getId(), product.getStockQuantity());
+        return withHotStock(copyOf(product));
+    }
+
+    private Product copyOf(Product source) {
+        Product copy = new Product();
+        BeanUtils.copyProperties(source, copy);
+        return copy;
+    }
+
+    private Integer currentStock(Long id) {
+        Integer stock = productCacheService.getStock(id);
+        if (stock == null) {
+            stock = productDao.findStockById(id)
+                    .orElseThrow(() -> new BusinessException(ResponseCode.PRODUCT_NOT_FOUND));
+            productCacheService.putStock(id, stock);
+        }
+        return stock;
+    }
+
+    private Product withHotStock(Product product) {
+        // 熱門商品的 DB 庫存落後於 Redis 計數，以 Redis 為準
+        hotStockService.getAvailableStock(product.getId()).ifPresent(product::setStockQuantity);
+        return product;
+    }
+
+    private void assertNotHot(Long id) {
+        if (hotStockService.isHot(id)) {
+            throw new BusinessException(ResponseCode.CONFLICT, "熱門商品庫存由 Redis 管理，請先停用熱門模式再調整庫存");
+        }
+    }
+
+    private void validateCursorPageSize(int size) {
+        if (size <= 0 || size > MAX_CURSOR_PAGE_SIZE) {
+            throw new BusinessException(ResponseCode.INVALID_PAGINATION);
+        }
+    }
+
+    private String createdAtCursor(Product product) {
+        return CursorCodec.encode(product.getCreatedAt().toString(), product.getId());
+    }
+
+    private LocalDateTime createdAtOf(CursorCodec.Cursor cursor) {
+        if (cursor == null) {
+            return null;
+        }
+        try {
+            return LocalDateTime.parse(cursor.getSortKey());
+        } catch (DateTimeParseException e) {
+            throw CursorCodec.invalid();
+        }
+    }
+
+    private BigDecimal priceOf(CursorCodec.Cursor cursor) {
+        if (cursor == null) {
+            return null;
+        }
+        try {
+            return new BigDecimal(cursor.getSortKey());
+        } catch (NumberFormatException e) {
+            throw CursorCodec.invalid();
+        }
+    }
+
+    private Long idOf(CursorCodec.Cursor cursor) {
+        return cursor == null ? null : cursor.getId();
+    }
+
     private Product convertToEntity(ProductDTO dto) {
         Product product = new Product();
         product.setName(dto.getName());
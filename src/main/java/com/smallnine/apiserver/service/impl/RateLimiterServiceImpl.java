@@ -6,28 +6,41 @@ import com.smallnine.apiserver.service.RateLimiterService;
 import io.github.bucket4j.Bandwidth;
 import io.github.bucket4j.Bucket;
 import io.github.bucket4j.Refill;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Component;
 
 import java.time.Duration;
 import java.util.Locale;
 
 /**
- * #H1 認證端點限流（純記憶體 token bucket）。
+ * #H1 認證端點限流：Redis GCRA 為主、本地 token bucket 為備援。
  *
- * bucket 存在 Caffeine 有界 cache：
+ * 正常情況走 {@link GcraRateLimiter}，額度在所有節點間共享；Redis 故障時
+ * 退回本機 bucket（每節點各自計數，上限會放寬為 N 倍，但不會完全失守）。
+ *
+ * 備援 bucket 存在 Caffeine 有界 cache：
  *  - key 是攻擊者可控的 email / IP，必須有上限，否則限流器本身會被塞爆記憶體
  *  - expireAfterAccess 設為各自的補滿視窗：閒置滿一個視窗的 entry 即使被淘汰，
  *    重建也是滿桶——反正它本來就已被 refill 補滿，語意安全；maximumSize 則是硬上限
  *
- * 僅適用單機；多機 / 分散式限流（登入端點）留待 #H2 改 Redis-backed。
  * 此處故意只覆蓋 resend-verification 一條路徑，不做過度設計。
  */
 @Component
+@RequiredArgsConstructor
+@Slf4j
 public class RateLimiterServiceImpl implements RateLimiterService {
 
     private static final long MAX_TRACKED_KEYS = 100_000;
     private static final Duration EMAIL_WINDOW = Duration.ofMinutes(5);
     private static final Duration IP_WINDOW = Duration.ofMinutes(1);
+    private static final long EMAIL_LIMIT = 1;
+    private static final long IP_LIMIT = 5;
+
+    private static final String K_RESEND_IP = "rl:resend:ip:";
+    private static final String K_RESEND_EMAIL = "rl:resend:email:";
+
+    private final GcraRateLimiter gcraRateLimiter;
 
     /** 每個 email：5 分鐘只准 1 次重寄 */
     private final Cache<String, Bucket> resendVerificationByEmail = Caffeine.newBuilder()
@@ -43,18 +56,33 @@ public class RateLimiterServiceImpl implements RateLimiterService {
 
     private Bucket newEmailBucket() {
         return Bucket.builder()
-                .addLimit(Bandwidth.classic(1, Refill.intervally(1, EMAIL_WINDOW)))
+                .addLimit(Bandwidth.classic(EMAIL_LIMIT, Refill.intervally(EMAIL_LIMIT, EMAIL_WINDOW)))
                 .build();
     }
 
     private Bucket newIpBucket() {
         return Bucket.builder()
-                .addLimit(Bandwidth.classic(5, Refill.greedy(5, IP_WINDOW)))
+                .addLimit(Bandwidth.classic(IP_LIMIT, Refill.greedy(IP_LIMIT, IP_WINDOW)))
                 .build();
     }
 
     @Override
     public boolean tryResendVerification(String email, String clientIp) {
+        String normalizedEmail = email.toLowerCase(Locale.ROOT);
+        try {
+            if (!gcraRateLimiter.tryAcquire(K_RESEND_IP + clientIp, IP_LIMIT, IP_WINDOW).isAllowed()) {
+                return false;
+            }
+            return gcraRateLimiter.tryAcquire(K_RESEND_EMAIL + normalizedEmail, EMAIL_LIMIT, EMAIL_WINDOW)
+                    .isAllowed();
+        } catch (RuntimeException e) {
+            log.warn("action=resend_verification result=ratelimit_degraded reason=redis_unavailable msg={}",
+                    e.getMessage());
+            return tryLocal(normalizedEmail, clientIp);
+        }
+    }
+
+    private boolean tryLocal(String email, String clientIp) {
         boolean ipOk = resendVerificationByIp
                 .get(clientIp, k -> newIpBucket())
                 .tryConsume(1);
@@ -62,7 +90,7 @@ public class RateLimiterServiceImpl implements RateLimiterService {
             return false;
         }
         return resendVerificationByEmail
-                .get(email.toLowerCase(Locale.ROOT), k -> newEmailBucket())
+                .get(email, k -> newEmailBucket())
                 .tryConsume(1);
     }
-}
\ No newline at end of file
+}
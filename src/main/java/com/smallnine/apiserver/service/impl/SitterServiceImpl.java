@@ -42,10 +42,7 @@ public class SitterServiceImpl implements SitterService {
 
         List<SitterResponse> data = new ArrayList<>();
         for (Sitter s : sitters) {
-            SitterResponse resp = SitterResponse.from(s);
-            Double avg = sitterReviewDao.getAverageRating(s.getId());
-            resp.setRating(avg != null ? avg : 0.0);
-            data.add(resp);
+            data.add(SitterResponse.from(s));
         }
 
         return new SitterListResponse(total, page, pageSize, data);
@@ -57,10 +54,7 @@ public class SitterServiceImpl implements SitterService {
                 .orElseThrow(() -> new BusinessException(ResponseCode.SITTER_NOT_FOUND));
 
         SitterResponse resp = SitterResponse.from(sitter);
-
-        Double avg = sitterReviewDao.getAverageRating(id);
-        resp.setRating(avg != null ? avg : 0.0);
-        resp.setReviewCount(sitterReviewDao.countBySitterId(id));
+        resp.setReviewCount(sitter.getRatingCount());
 
         List<SitterGallery> galleryEntities = sitterGalleryDao.findBySitterId(id);
         List<String> galleryUrls = new ArrayList<>();
@@ -91,12 +85,7 @@ public class SitterServiceImpl implements SitterService {
     @Override
     public SitterResponse getMySitter(Long memberId) {
         return sitterDao.findByMemberId(memberId)
-                .map(sitter -> {
-                    SitterResponse resp = SitterResponse.from(sitter);
-                    Double avg = sitterReviewDao.getAverageRating(sitter.getId());
-                    resp.setRating(avg != null ? avg : 0.0);
-                    return resp;
-                })
+                .map(SitterResponse::from)
                 .orElse(null);
     }
 
@@ -169,5 +158,7 @@ public class SitterServiceImpl implements SitterService {
         }
 
         sitterReviewDao.insert(memberId, sitterId, rating, comment);
+        // 與評價同一交易更新彙總，評價寫入失敗（如 UNIQUE 衝突）時一併 rollback
+        sitterDao.addRating(sitterId, rating);
     }
 }
@@ -0,0 +1,74 @@
+package com.smallnine.apiserver.service.impl;
+
+import com.smallnine.apiserver.service.UserCacheService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+import java.util.function.Supplier;
+
+/**
+ * 以 CacheManager 的 userDetails cache（本機 only）實作。
+ * 清除延到交易結束之後：交易中清掉的話，commit 前的認證請求會把舊資料放回快取。
+ * rollback 也照樣清（多一次重新載入而已）：停用帳號是在 DB 直接改的，
+ * refresh 流程擋下停用帳號時整個交易會 rollback，仍要讓快取失效。
+ */
+@Component
+@Slf4j
+public class UserCacheServiceImpl implements UserCacheService {
+
+    static final String USER_DETAILS_CACHE = "userDetails";
+
+    private final Cache cache;
+
+    public UserCacheServiceImpl(CacheManager cacheManager) {
+        this.cache = cacheManager.getCache(USER_DETAILS_CACHE);
+    }
+
+    @Override
+    public UserDetails get(String username, Supplier<UserDetails> loader) {
+        try {
+            return cache.get(username, loader::get);
+        } catch (Cache.ValueRetrievalException e) {
+            // 使用者不存在等例外要原樣拋給 Spring Security
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    @Override
+    public void evict(String... usernames) {
+        List<String> snapshot = Arrays.stream(usernames).filter(Objects::nonNull).toList();
+        afterCompletion(() -> {
+            for (String username : snapshot) {
+                try {
+                    cache.evict(username);
+                } catch (RuntimeException e) {
+                    log.warn("action=USER_CACHE_EVICT_FAILED username={} msg={}", username, e.getMessage());
+                }
+            }
+        });
+    }
+
+    private void afterCompletion(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+}
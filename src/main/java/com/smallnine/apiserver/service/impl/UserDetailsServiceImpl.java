@@ -3,6 +3,7 @@ package com.smallnine.apiserver.service.impl;
 import com.smallnine.apiserver.dao.UserDao;
 import com.smallnine.apiserver.entity.User;
 import com.smallnine.apiserver.security.UserPrincipal;
+import com.smallnine.apiserver.service.UserCacheService;
 import lombok.RequiredArgsConstructor;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UserDetailsService;
@@ -14,11 +15,17 @@ import org.springframework.stereotype.Component;
 public class UserDetailsServiceImpl implements UserDetailsService {
 
     private final UserDao userDao;
+    private final UserCacheService userCacheService;
 
+    /**
+     * 每個帶 token 的請求都會走到這裡，先查本機快取；會員資料異動時由各 service 清除
+     */
     @Override
     public UserDetails loadUserByUsername(String username) throws UsernameNotFoundException {
-        User user = userDao.findByUsername(username)
-                .orElseThrow(() -> new UsernameNotFoundException("用戶不存在: " + username));
-        return new UserPrincipal(user);
+        return userCacheService.get(username, () -> {
+            User user = userDao.findByUsername(username)
+                    .orElseThrow(() -> new UsernameNotFoundException("用戶不存在: " + username));
+            return new UserPrincipal(user);
+        });
     }
 }
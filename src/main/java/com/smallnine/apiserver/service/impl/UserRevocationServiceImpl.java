@@ -0,0 +1,52 @@
+package com.smallnine.apiserver.service.impl;
+
+import com.smallnine.apiserver.constants.enums.ResponseCode;
+import com.smallnine.apiserver.exception.BusinessException;
+import com.smallnine.apiserver.service.UserRevocationService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+
+/**
+ * 撤銷紀錄：auth:revoked:user:{id} = 撤銷時間（epoch millis）。
+ * TTL 等於 access token 效期，過了之後撤銷前簽發的 token 本身也已過期，紀錄不必再留。
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class UserRevocationServiceImpl implements UserRevocationService {
+
+    static final String KEY_PREFIX = "auth:revoked:user:";
+
+    private final StringRedisTemplate stringRedisTemplate;
+
+    @Value("${jwt.access-token.expiration}")
+    private long accessTokenExpirationMs;
+
+    @Override
+    public void revoke(Long userId) {
+        try {
+            stringRedisTemplate.opsForValue().set(KEY_PREFIX + userId,
+                    String.valueOf(System.currentTimeMillis()), Duration.ofMillis(accessTokenExpirationMs));
+            log.info("action=USER_TOKENS_REVOKED userId={}", userId);
+        } catch (RuntimeException e) {
+            log.error("action=USER_TOKENS_REVOKE_FAILED userId={} msg={}", userId, e.getMessage());
+            throw new BusinessException(ResponseCode.INTERNAL_SERVER_ERROR, "撤銷服務暫時無法使用，請稍後再試");
+        }
+    }
+
+    @Override
+    public boolean isRevoked(Long userId, Instant issuedAt) {
+        String revokedAt = stringRedisTemplate.opsForValue().get(KEY_PREFIX + userId);
+        if (revokedAt == null) {
+            return false;
+        }
+        // iat 只到秒：同一秒內簽發的 token 一併視為撤銷（寧可多擋）
+        return issuedAt == null || issuedAt.toEpochMilli() <= Long.parseLong(revokedAt);
+    }
+}
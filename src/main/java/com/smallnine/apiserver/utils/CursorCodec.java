@@ -0,0 +1,66 @@
+package com.smallnine.apiserver.utils;
+
+import com.smallnine.apiserver.constants.enums.ResponseCode;
+import com.smallnine.apiserver.exception.BusinessException;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Keyset 分頁游標編解碼。
+ * 游標 = base64url("排序鍵|id")，對前端是不透明字串；排序鍵的格式由呼叫端決定
+ * （created_at 用 ISO 時間、price 用 BigDecimal plain string）。
+ */
+public final class CursorCodec {
+
+    private static final char SEPARATOR = '|';
+
+    private CursorCodec() {
+        // Utility class
+    }
+
+    /**
+     * 編碼游標
+     * @param sortKey 排序鍵字串（不可為 null）
+     * @param id 最後一筆的主鍵，作為排序鍵相同時的 tie-breaker
+     */
+    public static String encode(String sortKey, Long id) {
+        String raw = sortKey + SEPARATOR + id;
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * 解碼游標；null / 空字串代表第一頁，回傳 null
+     * @throws BusinessException 游標格式錯誤（被竄改或來自其他排序）
+     */
+    public static Cursor decode(String cursor) {
+        if (cursor == null || cursor.isBlank()) {
+            return null;
+        }
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int idx = raw.lastIndexOf(SEPARATOR);
+            if (idx <= 0 || idx == raw.length() - 1) {
+                throw invalid();
+            }
+            return new Cursor(raw.substring(0, idx), Long.parseLong(raw.substring(idx + 1)));
+        } catch (IllegalArgumentException e) {
+            // Base64 解碼失敗與 NumberFormatException 都落在這裡
+            throw invalid();
+        }
+    }
+
+    public static BusinessException invalid() {
+        return new BusinessException(ResponseCode.INVALID_PAGINATION, "無效的分頁游標");
+    }
+
+    @Data
+    @AllArgsConstructor
+    public static class Cursor {
+        private final String sortKey;
+        private final Long id;
+    }
+}
@@ -2,7 +2,10 @@ package com.smallnine.apiserver.utils;
 
 import io.jsonwebtoken.*;
 import io.jsonwebtoken.security.Keys;
+import com.smallnine.apiserver.entity.User;
 import jakarta.annotation.PostConstruct;
+import lombok.AllArgsConstructor;
+import lombok.Data;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.core.userdetails.UserDetails;
@@ -10,6 +13,7 @@ import org.springframework.stereotype.Component;
 
 import javax.crypto.SecretKey;
 import java.nio.charset.StandardCharsets;
+import java.time.Instant;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.Map;
@@ -18,6 +22,11 @@ import java.util.function.Function;
 @Component
 @Slf4j
 public class JwtUtil {
+
+    static final String CLAIM_TYPE = "type";
+    static final String CLAIM_USER_ID = "uid";
+    static final String CLAIM_ROLE = "role";
+    static final String CLAIM_ENABLED = "enabled";
     
     @Value("${jwt.secret}")
     private String secret;
@@ -32,6 +41,9 @@ public class JwtUtil {
     // 不再「平時沒事、第一次簽 token 才炸」。
     private SecretKey signingKey;
 
+    // JwtParser 建好後不可變、可跨執行緒共用，每次驗證不必重建
+    private JwtParser parser;
+
     /**
      * startup 即驗證 jwt.secret：缺值/空白/不足 256 bit 直接讓 context 啟動失敗，
      * 把失敗點從「第一次簽 token」提前到「服務起不來」。
@@ -50,12 +62,30 @@ public class JwtUtil {
                             + keyBytes.length + " bytes");
         }
         this.signingKey = Keys.hmacShaKeyFor(keyBytes);
+        this.parser = Jwts.parser().verifyWith(signingKey).build();
     }
 
     private SecretKey getSigningKey() {
         return signingKey;
     }
     
+    /**
+     * 驗簽並解析一次，回傳後續判斷需要的所有欄位；過期由 parser 一併檢查。
+     * 每個請求只該呼叫一次，不要再對同一個 token 呼叫 extractXxx / validateToken。
+     * @throws JwtException 簽章錯誤、格式錯誤或已過期
+     */
+    public ParsedToken parse(String token) {
+        Claims claims = extractAllClaims(token);
+        return new ParsedToken(
+                claims.getSubject(),
+                claims.get(CLAIM_TYPE, String.class),
+                toInstant(claims.getIssuedAt()),
+                toInstant(claims.getExpiration()),
+                claims.get(CLAIM_USER_ID, Long.class),
+                claims.get(CLAIM_ROLE, String.class),
+                claims.get(CLAIM_ENABLED, Boolean.class));
+    }
+
     public String extractUsername(String token) {
         return extractClaim(token, Claims::getSubject);
     }
@@ -71,11 +101,7 @@ public class JwtUtil {
     
     private Claims extractAllClaims(String token) {
         try {
-            return Jwts.parser()
-                    .verifyWith(getSigningKey())
-                    .build()
-                    .parseSignedClaims(token)
-                    .getPayload();
+            return parser.parseSignedClaims(token).getPayload();
         } catch (ExpiredJwtException e) {
             log.warn("存取令牌已過期: {}", e.getMessage());
             throw e;
@@ -94,10 +120,6 @@ public class JwtUtil {
         }
     }
     
-    private Boolean isTokenExpired(String token) {
-        return extractExpiration(token).before(new Date());
-    }
-    
     public String generateToken(UserDetails userDetails) {
         Map<String, Object> claims = new HashMap<>();
         return createToken(claims, userDetails.getUsername());
@@ -110,13 +132,26 @@ public class JwtUtil {
     
     public String generateAccessToken(String username) {
         Map<String, Object> claims = new HashMap<>();
-        claims.put("type", "access");
+        claims.put(CLAIM_TYPE, "access");
         return createToken(claims, username, accessTokenExpiration);
     }
+
+    /**
+     * 簽 access token 並帶上 id / 角色 / 啟用狀態，
+     * filter 可直接由 claims 組 principal，不必每個請求查一次 member。
+     */
+    public String generateAccessToken(User user) {
+        Map<String, Object> claims = new HashMap<>();
+        claims.put(CLAIM_TYPE, "access");
+        claims.put(CLAIM_USER_ID, user.getId());
+        claims.put(CLAIM_ROLE, (user.getRole() != null ? user.getRole() : User.Role.USER).name());
+        claims.put(CLAIM_ENABLED, user.isEnabled());
+        return createToken(claims, user.getUsername(), accessTokenExpiration);
+    }
     
     public String generateRefreshToken(String username) {
         Map<String, Object> claims = new HashMap<>(); 
-        claims.put("type", "refresh");
+        claims.put(CLAIM_TYPE, "refresh");
         return createToken(claims, username, refreshTokenExpiration);
     }
     
@@ -135,7 +170,7 @@ public class JwtUtil {
     }
     
     public String extractTokenType(String token) {
-        return extractClaim(token, claims -> (String) claims.get("type"));
+        return extractClaim(token, claims -> (String) claims.get(CLAIM_TYPE));
     }
     
     public boolean isRefreshToken(String token) {
@@ -148,8 +183,8 @@ public class JwtUtil {
     
     public Boolean validateToken(String token, UserDetails userDetails) {
         try {
-            final String username = extractUsername(token);
-            return (username.equals(userDetails.getUsername()) && !isTokenExpired(token));
+            // 過期的 token 在 parse 時就會丟 ExpiredJwtException
+            return parse(token).getSubject().equals(userDetails.getUsername());
         } catch (Exception e) {
             log.error("令牌驗證失敗: {}", e.getMessage());
             return false;
@@ -159,7 +194,7 @@ public class JwtUtil {
     public Boolean validateToken(String token) {
         try {
             extractAllClaims(token);
-            return !isTokenExpired(token);
+            return true;
         } catch (Exception e) {
             log.error("令牌驗證失敗: {}", e.getMessage());
             return false;
@@ -173,4 +208,36 @@ public class JwtUtil {
     public Long getRefreshTokenExpirationTime() {
         return refreshTokenExpiration;
     }
+
+    private static Instant toInstant(Date date) {
+        return date == null ? null : date.toInstant();
+    }
+
+    /**
+     * 已驗簽的 token 內容（不可變）
+     */
+    @Data
+    @AllArgsConstructor
+    public static class ParsedToken {
+        private final String subject;
+        private final String type;
+        private final Instant issuedAt;
+        private final Instant expiresAt;
+        /** 以下三個只有 generateAccessToken(User) 簽的 token 才有，舊 token 為 null */
+        private final Long userId;
+        private final String role;
+        private final Boolean enabled;
+
+        public boolean isAccessToken() {
+            return "access".equals(type);
+        }
+
+        public boolean isRefreshToken() {
+            return "refresh".equals(type);
+        }
+
+        public boolean hasPrincipalClaims() {
+            return userId != null && role != null && enabled != null;
+        }
+    }
 }
\ No newline at end of file
@@ -0,0 +1,91 @@
+package com.smallnine.apiserver.utils;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+
+/**
+ * 訂單號編碼：把遞增序號打散成不可預測、但保證不重複的訂單號。
+ *
+ * 序號（60 bit）經過 4 輪 Feistel 置換（輪函數為 HMAC-SHA256，金鑰來自設定），
+ * 置換是一對一的，不同序號必定得到不同結果；沒有金鑰則無法由訂單號推回序號或猜出相鄰訂單號。
+ * 結果以 32 字元字母表（去掉易混淆的 0 / 1 / I / O）編成 12 碼，格式與舊的隨機訂單號相同：ORD + 12 碼。
+ *
+ * 金鑰上線後不可更換：換金鑰等於換一套置換，新訂單號可能與舊的相撞（UNIQUE constraint 會擋下，但該筆下單失敗）。
+ */
+public final class OrderNumberCodec {
+
+    public static final String PREFIX = "ORD";
+
+    private static final String ALPHABET = "ABCDEFGHJKLMNPQRSTUVWXYZ23456789";
+    private static final int CODE_LENGTH = 12;
+    private static final int HALF_BITS = 30;
+    private static final long HALF_MASK = (1L << HALF_BITS) - 1;
+    private static final int ROUNDS = 4;
+    private static final String HMAC = "HmacSHA256";
+
+    /** 可編碼的最大序號（不含） */
+    public static final long MAX_SEQUENCE = 1L << (HALF_BITS * 2);
+
+    private final SecretKeySpec key;
+
+    public OrderNumberCodec(String secret) {
+        if (secret == null || secret.isBlank()) {
+            throw new IllegalArgumentException("order number secret must not be blank");
+        }
+        this.key = new SecretKeySpec(secret.getBytes(StandardCharsets.UTF_8), HMAC);
+    }
+
+    /**
+     * 序號 → 訂單號
+     * @param sequence 0 ≤ sequence < {@link #MAX_SEQUENCE}
+     */
+    public String encode(long sequence) {
+        if (sequence < 0 || sequence >= MAX_SEQUENCE) {
+            throw new IllegalArgumentException("sequence out of range: " + sequence);
+        }
+        long permuted = permute(sequence);
+        char[] code = new char[CODE_LENGTH];
+        for (int i = CODE_LENGTH - 1; i >= 0; i--) {
+            code[i] = ALPHABET.charAt((int) (permuted & 31));
+            permuted >>>= 5;
+        }
+        return PREFIX + new String(code);
+    }
+
+    long permute(long value) {
+        Mac mac = newMac();
+        long left = value >>> HALF_BITS;
+        long right = value & HALF_MASK;
+        for (int round = 0; round < ROUNDS; round++) {
+            long next = left ^ round(mac, round, right);
+            left = right;
+            right = next;
+        }
+        return (left << HALF_BITS) | right;
+    }
+
+    private static long round(Mac mac, int round, long half) {
+        mac.update((byte) round);
+        mac.update((byte) (half >>> 24));
+        mac.update((byte) (half >>> 16));
+        mac.update((byte) (half >>> 8));
+        mac.update((byte) half);
+        byte[] digest = mac.doFinal();
+        long value = ((digest[0] & 0xFFL) << 24) | ((digest[1] & 0xFFL) << 16)
+                | ((digest[2] & 0xFFL) << 8) | (digest[3] & 0xFFL);
+        return value & HALF_MASK;
+    }
+
+    private Mac newMac() {
+        try {
+            // Mac 非執行緒安全，每次編碼各自建立（一次編碼內 4 輪共用）
+            Mac mac = Mac.getInstance(HMAC);
+            mac.init(key);
+            return mac;
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,90 @@
+package com.smallnine.apiserver.utils;
+
+import org.springframework.web.util.HtmlUtils;
+
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * 搜尋結果標示：不分大小寫找出關鍵字，HTML 跳脫後以 &lt;em&gt; 包住。
+ * 在 Java 端做而不用 ts_headline：中文沒有分詞，PG 的 text search parser 切不出詞。
+ */
+public final class SearchHighlighter {
+
+    private static final String OPEN = "<em>";
+    private static final String CLOSE = "</em>";
+    private static final String ELLIPSIS = "…";
+
+    private SearchHighlighter() {
+        // Utility class
+    }
+
+    /**
+     * 標示全文中所有命中的詞
+     */
+    public static String highlight(String text, List<String> terms) {
+        if (text == null) {
+            return null;
+        }
+        boolean[] hit = markHits(text, terms);
+        StringBuilder out = new StringBuilder(text.length() + 16);
+        boolean open = false;
+        for (int i = 0; i < text.length(); i++) {
+            if (hit[i] != open) {
+                out.append(hit[i] ? OPEN : CLOSE);
+                open = hit[i];
+            }
+            out.append(HtmlUtils.htmlEscape(String.valueOf(text.charAt(i))));
+        }
+        if (open) {
+            out.append(CLOSE);
+        }
+        return out.toString();
+    }
+
+    /**
+     * 取第一個命中處前後各 radius 個字元的摘要並標示；沒有命中時取開頭
+     */
+    public static String snippet(String text, List<String> terms, int radius) {
+        if (text == null) {
+            return null;
+        }
+        int first = -1;
+        boolean[] hit = markHits(text, terms);
+        for (int i = 0; i < hit.length; i++) {
+            if (hit[i]) {
+                first = i;
+                break;
+            }
+        }
+        if (first < 0) {
+            int end = Math.min(text.length(), radius * 2);
+            return highlight(text.substring(0, end), terms) + (end < text.length() ? ELLIPSIS : "");
+        }
+        int last = first;
+        while (last + 1 < hit.length && hit[last + 1]) {
+            last++;
+        }
+        int start = Math.max(0, first - radius);
+        int end = Math.min(text.length(), last + 1 + radius);
+        String body = highlight(text.substring(start, end), terms);
+        return (start > 0 ? ELLIPSIS : "") + body + (end < text.length() ? ELLIPSIS : "");
+    }
+
+    private static boolean[] markHits(String text, List<String> terms) {
+        boolean[] hit = new boolean[text.length()];
+        String lower = text.toLowerCase(Locale.ROOT);
+        for (String term : terms) {
+            if (term == null || term.isEmpty()) {
+                continue;
+            }
+            String t = term.toLowerCase(Locale.ROOT);
+            for (int idx = lower.indexOf(t); idx >= 0; idx = lower.indexOf(t, idx + 1)) {
+                for (int i = idx; i < idx + t.length() && i < hit.length; i++) {
+                    hit[i] = true;
+                }
+            }
+        }
+        return hit;
+    }
+}
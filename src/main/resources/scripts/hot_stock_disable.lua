@@ -0,0 +1,4 @@
+-- 停用熱門商品：原子刪除計數 key 並移出熱門集合
+-- KEYS[1] = 熱門商品集合, KEYS[2] = 庫存計數 key, ARGV[1] = 商品 id
+redis.call('DEL', KEYS[2])
+return redis.call('SREM', KEYS[1], ARGV[1])
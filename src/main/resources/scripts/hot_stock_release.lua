@@ -0,0 +1,14 @@
+-- 熱門商品 Redis 還庫存（訂單取消 / 結帳交易 rollback 補償）
+-- KEYS / ARGV 排列同 hot_stock_reserve.lua
+-- 計數 key 存在才 INCRBY；流水一律 XADD，由 reconciler 把 +qty 回寫 DB。
+-- 商品已停用熱門模式時 DB 是權威值，只靠流水回寫即可保持一致。
+local n = #KEYS - 1
+
+for i = 1, n do
+    if redis.call('EXISTS', KEYS[i + 1]) == 1 then
+        redis.call('INCRBY', KEYS[i + 1], ARGV[2 * i + 1])
+    end
+    redis.call('XADD', KEYS[1], '*',
+        'productId', ARGV[2 * i], 'delta', ARGV[2 * i + 1], 'ref', ARGV[1])
+end
+return n
@@ -0,0 +1,35 @@
+-- 熱門商品 Redis 預扣庫存（all-or-nothing）
+-- KEYS[1]      = 預扣流水 stream
+-- KEYS[i + 1]  = 第 i 項商品的庫存計數 key
+-- ARGV[1]      = 預扣參考 id（同一次 reserve / release 共用，方便對帳）
+-- ARGV[2i]     = 第 i 項商品 id
+-- ARGV[2i + 1] = 第 i 項扣減數量
+-- 回傳 {'OK'} / {'MISSING', pid...}（key 不存在＝已非熱門商品）/ {'SHORT', pid...}（庫存不足）
+local n = #KEYS - 1
+local missing = {}
+local short = {}
+
+for i = 1, n do
+    local stock = redis.call('GET', KEYS[i + 1])
+    if not stock then
+        table.insert(missing, ARGV[2 * i])
+    elseif tonumber(stock) < tonumber(ARGV[2 * i + 1]) then
+        table.insert(short, ARGV[2 * i])
+    end
+end
+
+if #missing > 0 then
+    table.insert(missing, 1, 'MISSING')
+    return missing
+end
+if #short > 0 then
+    table.insert(short, 1, 'SHORT')
+    return short
+end
+
+for i = 1, n do
+    redis.call('DECRBY', KEYS[i + 1], ARGV[2 * i + 1])
+    redis.call('XADD', KEYS[1], '*',
+        'productId', ARGV[2 * i], 'delta', '-' .. ARGV[2 * i + 1], 'ref', ARGV[1])
+end
+return {'OK'}
@@ -0,0 +1,11 @@
+-- 冪等鍵佔位或讀回：一次往返決定「由我執行」或「回放 / 等待」
+-- KEYS[1] = 冪等鍵（hash：state / owner / fp / status / body）
+-- ARGV[1] = 佔位者 token，ARGV[2] = 請求指紋，ARGV[3] = PENDING 存活毫秒
+-- 回傳 {'ACQUIRED'} 佔位成功 / {state, fp, status, body} 既有紀錄
+if redis.call('HSETNX', KEYS[1], 'state', 'PENDING') == 1 then
+    redis.call('HSET', KEYS[1], 'owner', ARGV[1], 'fp', ARGV[2])
+    redis.call('PEXPIRE', KEYS[1], ARGV[3])
+    return {'ACQUIRED'}
+end
+local v = redis.call('HMGET', KEYS[1], 'state', 'fp', 'status', 'body')
+return {v[1] or '', v[2] or '', v[3] or '', v[4] or ''}
@@ -0,0 +1,12 @@
+-- 冪等鍵完成：PENDING → DONE 並存下完整回應；只有佔位者本人能寫
+-- （PENDING 逾時被別人重新佔位後，舊的執行者不可覆蓋）
+-- KEYS[1] = 冪等鍵
+-- ARGV[1] = 佔位者 token，ARGV[2] = HTTP status，ARGV[3] = 回應 body（JSON），ARGV[4] = 保存毫秒
+-- 回傳 1 寫入 / 0 已非本人佔位
+if redis.call('HGET', KEYS[1], 'owner') ~= ARGV[1] then
+    return 0
+end
+redis.call('HSET', KEYS[1], 'state', 'DONE', 'status', ARGV[2], 'body', ARGV[3])
+redis.call('HDEL', KEYS[1], 'owner')
+redis.call('PEXPIRE', KEYS[1], ARGV[4])
+return 1
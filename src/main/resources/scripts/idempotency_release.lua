@@ -0,0 +1,7 @@
+-- 冪等鍵釋放：執行失敗時刪除佔位，讓下一次重送重新執行；只刪自己的佔位
+-- KEYS[1] = 冪等鍵，ARGV[1] = 佔位者 token
+-- 回傳 1 已刪除 / 0 已非本人佔位
+if redis.call('HGET', KEYS[1], 'owner') ~= ARGV[1] then
+    return 0
+end
+return redis.call('DEL', KEYS[1])
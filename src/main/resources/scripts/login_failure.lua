@@ -0,0 +1,19 @@
+-- 登入失敗計數：帳號與 IP 各自 +1 並重設視窗（持續攻擊就持續計數），達門檻寫 lock key
+-- KEYS[1] = 帳號失敗計數，KEYS[2] = 帳號 lock
+-- KEYS[3] = IP 失敗計數，  KEYS[4] = IP lock
+-- ARGV[1..3] = 帳號 視窗毫秒 / 門檻 / 鎖定毫秒
+-- ARGV[4..6] = IP   視窗毫秒 / 門檻 / 鎖定毫秒
+-- 回傳 {帳號失敗數, 帳號是否鎖定, IP 失敗數, IP 是否鎖定}
+local function bump(fail_key, lock_key, window, limit, lock)
+    local count = redis.call('INCR', fail_key)
+    redis.call('PEXPIRE', fail_key, window)
+    if count >= limit then
+        redis.call('SET', lock_key, '1', 'PX', lock)
+        return count, 1
+    end
+    return count, 0
+end
+
+local user_count, user_locked = bump(KEYS[1], KEYS[2], ARGV[1], tonumber(ARGV[2]), ARGV[3])
+local ip_count, ip_locked = bump(KEYS[3], KEYS[4], ARGV[4], tonumber(ARGV[5]), ARGV[6])
+return {user_count, user_locked, ip_count, ip_locked}
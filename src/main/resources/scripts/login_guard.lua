@@ -0,0 +1,10 @@
+-- 登入前置檢查：一次往返確認帳號鎖與 IP 鎖
+-- KEYS[1] = 帳號 lock key，KEYS[2] = IP lock key
+-- 回傳 {0, 0} 未鎖 / {i, 剩餘毫秒} 第 i 支 lock key 存在（無 TTL 時剩餘毫秒為 -1）
+for i = 1, #KEYS do
+    local ttl = redis.call('PTTL', KEYS[i])
+    if ttl ~= -2 then
+        return {i, ttl}
+    end
+end
+return {0, 0}
@@ -0,0 +1,24 @@
+-- GCRA（generic cell rate algorithm）token bucket：一次往返完成判斷與扣額
+-- KEYS[1] = 限流 key，值為 TAT（theoretical arrival time，epoch 毫秒）
+-- ARGV[1] = 補充一個 token 的間隔（毫秒）= window / limit
+-- ARGV[2] = 桶容量（limit，允許的突發量）
+-- 回傳 {1, 0, 剩餘額度} 放行 / {0, retry-after 毫秒, 0} 拒絕
+-- 時間取 Redis TIME，避免各節點時鐘不一致
+local t = redis.call('TIME')
+local now = tonumber(t[1]) * 1000 + math.floor(tonumber(t[2]) / 1000)
+local interval = tonumber(ARGV[1])
+local burst = tonumber(ARGV[2])
+
+local tat = tonumber(redis.call('GET', KEYS[1])) or now
+if tat < now then
+    tat = now
+end
+
+local new_tat = tat + interval
+local allow_at = new_tat - interval * burst
+if now < allow_at then
+    return {0, allow_at - now, 0}
+end
+
+redis.call('SET', KEYS[1], new_tat, 'PX', new_tat - now)
+return {1, 0, math.floor((now - allow_at) / interval)}
@@ -0,0 +1,159 @@
+package com.smallnine.apiserver.config;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.cache.Cache;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+/**
+ * 兩層快取：L1 命中不打 L2、清除會廣播、收到其他節點廣播只清本機 L1。
+ * L2 以 ConcurrentMapCacheManager 取代 Redis。
+ */
+@ExtendWith(MockitoExtension.class)
+class TwoLevelCacheManagerTest {
+
+    @Mock private StringRedisTemplate stringRedisTemplate;
+
+    private ConcurrentMapCacheManager remote;
+    private TwoLevelCacheManager cacheManager;
+
+    @BeforeEach
+    void setUp() {
+        remote = new ConcurrentMapCacheManager("vipLevels", "productStock");
+        cacheManager = new TwoLevelCacheManager(remote, stringRedisTemplate, 100,
+                Map.of(), Duration.ofMinutes(10), Set.of("productStock"), Set.of("userDetails"));
+    }
+
+    @Test
+    void get_afterRemoteHit_servedFromLocalEvenIfRemoteIsCleared() {
+        remote.getCache("vipLevels").put("allActive", List.of("GOLD"));
+        Cache cache = cacheManager.getCache("vipLevels");
+
+        assertThat(cache.get("allActive").get()).isEqualTo(List.of("GOLD"));
+        remote.getCache("vipLevels").clear();
+
+        assertThat(cache.get("allActive").get()).isEqualTo(List.of("GOLD"));
+    }
+
+    @Test
+    void get_withValueLoader_loadsOnceAndCachesBothTiers() {
+        Cache cache = cacheManager.getCache("vipLevels");
+
+        assertThat(cache.get("all", () -> "loaded")).isEqualTo("loaded");
+        assertThat(cache.get("all", () -> "reloaded")).isEqualTo("loaded");
+        assertThat(remote.getCache("vipLevels").get("all").get()).isEqualTo("loaded");
+    }
+
+    @Test
+    void evict_clearsBothTiersAndPublishes() {
+        Cache cache = cacheManager.getCache("vipLevels");
+        cache.put("id:1", "GOLD");
+
+        cache.evict("id:1");
+
+        assertThat(cache.get("id:1")).isNull();
+        ArgumentCaptor<String> message = ArgumentCaptor.forClass(String.class);
+        verify(stringRedisTemplate, times(2))
+                .convertAndSend(eq(TwoLevelCacheManager.INVALIDATION_CHANNEL), message.capture());
+        assertThat(message.getValue()).endsWith("\nvipLevels\nid:1");
+    }
+
+    @Test
+    void onInvalidation_fromOtherNode_dropsOnlyLocalEntry() {
+        remote.getCache("vipLevels").put("id:1", "GOLD");
+        Cache cache = cacheManager.getCache("vipLevels");
+        cache.get("id:1");
+        remote.getCache("vipLevels").put("id:1", "PLATINUM");
+
+        cacheManager.onInvalidation("other-node\nvipLevels\nid:1");
+
+        assertThat(cache.get("id:1").get()).isEqualTo("PLATINUM");
+    }
+
+    @Test
+    void onInvalidation_withoutKey_clearsWholeLocalCache() {
+        remote.getCache("vipLevels").put("a", "1");
+        Cache cache = cacheManager.getCache("vipLevels");
+        cache.get("a");
+        remote.getCache("vipLevels").put("a", "2");
+
+        cacheManager.onInvalidation("other-node\nvipLevels");
+
+        assertThat(cache.get("a").get()).isEqualTo("2");
+    }
+
+    @Test
+    void remoteOnlyCache_isNotWrapped() {
+        Cache cache = cacheManager.getCache("productStock");
+
+        cache.evict("1");
+
+        assertThat(cache).isNotInstanceOf(TwoLevelCache.class);
+        verify(stringRedisTemplate, never()).convertAndSend(anyString(), anyString());
+    }
+
+    @Test
+    void localOnlyCache_neverReachesRemoteButStillBroadcastsEvict() {
+        Cache cache = cacheManager.getCache("userDetails");
+
+        assertThat(cache.get("alice", () -> "principal")).isEqualTo("principal");
+        assertThat(cache.get("alice", () -> "reloaded")).isEqualTo("principal");
+        assertThat(remote.getCacheNames()).doesNotContain("userDetails");
+        verify(stringRedisTemplate, never()).convertAndSend(anyString(), anyString());
+
+        cache.evict("alice");
+
+        assertThat(cache.get("alice")).isNull();
+        verify(stringRedisTemplate).convertAndSend(eq(TwoLevelCacheManager.INVALIDATION_CHANNEL), anyString());
+    }
+
+    @Test
+    void localOnlyCache_onInvalidationFromOtherNode_dropsEntry() {
+        Cache cache = cacheManager.getCache("userDetails");
+        cache.get("alice", () -> "principal");
+
+        cacheManager.onInvalidation("other-node\nuserDetails\nalice");
+
+        assertThat(cache.get("alice")).isNull();
+    }
+
+    @Test
+    void meterBinder_reportsHitsPerLevelAndMisses() {
+        remote.getCache("vipLevels").put("remoteOnly", "r");
+        TwoLevelCache cache = (TwoLevelCache) cacheManager.getCache("vipLevels");
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        new TwoLevelCacheMeterBinder(cache, List.of()).bindTo(registry);
+
+        cache.get("remoteOnly");          // L2 命中，回填 L1
+        cache.get("remoteOnly");          // L1 命中
+        cache.get("absent");              // 未命中
+        cache.get("loaded", () -> "v");   // 呼叫 loader，算未命中
+        cache.get("loaded", () -> "v");   // L1 命中
+
+        assertThat(registry.get("cache.gets").tag("cache", "vipLevels").tag("result", "hit")
+                .functionCounter().count()).isEqualTo(3);
+        assertThat(registry.get("cache.gets").tag("cache", "vipLevels").tag("result", "miss")
+                .functionCounter().count()).isEqualTo(2);
+        FunctionCounter localHits = registry.get("cache.level.hits").tag("level", "local").functionCounter();
+        assertThat(localHits.count()).isEqualTo(2);
+    }
+}
@@ -0,0 +1,119 @@
+package com.smallnine.apiserver.filter;
+
+import com.smallnine.apiserver.entity.User;
+import com.smallnine.apiserver.logging.AuditLogger;
+import com.smallnine.apiserver.security.UserPrincipal;
+import com.smallnine.apiserver.security.VerifiedTokenCache;
+import com.smallnine.apiserver.service.UserRevocationService;
+import com.smallnine.apiserver.utils.JwtUtil;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.redis.RedisConnectionFailureException;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.core.userdetails.UserDetailsService;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * 無狀態 principal：帶 claims 的 access token 不查 member，
+ * 撤銷清單要擋得住，Redis 掛掉時退回查 DB 而不是放行或全擋。
+ */
+@ExtendWith(MockitoExtension.class)
+class JwtAuthenticationFilterTest {
+
+    @Mock private UserDetailsService userDetailsService;
+    @Mock private AuditLogger auditLogger;
+    @Mock private UserRevocationService userRevocationService;
+
+    private JwtUtil jwtUtil;
+    private JwtAuthenticationFilter filter;
+    private User user;
+
+    @BeforeEach
+    void setUp() {
+        jwtUtil = new JwtUtil();
+        ReflectionTestUtils.setField(jwtUtil, "secret", "0123456789abcdef0123456789abcdef");
+        ReflectionTestUtils.setField(jwtUtil, "accessTokenExpiration", 900000L);
+        ReflectionTestUtils.setField(jwtUtil, "refreshTokenExpiration", 604800000L);
+        ReflectionTestUtils.invokeMethod(jwtUtil, "initSigningKey");
+
+        filter = new JwtAuthenticationFilter(new VerifiedTokenCache(jwtUtil, false, 100),
+                userDetailsService, auditLogger, userRevocationService);
+        ReflectionTestUtils.setField(filter, "statelessPrincipal", true);
+
+        user = new User();
+        user.setId(7L);
+        user.setUsername("alice");
+        user.setRole(User.Role.ADMIN);
+        user.setEmailValidated(true);
+    }
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void claimsToken_authenticatesWithoutLoadingUser() throws Exception {
+        Authentication auth = run(jwtUtil.generateAccessToken(user));
+
+        assertThat(auth).isNotNull();
+        assertThat(((UserPrincipal) auth.getPrincipal()).getUser().getId()).isEqualTo(7L);
+        assertThat(auth.getAuthorities()).extracting(Object::toString).containsExactly("ROLE_ADMIN");
+        verify(userDetailsService, never()).loadUserByUsername(anyString());
+    }
+
+    @Test
+    void revokedToken_isNotAuthenticated() throws Exception {
+        when(userRevocationService.isRevoked(eq(7L), any())).thenReturn(true);
+
+        assertThat(run(jwtUtil.generateAccessToken(user))).isNull();
+        verify(userDetailsService, never()).loadUserByUsername(anyString());
+    }
+
+    @Test
+    void redisDown_fallsBackToUserLookup() throws Exception {
+        when(userRevocationService.isRevoked(eq(7L), any()))
+                .thenThrow(new RedisConnectionFailureException("down"));
+        when(userDetailsService.loadUserByUsername("alice")).thenReturn(new UserPrincipal(user));
+
+        assertThat(run(jwtUtil.generateAccessToken(user))).isNotNull();
+        verify(userDetailsService).loadUserByUsername("alice");
+    }
+
+    @Test
+    void legacyToken_loadsUser() throws Exception {
+        when(userDetailsService.loadUserByUsername("alice")).thenReturn(new UserPrincipal(user));
+
+        assertThat(run(jwtUtil.generateAccessToken("alice"))).isNotNull();
+        verify(userRevocationService, never()).isRevoked(any(), any());
+    }
+
+    @Test
+    void refreshToken_isRejectedBeforeUserLookup() throws Exception {
+        assertThat(run(jwtUtil.generateRefreshToken("alice"))).isNull();
+        verify(userDetailsService, never()).loadUserByUsername(anyString());
+    }
+
+    private Authentication run(String token) throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/orders");
+        request.addHeader("Authorization", "Bearer " + token);
+        filter.doFilter(request, new MockHttpServletResponse(), new MockFilterChain());
+        return SecurityContextHolder.getContext().getAuthentication();
+    }
+}
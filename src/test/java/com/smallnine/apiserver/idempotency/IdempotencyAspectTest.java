@@ -0,0 +1,240 @@
+package com.smallnine.apiserver.idempotency;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.smallnine.apiserver.dto.ApiResponse;
+import com.smallnine.apiserver.dto.CreateOrderRequest;
+import com.smallnine.apiserver.exception.BusinessException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import java.lang.reflect.Method;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.contains;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+/**
+ * 冪等切面：
+ *  - 第一次執行並保存 2xx 回應；重送直接回放，不再執行方法
+ *  - 執行中的重送等到完成後回放，逾時回 409
+ *  - 同 key 換請求內容被拒
+ *  - 方法失敗 / 保存失敗都要釋放佔位，不可卡在 PENDING
+ *  - Redis 故障降級為直接執行
+ */
+@ExtendWith(MockitoExtension.class)
+class IdempotencyAspectTest {
+
+    private static final String KEY = "idempotency:order.create:alice:k-1";
+
+    @Mock private IdempotencyStore store;
+    @Mock private ProceedingJoinPoint joinPoint;
+    @Mock private MethodSignature signature;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final CreateOrderRequest body = new CreateOrderRequest();
+    private MockHttpServletRequest request;
+    private IdempotencyAspect aspect;
+    private Idempotent idempotent;
+
+    /** 與 OrderController.createOrder 相同形狀的端點 */
+    @Idempotent(scope = "order.create")
+    ResponseEntity<ApiResponse<String>> createOrder(@RequestBody CreateOrderRequest request) {
+        return null;
+    }
+
+    @BeforeEach
+    void setUp() throws Exception {
+        aspect = new IdempotencyAspect(store, objectMapper, meterRegistry, 200, 60_000, 24);
+        Method method = IdempotencyAspectTest.class.getDeclaredMethod("createOrder", CreateOrderRequest.class);
+        idempotent = method.getAnnotation(Idempotent.class);
+
+        request = new MockHttpServletRequest("POST", "/api/orders");
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(request));
+        SecurityContextHolder.getContext().setAuthentication(
+                new UsernamePasswordAuthenticationToken("alice", null, List.of()));
+
+        body.setShippingAddress("addr");
+        lenient().when(joinPoint.getSignature()).thenReturn(signature);
+        lenient().when(signature.getMethod()).thenReturn(method);
+        lenient().when(joinPoint.getArgs()).thenReturn(new Object[]{body});
+    }
+
+    @AfterEach
+    void tearDown() {
+        RequestContextHolder.resetRequestAttributes();
+        SecurityContextHolder.clearContext();
+    }
+
+    private static ResponseEntity<ApiResponse<String>> created() {
+        return ResponseEntity.status(HttpStatus.CREATED).body(ApiResponse.success("訂單創建成功", "ORD-1"));
+    }
+
+    private double count(String outcome) {
+        return meterRegistry.get(IdempotencyAspect.METRIC_NAME)
+                .tag("scope", "order.create").tag("outcome", outcome).counter().count();
+    }
+
+    @Test
+    void withoutHeader_proceedsWithoutTouchingRedis() throws Throwable {
+        when(joinPoint.proceed()).thenReturn(created());
+
+        assertThat(aspect.around(joinPoint, idempotent)).isEqualTo(created());
+        verifyNoInteractions(store);
+    }
+
+    @Test
+    void firstCall_executesAndStoresFullResponse() throws Throwable {
+        request.addHeader("Idempotency-Key", "k-1");
+        when(store.begin(eq(KEY), anyString(), anyString(), any()))
+                .thenAnswer(inv -> new IdempotencyStore.Entry(
+                        IdempotencyStore.State.ACQUIRED, inv.getArgument(2), 0, null));
+        when(joinPoint.proceed()).thenReturn(created());
+        when(store.complete(eq(KEY), anyString(), eq(201), contains("\"data\":\"ORD-1\""), any()))
+                .thenReturn(true);
+
+        Object result = aspect.around(joinPoint, idempotent);
+
+        assertThat(result).isEqualTo(created());
+        assertThat(count("executed")).isEqualTo(1.0);
+        verify(store, never()).release(anyString(), anyString());
+    }
+
+    @Test
+    void completedKey_replaysStoredResponseWithoutExecuting() throws Throwable {
+        request.addHeader("Idempotency-Key", "k-1");
+        when(store.begin(eq(KEY), anyString(), anyString(), any()))
+                .thenAnswer(inv -> new IdempotencyStore.Entry(
+                        IdempotencyStore.State.DONE, inv.getArgument(2), 201, "{\"data\":\"ORD-1\"}"));
+
+        ResponseEntity<?> replay = (ResponseEntity<?>) aspect.around(joinPoint, idempotent);
+
+        assertThat(replay.getStatusCode().value()).isEqualTo(201);
+        assertThat(replay.getBody()).isEqualTo("{\"data\":\"ORD-1\"}");
+        assertThat(replay.getHeaders().getFirst(IdempotencyAspect.REPLAYED_HEADER)).isEqualTo("true");
+        assertThat(count("replayed")).isEqualTo(1.0);
+        verify(joinPoint, never()).proceed();
+    }
+
+    @Test
+    void pendingKey_waitsForCompletionThenReplays() throws Throwable {
+        request.addHeader("Idempotency-Key", "k-1");
+        when(store.begin(eq(KEY), anyString(), anyString(), any()))
+                .thenAnswer(inv -> new IdempotencyStore.Entry(
+                        IdempotencyStore.State.PENDING, inv.getArgument(2), 0, null))
+                .thenAnswer(inv -> new IdempotencyStore.Entry(
+                        IdempotencyStore.State.DONE, inv.getArgument(2), 201, "{}"));
+
+        ResponseEntity<?> replay = (ResponseEntity<?>) aspect.around(joinPoint, idempotent);
+
+        assertThat(replay.getStatusCode().value()).isEqualTo(201);
+        assertThat(count("replayed_after_wait")).isEqualTo(1.0);
+        verify(joinPoint, never()).proceed();
+    }
+
+    @Test
+    void pendingKey_stillRunningAfterWait_throwsConflict() throws Throwable {
+        request.addHeader("Idempotency-Key", "k-1");
+        when(store.begin(eq(KEY), anyString(), anyString(), any()))
+                .thenAnswer(inv -> new IdempotencyStore.Entry(
+                        IdempotencyStore.State.PENDING, inv.getArgument(2), 0, null));
+
+        assertThatThrownBy(() -> aspect.around(joinPoint, idempotent))
+                .isInstanceOf(BusinessException.class)
+                .extracting(e -> ((BusinessException) e).getCode())
+                .isEqualTo(409);
+        assertThat(count("in_progress")).isEqualTo(1.0);
+        verify(joinPoint, never()).proceed();
+    }
+
+    @Test
+    void sameKeyDifferentBody_isRejected() throws Throwable {
+        request.addHeader("Idempotency-Key", "k-1");
+        when(store.begin(eq(KEY), anyString(), anyString(), any()))
+                .thenReturn(new IdempotencyStore.Entry(IdempotencyStore.State.DONE, "other", 201, "{}"));
+
+        assertThatThrownBy(() -> aspect.around(joinPoint, idempotent))
+                .isInstanceOf(BusinessException.class);
+        assertThat(count("fingerprint_mismatch")).isEqualTo(1.0);
+        verify(joinPoint, never()).proceed();
+    }
+
+    @Test
+    void methodThrows_releasesLockAndRethrows() throws Throwable {
+        request.addHeader("Idempotency-Key", "k-1");
+        when(store.begin(eq(KEY), anyString(), anyString(), any()))
+                .thenAnswer(inv -> new IdempotencyStore.Entry(
+                        IdempotencyStore.State.ACQUIRED, inv.getArgument(2), 0, null));
+        BusinessException failure = new BusinessException(
+                com.smallnine.apiserver.constants.enums.ResponseCode.INSUFFICIENT_STOCK);
+        when(joinPoint.proceed()).thenThrow(failure);
+
+        assertThatThrownBy(() -> aspect.around(joinPoint, idempotent)).isSameAs(failure);
+        verify(store).release(eq(KEY), anyString());
+        verify(store, never()).complete(anyString(), anyString(), anyInt(), anyString(), any());
+    }
+
+    /**
+     * 方法已成功（訂單已 commit）但保存回應失敗：必須釋放佔位，不可留在 PENDING 讓重送一直 409；
+     * 釋放也失敗時不可往外噴，業務結果照常回傳
+     */
+    @Test
+    void completeFails_releasesLockAndStillReturnsResult() throws Throwable {
+        request.addHeader("Idempotency-Key", "k-1");
+        when(store.begin(eq(KEY), anyString(), anyString(), any()))
+                .thenAnswer(inv -> new IdempotencyStore.Entry(
+                        IdempotencyStore.State.ACQUIRED, inv.getArgument(2), 0, null));
+        when(joinPoint.proceed()).thenReturn(created());
+        when(store.complete(eq(KEY), anyString(), anyInt(), anyString(), any()))
+                .thenThrow(new RuntimeException("redis down"));
+        when(store.release(eq(KEY), anyString())).thenThrow(new RuntimeException("redis down"));
+
+        assertThat(aspect.around(joinPoint, idempotent)).isEqualTo(created());
+        verify(store).release(eq(KEY), anyString());
+    }
+
+    @Test
+    void redisDown_degradesToDirectExecution() throws Throwable {
+        request.addHeader("Idempotency-Key", "k-1");
+        when(store.begin(eq(KEY), anyString(), anyString(), any()))
+                .thenThrow(new RuntimeException("redis down"));
+        when(joinPoint.proceed()).thenReturn(created());
+
+        assertThat(aspect.around(joinPoint, idempotent)).isEqualTo(created());
+        assertThat(count("degraded")).isEqualTo(1.0);
+    }
+
+    @Test
+    void oversizedKey_isRejected() {
+        request.addHeader("Idempotency-Key", "x".repeat(129));
+
+        assertThatThrownBy(() -> aspect.around(joinPoint, idempotent))
+                .isInstanceOf(BusinessException.class);
+        verifyNoInteractions(store);
+    }
+}
@@ -0,0 +1,124 @@
+package com.smallnine.apiserver.interceptor;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.read.ListAppender;
+import com.smallnine.apiserver.logging.LogContext;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.slf4j.LoggerFactory;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class LoggingInterceptorTest {
+
+    private final Logger logger = (Logger) LoggerFactory.getLogger(LoggingInterceptor.class);
+    private ListAppender<ILoggingEvent> appender;
+    private LoggingInterceptor interceptor;
+    private Level savedLevel;
+
+    @BeforeEach
+    void setUp() {
+        // 先跑過的 Spring context 測試會套用 application-test.properties 的 WARN，這裡固定成 INFO 才收得到存取日誌
+        savedLevel = logger.getLevel();
+        logger.setLevel(Level.INFO);
+        appender = new ListAppender<>();
+        appender.start();
+        logger.addAppender(appender);
+        interceptor = new LoggingInterceptor();
+        ReflectionTestUtils.setField(interceptor, "slowThresholdMs", 2000L);
+        ReflectionTestUtils.setField(interceptor, "repeatedStatementThreshold", 3);
+    }
+
+    @AfterEach
+    void tearDown() {
+        logger.detachAppender(appender);
+        logger.setLevel(savedLevel);
+    }
+
+    @Test
+    void fullMode_logsStartAndEnd() throws Exception {
+        ReflectionTestUtils.setField(interceptor, "sampleRate", 1);
+
+        handle(200, null);
+
+        assertThat(actions()).containsExactly("action=REQUEST_START", "action=REQUEST_END");
+    }
+
+    @Test
+    void sampledMode_skipsMostFastSuccessfulRequests() throws Exception {
+        ReflectionTestUtils.setField(interceptor, "sampleRate", 1_000_000);
+
+        for (int i = 0; i < 20; i++) {
+            handle(200, null);
+        }
+
+        assertThat(actions()).isEmpty();
+    }
+
+    @Test
+    void sampledMode_alwaysLogsErrorResponsesAndExceptions() throws Exception {
+        ReflectionTestUtils.setField(interceptor, "sampleRate", 1_000_000);
+
+        handle(404, null);
+        handle(500, new IllegalStateException("boom"));
+
+        assertThat(actions()).containsExactly("action=REQUEST_END", "action=REQUEST_END", "action=REQUEST_ERROR");
+        assertThat(appender.list.get(0).getFormattedMessage()).contains("http_code=404", "sampled=false");
+    }
+
+    @Test
+    void sampledMode_alwaysLogsSlowRequests() throws Exception {
+        ReflectionTestUtils.setField(interceptor, "sampleRate", 1_000_000);
+        ReflectionTestUtils.setField(interceptor, "slowThresholdMs", -1L);
+
+        handle(200, null);
+
+        assertThat(actions()).containsExactly("action=REQUEST_END", "action=SLOW_REQUEST");
+    }
+
+    @Test
+    void repeatedStatement_overThreshold_flagsRequestAndAlwaysLogsEnd() throws Exception {
+        ReflectionTestUtils.setField(interceptor, "sampleRate", 1_000_000);
+
+        handle(200, null, () -> {
+            LogContext.recordStatement("BrandDao.findById", 1_000_000);
+            for (int i = 0; i < 4; i++) {
+                LogContext.recordStatement("ProductDao.findById", 1_000_000);
+            }
+        });
+
+        assertThat(actions()).containsExactly("action=REQUEST_END", "action=REPEATED_STATEMENT");
+        assertThat(appender.list.get(0).getFormattedMessage()).contains("db_statements=5", "db_time_ms=5");
+        assertThat(appender.list.get(1).getFormattedMessage()).contains("statement=ProductDao.findById", "count=4");
+        assertThat(LogContext.getStatementStats()).isNull();
+    }
+
+    private void handle(int status, Exception ex) throws Exception {
+        handle(status, ex, () -> { });
+    }
+
+    private void handle(int status, Exception ex, Runnable handlerBody) throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/products");
+        request.setParameter("page", "1");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        response.setStatus(status);
+        interceptor.preHandle(request, response, null);
+        handlerBody.run();
+        interceptor.afterCompletion(request, response, null, ex);
+    }
+
+    private List<String> actions() {
+        return appender.list.stream()
+                .filter(e -> e.getFormattedMessage().startsWith("action="))
+                .map(e -> e.getFormattedMessage().split(" ")[0])
+                .toList();
+    }
+}
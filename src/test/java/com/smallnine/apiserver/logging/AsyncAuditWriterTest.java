@@ -0,0 +1,173 @@
+package com.smallnine.apiserver.logging;
+
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.read.ListAppender;
+import com.smallnine.apiserver.logging.constants.AuditAction;
+import com.smallnine.apiserver.logging.constants.AuditOverflowPolicy;
+import com.smallnine.apiserver.logging.constants.AuditResult;
+import com.smallnine.apiserver.logging.constants.LogConstants;
+import com.smallnine.apiserver.logging.event.AuditEvent;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.slf4j.LoggerFactory;
+import org.slf4j.MDC;
+import org.slf4j.event.Level;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class AsyncAuditWriterTest {
+
+    private final Logger auditLog = (Logger) LoggerFactory.getLogger(LogConstants.AUDIT_LOGGER);
+    private ListAppender<ILoggingEvent> appender;
+
+    @BeforeEach
+    void setUp() {
+        appender = new ListAppender<>();
+        appender.start();
+        auditLog.addAppender(appender);
+    }
+
+    @AfterEach
+    void tearDown() {
+        auditLog.detachAppender(appender);
+        MDC.clear();
+    }
+
+    @Test
+    void submit_whenStarted_writesOnDrainerWithEventTraceId() {
+        AsyncAuditWriter writer = writer(true, 16, AuditOverflowPolicy.BLOCK);
+        writer.start();
+        try {
+            writer.submit(auditLog, Level.WARN, event(AuditResult.FAILURE, "trace-1"));
+
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+            while (appender.list.isEmpty() && System.nanoTime() < deadline) {
+                Thread.onSpinWait();
+            }
+            assertThat(appender.list).hasSize(1);
+            ILoggingEvent logged = appender.list.get(0);
+            assertThat(logged.getThreadName()).isEqualTo("audit-drainer");
+            assertThat(logged.getLevel()).isEqualTo(ch.qos.logback.classic.Level.WARN);
+            assertThat(logged.getMDCPropertyMap()).containsEntry(LogConstants.TRACE_ID, "trace-1");
+            assertThat(logged.getFormattedMessage()).contains("event_time=");
+        } finally {
+            writer.stop();
+        }
+    }
+
+    @Test
+    void drop_whenFull_countsDroppedEvents() {
+        AsyncAuditWriter writer = writer(true, 4, AuditOverflowPolicy.DROP);
+
+        for (int i = 0; i < 6; i++) {
+            writer.submit(auditLog, Level.INFO, event(AuditResult.SUCCESS, null));
+        }
+
+        assertThat(writer.getPendingCount()).isEqualTo(4);
+        assertThat(writer.getDroppedCount()).isEqualTo(2);
+    }
+
+    @Test
+    void block_whenFullPastTimeout_dropsEvent() {
+        AsyncAuditWriter writer = writer(true, 2, AuditOverflowPolicy.BLOCK);
+
+        for (int i = 0; i < 3; i++) {
+            writer.submit(auditLog, Level.INFO, event(AuditResult.SUCCESS, null));
+        }
+
+        assertThat(writer.getPendingCount()).isEqualTo(2);
+        assertThat(writer.getDroppedCount()).isEqualTo(1);
+    }
+
+    @Test
+    void sample_overHalfFull_keepsFailuresAndSamplesSuccesses() {
+        AsyncAuditWriter writer = writer(true, 8, AuditOverflowPolicy.SAMPLE);
+        for (int i = 0; i < 4; i++) {
+            writer.submit(auditLog, Level.INFO, event(AuditResult.SUCCESS, null));
+        }
+
+        // 過半：成功事件 sample-rate=2 只留一半，失敗事件全留
+        writer.submit(auditLog, Level.INFO, event(AuditResult.SUCCESS, null));
+        writer.submit(auditLog, Level.INFO, event(AuditResult.SUCCESS, null));
+        writer.submit(auditLog, Level.WARN, event(AuditResult.FAILURE, null));
+
+        assertThat(writer.getPendingCount()).isEqualTo(6);
+        assertThat(writer.getDroppedCount()).isEqualTo(1);
+    }
+
+    @Test
+    void stop_flushesPendingEventsThenWritesSynchronously() {
+        AsyncAuditWriter writer = writer(true, 16, AuditOverflowPolicy.BLOCK);
+        writer.submit(auditLog, Level.INFO, event(AuditResult.SUCCESS, "a"));
+        writer.submit(auditLog, Level.INFO, event(AuditResult.SUCCESS, "b"));
+
+        writer.stop();
+        assertThat(appender.list).hasSize(2);
+        assertThat(writer.getPendingCount()).isZero();
+
+        writer.submit(auditLog, Level.INFO, event(AuditResult.SUCCESS, "c"));
+        assertThat(appender.list).hasSize(3);
+    }
+
+    @Test
+    void drain_restoresRequestContextFromEvent() {
+        AsyncAuditWriter writer = writer(true, 16, AuditOverflowPolicy.BLOCK);
+        writer.submit(auditLog, Level.INFO, AuditEvent.builder(AuditAction.DELETE)
+                .traceId("trace-2")
+                .clientIp("10.0.0.8")
+                .requestUri("/api/orders/5")
+                .requestMethod("DELETE")
+                .build());
+
+        writer.stop();
+
+        assertThat(appender.list).hasSize(1);
+        assertThat(appender.list.get(0).getMDCPropertyMap())
+                .containsEntry(LogConstants.TRACE_ID, "trace-2")
+                .containsEntry(LogConstants.CLIENT_IP, "10.0.0.8")
+                .containsEntry(LogConstants.REQUEST_URI, "/api/orders/5")
+                .containsEntry(LogConstants.REQUEST_METHOD, "DELETE");
+    }
+
+    @Test
+    void drain_eventFailingToSerialize_stillWritesRestOfBatch() {
+        AsyncAuditWriter writer = writer(true, 16, AuditOverflowPolicy.BLOCK);
+        // 沒有 action 的事件轉 Map 會丟例外
+        writer.submit(auditLog, Level.INFO, AuditEvent.builder(null).build());
+        writer.submit(auditLog, Level.INFO, event(AuditResult.SUCCESS, "after"));
+
+        writer.stop();
+
+        assertThat(appender.list).hasSize(1);
+        assertThat(appender.list.get(0).getMDCPropertyMap()).containsEntry(LogConstants.TRACE_ID, "after");
+        assertThat(writer.getPendingCount()).isZero();
+    }
+
+    @Test
+    void disabled_writesOnCallerThread() {
+        AsyncAuditWriter writer = writer(false, 16, AuditOverflowPolicy.BLOCK);
+        writer.start();
+
+        writer.submit(auditLog, Level.INFO, event(AuditResult.SUCCESS, null));
+
+        assertThat(appender.list).hasSize(1);
+        assertThat(appender.list.get(0).getThreadName()).isEqualTo(Thread.currentThread().getName());
+    }
+
+    private static AsyncAuditWriter writer(boolean enabled, int bufferSize, AuditOverflowPolicy policy) {
+        return new AsyncAuditWriter(enabled, bufferSize, 64, policy, 5, 2, 1, 1000);
+    }
+
+    private static AuditEvent event(AuditResult result, String traceId) {
+        return AuditEvent.builder(AuditAction.UPDATE)
+                .result(result)
+                .traceId(traceId)
+                .userId("1")
+                .resource("order")
+                .build();
+    }
+}
@@ -0,0 +1,172 @@
+package com.smallnine.apiserver.logging;
+
+import com.smallnine.apiserver.logging.annotation.Auditable;
+import com.smallnine.apiserver.logging.aspect.AuditLogAspect;
+import com.smallnine.apiserver.logging.constants.AuditAction;
+import com.smallnine.apiserver.logging.constants.AuditResult;
+import com.smallnine.apiserver.logging.event.AuditEvent;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.aop.aspectj.annotation.AspectJProxyFactory;
+import org.springframework.expression.spel.standard.SpelExpressionParser;
+import org.springframework.expression.spel.support.StandardEvaluationContext;
+
+import java.lang.reflect.Parameter;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * AuditLogAspect 每次呼叫的額外成本。
+ *
+ * - plain：未經切面的直接呼叫（基準）
+ * - legacyAspect：舊版寫法，每次呼叫重新解析 SpEL、反射取參數名稱
+ * - cachedAspect：目前的 AuditLogAspect（每個方法只解析一次，SpEL 編譯為 bytecode）
+ *
+ * 審計事件只組出來不寫出，量到的是切面本身的成本。
+ * 執行：mvn -B test-compile 後以 IDE 執行 main，或
+ * mvn -B exec:java -Dexec.classpathScope=test -Dexec.mainClass=com.smallnine.apiserver.logging.AuditLogAspectBenchmark
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class AuditLogAspectBenchmark {
+
+    private ProductWrites plain;
+    private ProductWrites legacy;
+    private ProductWrites cached;
+
+    @Setup
+    public void setUp() {
+        plain = new ProductWrites();
+        legacy = proxy(new LegacyAuditLogAspect(new DiscardingAuditLogger()));
+        cached = proxy(new AuditLogAspect(new DiscardingAuditLogger()));
+    }
+
+    @Benchmark
+    public Created plain() {
+        return plain.create("dog food", 100, "token-value");
+    }
+
+    @Benchmark
+    public Created legacyAspect() {
+        return legacy.create("dog food", 100, "token-value");
+    }
+
+    @Benchmark
+    public Created cachedAspect() {
+        return cached.create("dog food", 100, "token-value");
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(AuditLogAspectBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+
+    private ProductWrites proxy(Object aspect) {
+        AspectJProxyFactory factory = new AspectJProxyFactory(new ProductWrites());
+        factory.setProxyTargetClass(true);
+        factory.addAspect(aspect);
+        return factory.getProxy();
+    }
+
+    public record Created(Long id) {
+        public Long getId() {
+            return id;
+        }
+    }
+
+    public static class ProductWrites {
+
+        private long nextId;
+
+        @Auditable(action = AuditAction.CREATE, resource = "Product", resourceId = "#result.id", logParams = true)
+        public Created create(String name, int stock, String token) {
+            return new Created(++nextId);
+        }
+    }
+
+    /**
+     * 只組事件、不寫出
+     */
+    static class DiscardingAuditLogger extends AuditLogger {
+
+        volatile AuditEvent last;
+
+        DiscardingAuditLogger() {
+            super(null);
+        }
+
+        @Override
+        public void log(AuditEvent event) {
+            last = event;
+        }
+    }
+
+    /**
+     * 舊版 AuditLogAspect 的求值方式，作為對照組
+     */
+    @Aspect
+    static class LegacyAuditLogAspect {
+
+        private final AuditLogger auditLogger;
+        private final SpelExpressionParser spelParser = new SpelExpressionParser();
+
+        LegacyAuditLogAspect(AuditLogger auditLogger) {
+            this.auditLogger = auditLogger;
+        }
+
+        @Around("@annotation(auditable)")
+        public Object audit(ProceedingJoinPoint joinPoint, Auditable auditable) throws Throwable {
+            long startTime = System.currentTimeMillis();
+            Object result = joinPoint.proceed();
+
+            MethodSignature signature = (MethodSignature) joinPoint.getSignature();
+            StandardEvaluationContext context = new StandardEvaluationContext();
+            String[] paramNames = signature.getParameterNames();
+            Object[] args = joinPoint.getArgs();
+            for (int i = 0; i < paramNames.length; i++) {
+                context.setVariable(paramNames[i], args[i]);
+            }
+            context.setVariable("result", result);
+            Object resourceId = spelParser.parseExpression(auditable.resourceId()).getValue(context);
+
+            Map<String, Object> params = new HashMap<>();
+            Parameter[] parameters = signature.getMethod().getParameters();
+            for (int i = 0; i < parameters.length; i++) {
+                String name = parameters[i].getName();
+                if (!name.toLowerCase().contains("token")) {
+                    params.put(name, args[i] != null ? args[i].toString() : null);
+                }
+            }
+
+            auditLogger.log(AuditEvent.builder(auditable.action())
+                    .result(AuditResult.SUCCESS)
+                    .resource(auditable.resource())
+                    .resourceId(resourceId != null ? resourceId.toString() : null)
+                    .details(params)
+                    .duration(System.currentTimeMillis() - startTime)
+                    .build());
+            return result;
+        }
+    }
+}
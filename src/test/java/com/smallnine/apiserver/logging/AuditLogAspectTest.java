@@ -0,0 +1,149 @@
+package com.smallnine.apiserver.logging;
+
+import com.smallnine.apiserver.logging.annotation.Auditable;
+import com.smallnine.apiserver.logging.aspect.AuditLogAspect;
+import com.smallnine.apiserver.logging.constants.AuditAction;
+import com.smallnine.apiserver.logging.constants.AuditResult;
+import com.smallnine.apiserver.logging.event.AuditEvent;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+
+import java.lang.reflect.Method;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+class AuditLogAspectTest {
+
+    @Mock private AuditLogger auditLogger;
+    @Mock private ProceedingJoinPoint joinPoint;
+    @Mock private MethodSignature signature;
+
+    private AuditLogAspect aspect;
+
+    @BeforeEach
+    void setUp() {
+        aspect = new AuditLogAspect(auditLogger);
+        when(joinPoint.getSignature()).thenReturn(signature);
+        when(signature.toShortString()).thenReturn("Sample.method(..)");
+    }
+
+    @Test
+    void audit_resultExpression_isEvaluatedOnEveryCallAfterCompilation() throws Throwable {
+        Method method = Sample.class.getMethod("create", String.class, String.class);
+        when(signature.getMethod()).thenReturn(method);
+
+        for (long id = 1; id <= 5; id++) {
+            when(joinPoint.getArgs()).thenReturn(new Object[]{"dog food", "s3cret"});
+            when(joinPoint.proceed()).thenReturn(new Created(id));
+            aspect.audit(joinPoint, method.getAnnotation(Auditable.class));
+        }
+
+        ArgumentCaptor<AuditEvent> captor = ArgumentCaptor.forClass(AuditEvent.class);
+        verify(auditLogger, times(5)).log(captor.capture());
+        List<AuditEvent> events = captor.getAllValues();
+        assertThat(events).extracting(AuditEvent::getResourceId).containsExactly("1", "2", "3", "4", "5");
+        assertThat(events.get(4).getDetails()).containsEntry("name", "dog food").doesNotContainKey("password");
+    }
+
+    @Test
+    void audit_argumentExpressionOnFailure_recordsFailureWithResourceId() throws Throwable {
+        Method method = Sample.class.getMethod("delete", Long.class);
+        when(signature.getMethod()).thenReturn(method);
+        when(joinPoint.getArgs()).thenReturn(new Object[]{42L});
+        when(joinPoint.proceed()).thenThrow(new IllegalStateException("boom"));
+
+        assertThatThrownBy(() -> aspect.audit(joinPoint, method.getAnnotation(Auditable.class)))
+                .isInstanceOf(IllegalStateException.class);
+
+        ArgumentCaptor<AuditEvent> captor = ArgumentCaptor.forClass(AuditEvent.class);
+        verify(auditLogger).log(captor.capture());
+        assertThat(captor.getValue().getResult()).isEqualTo(AuditResult.FAILURE);
+        assertThat(captor.getValue().getResourceId()).isEqualTo("42");
+    }
+
+    @Test
+    void audit_invalidExpression_stillRecordsEventWithoutResourceId() throws Throwable {
+        Method method = Sample.class.getMethod("broken");
+        when(signature.getMethod()).thenReturn(method);
+        when(joinPoint.getArgs()).thenReturn(new Object[0]);
+        when(joinPoint.proceed()).thenReturn("ok");
+
+        aspect.audit(joinPoint, method.getAnnotation(Auditable.class));
+        aspect.audit(joinPoint, method.getAnnotation(Auditable.class));
+
+        ArgumentCaptor<AuditEvent> captor = ArgumentCaptor.forClass(AuditEvent.class);
+        verify(auditLogger, times(2)).log(captor.capture());
+        assertThat(captor.getAllValues()).extracting(AuditEvent::getResourceId).containsOnlyNulls();
+    }
+
+    @Test
+    void audit_resultTypeChangesAfterCompilation_fallsBackToInterpretation() throws Throwable {
+        Method method = Sample.class.getMethod("save");
+        when(signature.getMethod()).thenReturn(method);
+        when(joinPoint.getArgs()).thenReturn(new Object[0]);
+
+        // MIXED 模式在直譯若干次後才編譯，先跑夠多次讓表達式編譯成 bytecode
+        int warmUp = 200;
+        for (long id = 1; id <= warmUp; id++) {
+            when(joinPoint.proceed()).thenReturn(new Created(id));
+            aspect.audit(joinPoint, method.getAnnotation(Auditable.class));
+        }
+        when(joinPoint.proceed()).thenReturn(new Renamed("sku-7"));
+        aspect.audit(joinPoint, method.getAnnotation(Auditable.class));
+
+        ArgumentCaptor<AuditEvent> captor = ArgumentCaptor.forClass(AuditEvent.class);
+        verify(auditLogger, times(warmUp + 1)).log(captor.capture());
+        List<AuditEvent> events = captor.getAllValues();
+        assertThat(events.get(warmUp - 1).getResourceId()).isEqualTo(String.valueOf(warmUp));
+        assertThat(events.get(warmUp).getResourceId()).isEqualTo("sku-7");
+    }
+
+    public record Created(Long id) {
+        public Long getId() {
+            return id;
+        }
+    }
+
+    public record Renamed(String id) {
+        public String getId() {
+            return id;
+        }
+    }
+
+    public static class Sample {
+
+        @Auditable(action = AuditAction.CREATE, resource = "Sample", resourceId = "#result.id", logParams = true)
+        public Created create(String name, String password) {
+            return null;
+        }
+
+        @Auditable(action = AuditAction.UPDATE, resource = "Sample", resourceId = "#result.id")
+        public Object save() {
+            return null;
+        }
+
+        @Auditable(action = AuditAction.DELETE, resource = "Sample", resourceId = "#id")
+        public void delete(Long id) {
+        }
+
+        @Auditable(action = AuditAction.UPDATE, resource = "Sample", resourceId = "#result.(")
+        public String broken() {
+            return null;
+        }
+    }
+}
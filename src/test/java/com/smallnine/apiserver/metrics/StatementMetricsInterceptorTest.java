@@ -0,0 +1,83 @@
+package com.smallnine.apiserver.metrics;
+
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.read.ListAppender;
+import com.smallnine.apiserver.logging.LogContext;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.ibatis.builder.StaticSqlSource;
+import org.apache.ibatis.executor.Executor;
+import org.apache.ibatis.mapping.MappedStatement;
+import org.apache.ibatis.mapping.SqlCommandType;
+import org.apache.ibatis.plugin.Invocation;
+import org.apache.ibatis.session.Configuration;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.slf4j.LoggerFactory;
+
+import java.lang.reflect.Method;
+import java.sql.SQLException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.when;
+
+class StatementMetricsInterceptorTest {
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final StatementMetricsInterceptor interceptor = new StatementMetricsInterceptor(registry, 200);
+
+    @Test
+    void intercept_recordsTimerPerStatementAndOutcome() throws Throwable {
+        MappedStatement statement = statement("com.smallnine.apiserver.dao.ProductDao.updateStock", SqlCommandType.UPDATE);
+        Executor executor = Mockito.mock(Executor.class);
+        when(executor.update(any(), any())).thenReturn(1).thenReturn(1).thenThrow(new SQLException("boom"));
+        Method update = Executor.class.getMethod("update", MappedStatement.class, Object.class);
+
+        interceptor.intercept(new Invocation(executor, update, new Object[]{statement, null}));
+        interceptor.intercept(new Invocation(executor, update, new Object[]{statement, null}));
+        assertThatThrownBy(() -> interceptor.intercept(new Invocation(executor, update, new Object[]{statement, null})))
+                .hasCauseInstanceOf(SQLException.class);
+
+        Timer success = registry.get(StatementMetricsInterceptor.METRIC_NAME)
+                .tag("statement", statement.getId()).tag("command", "UPDATE").tag("outcome", "success").timer();
+        Timer error = registry.get(StatementMetricsInterceptor.METRIC_NAME)
+                .tag("statement", statement.getId()).tag("outcome", "error").timer();
+        assertThat(success.count()).isEqualTo(2);
+        assertThat(error.count()).isEqualTo(1);
+    }
+
+    @Test
+    void intercept_insideRequest_countsStatementAndLogsSlowOnes() throws Throwable {
+        StatementMetricsInterceptor strict = new StatementMetricsInterceptor(registry, -1);
+        MappedStatement statement = statement("com.smallnine.apiserver.dao.BrandDao.findById", SqlCommandType.SELECT);
+        Executor executor = Mockito.mock(Executor.class);
+        Method update = Executor.class.getMethod("update", MappedStatement.class, Object.class);
+        Logger logger = (Logger) LoggerFactory.getLogger(StatementMetricsInterceptor.class);
+        ListAppender<ILoggingEvent> appender = new ListAppender<>();
+        appender.start();
+        logger.addAppender(appender);
+
+        LogContext.initRequest("GET", "/api/brands", "127.0.0.1");
+        try {
+            strict.intercept(new Invocation(executor, update, new Object[]{statement, null}));
+            strict.intercept(new Invocation(executor, update, new Object[]{statement, null}));
+
+            assertThat(LogContext.getStatementStats().getTotalCount()).isEqualTo(2);
+            assertThat(appender.list).hasSize(2);
+            assertThat(appender.list.get(1).getFormattedMessage())
+                    .contains("action=SLOW_STATEMENT", "statement=" + statement.getId(), "executions_in_request=2");
+        } finally {
+            LogContext.clear();
+            logger.detachAppender(appender);
+        }
+    }
+
+    private static MappedStatement statement(String id, SqlCommandType type) {
+        Configuration configuration = new Configuration();
+        return new MappedStatement.Builder(configuration, id,
+                new StaticSqlSource(configuration, "UPDATE product SET stock_quantity = 0"), type).build();
+    }
+}
@@ -0,0 +1,71 @@
+package com.smallnine.apiserver.outbox;
+
+import com.smallnine.apiserver.dao.PointsDao;
+import com.smallnine.apiserver.entity.Points;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.math.BigDecimal;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+@ExtendWith(MockitoExtension.class)
+class OrderPointsHandlerTest {
+
+    @Mock private PointsDao pointsDao;
+
+    private OrderPointsHandler handler;
+
+    @BeforeEach
+    void setUp() {
+        handler = new OrderPointsHandler(pointsDao, new BigDecimal("100"));
+    }
+
+    @Test
+    void onOrderCreated_awardsOnePointPerFullHundred() {
+        handler.onOrderCreated(event("1299.99"));
+
+        Points points = captureInserted();
+        assertThat(points.getPoints()).isEqualTo(12);
+        assertThat(points.getMemberId()).isEqualTo(7L);
+        assertThat(points.getReferenceId()).isEqualTo(42);
+        assertThat(points.getReferenceType()).isEqualTo("ORDER");
+    }
+
+    @Test
+    void onOrderCancelled_reversesTheSameAmount() {
+        handler.onOrderCancelled(event("1299.99"));
+
+        assertThat(captureInserted().getPoints()).isEqualTo(-12);
+    }
+
+    @Test
+    void belowOnePoint_writesNothing() {
+        handler.onOrderCreated(event("99"));
+        handler.onOrderCancelled(event("99"));
+
+        verify(pointsDao, never()).insert(any());
+    }
+
+    private Points captureInserted() {
+        ArgumentCaptor<Points> captor = ArgumentCaptor.forClass(Points.class);
+        verify(pointsDao).insert(captor.capture());
+        return captor.getValue();
+    }
+
+    private OrderEvent event(String total) {
+        OrderEvent event = new OrderEvent();
+        event.setOrderId(42L);
+        event.setOrderNumber("ORD42");
+        event.setMemberId(7L);
+        event.setTotalAmount(new BigDecimal(total));
+        return event;
+    }
+}
@@ -0,0 +1,187 @@
+package com.smallnine.apiserver.outbox;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.smallnine.apiserver.dao.OutboxEventDao;
+import com.smallnine.apiserver.entity.Order;
+import com.smallnine.apiserver.entity.OutboxEvent;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class OutboxDispatcherTest {
+
+    private static final int MAX_ATTEMPTS = 3;
+
+    @Mock private OutboxEventDao outboxEventDao;
+    @Mock private PlatformTransactionManager transactionManager;
+    @Mock private OrderEventHandler notificationHandler;
+    @Mock private OrderEventHandler pointsHandler;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private OutboxDispatcher dispatcher;
+
+    @BeforeEach
+    void setUp() {
+        dispatcher = new OutboxDispatcher(outboxEventDao, objectMapper, transactionManager,
+                List.of(notificationHandler, pointsHandler), meterRegistry,
+                false, 10, 2, 1000, 60, MAX_ATTEMPTS, 7, 1000);
+    }
+
+    @AfterEach
+    void tearDown() {
+        dispatcher.stop();
+    }
+
+    @Test
+    void dispatchBatch_withNothingDue_returnsZero() {
+        when(outboxEventDao.claimBatch(10, 60, MAX_ATTEMPTS)).thenReturn(List.of());
+
+        assertThat(dispatcher.dispatchBatch()).isZero();
+        verify(transactionManager, never()).getTransaction(any());
+    }
+
+    @Test
+    void dispatchBatch_orderCreated_runsEveryHandlerInsideTransaction() throws Exception {
+        when(transactionManager.getTransaction(any())).thenReturn(new SimpleTransactionStatus());
+        when(outboxEventDao.claimBatch(10, 60, MAX_ATTEMPTS))
+                .thenReturn(List.of(event(1L, 100L, OrderEvent.CREATED, 1)));
+        when(outboxEventDao.markProcessed(1L)).thenReturn(1);
+
+        assertThat(dispatcher.dispatchBatch()).isEqualTo(1);
+
+        ArgumentCaptor<OrderEvent> payload = ArgumentCaptor.forClass(OrderEvent.class);
+        verify(notificationHandler).onOrderCreated(payload.capture());
+        verify(pointsHandler).onOrderCreated(any(OrderEvent.class));
+        assertThat(payload.getValue().getOrderNumber()).isEqualTo("ORD100");
+        assertThat(payload.getValue().getTotalAmount()).isEqualByComparingTo("1250");
+        verify(transactionManager).commit(any(TransactionStatus.class));
+        assertThat(count(OrderEvent.CREATED, "processed")).isEqualTo(1);
+    }
+
+    @Test
+    void dispatchBatch_alreadyProcessedElsewhere_skipsHandlers() {
+        when(transactionManager.getTransaction(any())).thenReturn(new SimpleTransactionStatus());
+        when(outboxEventDao.claimBatch(10, 60, MAX_ATTEMPTS))
+                .thenReturn(List.of(event(1L, 100L, OrderEvent.CREATED, 2)));
+        when(outboxEventDao.markProcessed(1L)).thenReturn(0);
+
+        dispatcher.dispatchBatch();
+
+        verify(notificationHandler, never()).onOrderCreated(any());
+        verify(pointsHandler, never()).onOrderCreated(any());
+        assertThat(count(OrderEvent.CREATED, "skipped")).isEqualTo(1);
+    }
+
+    @Test
+    void dispatchBatch_handlerFails_rollsBackAndSchedulesRetry() {
+        when(transactionManager.getTransaction(any())).thenReturn(new SimpleTransactionStatus());
+        when(outboxEventDao.claimBatch(10, 60, MAX_ATTEMPTS)).thenReturn(List.of(
+                event(1L, 100L, OrderEvent.CREATED, 1),
+                event(2L, 200L, OrderEvent.CREATED, 1)));
+        when(outboxEventDao.markProcessed(anyLong())).thenReturn(1);
+        // 用 doAnswer 判斷而非 argThat stub：worker 執行緒上的參數不符會被 strict stubs 當成錯誤拋出
+        doAnswer(inv -> {
+            if (inv.getArgument(0, OrderEvent.class).getOrderId() == 100L) {
+                throw new IllegalStateException("boom");
+            }
+            return null;
+        }).when(pointsHandler).onOrderCreated(any());
+
+        dispatcher.dispatchBatch();
+
+        verify(transactionManager).rollback(any(TransactionStatus.class));
+        verify(outboxEventDao).markFailed(eq(1L), anyString(), eq(2L));
+        // 另一筆事件不受影響
+        verify(outboxEventDao, never()).markFailed(eq(2L), anyString(), anyLong());
+        assertThat(count(OrderEvent.CREATED, "failed")).isEqualTo(1);
+        assertThat(count(OrderEvent.CREATED, "processed")).isEqualTo(1);
+    }
+
+    @Test
+    void dispatchBatch_lastAttemptFails_countsAsExhausted() {
+        when(transactionManager.getTransaction(any())).thenReturn(new SimpleTransactionStatus());
+        when(outboxEventDao.claimBatch(10, 60, MAX_ATTEMPTS))
+                .thenReturn(List.of(event(1L, 100L, OrderEvent.CANCELLED, MAX_ATTEMPTS)));
+        when(outboxEventDao.markProcessed(1L)).thenReturn(1);
+        doThrow(new IllegalStateException("boom")).when(notificationHandler).onOrderCancelled(any());
+
+        dispatcher.dispatchBatch();
+
+        verify(outboxEventDao).markFailed(eq(1L), anyString(), eq(8L));
+        assertThat(count(OrderEvent.CANCELLED, "exhausted")).isEqualTo(1);
+    }
+
+    @Test
+    void dispatchBatch_sameAggregate_processesInIdOrder() {
+        when(transactionManager.getTransaction(any())).thenReturn(new SimpleTransactionStatus());
+        // RETURNING 回傳順序不固定：取消事件排在前面
+        when(outboxEventDao.claimBatch(10, 60, MAX_ATTEMPTS)).thenReturn(List.of(
+                event(6L, 100L, OrderEvent.CANCELLED, 1),
+                event(5L, 100L, OrderEvent.CREATED, 1)));
+        when(outboxEventDao.markProcessed(anyLong())).thenReturn(1);
+
+        dispatcher.dispatchBatch();
+
+        InOrder order = inOrder(pointsHandler);
+        order.verify(pointsHandler).onOrderCreated(any());
+        order.verify(pointsHandler).onOrderCancelled(any());
+    }
+
+    @Test
+    void retryDelaySeconds_growsExponentiallyAndCaps() {
+        assertThat(OutboxDispatcher.retryDelaySeconds(1)).isEqualTo(2);
+        assertThat(OutboxDispatcher.retryDelaySeconds(4)).isEqualTo(16);
+        assertThat(OutboxDispatcher.retryDelaySeconds(40)).isEqualTo(300);
+    }
+
+    private OutboxEvent event(Long id, Long orderId, String type, int attempts) {
+        Order order = new Order();
+        order.setId(orderId);
+        order.setOrderNumber("ORD" + orderId);
+        order.setMemberId(7L);
+        order.setTotalAmount(new BigDecimal("1250"));
+        OutboxEvent event = new OutboxEvent();
+        event.setId(id);
+        event.setAggregateType(OrderEvent.AGGREGATE_TYPE);
+        event.setAggregateId(orderId);
+        event.setEventType(type);
+        event.setAttempts(attempts);
+        try {
+            event.setPayload(objectMapper.writeValueAsString(OrderEvent.of(order)));
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+        return event;
+    }
+
+    private double count(String type, String outcome) {
+        var counter = meterRegistry.find("outbox.events").tag("type", type).tag("outcome", outcome).counter();
+        return counter == null ? 0 : counter.count();
+    }
+}
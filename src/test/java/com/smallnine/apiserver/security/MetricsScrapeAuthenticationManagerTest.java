@@ -0,0 +1,44 @@
+package com.smallnine.apiserver.security;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.security.authentication.BadCredentialsException;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class MetricsScrapeAuthenticationManagerTest {
+
+    @Test
+    void correctCredential_grantsMetricsRole() {
+        MetricsScrapeAuthenticationManager manager = new MetricsScrapeAuthenticationManager("prometheus", "s3cret");
+
+        Authentication result = manager.authenticate(
+                UsernamePasswordAuthenticationToken.unauthenticated("prometheus", "s3cret"));
+
+        assertThat(result.isAuthenticated()).isTrue();
+        assertThat(result.getAuthorities()).extracting(Object::toString).containsExactly("ROLE_METRICS");
+    }
+
+    @Test
+    void wrongPasswordOrUsername_isRejected() {
+        MetricsScrapeAuthenticationManager manager = new MetricsScrapeAuthenticationManager("prometheus", "s3cret");
+
+        assertThatThrownBy(() -> manager.authenticate(
+                UsernamePasswordAuthenticationToken.unauthenticated("prometheus", "guess")))
+                .isInstanceOf(BadCredentialsException.class);
+        assertThatThrownBy(() -> manager.authenticate(
+                UsernamePasswordAuthenticationToken.unauthenticated("admin", "s3cret")))
+                .isInstanceOf(BadCredentialsException.class);
+    }
+
+    @Test
+    void unsetPassword_rejectsEverything() {
+        MetricsScrapeAuthenticationManager manager = new MetricsScrapeAuthenticationManager("prometheus", "");
+
+        assertThatThrownBy(() -> manager.authenticate(
+                UsernamePasswordAuthenticationToken.unauthenticated("prometheus", "")))
+                .isInstanceOf(BadCredentialsException.class);
+    }
+}
@@ -0,0 +1,96 @@
+package com.smallnine.apiserver.security;
+
+import com.smallnine.apiserver.utils.JwtUtil;
+import io.jsonwebtoken.ExpiredJwtException;
+import io.jsonwebtoken.JwtException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Instant;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * 已驗證 token 快取：同一顆 token 只驗簽一次、驗證失敗不快取、過期的快取不得再放行。
+ */
+class VerifiedTokenCacheTest {
+
+    private JwtUtil jwtUtil;
+
+    @BeforeEach
+    void setUp() {
+        JwtUtil real = new JwtUtil();
+        ReflectionTestUtils.setField(real, "secret", "0123456789abcdef0123456789abcdef");
+        ReflectionTestUtils.setField(real, "accessTokenExpiration", 900000L);
+        ReflectionTestUtils.setField(real, "refreshTokenExpiration", 604800000L);
+        ReflectionTestUtils.invokeMethod(real, "initSigningKey");
+        jwtUtil = spy(real);
+    }
+
+    @Test
+    void parse_sameToken_verifiesOnce() {
+        VerifiedTokenCache cache = new VerifiedTokenCache(jwtUtil, true, 100);
+        String token = jwtUtil.generateAccessToken("alice");
+
+        JwtUtil.ParsedToken first = cache.parse(token);
+        JwtUtil.ParsedToken second = cache.parse(token);
+
+        assertThat(second).isSameAs(first);
+        verify(jwtUtil, times(1)).parse(token);
+        assertThat(cache.getStats().getHits()).isEqualTo(1);
+        assertThat(cache.getStats().getMisses()).isEqualTo(1);
+        assertThat(cache.getStats().getHitRatio()).isEqualTo(0.5);
+    }
+
+    @Test
+    void parse_keepsTokenTypeSoRefreshTokensStayDistinguishable() {
+        VerifiedTokenCache cache = new VerifiedTokenCache(jwtUtil, true, 100);
+        String refresh = jwtUtil.generateRefreshToken("alice");
+
+        cache.parse(refresh);
+
+        assertThat(cache.parse(refresh).isAccessToken()).isFalse();
+    }
+
+    @Test
+    void parse_invalidToken_isNotCached() {
+        VerifiedTokenCache cache = new VerifiedTokenCache(jwtUtil, true, 100);
+
+        assertThatThrownBy(() -> cache.parse("not.a.jwt")).isInstanceOf(JwtException.class);
+        assertThatThrownBy(() -> cache.parse("not.a.jwt")).isInstanceOf(JwtException.class);
+        verify(jwtUtil, times(2)).parse("not.a.jwt");
+    }
+
+    @Test
+    void parse_cachedEntryPastExpiry_isReverified() {
+        VerifiedTokenCache cache = new VerifiedTokenCache(jwtUtil, true, 100);
+        String token = jwtUtil.generateAccessToken("alice");
+        // 模擬快取裡留著一筆已過期（尚未被清掉）的結果
+        JwtUtil.ParsedToken stale = new JwtUtil.ParsedToken("alice", "access",
+                Instant.now().minusSeconds(900), Instant.now().plusSeconds(60), null, null, null);
+        when(jwtUtil.parse(token)).thenReturn(stale)
+                .thenThrow(new ExpiredJwtException(null, null, "expired"));
+        cache.parse(token);
+        ReflectionTestUtils.setField(stale, "expiresAt", Instant.now().minusSeconds(1));
+
+        assertThatThrownBy(() -> cache.parse(token)).isInstanceOf(ExpiredJwtException.class);
+    }
+
+    @Test
+    void parse_disabled_alwaysVerifies() {
+        VerifiedTokenCache cache = new VerifiedTokenCache(jwtUtil, false, 100);
+        String token = jwtUtil.generateAccessToken("alice");
+
+        cache.parse(token);
+        cache.parse(token);
+
+        verify(jwtUtil, times(2)).parse(token);
+        assertThat(cache.getStats().isEnabled()).isFalse();
+    }
+}
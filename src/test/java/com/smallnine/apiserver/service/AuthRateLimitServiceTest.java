@@ -1,31 +1,35 @@
 package com.smallnine.apiserver.service;
 
 import com.smallnine.apiserver.exception.BusinessException;
+import com.smallnine.apiserver.exception.RateLimitExceededException;
 import com.smallnine.apiserver.service.impl.AuthRateLimitServiceImpl;
+import com.smallnine.apiserver.service.impl.GcraRateLimiter;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
-import org.springframework.data.redis.core.RedisTemplate;
-import org.springframework.data.redis.core.ValueOperations;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
 
 import java.time.Duration;
+import java.util.List;
 
 import static org.assertj.core.api.Assertions.assertThatCode;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static org.mockito.ArgumentMatchers.any;
-import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyList;
 import static org.mockito.ArgumentMatchers.eq;
-import static org.mockito.Mockito.lenient;
-import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 /**
  * #H2 分散式限流。涵蓋正常 + 錯誤路徑：
  *  - 帳號達門檻鎖定 / 未達門檻不鎖
- *  - 鎖定 / IP 鎖定時前置檢查擋下
+ *  - 鎖定 / IP 鎖定時前置檢查擋下，且帶 Retry-After
+ *  - 已知的鎖由本地 near-cache 擋下，不再打 Redis
  *  - 登入成功清計數
  *  - IP quota 超限丟 429
  *  - **Redis 故障 fail-open**：所有方法都不得拋例外
@@ -33,106 +37,152 @@ import static org.mockito.Mockito.when;
 @ExtendWith(MockitoExtension.class)
 class AuthRateLimitServiceTest {
 
-    @Mock private RedisTemplate<String, Object> redisTemplate;
-    @Mock private ValueOperations<String, Object> valueOps;
+    @Mock private StringRedisTemplate stringRedisTemplate;
+    @Mock private GcraRateLimiter gcraRateLimiter;
 
     private AuthRateLimitService svc;
 
     @BeforeEach
     void setUp() {
-        svc = new AuthRateLimitServiceImpl(redisTemplate);
+        svc = new AuthRateLimitServiceImpl(stringRedisTemplate, gcraRateLimiter);
+    }
+
+    @SuppressWarnings("unchecked")
+    private void guardReturns(String user, String ip, List<Long> reply) {
+        when(stringRedisTemplate.execute(any(RedisScript.class),
+                eq(List.of("rl:login:lock:" + user, "rl:login:iplock:" + ip)))).thenReturn(reply);
+    }
+
+    @SuppressWarnings("unchecked")
+    private void failureReturns(String user, String ip, List<Long> reply) {
+        when(stringRedisTemplate.execute(any(RedisScript.class),
+                eq(List.of("rl:login:userfail:" + user, "rl:login:lock:" + user,
+                        "rl:login:ipfail:" + ip, "rl:login:iplock:" + ip)),
+                any(Object[].class))).thenReturn(reply);
     }
 
     @Test
     void recordLoginFailure_locksAccountWhenThresholdReached() {
-        when(redisTemplate.opsForValue()).thenReturn(valueOps);
         // 第 5 次帳號失敗 → 達門檻；IP 第 1 次 → 不鎖
-        when(valueOps.increment("rl:login:userfail:alice")).thenReturn(5L);
-        when(valueOps.increment("rl:login:ipfail:1.1.1.1")).thenReturn(1L);
+        failureReturns("alice", "1.1.1.1", List.of(5L, 1L, 1L, 0L));
 
         svc.recordLoginFailure("Alice", "1.1.1.1");
 
-        verify(valueOps).set(eq("rl:login:lock:alice"), eq("1"), any(Duration.class));
-        verify(valueOps, never()).set(eq("rl:login:iplock:1.1.1.1"), any(), any(Duration.class));
+        // 本節點剛寫下的鎖直接記在本地，下一次前置檢查不必問 Redis
+        assertThatThrownBy(() -> svc.assertLoginAllowed("alice", "7.7.7.7"))
+                .isInstanceOf(RateLimitExceededException.class);
+        assertThatCode(() -> svc.assertLoginAllowed("other", "1.1.1.1"))
+                .doesNotThrowAnyException();
     }
 
     @Test
     void recordLoginFailure_doesNotLockBelowThreshold() {
-        when(redisTemplate.opsForValue()).thenReturn(valueOps);
-        when(valueOps.increment("rl:login:userfail:bob")).thenReturn(2L);
-        when(valueOps.increment("rl:login:ipfail:2.2.2.2")).thenReturn(2L);
+        failureReturns("bob", "2.2.2.2", List.of(2L, 0L, 2L, 0L));
+        guardReturns("bob", "2.2.2.2", List.of(0L, 0L));
 
         svc.recordLoginFailure("bob", "2.2.2.2");
 
-        verify(valueOps, never()).set(anyString(), any(), any(Duration.class));
+        assertThatCode(() -> svc.assertLoginAllowed("bob", "2.2.2.2"))
+                .doesNotThrowAnyException();
     }
 
     @Test
     void assertLoginAllowed_blocksWhenAccountLocked() {
-        when(redisTemplate.hasKey("rl:login:lock:alice")).thenReturn(true);
+        guardReturns("alice", "9.9.9.9", List.of(1L, 600_000L));
 
         assertThatThrownBy(() -> svc.assertLoginAllowed("alice", "9.9.9.9"))
-                .isInstanceOf(BusinessException.class);
+                .isInstanceOf(RateLimitExceededException.class)
+                .extracting(e -> ((RateLimitExceededException) e).getRetryAfterSeconds())
+                .isEqualTo(600L);
     }
 
     @Test
     void assertLoginAllowed_blocksWhenIpLocked() {
-        when(redisTemplate.hasKey("rl:login:lock:carol")).thenReturn(false);
-        when(redisTemplate.hasKey("rl:login:iplock:3.3.3.3")).thenReturn(true);
+        guardReturns("carol", "3.3.3.3", List.of(2L, 1_500L));
 
         assertThatThrownBy(() -> svc.assertLoginAllowed("carol", "3.3.3.3"))
-                .isInstanceOf(BusinessException.class);
+                .isInstanceOf(RateLimitExceededException.class)
+                .extracting(e -> ((RateLimitExceededException) e).getRetryAfterSeconds())
+                .isEqualTo(2L);
     }
 
     @Test
     void assertLoginAllowed_passesWhenNoLocks() {
-        when(redisTemplate.hasKey(anyString())).thenReturn(false);
+        guardReturns("dave", "4.4.4.4", List.of(0L, 0L));
 
         assertThatCode(() -> svc.assertLoginAllowed("dave", "4.4.4.4"))
                 .doesNotThrowAnyException();
     }
 
+    @Test
+    @SuppressWarnings("unchecked")
+    void assertLoginAllowed_knownLockServedFromNearCache() {
+        guardReturns("frank", "5.5.5.5", List.of(1L, 600_000L));
+
+        assertThatThrownBy(() -> svc.assertLoginAllowed("frank", "5.5.5.5"))
+                .isInstanceOf(BusinessException.class);
+        assertThatThrownBy(() -> svc.assertLoginAllowed("Frank", "6.6.6.6"))
+                .isInstanceOf(BusinessException.class);
+
+        verify(stringRedisTemplate, times(1)).execute(any(RedisScript.class), anyList());
+    }
+
     @Test
     void recordLoginSuccess_clearsFailCountAndLock() {
         svc.recordLoginSuccess("Eve");
 
-        verify(redisTemplate).delete("rl:login:userfail:eve");
-        verify(redisTemplate).delete("rl:login:lock:eve");
+        verify(stringRedisTemplate).delete(List.of("rl:login:userfail:eve", "rl:login:lock:eve"));
+    }
+
+    @Test
+    void recordLoginSuccess_dropsLocalLock() {
+        failureReturns("gina", "8.8.8.8", List.of(5L, 1L, 1L, 0L));
+        guardReturns("gina", "8.8.8.8", List.of(0L, 0L));
+        svc.recordLoginFailure("gina", "8.8.8.8");
+
+        svc.recordLoginSuccess("gina");
+
+        assertThatCode(() -> svc.assertLoginAllowed("gina", "8.8.8.8"))
+                .doesNotThrowAnyException();
     }
 
     @Test
     void assertIpQuota_throwsWhenOverLimit() {
-        when(redisTemplate.opsForValue()).thenReturn(valueOps);
-        when(valueOps.increment("rl:ip:register:5.5.5.5")).thenReturn(6L);
+        when(gcraRateLimiter.tryAcquire("rl:ip:register:5.5.5.5", 5, Duration.ofMinutes(10)))
+                .thenReturn(new GcraRateLimiter.Decision(false, Duration.ofSeconds(90), 0));
 
         assertThatThrownBy(() -> svc.assertIpQuota("register", "5.5.5.5", 5, Duration.ofMinutes(10)))
-                .isInstanceOf(BusinessException.class);
+                .isInstanceOf(RateLimitExceededException.class)
+                .extracting(e -> ((RateLimitExceededException) e).getRetryAfterSeconds())
+                .isEqualTo(90L);
     }
 
     @Test
-    void assertIpQuota_setsTtlOnFirstHit_andPassesWithinLimit() {
-        when(redisTemplate.opsForValue()).thenReturn(valueOps);
-        when(valueOps.increment("rl:ip:register:6.6.6.6")).thenReturn(1L);
+    void assertIpQuota_passesWithinLimit() {
+        when(gcraRateLimiter.tryAcquire("rl:ip:register:6.6.6.6", 5, Duration.ofMinutes(10)))
+                .thenReturn(new GcraRateLimiter.Decision(true, Duration.ZERO, 4));
 
         assertThatCode(() -> svc.assertIpQuota("register", "6.6.6.6", 5, Duration.ofMinutes(10)))
                 .doesNotThrowAnyException();
-
-        verify(redisTemplate).expire(eq("rl:ip:register:6.6.6.6"), any(Duration.class));
     }
 
     // ---- fail-open：Redis 炸了所有路徑都要放行，不能把人擋在登入外 ----
 
     @Test
+    @SuppressWarnings("unchecked")
     void failsOpenWhenRedisDownOnAssertLogin() {
-        when(redisTemplate.hasKey(anyString())).thenThrow(new RuntimeException("redis down"));
+        when(stringRedisTemplate.execute(any(RedisScript.class), anyList()))
+                .thenThrow(new RuntimeException("redis down"));
 
         assertThatCode(() -> svc.assertLoginAllowed("alice", "1.1.1.1"))
                 .doesNotThrowAnyException();
     }
 
     @Test
+    @SuppressWarnings("unchecked")
     void failsOpenWhenRedisDownOnRecordFailure() {
-        when(redisTemplate.opsForValue()).thenThrow(new RuntimeException("redis down"));
+        when(stringRedisTemplate.execute(any(RedisScript.class), anyList(), any(Object[].class)))
+                .thenThrow(new RuntimeException("redis down"));
 
         assertThatCode(() -> svc.recordLoginFailure("alice", "1.1.1.1"))
                 .doesNotThrowAnyException();
@@ -140,7 +190,8 @@ class AuthRateLimitServiceTest {
 
     @Test
     void failsOpenWhenRedisDownOnIpQuota() {
-        when(redisTemplate.opsForValue()).thenThrow(new RuntimeException("redis down"));
+        when(gcraRateLimiter.tryAcquire(any(), eq(5L), any()))
+                .thenThrow(new RuntimeException("redis down"));
 
         assertThatCode(() -> svc.assertIpQuota("register", "1.1.1.1", 5, Duration.ofMinutes(10)))
                 .doesNotThrowAnyException();
@@ -148,7 +199,7 @@ class AuthRateLimitServiceTest {
 
     @Test
     void failsOpenWhenRedisDownOnRecordSuccess() {
-        lenient().doThrow(new RuntimeException("redis down")).when(redisTemplate).delete(anyString());
+        when(stringRedisTemplate.delete(anyCollection())).thenThrow(new RuntimeException("redis down"));
 
         assertThatCode(() -> svc.recordLoginSuccess("alice"))
                 .doesNotThrowAnyException();
@@ -30,7 +30,7 @@ import static org.mockito.Mockito.when;
 /**
  * #NEW-A：refresh 流程必須 reload User 並擋停用帳號。
  * admin 在 DB 把 email_validated 設 false 後，該 user 不能再靠手上的
- * refresh token 換新 access token，且全部裝置 session 一併撤銷。
+ * refresh token 換新 access token，且全部裝置 session 與已簽出的 access token 一併撤銷。
  */
 @ExtendWith(MockitoExtension.class)
 class AuthServiceRefreshTokenTest {
@@ -41,6 +41,8 @@ class AuthServiceRefreshTokenTest {
     @Mock private RefreshTokenService refreshTokenService;
     @Mock private AuditLogger auditLogger;
     @Mock private MailService mailService;
+    @Mock private UserRevocationService userRevocationService;
+    @Mock private UserCacheService userCacheService;
 
     @InjectMocks private AuthServiceImpl authService;
 
@@ -72,6 +74,8 @@ class AuthServiceRefreshTokenTest {
                 .isInstanceOf(AccountDisabledException.class);
 
         verify(refreshTokenService).revokeByUser(user);
+        verify(userRevocationService).revoke(7L);
+        verify(userCacheService).evict("alice");
         verify(refreshTokenService, never()).createRefreshToken(any(), anyString());
     }
 
@@ -82,7 +86,7 @@ class AuthServiceRefreshTokenTest {
         user.setUsername("alice");
         user.setEmailValidated(true);
         when(userDao.findById(7L)).thenReturn(Optional.of(user));
-        when(jwtUtil.generateAccessToken("alice")).thenReturn("new-access");
+        when(jwtUtil.generateAccessToken(user)).thenReturn("new-access");
         when(jwtUtil.getAccessTokenExpirationTime()).thenReturn(900_000L);
         RefreshToken rotated = new RefreshToken();
         rotated.setToken("rt-new");
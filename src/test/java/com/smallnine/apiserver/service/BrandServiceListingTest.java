@@ -0,0 +1,62 @@
+package com.smallnine.apiserver.service;
+
+import com.smallnine.apiserver.dao.BrandDao;
+import com.smallnine.apiserver.dto.BrandResponse;
+import com.smallnine.apiserver.service.impl.BrandServiceImpl;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * 品牌列表：商品數由單次 GROUP BY 帶回，不再逐筆 countProductsByBrandId。
+ */
+@ExtendWith(MockitoExtension.class)
+class BrandServiceListingTest {
+
+    @Mock private BrandDao brandDao;
+
+    private BrandService brandService;
+
+    @BeforeEach
+    void setUp() {
+        brandService = new BrandServiceImpl(brandDao);
+    }
+
+    @Test
+    void findAllBrands_usesGroupedCountQuery() {
+        when(brandDao.findAllWithProductCount(20, 10)).thenReturn(List.of(brand(1L, 3), brand(2L, 0)));
+
+        List<BrandResponse> brands = brandService.findAllBrands(2, 10);
+
+        assertThat(brands).extracting(BrandResponse::getProductCount).containsExactly(3L, 0L);
+        verify(brandDao, never()).countProductsByBrandId(anyLong());
+    }
+
+    @Test
+    void searchByName_escapesLikePatternAndUsesGroupedCountQuery() {
+        when(brandDao.searchByNameWithProductCount("100\\%", 0, 10)).thenReturn(List.of(brand(1L, 5)));
+
+        List<BrandResponse> brands = brandService.searchByName("100%", 0, 10);
+
+        assertThat(brands).extracting(BrandResponse::getProductCount).containsExactly(5L);
+        verify(brandDao, never()).countProductsByBrandId(anyLong());
+    }
+
+    private BrandResponse brand(Long id, long productCount) {
+        BrandResponse brand = new BrandResponse();
+        brand.setId(id);
+        brand.setName("品牌" + id);
+        brand.setProductCount(productCount);
+        return brand;
+    }
+}
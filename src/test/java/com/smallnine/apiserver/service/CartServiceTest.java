@@ -106,6 +106,30 @@ class CartServiceTest {
         assertEquals(updatedBefore, updatedAfter, "價格未變更時不應修改 updatedAt");
     }
 
+    @Test
+    void getCartItemsWithProduct_joinsProductInSingleQuery() {
+        insertCartItem(PRODUCT_ID_1, 1, new BigDecimal("799.00"));
+        insertCartItem(PRODUCT_ID_2, 2, new BigDecimal("299.00"));
+
+        List<CartItem> items = cartService.getCartItemsWithProduct(MEMBER_ID);
+
+        assertEquals(2, items.size());
+        for (CartItem item : items) {
+            assertNotNull(item.getProduct());
+            assertEquals(item.getProductId(), item.getProduct().getId());
+        }
+    }
+
+    @Test
+    void validateCartStock_withPreloadedItems_matchesMemberIdVariant() {
+        insertCartItem(PRODUCT_ID_1, 9999, new BigDecimal("799.00"));
+
+        List<CartItem> items = cartService.getCartItemsWithProduct(MEMBER_ID);
+
+        assertFalse(cartService.validateCartStock(items));
+        assertFalse(cartService.validateCartStock(MEMBER_ID));
+    }
+
     private void insertCartItem(Long productId, int quantity, BigDecimal unitPrice) {
         CartItem item = new CartItem();
         item.setMemberId(MEMBER_ID);
@@ -0,0 +1,89 @@
+package com.smallnine.apiserver.service;
+
+import com.smallnine.apiserver.dao.CategoryDao;
+import com.smallnine.apiserver.dao.ProductDao;
+import com.smallnine.apiserver.dto.CategoryResponse;
+import com.smallnine.apiserver.service.impl.CategoryServiceImpl;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+/**
+ * 分類樹：整棵樹只發一次查詢，在記憶體中依 parentId 組裝，商品數直接取自 GROUP BY 結果。
+ */
+@ExtendWith(MockitoExtension.class)
+class CategoryServiceTreeTest {
+
+    @Mock private CategoryDao categoryDao;
+    @Mock private ProductDao productDao;
+
+    private CategoryService categoryService;
+
+    @BeforeEach
+    void setUp() {
+        categoryService = new CategoryServiceImpl(categoryDao, productDao);
+        // 依名稱排序；「貓」的父分類已停用（不在結果中），整棵子樹都不該出現
+        when(categoryDao.findActiveWithProductCount()).thenReturn(List.of(
+                category(2L, "乾糧", 1L, 5),
+                category(3L, "罐頭", 1L, 0),
+                category(4L, "幼犬", 2L, 2),
+                category(1L, "狗", null, 1),
+                category(9L, "貓砂", 8L, 3)));
+    }
+
+    @Test
+    void getCategoryTree_assemblesNestedTreeFromSingleQuery() {
+        List<CategoryResponse> tree = categoryService.getCategoryTree();
+
+        assertThat(tree).extracting(CategoryResponse::getId).containsExactly(1L);
+        CategoryResponse dog = tree.get(0);
+        assertThat(dog.getProductCount()).isEqualTo(1L);
+        assertThat(dog.getChildren()).extracting(CategoryResponse::getName).containsExactly("乾糧", "罐頭");
+        assertThat(dog.getChildren().get(0).getChildren())
+                .extracting(CategoryResponse::getId).containsExactly(4L);
+        assertThat(dog.getChildren().get(1).getChildren()).isNull();
+
+        verify(categoryDao, times(1)).findActiveWithProductCount();
+        verify(categoryDao, never()).findByParentId(anyLong());
+        verifyNoInteractions(productDao);
+    }
+
+    @Test
+    void findTopCategories_usesGroupedCounts() {
+        List<CategoryResponse> top = categoryService.findTopCategories();
+
+        assertThat(top).extracting(CategoryResponse::getId).containsExactly(1L);
+        assertThat(top.get(0).getChildren()).isNull();
+        verifyNoInteractions(productDao);
+    }
+
+    @Test
+    void findByParentId_filtersDirectChildren() {
+        List<CategoryResponse> children = categoryService.findByParentId(1L);
+
+        assertThat(children).extracting(CategoryResponse::getProductCount).containsExactly(5L, 0L);
+        verifyNoInteractions(productDao);
+    }
+
+    private CategoryResponse category(Long id, String name, Long parentId, long productCount) {
+        CategoryResponse category = new CategoryResponse();
+        category.setId(id);
+        category.setName(name);
+        category.setParentId(parentId);
+        category.setIsActive(true);
+        category.setProductCount(productCount);
+        return category;
+    }
+}
@@ -0,0 +1,150 @@
+package com.smallnine.apiserver.service;
+
+import com.smallnine.apiserver.dao.InventoryReservationDao;
+import com.smallnine.apiserver.dao.ProductDao;
+import com.smallnine.apiserver.dto.HotStockReserveResult;
+import com.smallnine.apiserver.dto.StockChange;
+import com.smallnine.apiserver.service.impl.HotStockServiceImpl;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Range;
+import org.springframework.data.redis.connection.RedisStandaloneConfiguration;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.connection.stream.MapRecord;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+/**
+ * 熱門商品 Lua 腳本語意（reserve / release / disable），直接打 Redis 執行。
+ * 使用 Docker 容器中的 Redis（REDIS_HOST / REDIS_PORT），獨立用第 15 號 database，每個測試前清空。
+ */
+class HotStockLuaScriptTest {
+
+    private static final String HOT_SET_KEY = "inventory:hot:skus";
+    private static final String STOCK_KEY_PREFIX = "inventory:hot:stock:";
+    private static final String STREAM_KEY = "inventory:hot:reservations";
+
+    private static LettuceConnectionFactory connectionFactory;
+    private static StringRedisTemplate redis;
+
+    private HotStockServiceImpl hotStockService;
+
+    @BeforeAll
+    static void connect() {
+        RedisStandaloneConfiguration config = new RedisStandaloneConfiguration(
+                System.getenv().getOrDefault("REDIS_HOST", "localhost"),
+                Integer.parseInt(System.getenv().getOrDefault("REDIS_PORT", "6379")));
+        config.setDatabase(15);
+        connectionFactory = new LettuceConnectionFactory(config);
+        connectionFactory.afterPropertiesSet();
+        redis = new StringRedisTemplate(connectionFactory);
+    }
+
+    @AfterAll
+    static void disconnect() {
+        connectionFactory.destroy();
+    }
+
+    @BeforeEach
+    void setUp() {
+        redis.execute(connection -> {
+            connection.serverCommands().flushDb();
+            return null;
+        }, true);
+        hotStockService = new HotStockServiceImpl(redis, mock(ProductDao.class),
+                mock(InventoryReservationDao.class), mock(TransactionTemplate.class));
+        ReflectionTestUtils.setField(hotStockService, "enabled", true);
+        ReflectionTestUtils.setField(hotStockService, "reconcileBatchSize", 500);
+    }
+
+    @Test
+    void reserve_enoughStock_decrementsEveryCounterAndLogsEachItem() {
+        seed(1L, 10);
+        seed(2L, 5);
+
+        HotStockReserveResult result = hotStockService.reserve(List.of(new StockChange(1L, 3), new StockChange(2L, 5)));
+
+        assertThat(result.getInsufficientProductIds()).isEmpty();
+        assertThat(result.getNotHot()).isEmpty();
+        assertThat(counter(1L)).isEqualTo("7");
+        assertThat(counter(2L)).isEqualTo("0");
+        List<Map<Object, Object>> entries = streamEntries();
+        assertThat(entries).extracting(e -> e.get("productId")).containsExactly("1", "2");
+        assertThat(entries).extracting(e -> e.get("delta")).containsExactly("-3", "-5");
+        assertThat(entries.get(0).get("ref")).isEqualTo(entries.get(1).get("ref"));
+    }
+
+    @Test
+    void reserve_oneItemShort_reservesNothing() {
+        seed(1L, 10);
+        seed(2L, 2);
+
+        HotStockReserveResult result = hotStockService.reserve(List.of(new StockChange(1L, 3), new StockChange(2L, 5)));
+
+        assertThat(result.getInsufficientProductIds()).containsExactly(2L);
+        assertThat(counter(1L)).isEqualTo("10");
+        assertThat(counter(2L)).isEqualTo("2");
+        assertThat(streamEntries()).isEmpty();
+    }
+
+    @Test
+    void reserve_missingCounter_reservesRemainingItemsAndHandsMissingBackToDb() {
+        seed(1L, 10);
+
+        HotStockReserveResult result = hotStockService.reserve(List.of(new StockChange(1L, 3), new StockChange(2L, 4)));
+
+        assertThat(result.getInsufficientProductIds()).isEmpty();
+        assertThat(result.getNotHot()).containsExactly(new StockChange(2L, 4));
+        assertThat(counter(1L)).isEqualTo("7");
+        assertThat(redis.hasKey(STOCK_KEY_PREFIX + 2)).isFalse();
+        assertThat(streamEntries()).extracting(e -> e.get("productId")).containsExactly("1");
+    }
+
+    @Test
+    void release_incrementsExistingCountersAndLogsEveryItem() {
+        seed(1L, 7);
+
+        hotStockService.release(List.of(new StockChange(1L, 3), new StockChange(2L, 4)));
+
+        assertThat(counter(1L)).isEqualTo("10");
+        // 已停用的商品不重建計數，只留流水讓 reconciler 回寫 DB
+        assertThat(redis.hasKey(STOCK_KEY_PREFIX + 2)).isFalse();
+        assertThat(streamEntries()).extracting(e -> e.get("delta")).containsExactly("3", "4");
+    }
+
+    @Test
+    void disable_removesCounterAndMembership_thenReserveFallsBackToDb() {
+        seed(1L, 10);
+
+        hotStockService.disable(1L);
+
+        assertThat(redis.hasKey(STOCK_KEY_PREFIX + 1)).isFalse();
+        assertThat(redis.opsForSet().isMember(HOT_SET_KEY, "1")).isFalse();
+        HotStockReserveResult result = hotStockService.reserve(List.of(new StockChange(1L, 1)));
+        assertThat(result.getNotHot()).containsExactly(new StockChange(1L, 1));
+        assertThat(streamEntries()).isEmpty();
+    }
+
+    private void seed(Long productId, int stock) {
+        redis.opsForValue().set(STOCK_KEY_PREFIX + productId, String.valueOf(stock));
+        redis.opsForSet().add(HOT_SET_KEY, productId.toString());
+    }
+
+    private String counter(Long productId) {
+        return redis.opsForValue().get(STOCK_KEY_PREFIX + productId);
+    }
+
+    private List<Map<Object, Object>> streamEntries() {
+        List<MapRecord<String, Object, Object>> records = redis.opsForStream().range(STREAM_KEY, Range.unbounded());
+        return records == null ? List.of() : records.stream().map(MapRecord::getValue).toList();
+    }
+}
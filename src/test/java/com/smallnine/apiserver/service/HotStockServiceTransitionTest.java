@@ -0,0 +1,161 @@
+package com.smallnine.apiserver.service;
+
+import com.smallnine.apiserver.dao.InventoryReservationDao;
+import com.smallnine.apiserver.dao.ProductDao;
+import com.smallnine.apiserver.dto.HotStockReserveResult;
+import com.smallnine.apiserver.dto.StockChange;
+import com.smallnine.apiserver.exception.BusinessException;
+import com.smallnine.apiserver.service.impl.HotStockServiceImpl;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+import org.springframework.data.redis.core.SetOperations;
+import org.springframework.data.redis.core.StreamOperations;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * 熱門商品啟用 / 停用 / 熱門集合刷新的狀態轉換：
+ * 啟用時先回寫殘留流水、再於交易內鎖列播種計數；其他節點的變更由 refreshHotSet 同步到本地。
+ * Lua 腳本本身的語意見 HotStockLuaScriptTest。
+ */
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+class HotStockServiceTransitionTest {
+
+    @Mock private StringRedisTemplate stringRedisTemplate;
+    @Mock private ValueOperations<String, String> valueOperations;
+    @Mock private SetOperations<String, String> setOperations;
+    @Mock private StreamOperations<String, Object, Object> streamOperations;
+    @Mock private ProductDao productDao;
+    @Mock private InventoryReservationDao inventoryReservationDao;
+    @Mock private TransactionTemplate transactionTemplate;
+
+    private HotStockServiceImpl hotStockService;
+
+    @BeforeEach
+    void setUp() {
+        hotStockService = new HotStockServiceImpl(stringRedisTemplate, productDao, inventoryReservationDao, transactionTemplate);
+        ReflectionTestUtils.setField(hotStockService, "enabled", true);
+        ReflectionTestUtils.setField(hotStockService, "reconcileBatchSize", 500);
+
+        when(stringRedisTemplate.opsForValue()).thenReturn(valueOperations);
+        when(stringRedisTemplate.opsForSet()).thenReturn(setOperations);
+        when(stringRedisTemplate.opsForStream()).thenReturn(streamOperations);
+        when(streamOperations.range(anyString(), any(), any())).thenReturn(List.of());
+        doAnswer(inv -> inv.<TransactionCallback<?>>getArgument(0).doInTransaction(null))
+                .when(transactionTemplate).execute(any());
+    }
+
+    @Test
+    void enable_drainsThenSeedsCounterFromLockedRow() {
+        when(productDao.findStockByIdForUpdate(7L)).thenReturn(Optional.of(30));
+
+        hotStockService.enable(7L);
+
+        InOrder order = inOrder(streamOperations, transactionTemplate, productDao, valueOperations, setOperations);
+        order.verify(streamOperations).range(eq("inventory:hot:reservations"), any(), any());
+        order.verify(transactionTemplate).execute(any());
+        order.verify(productDao).findStockByIdForUpdate(7L);
+        order.verify(valueOperations).setIfAbsent("inventory:hot:stock:7", "30");
+        order.verify(setOperations).add("inventory:hot:skus", "7");
+        verify(productDao, never()).findById(any());
+        assertThat(hotStockService.isHot(7L)).isTrue();
+    }
+
+    @Test
+    void enable_productNotFound_staysCold() {
+        when(productDao.findStockByIdForUpdate(7L)).thenReturn(Optional.empty());
+
+        assertThatThrownBy(() -> hotStockService.enable(7L)).isInstanceOf(BusinessException.class);
+
+        verify(valueOperations, never()).setIfAbsent(anyString(), anyString());
+        verify(setOperations, never()).add(anyString(), any(String[].class));
+        assertThat(hotStockService.isHot(7L)).isFalse();
+    }
+
+    @Test
+    void enable_engineDisabled_isRejected() {
+        ReflectionTestUtils.setField(hotStockService, "enabled", false);
+
+        assertThatThrownBy(() -> hotStockService.enable(7L)).isInstanceOf(BusinessException.class);
+        verify(productDao, never()).findStockByIdForUpdate(any());
+    }
+
+    @Test
+    void refreshHotSet_adoptsOtherNodesEnableAndDisable() {
+        when(productDao.findStockByIdForUpdate(1L)).thenReturn(Optional.of(10));
+        hotStockService.enable(1L);
+
+        // 另一個節點停用了 1、啟用了 2
+        when(setOperations.members("inventory:hot:skus")).thenReturn(Set.of("2"));
+        hotStockService.refreshHotSet();
+
+        assertThat(hotStockService.isHot(1L)).isFalse();
+        assertThat(hotStockService.isHot(2L)).isTrue();
+    }
+
+    @Test
+    void refreshHotSet_redisFailure_keepsPreviousSet() {
+        when(productDao.findStockByIdForUpdate(1L)).thenReturn(Optional.of(10));
+        hotStockService.enable(1L);
+
+        when(setOperations.members("inventory:hot:skus")).thenThrow(new IllegalStateException("redis down"));
+        hotStockService.refreshHotSet();
+
+        assertThat(hotStockService.isHot(1L)).isTrue();
+    }
+
+    @Test
+    void disable_runsScriptAndEvictsLocally() {
+        when(productDao.findStockByIdForUpdate(1L)).thenReturn(Optional.of(10));
+        hotStockService.enable(1L);
+
+        hotStockService.disable(1L);
+
+        verify(stringRedisTemplate).execute(any(RedisScript.class),
+                eq(List.of("inventory:hot:skus", "inventory:hot:stock:1")), eq("1"));
+        assertThat(hotStockService.isHot(1L)).isFalse();
+    }
+
+    @Test
+    void reserve_missingCounter_evictsLocallyAndHandsBackToDb() {
+        when(productDao.findStockByIdForUpdate(5L)).thenReturn(Optional.of(10));
+        hotStockService.enable(5L);
+        // 另一個節點已停用：腳本回報計數 key 不存在
+        doReturn(List.of("MISSING", "5")).when(stringRedisTemplate)
+                .execute(any(RedisScript.class), anyList(), any(Object[].class));
+
+        HotStockReserveResult result = hotStockService.reserve(List.of(new StockChange(5L, 2)));
+
+        assertThat(result.getNotHot()).containsExactly(new StockChange(5L, 2));
+        assertThat(result.getInsufficientProductIds()).isEmpty();
+        assertThat(hotStockService.isHot(5L)).isFalse();
+    }
+}
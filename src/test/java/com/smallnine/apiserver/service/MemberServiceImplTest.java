@@ -39,6 +39,7 @@ class MemberServiceImplTest {
     @Mock private UserDao userDao;
     @Mock private PasswordEncoder passwordEncoder;
     @Mock private com.smallnine.apiserver.service.FileStorageService fileStorageService;
+    @Mock private UserCacheService userCacheService;
 
     @InjectMocks private MemberServiceImpl memberService;
 
@@ -103,6 +104,7 @@ class MemberServiceImplTest {
         assertThat(result.getGoogleUid()).isEqualTo("new-sub");
         assertThat(result.getGoogleName()).isEqualTo("Test User");
         verify(userDao).update(existing);
+        verify(userCacheService).evict("verified_user");
         verify(userDao, never()).insert(any());
     }
 
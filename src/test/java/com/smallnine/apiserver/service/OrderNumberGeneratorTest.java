@@ -0,0 +1,88 @@
+package com.smallnine.apiserver.service;
+
+import com.smallnine.apiserver.dao.OrderDao;
+import com.smallnine.apiserver.service.impl.OrderNumberGeneratorImpl;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * 區段配號：
+ *  - 一段 block 用完才打一次 DB，其餘全在記憶體
+ *  - 多執行緒同時下單不撞號
+ *  - 多節點（多個 generator 共用同一個 sequence）不撞號
+ */
+@ExtendWith(MockitoExtension.class)
+class OrderNumberGeneratorTest {
+
+    private static final String SECRET = "test-secret";
+
+    @Mock private OrderDao orderDao;
+
+    @Test
+    void next_fetchesOneBlockPerBlockSizeOrders() {
+        AtomicLong sequence = new AtomicLong();
+        when(orderDao.nextOrderNumberBlock()).thenAnswer(inv -> sequence.incrementAndGet());
+        OrderNumberGenerator generator = new OrderNumberGeneratorImpl(orderDao, SECRET, 100);
+
+        for (int i = 0; i < 250; i++) {
+            assertThat(generator.next()).matches("ORD[A-HJ-NP-Z2-9]{12}");
+        }
+
+        verify(orderDao, times(3)).nextOrderNumberBlock();
+    }
+
+    @Test
+    void next_tenThousandConcurrentOrdersAcrossTwoNodes_allUnique() throws Exception {
+        AtomicLong sequence = new AtomicLong();
+        when(orderDao.nextOrderNumberBlock()).thenAnswer(inv -> sequence.incrementAndGet());
+        // 兩個節點共用同一個 DB sequence
+        List<OrderNumberGenerator> nodes = List.of(
+                new OrderNumberGeneratorImpl(orderDao, SECRET, 1000),
+                new OrderNumberGeneratorImpl(orderDao, SECRET, 1000));
+
+        int orders = 10_000;
+        int threads = 32;
+        Set<String> issued = ConcurrentHashMap.newKeySet();
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<?>> futures = new ArrayList<>(orders);
+            for (int i = 0; i < orders; i++) {
+                OrderNumberGenerator node = nodes.get(i % nodes.size());
+                futures.add(pool.submit(() -> {
+                    start.await();
+                    issued.add(node.next());
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get(30, TimeUnit.SECONDS);
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+
+        assertThat(issued).hasSize(orders);
+        // 每節點 5000 筆 = 5 段 block，總共 10 次 DB 往返
+        verify(orderDao, times(10)).nextOrderNumberBlock();
+    }
+}
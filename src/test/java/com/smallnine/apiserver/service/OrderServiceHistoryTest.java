@@ -0,0 +1,113 @@
+package com.smallnine.apiserver.service;
+
+import com.smallnine.apiserver.dao.OrderDao;
+import com.smallnine.apiserver.dao.OrderItemDao;
+import com.smallnine.apiserver.dao.ProductDao;
+import com.smallnine.apiserver.dto.CursorPage;
+import com.smallnine.apiserver.dto.OrderHistoryResponse;
+import com.smallnine.apiserver.exception.BusinessException;
+import com.smallnine.apiserver.metrics.OrderMetrics;
+import com.smallnine.apiserver.outbox.OutboxPublisher;
+import com.smallnine.apiserver.service.impl.OrderServiceImpl;
+import com.smallnine.apiserver.utils.CursorCodec;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class OrderServiceHistoryTest {
+
+    @Mock private OrderDao orderDao;
+    @Mock private OrderItemDao orderItemDao;
+    @Mock private ProductDao productDao;
+    @Mock private OrderCreationService orderCreationService;
+    @Mock private HotStockService hotStockService;
+    @Mock private ProductCacheService productCacheService;
+    @Mock private OutboxPublisher outboxPublisher;
+
+    private OrderServiceImpl orderService;
+
+    private static final Long MEMBER_ID = 1L;
+
+    @BeforeEach
+    void setUp() {
+        orderService = new OrderServiceImpl(orderDao, orderItemDao, productDao, orderCreationService,
+                hotStockService, productCacheService, new OrderMetrics(new SimpleMeterRegistry()), outboxPublisher);
+    }
+
+    @Test
+    void firstPage_fetchesOneExtraRowAndEmitsCursorOfLastKeptOrder() {
+        LocalDateTime t = LocalDateTime.of(2025, 1, 1, 10, 0, 0, 123456000);
+        when(orderDao.findHistoryWithCursor(MEMBER_ID, null, null, 3))
+                .thenReturn(List.of(row(30L, t.plusMinutes(2)), row(20L, t.plusMinutes(1)), row(10L, t)));
+
+        CursorPage<OrderHistoryResponse> page = orderService.findOrderHistory(MEMBER_ID, null, 2);
+
+        assertEquals(2, page.getContent().size());
+        assertTrue(page.isHasNext());
+        CursorCodec.Cursor next = CursorCodec.decode(page.getNextCursor());
+        assertEquals(20L, next.getId());
+        assertEquals(t.plusMinutes(1), LocalDateTime.parse(next.getSortKey()));
+    }
+
+    @Test
+    void nextPage_passesDecodedKeysetToDao() {
+        LocalDateTime t = LocalDateTime.of(2025, 1, 1, 10, 0, 0, 123456000);
+        when(orderDao.findHistoryWithCursor(MEMBER_ID, t, 20L, 11)).thenReturn(List.of(row(10L, t)));
+
+        CursorPage<OrderHistoryResponse> page =
+                orderService.findOrderHistory(MEMBER_ID, CursorCodec.encode(t.toString(), 20L), 10);
+
+        assertFalse(page.isHasNext());
+        assertNull(page.getNextCursor());
+    }
+
+    @Test
+    void legacyOrderWithoutCreatedAt_pagesOnById() {
+        LocalDateTime t = LocalDateTime.of(2025, 1, 1, 10, 0);
+        when(orderDao.findHistoryWithCursor(MEMBER_ID, null, null, 3))
+                .thenReturn(List.of(row(30L, t), row(5L, null), row(4L, null)));
+
+        CursorPage<OrderHistoryResponse> page = orderService.findOrderHistory(MEMBER_ID, null, 2);
+
+        assertTrue(page.isHasNext());
+        CursorCodec.Cursor next = CursorCodec.decode(page.getNextCursor());
+        assertEquals(5L, next.getId());
+
+        when(orderDao.findHistoryWithCursor(MEMBER_ID, null, 5L, 3)).thenReturn(List.of(row(4L, null)));
+        CursorPage<OrderHistoryResponse> second = orderService.findOrderHistory(MEMBER_ID, page.getNextCursor(), 2);
+
+        assertEquals(1, second.getContent().size());
+        assertFalse(second.isHasNext());
+    }
+
+    @Test
+    void invalidSizeOrCursor_rejectedBeforeQuery() {
+        assertThrows(BusinessException.class, () -> orderService.findOrderHistory(MEMBER_ID, null, 0));
+        assertThrows(BusinessException.class, () -> orderService.findOrderHistory(MEMBER_ID, null, 51));
+        String notATime = CursorCodec.encode("yesterday", 1L);
+        assertThrows(BusinessException.class, () -> orderService.findOrderHistory(MEMBER_ID, notATime, 10));
+
+        verify(orderDao, never()).findHistoryWithCursor(any(), any(), any(), anyInt());
+    }
+
+    private OrderHistoryResponse row(Long id, LocalDateTime createdAt) {
+        OrderHistoryResponse row = new OrderHistoryResponse();
+        row.setId(id);
+        row.setCreatedAt(createdAt);
+        return row;
+    }
+}
@@ -0,0 +1,132 @@
+package com.smallnine.apiserver.service;
+
+import com.smallnine.apiserver.constants.enums.OrderStatus;
+import com.smallnine.apiserver.dao.OrderDao;
+import com.smallnine.apiserver.dao.OrderItemDao;
+import com.smallnine.apiserver.dao.ProductDao;
+import com.smallnine.apiserver.dto.StockChange;
+import com.smallnine.apiserver.entity.Order;
+import com.smallnine.apiserver.entity.OrderItem;
+import com.smallnine.apiserver.exception.BusinessException;
+import com.smallnine.apiserver.metrics.OrderMetrics;
+import com.smallnine.apiserver.outbox.OrderEvent;
+import com.smallnine.apiserver.outbox.OutboxPublisher;
+import com.smallnine.apiserver.service.impl.OrderServiceImpl;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * 取消訂單還庫存：一般商品走單一批次 SQL、熱門商品還 Redis，會員取消與管理員取消都要還且只還一次。
+ */
+@ExtendWith(MockitoExtension.class)
+class OrderServiceRestockTest {
+
+    @Mock private OrderDao orderDao;
+    @Mock private OrderItemDao orderItemDao;
+    @Mock private ProductDao productDao;
+    @Mock private OrderCreationService orderCreationService;
+    @Mock private HotStockService hotStockService;
+    @Mock private ProductCacheService productCacheService;
+    @Mock private OutboxPublisher outboxPublisher;
+
+    private OrderServiceImpl orderService;
+
+    private static final Long ORDER_ID = 10L;
+    private static final Long MEMBER_ID = 1L;
+
+    @BeforeEach
+    void setUp() {
+        orderService = new OrderServiceImpl(orderDao, orderItemDao, productDao, orderCreationService,
+                hotStockService, productCacheService, new OrderMetrics(new SimpleMeterRegistry()), outboxPublisher);
+    }
+
+    @Test
+    void cancelOrder_restocksDbItemsInOneStatement_andHotItemsInRedis() {
+        when(orderDao.findById(ORDER_ID)).thenReturn(Optional.of(order(OrderStatus.PENDING)));
+        when(orderDao.cancelIfCancellable(eq(ORDER_ID), eq(OrderStatus.CANCELLED.getId()), any())).thenReturn(1);
+        when(orderItemDao.findByOrderId(ORDER_ID)).thenReturn(List.of(item(1L, 2), item(2L, 1), item(3L, 5)));
+        when(hotStockService.isHot(anyLong())).thenAnswer(inv -> inv.getArgument(0, Long.class) == 3L);
+        when(productDao.increaseStockByOrder(ORDER_ID, Set.of(3L))).thenReturn(List.of(1L, 2L));
+
+        orderService.cancelOrder(ORDER_ID, MEMBER_ID);
+
+        verify(productDao, never()).increaseStock(anyLong(), any());
+        verify(hotStockService).release(List.of(new StockChange(3L, 5)));
+        verify(productCacheService).evictStock(List.of(1L, 2L));
+        verify(outboxPublisher).publish(eq(OrderEvent.AGGREGATE_TYPE), eq(ORDER_ID), eq(OrderEvent.CANCELLED), any());
+    }
+
+    @Test
+    void cancelOrder_lostRace_doesNotRestock() {
+        when(orderDao.findById(ORDER_ID)).thenReturn(Optional.of(order(OrderStatus.PENDING)));
+        when(orderDao.cancelIfCancellable(eq(ORDER_ID), eq(OrderStatus.CANCELLED.getId()), any())).thenReturn(0);
+
+        assertThrows(BusinessException.class, () -> orderService.cancelOrder(ORDER_ID, MEMBER_ID));
+
+        verify(productDao, never()).increaseStockByOrder(any(), any());
+        verify(outboxPublisher, never()).publish(any(), any(), any(), any());
+    }
+
+    @Test
+    void updateOrderStatus_adminCancel_casOnReadStatusThenRestocks() {
+        when(orderDao.findById(ORDER_ID)).thenReturn(Optional.of(order(OrderStatus.PROCESSING)));
+        when(orderDao.cancelIfCancellable(ORDER_ID, OrderStatus.CANCELLED.getId(),
+                List.of(OrderStatus.PROCESSING.getId()))).thenReturn(1);
+        when(orderItemDao.findByOrderId(ORDER_ID)).thenReturn(List.of(item(1L, 2)));
+        when(productDao.increaseStockByOrder(ORDER_ID, Set.of())).thenReturn(List.of(1L));
+
+        orderService.updateOrderStatus(ORDER_ID, OrderStatus.CANCELLED.getId());
+
+        verify(orderDao, never()).updateStatus(anyLong(), anyLong());
+        verify(productCacheService).evictStock(List.of(1L));
+        verify(outboxPublisher).publish(eq(OrderEvent.AGGREGATE_TYPE), eq(ORDER_ID), eq(OrderEvent.CANCELLED), any());
+    }
+
+    @Test
+    void updateOrderStatus_adminCancelAfterConcurrentChange_failsWithoutRestock() {
+        when(orderDao.findById(ORDER_ID)).thenReturn(Optional.of(order(OrderStatus.CONFIRMED)));
+        when(orderDao.cancelIfCancellable(ORDER_ID, OrderStatus.CANCELLED.getId(),
+                List.of(OrderStatus.CONFIRMED.getId()))).thenReturn(0);
+
+        assertThrows(BusinessException.class,
+                () -> orderService.updateOrderStatus(ORDER_ID, OrderStatus.CANCELLED.getId()));
+
+        verify(orderItemDao, never()).findByOrderId(any());
+        verify(productDao, never()).increaseStockByOrder(any(), any());
+    }
+
+    private Order order(OrderStatus status) {
+        Order order = new Order();
+        order.setId(ORDER_ID);
+        order.setMemberId(MEMBER_ID);
+        order.setOrderNumber("ORD-TEST");
+        order.setStatusId(status.getId());
+        order.setTotalAmount(new BigDecimal("500"));
+        return order;
+    }
+
+    private OrderItem item(Long productId, int quantity) {
+        OrderItem item = new OrderItem();
+        item.setOrderId(ORDER_ID);
+        item.setProductId(productId);
+        item.setQuantity(quantity);
+        return item;
+    }
+}
@@ -7,14 +7,14 @@ import com.smallnine.apiserver.dao.OrderDao;
 import com.smallnine.apiserver.dao.OrderItemDao;
 import com.smallnine.apiserver.dao.ProductDao;
 import com.smallnine.apiserver.dto.CreateOrderRequest;
+import com.smallnine.apiserver.dto.CursorPage;
+import com.smallnine.apiserver.dto.OrderHistoryResponse;
 import com.smallnine.apiserver.entity.Order;
 import com.smallnine.apiserver.exception.BusinessException;
-import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
-import org.springframework.data.redis.core.RedisTemplate;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -23,7 +23,6 @@ import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
-import java.util.Set;
 import java.util.UUID;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -39,7 +38,6 @@ class OrderServiceTest {
     @Autowired private CartService cartService;
     @Autowired private CartItemDao cartItemDao;
     @Autowired private ProductDao productDao;
-    @Autowired private RedisTemplate<String, Object> redisTemplate;
 
     private static final Long MEMBER_ID = 1L;
     private static final Long OTHER_MEMBER_ID = 2L;
@@ -78,15 +76,6 @@ class OrderServiceTest {
         pendingOrderId = order.getId();
     }
 
-    @AfterEach
-    void tearDown() {
-        // 清 Redis idempotency keys
-        Set<String> keys = redisTemplate.keys("order:idempotency:*");
-        if (keys != null && !keys.isEmpty()) {
-            redisTemplate.delete(keys);
-        }
-    }
-
     // ── 狀態轉換 ──
 
     @Test
@@ -121,6 +110,38 @@ class OrderServiceTest {
         assertEquals(ResponseCode.ORDER_STATUS_ERROR.getCode(), ex.getCode());
     }
 
+    @Test
+    void findOrderHistory_returnsOrdersWithTheirItems() {
+        Order created = orderService.createOrderFromCart(MEMBER_ID, buildRequest("addr"), null);
+
+        CursorPage<OrderHistoryResponse> page = orderService.findOrderHistory(MEMBER_ID, null, 50);
+
+        OrderHistoryResponse withItems = page.getContent().stream()
+                .filter(o -> o.getId().equals(created.getId())).findFirst().orElseThrow();
+        assertEquals(1, withItems.getItems().size());
+        assertEquals(PRODUCT_ID, withItems.getItems().get(0).getProductId());
+        assertEquals(2, withItems.getItems().get(0).getQuantity());
+        assertNotNull(withItems.getItems().get(0).getProductName());
+
+        // setUp 建的訂單沒有明細：仍要列出，items 為空
+        OrderHistoryResponse withoutItems = page.getContent().stream()
+                .filter(o -> o.getId().equals(pendingOrderId)).findFirst().orElseThrow();
+        assertTrue(withoutItems.getItems().isEmpty());
+    }
+
+    @Test
+    void findOrderHistory_pagesByOrderNotByItemRow() {
+        orderService.createOrderFromCart(MEMBER_ID, buildRequest("addr"), null);
+
+        CursorPage<OrderHistoryResponse> first = orderService.findOrderHistory(MEMBER_ID, null, 1);
+        CursorPage<OrderHistoryResponse> second = orderService.findOrderHistory(MEMBER_ID, first.getNextCursor(), 1);
+
+        assertEquals(1, first.getContent().size());
+        assertTrue(first.isHasNext());
+        assertEquals(1, second.getContent().size());
+        assertNotEquals(first.getContent().get(0).getId(), second.getContent().get(0).getId());
+    }
+
     // ── 取消訂單 ──
 
     @Test
@@ -139,6 +160,24 @@ class OrderServiceTest {
         assertEquals(stockBeforeCancel + 2, stockAfterCancel, "庫存應恢復購買數量");
     }
 
+    @Test
+    void updateOrderStatus_adminCancel_restocksOnce() {
+        Order created = orderService.createOrderFromCart(MEMBER_ID, buildRequest("addr"), null);
+        orderService.updateOrderStatus(created.getId(), OrderStatus.CONFIRMED.getId());
+
+        int stockBeforeCancel = productDao.findById(PRODUCT_ID).orElseThrow().getStockQuantity();
+
+        orderService.updateOrderStatus(created.getId(), OrderStatus.CANCELLED.getId());
+
+        assertEquals(OrderStatus.CANCELLED.getId(), orderDao.findById(created.getId()).orElseThrow().getStatusId());
+        int stockAfterCancel = productDao.findById(PRODUCT_ID).orElseThrow().getStockQuantity();
+        assertEquals(stockBeforeCancel + 2, stockAfterCancel, "管理員取消也應恢復購買數量");
+
+        // 已取消後會員再取消不可重複還庫存
+        assertThrows(BusinessException.class, () -> orderService.cancelOrder(created.getId(), MEMBER_ID));
+        assertEquals(stockAfterCancel, productDao.findById(PRODUCT_ID).orElseThrow().getStockQuantity());
+    }
+
     @Test
     void cancelOrder_shipped() {
         orderDao.updateStatus(pendingOrderId, OrderStatus.SHIPPED.getId());
@@ -253,31 +292,17 @@ class OrderServiceTest {
 
     // ── 冪等性 ──
 
+    // Redis 佔位與回放在 controller 層的 @Idempotent（見 IdempotencyAspectTest），
+    // 這裡只確認冪等鍵寫進 DB，作為 unique constraint 兜底
     @Test
-    void createOrderFromCart_idempotent_firstCall() {
+    void createOrderFromCart_idempotent_persistsKey() {
         String idempotencyKey = UUID.randomUUID().toString();
 
         Order order = orderService.createOrderFromCart(MEMBER_ID, buildRequest("addr"), idempotencyKey);
 
         assertNotNull(order.getId());
-
-        String redisKey = "order:idempotency:" + MEMBER_ID + ":" + idempotencyKey;
-        Object storedValue = redisTemplate.opsForValue().get(redisKey);
-        assertEquals(order.getId().toString(), storedValue.toString());
-    }
-
-    @Test
-    void createOrderFromCart_idempotent_duplicate() {
-        String idempotencyKey = UUID.randomUUID().toString();
-
-        Order first = orderService.createOrderFromCart(MEMBER_ID, buildRequest("addr"), idempotencyKey);
-
-        // 再加一些東西到購物車（模擬第二次請求）
-        cartService.addToCart(MEMBER_ID, PRODUCT_ID, 1);
-
-        Order second = orderService.createOrderFromCart(MEMBER_ID, buildRequest("addr"), idempotencyKey);
-
-        assertEquals(first.getId(), second.getId());
+        Order stored = orderDao.findByMemberAndIdempotencyKey(MEMBER_ID, idempotencyKey).orElseThrow();
+        assertEquals(order.getId(), stored.getId());
     }
 
     // ── 軟刪除 ──
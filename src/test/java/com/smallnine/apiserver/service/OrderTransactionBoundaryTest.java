@@ -18,9 +18,9 @@ import static org.junit.jupiter.api.Assertions.assertTrue;
  * 違反原因：
  * 1. OrderServiceImpl.createOrderFromCart(memberId, request) 只是 delegate，
  *    若標 @Transactional 會多開一層無意義交易、混淆語意。
- * 2. OrderServiceImpl.createOrderFromCart(memberId, request, idempotencyKey) 是冪等性編排，
- *    若標 @Transactional 會把 Redis SETNX、Redis finalize 跟 DB commit 綁進同一交易，
- *    讓「DB commit 完才寫 Redis orderId」這個時序保證壞掉。
+ * 2. OrderServiceImpl.createOrderFromCart(memberId, request, idempotencyKey) 負責 DB unique 兜底，
+ *    若標 @Transactional，撞到 unique 的那條交易已被 PostgreSQL 標為 aborted，
+ *    接著的 findByMemberAndIdempotencyKey 查回既有訂單會失敗。
  * 3. 交易邊界一旦搬回 OrderServiceImpl，外層→內層的同類別呼叫就會踩到 self-invocation，
  *    @Transactional 切面不會啟動（除非重新引入 ObjectProvider self-injection 那套繞圈）。
  *
@@ -56,8 +56,8 @@ class OrderTransactionBoundaryTest {
                 "createOrderFromCart", Long.class, CreateOrderRequest.class, String.class);
 
         assertFalse(idempotencyOrchestrator.isAnnotationPresent(Transactional.class),
-                "冪等性編排不可標 @Transactional：會把 Redis SETNX / finalize 綁進 DB 交易，"
-                        + "破壞『DB commit 完才寫 Redis orderId』的時序保證");
+                "DB unique 兜底不可標 @Transactional：撞 unique 後交易已 aborted，"
+                        + "無法在同一交易內查回既有訂單");
     }
 
     @Test
@@ -0,0 +1,122 @@
+package com.smallnine.apiserver.service;
+
+import com.smallnine.apiserver.dao.ProductDao;
+import com.smallnine.apiserver.dto.ProductCacheStats;
+import com.smallnine.apiserver.dto.ProductDTO;
+import com.smallnine.apiserver.entity.Product;
+import com.smallnine.apiserver.service.impl.ProductCacheServiceImpl;
+import com.smallnine.apiserver.service.impl.ProductServiceImpl;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+
+import java.math.BigDecimal;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * 商品 read-through 快取：商品資料與庫存分層，異動時精準清除。
+ * 以 ConcurrentMapCacheManager 取代 Redis，驗證的是快取層的讀寫 / 清除邏輯。
+ */
+@ExtendWith(MockitoExtension.class)
+class ProductServiceCacheTest {
+
+    @Mock private ProductDao productDao;
+    @Mock private HotStockService hotStockService;
+
+    private ProductCacheService productCacheService;
+    private ProductService productService;
+
+    @BeforeEach
+    void setUp() {
+        productCacheService = new ProductCacheServiceImpl(new ConcurrentMapCacheManager("products", "productStock"));
+        productService = new ProductServiceImpl(productDao, hotStockService, productCacheService);
+        lenient().when(hotStockService.getAvailableStock(anyLong())).thenReturn(Optional.empty());
+    }
+
+    @Test
+    void findById_secondCall_servedFromCache() {
+        when(productDao.findById(1L)).thenReturn(Optional.of(product(1L, "SKU-1", "100", 10)));
+
+        productService.findById(1L);
+        Product cached = productService.findById(1L);
+
+        assertThat(cached.getPrice()).isEqualByComparingTo("100");
+        assertThat(cached.getStockQuantity()).isEqualTo(10);
+        verify(productDao, times(1)).findById(1L);
+        verify(productDao, never()).findStockById(anyLong());
+
+        ProductCacheStats stats = productCacheService.getStats();
+        assertThat(stats.getProductHits()).isEqualTo(1);
+        assertThat(stats.getProductMisses()).isEqualTo(1);
+    }
+
+    @Test
+    void decreaseStock_evictsOnlyStock_priceStaysCachedButStockIsFresh() {
+        when(productDao.findById(1L)).thenReturn(Optional.of(product(1L, "SKU-1", "100", 10)));
+        when(productDao.decreaseStock(1L, 3)).thenReturn(1);
+        when(productDao.findStockById(1L)).thenReturn(Optional.of(7));
+
+        productService.findById(1L);
+        productService.decreaseStock(1L, 3);
+        Product afterSale = productService.findById(1L);
+
+        assertThat(afterSale.getStockQuantity()).isEqualTo(7);
+        verify(productDao, times(1)).findById(1L);
+        verify(productDao, times(1)).findStockById(1L);
+        assertThat(productCacheService.getStats().getStockMisses()).isEqualTo(1);
+    }
+
+    @Test
+    void updateProduct_evictsProductAndOldSku() {
+        when(productDao.findById(1L))
+                .thenReturn(Optional.of(product(1L, "SKU-1", "100", 10)))
+                .thenReturn(Optional.of(product(1L, "SKU-2", "80", 10)));
+        when(productDao.findBySku("SKU-1")).thenReturn(Optional.of(product(1L, "SKU-1", "100", 10)));
+        when(productDao.existsBySku("SKU-2")).thenReturn(false);
+
+        productService.findBySku("SKU-1");
+        ProductDTO change = new ProductDTO();
+        change.setSku("SKU-2");
+        change.setPrice(new BigDecimal("80"));
+        change.setStockQuantity(10);
+        productService.updateProduct(1L, change);
+
+        assertThat(productCacheService.getIdBySku("SKU-1")).isNull();
+        assertThat(productService.findById(1L).getPrice()).isEqualByComparingTo("80");
+    }
+
+    @Test
+    void findBySku_secondCall_resolvesIdFromCache() {
+        when(productDao.findBySku("SKU-1")).thenReturn(Optional.of(product(1L, "SKU-1", "100", 10)));
+
+        productService.findBySku("SKU-1");
+        Product cached = productService.findBySku("SKU-1");
+
+        assertThat(cached.getId()).isEqualTo(1L);
+        verify(productDao, times(1)).findBySku("SKU-1");
+        verify(productDao, never()).findById(anyLong());
+        assertThat(productCacheService.getStats().getSkuHits()).isEqualTo(1);
+    }
+
+    private Product product(Long id, String sku, String price, int stock) {
+        Product product = new Product();
+        product.setId(id);
+        product.setSku(sku);
+        product.setName("商品" + id);
+        product.setPrice(new BigDecimal(price));
+        product.setStockQuantity(stock);
+        product.setIsActive(true);
+        return product;
+    }
+}
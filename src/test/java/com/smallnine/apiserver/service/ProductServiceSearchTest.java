@@ -0,0 +1,114 @@
+package com.smallnine.apiserver.service;
+
+import com.smallnine.apiserver.dao.ProductDao;
+import com.smallnine.apiserver.dto.ProductSearchQuery;
+import com.smallnine.apiserver.dto.ProductSearchResult;
+import com.smallnine.apiserver.dto.SearchFacet;
+import com.smallnine.apiserver.entity.Product;
+import com.smallnine.apiserver.exception.BusinessException;
+import com.smallnine.apiserver.service.impl.ProductServiceImpl;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * 相關度搜尋：分面由單一查詢的各分組列拆回各清單，沒有命中時不跑排序查詢。
+ */
+@ExtendWith(MockitoExtension.class)
+class ProductServiceSearchTest {
+
+    @Mock private ProductDao productDao;
+    @Mock private HotStockService hotStockService;
+    @Mock private ProductCacheService productCacheService;
+
+    private ProductService productService;
+
+    @BeforeEach
+    void setUp() {
+        productService = new ProductServiceImpl(productDao, hotStockService, productCacheService);
+    }
+
+    @Test
+    void search_routesFacetRowsAndHighlightsHits() {
+        when(productDao.searchFacets(any(), any())).thenReturn(List.of(
+                facet("total", null, null, 2),
+                facet("category", 3L, "狗狗主食", 2),
+                facet("brand", 8L, "Royal", 1),
+                facet("price", 3L, null, 1),
+                facet("price", 1L, null, 1)));
+        Product product = new Product();
+        product.setId(1L);
+        product.setName("Royal 成犬狗糧");
+        product.setDescription("適合成犬的狗糧");
+        product.setPrice(new BigDecimal("1200"));
+        when(productDao.searchRanked(any(), eq(20), eq(10))).thenReturn(List.of(product));
+
+        ProductSearchResult result = productService.search("  狗糧 royal 狗糧 ", null, null, null, null, 2, 10);
+
+        assertThat(result.getTotal()).isEqualTo(2);
+        assertThat(result.getCategories()).extracting(SearchFacet::getLabel).containsExactly("狗狗主食");
+        assertThat(result.getBrands()).extracting(SearchFacet::getKey).containsExactly(8L);
+        assertThat(result.getPriceBands()).extracting(SearchFacet::getLabel)
+                .containsExactly("300 - 1000", "3000+");
+        assertThat(result.getContent()).hasSize(1);
+        assertThat(result.getContent().get(0).getHighlightedName()).isEqualTo("<em>Royal</em> 成犬<em>狗糧</em>");
+
+        ArgumentCaptor<ProductSearchQuery> captor = ArgumentCaptor.forClass(ProductSearchQuery.class);
+        verify(productDao).searchFacets(captor.capture(), any());
+        assertThat(captor.getValue().getTerms()).containsExactly("狗糧", "royal");
+    }
+
+    @Test
+    void search_withoutHits_skipsRankedQuery() {
+        when(productDao.searchFacets(any(), any())).thenReturn(List.of(facet("total", null, null, 0)));
+
+        ProductSearchResult result = productService.search("不存在", null, null, null, null, 0, 20);
+
+        assertThat(result.getTotal()).isZero();
+        assertThat(result.getContent()).isEmpty();
+        verify(productDao, never()).searchRanked(any(), anyInt(), anyInt());
+    }
+
+    @Test
+    void search_escapesLikeWildcardsInTerms() {
+        when(productDao.searchFacets(any(), any())).thenReturn(List.of(facet("total", null, null, 0)));
+
+        productService.search("100%", null, null, null, null, 0, 20);
+
+        ArgumentCaptor<ProductSearchQuery> captor = ArgumentCaptor.forClass(ProductSearchQuery.class);
+        verify(productDao).searchFacets(captor.capture(), any());
+        assertThat(captor.getValue().getTerms()).containsExactly("100\\%");
+        assertThat(captor.getValue().getKeyword()).isEqualTo("100%");
+    }
+
+    @Test
+    void search_blankKeyword_throws() {
+        assertThatThrownBy(() -> productService.search("   ", null, null, null, null, 0, 20))
+                .isInstanceOf(BusinessException.class);
+        verify(productDao, never()).searchFacets(any(), any());
+    }
+
+    private static SearchFacet facet(String type, Long key, String label, long count) {
+        SearchFacet facet = new SearchFacet();
+        facet.setType(type);
+        facet.setKey(key);
+        facet.setLabel(label);
+        facet.setCount(count);
+        return facet;
+    }
+}
@@ -0,0 +1,118 @@
+package com.smallnine.apiserver.service;
+
+import com.smallnine.apiserver.dao.ProductDao;
+import com.smallnine.apiserver.dto.HotStockReserveResult;
+import com.smallnine.apiserver.dto.StockChange;
+import com.smallnine.apiserver.exception.BusinessException;
+import com.smallnine.apiserver.service.impl.ProductServiceImpl;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * 批次扣庫存：送進 DAO 的項目必須依商品 id 排序且同商品合併（鎖列順序固定才不會死鎖），
+ * 未被 RETURNING 的 id 要回報為失敗；熱門商品改走 Redis 預扣、不進 DB 批次。
+ */
+@ExtendWith(MockitoExtension.class)
+class ProductServiceStockBatchTest {
+
+    @Mock private ProductDao productDao;
+    @Mock private HotStockService hotStockService;
+    @Mock private ProductCacheService productCacheService;
+
+    private ProductService productService;
+
+    @BeforeEach
+    void setUp() {
+        productService = new ProductServiceImpl(productDao, hotStockService, productCacheService);
+    }
+
+    @Test
+    void decreaseStockBatch_sortsByIdAndMergesDuplicates() {
+        when(productDao.decreaseStockBatch(any())).thenReturn(List.of(3L, 7L));
+
+        List<Long> failed = productService.decreaseStockBatch(List.of(
+                new StockChange(7L, 1), new StockChange(3L, 2), new StockChange(7L, 4)));
+
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<StockChange>> captor = ArgumentCaptor.forClass(List.class);
+        verify(productDao).decreaseStockBatch(captor.capture());
+        assertThat(captor.getValue()).containsExactly(new StockChange(3L, 2), new StockChange(7L, 5));
+        assertThat(failed).isEmpty();
+    }
+
+    @Test
+    void decreaseStockBatch_reportsIdsNotReturnedAsFailed() {
+        when(productDao.decreaseStockBatch(any())).thenReturn(List.of(1L));
+
+        List<Long> failed = productService.decreaseStockBatch(List.of(
+                new StockChange(1L, 1), new StockChange(2L, 1), new StockChange(5L, 1)));
+
+        assertThat(failed).containsExactly(2L, 5L);
+    }
+
+    @Test
+    void decreaseStockBatch_rejectsNonPositiveQuantity() {
+        assertThatThrownBy(() -> productService.decreaseStockBatch(List.of(new StockChange(1L, 0))))
+                .isInstanceOf(BusinessException.class);
+        verify(productDao, never()).decreaseStockBatch(any());
+    }
+
+    @Test
+    void decreaseStockBatch_emptyInput_skipsDao() {
+        assertThat(productService.decreaseStockBatch(List.of())).isEmpty();
+        verify(productDao, never()).decreaseStockBatch(any());
+    }
+
+    @Test
+    void decreaseStockBatch_routesHotSkuToRedisAndRestToDb() {
+        when(hotStockService.isHot(anyLong())).thenAnswer(inv -> inv.getArgument(0).equals(9L));
+        when(hotStockService.reserve(List.of(new StockChange(9L, 2)))).thenReturn(new HotStockReserveResult());
+        when(productDao.decreaseStockBatch(List.of(new StockChange(4L, 1)))).thenReturn(List.of(4L));
+
+        List<Long> failed = productService.decreaseStockBatch(List.of(
+                new StockChange(9L, 2), new StockChange(4L, 1)));
+
+        assertThat(failed).isEmpty();
+    }
+
+    @Test
+    void decreaseStockBatch_hotSkuShort_returnsFailedWithoutTouchingDb() {
+        when(hotStockService.isHot(anyLong())).thenAnswer(inv -> inv.getArgument(0).equals(9L));
+        HotStockReserveResult shortResult = new HotStockReserveResult();
+        shortResult.getInsufficientProductIds().add(9L);
+        when(hotStockService.reserve(any())).thenReturn(shortResult);
+
+        List<Long> failed = productService.decreaseStockBatch(List.of(
+                new StockChange(9L, 2), new StockChange(4L, 1)));
+
+        assertThat(failed).containsExactly(9L);
+        verify(productDao, never()).decreaseStockBatch(any());
+    }
+
+    @Test
+    void decreaseStockBatch_skuDisabledMidway_fallsBackToDb() {
+        when(hotStockService.isHot(anyLong())).thenAnswer(inv -> inv.getArgument(0).equals(9L));
+        HotStockReserveResult notHot = new HotStockReserveResult();
+        notHot.getNotHot().add(new StockChange(9L, 2));
+        when(hotStockService.reserve(any())).thenReturn(notHot);
+        when(productDao.decreaseStockBatch(List.of(new StockChange(4L, 1), new StockChange(9L, 2))))
+                .thenReturn(List.of(4L, 9L));
+
+        assertThat(productService.decreaseStockBatch(List.of(
+                new StockChange(9L, 2), new StockChange(4L, 1)))).isEmpty();
+    }
+}
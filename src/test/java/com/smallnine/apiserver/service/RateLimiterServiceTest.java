@@ -1,20 +1,80 @@
 package com.smallnine.apiserver.service;
 
+import com.smallnine.apiserver.service.impl.GcraRateLimiter;
 import com.smallnine.apiserver.service.impl.RateLimiterServiceImpl;
 import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.RedisConnectionFailureException;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+
+import java.time.Duration;
+import java.util.List;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
 
 /**
  * #H1 限流行為：
  *  - 每個 email 5 分鐘只准 1 次
  *  - 每個 IP 每分鐘最多 5 次
+ *  - 正常走 Redis GCRA（跨節點共享額度）；Redis 故障時本地 bucket 仍維持同樣語意
  */
 class RateLimiterServiceTest {
 
+    /** Redis 不可用：所有判斷都落到本地備援 bucket */
+    @SuppressWarnings("unchecked")
+    private static RateLimiterService localOnly() {
+        StringRedisTemplate redis = mock(StringRedisTemplate.class);
+        when(redis.execute(any(RedisScript.class), anyList(), any(Object[].class)))
+                .thenThrow(new RedisConnectionFailureException("redis down"));
+        return new RateLimiterServiceImpl(new GcraRateLimiter(redis));
+    }
+
+    @Test
+    void redisPath_checksIpThenEmail_withSharedKeys() {
+        GcraRateLimiter limiter = mock(GcraRateLimiter.class);
+        when(limiter.tryAcquire("rl:resend:ip:1.1.1.1", 5, Duration.ofMinutes(1)))
+                .thenReturn(new GcraRateLimiter.Decision(true, Duration.ZERO, 4));
+        when(limiter.tryAcquire("rl:resend:email:a@example.com", 1, Duration.ofMinutes(5)))
+                .thenReturn(new GcraRateLimiter.Decision(false, Duration.ofMinutes(4), 0));
+        RateLimiterService svc = new RateLimiterServiceImpl(limiter);
+
+        assertThat(svc.tryResendVerification("A@example.com", "1.1.1.1")).isFalse();
+    }
+
+    @Test
+    void redisPath_ipOverQuota_skipsEmailBucket() {
+        GcraRateLimiter limiter = mock(GcraRateLimiter.class);
+        when(limiter.tryAcquire("rl:resend:ip:2.2.2.2", 5, Duration.ofMinutes(1)))
+                .thenReturn(new GcraRateLimiter.Decision(false, Duration.ofSeconds(12), 0));
+        RateLimiterService svc = new RateLimiterServiceImpl(limiter);
+
+        assertThat(svc.tryResendVerification("b@example.com", "2.2.2.2")).isFalse();
+        verify(limiter, never()).tryAcquire(eq("rl:resend:email:b@example.com"), any(Long.class), any());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void gcraLimiter_mapsScriptReplyAndPassesEmissionInterval() {
+        StringRedisTemplate redis = mock(StringRedisTemplate.class);
+        when(redis.execute(any(RedisScript.class), eq(List.of("k")), eq("12000"), eq("5")))
+                .thenReturn(List.of(0L, 7_000L, 0L));
+
+        GcraRateLimiter.Decision decision = new GcraRateLimiter(redis).tryAcquire("k", 5, Duration.ofMinutes(1));
+
+        assertThat(decision.isAllowed()).isFalse();
+        assertThat(decision.getRetryAfter()).isEqualTo(Duration.ofSeconds(7));
+    }
+
     @Test
     void sameEmail_secondAttemptBlocked_evenFromDifferentIp() {
-        RateLimiterService svc = new RateLimiterServiceImpl();
+        RateLimiterService svc = localOnly();
 
         assertThat(svc.tryResendVerification("a@example.com", "1.1.1.1")).isTrue();
         assertThat(svc.tryResendVerification("a@example.com", "1.1.1.2")).isFalse();
@@ -22,7 +82,7 @@ class RateLimiterServiceTest {
 
     @Test
     void sameIp_blockedAfterFiveDistinctEmails() {
-        RateLimiterService svc = new RateLimiterServiceImpl();
+        RateLimiterService svc = localOnly();
         String ip = "2.2.2.2";
 
         for (int i = 1; i <= 5; i++) {
@@ -36,7 +96,7 @@ class RateLimiterServiceTest {
     /** 錯誤路徑：被擋的 email 立刻重試仍然被擋（額度未回補） */
     @Test
     void blockedEmail_staysBlockedOnImmediateRetry() {
-        RateLimiterService svc = new RateLimiterServiceImpl();
+        RateLimiterService svc = localOnly();
 
         assertThat(svc.tryResendVerification("b@example.com", "3.3.3.3")).isTrue();
         assertThat(svc.tryResendVerification("b@example.com", "3.3.3.4")).isFalse();
@@ -46,7 +106,7 @@ class RateLimiterServiceTest {
     /** 邊界：一個 IP 用爆不應影響另一個 IP */
     @Test
     void exhaustingOneIp_doesNotAffectAnotherIp() {
-        RateLimiterService svc = new RateLimiterServiceImpl();
+        RateLimiterService svc = localOnly();
         for (int i = 1; i <= 5; i++) {
             svc.tryResendVerification("x" + i + "@example.com", "4.4.4.4");
         }
@@ -60,7 +120,7 @@ class RateLimiterServiceTest {
      */
     @Test
     void survivesHighCardinalityChurn_andStillLimits() {
-        RateLimiterService svc = new RateLimiterServiceImpl();
+        RateLimiterService svc = localOnly();
 
         assertThat(svc.tryResendVerification("victim@example.com", "9.9.9.9")).isTrue();
 
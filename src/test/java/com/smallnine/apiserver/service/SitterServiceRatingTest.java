@@ -0,0 +1,108 @@
+package com.smallnine.apiserver.service;
+
+import com.smallnine.apiserver.dao.SitterBookingDao;
+import com.smallnine.apiserver.dao.SitterDao;
+import com.smallnine.apiserver.dao.SitterGalleryDao;
+import com.smallnine.apiserver.dao.SitterReviewDao;
+import com.smallnine.apiserver.dto.SitterListResponse;
+import com.smallnine.apiserver.dto.SitterResponse;
+import com.smallnine.apiserver.entity.Sitter;
+import com.smallnine.apiserver.exception.BusinessException;
+import com.smallnine.apiserver.service.impl.SitterServiceImpl;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.List;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * 保姆評價彙總：列表 / 詳情直接讀 sitters 上的 avg_rating / rating_count，
+ * 新增評價時在同一交易內遞增彙總。
+ */
+@ExtendWith(MockitoExtension.class)
+class SitterServiceRatingTest {
+
+    @Mock private SitterDao sitterDao;
+    @Mock private SitterGalleryDao sitterGalleryDao;
+    @Mock private SitterReviewDao sitterReviewDao;
+    @Mock private SitterBookingDao sitterBookingDao;
+
+    private SitterService sitterService;
+
+    @BeforeEach
+    void setUp() {
+        sitterService = new SitterServiceImpl(sitterDao, sitterGalleryDao, sitterReviewDao, sitterBookingDao);
+    }
+
+    @Test
+    void searchSitters_readsDenormalizedRating() {
+        when(sitterDao.searchSitters(null, null, null, 0, 10)).thenReturn(List.of(sitter(1L, 4.5, 2), sitter(2L, null, 0)));
+        when(sitterDao.countSitters(null, null)).thenReturn(2);
+
+        SitterListResponse result = sitterService.searchSitters(null, null, null, 1, 10);
+
+        assertThat(result.getData()).extracting(SitterResponse::getRating).containsExactly(4.5, 0.0);
+        verify(sitterReviewDao, never()).getAverageRating(anyLong());
+    }
+
+    @Test
+    void getSitterDetail_readsDenormalizedCount() {
+        when(sitterDao.findById(1L)).thenReturn(Optional.of(sitter(1L, 4.0, 3)));
+
+        SitterResponse detail = sitterService.getSitterDetail(1L, null);
+
+        assertThat(detail.getRating()).isEqualTo(4.0);
+        assertThat(detail.getReviewCount()).isEqualTo(3);
+        verify(sitterReviewDao, never()).getAverageRating(anyLong());
+        verify(sitterReviewDao, never()).countBySitterId(anyLong());
+    }
+
+    @Test
+    void addReview_incrementsAggregateAfterInsert() {
+        when(sitterDao.findById(1L)).thenReturn(Optional.of(sitter(1L, 0.0, 0)));
+        when(sitterBookingDao.existsByMemberAndSitter(7L, 1L)).thenReturn(true);
+        when(sitterReviewDao.existsByMemberAndSitter(7L, 1L)).thenReturn(false);
+
+        sitterService.addReview(1L, 5, "很棒", 7L);
+
+        InOrder order = inOrder(sitterReviewDao, sitterDao);
+        order.verify(sitterReviewDao).insert(7L, 1L, 5, "很棒");
+        order.verify(sitterDao).addRating(1L, 5);
+    }
+
+    @Test
+    void addReview_alreadyReviewed_doesNotTouchAggregate() {
+        when(sitterDao.findById(1L)).thenReturn(Optional.of(sitter(1L, 5.0, 1)));
+        when(sitterBookingDao.existsByMemberAndSitter(7L, 1L)).thenReturn(true);
+        when(sitterReviewDao.existsByMemberAndSitter(7L, 1L)).thenReturn(true);
+
+        assertThatThrownBy(() -> sitterService.addReview(1L, 5, "再評一次", 7L))
+                .isInstanceOf(BusinessException.class);
+        verify(sitterDao, never()).addRating(anyLong(), anyInt());
+        verify(sitterReviewDao, never()).insert(anyLong(), anyLong(), anyInt(), any());
+    }
+
+    private Sitter sitter(Long id, Double avgRating, int ratingCount) {
+        Sitter sitter = new Sitter();
+        sitter.setId(id);
+        sitter.setMemberId(100L + id);
+        sitter.setName("保姆" + id);
+        sitter.setAvgRating(avgRating);
+        sitter.setRatingCount(ratingCount);
+        return sitter;
+    }
+}
@@ -0,0 +1,116 @@
+package com.smallnine.apiserver.service;
+
+import com.smallnine.apiserver.config.TwoLevelCacheManager;
+import com.smallnine.apiserver.dao.UserDao;
+import com.smallnine.apiserver.entity.User;
+import com.smallnine.apiserver.service.impl.UserCacheServiceImpl;
+import com.smallnine.apiserver.service.impl.UserDetailsServiceImpl;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * 認證查會員走本機快取：命中不查 DB、清除後重新載入、交易中的清除延到交易結束後。
+ */
+@ExtendWith(MockitoExtension.class)
+class UserDetailsServiceCacheTest {
+
+    @Mock private UserDao userDao;
+    @Mock private StringRedisTemplate stringRedisTemplate;
+
+    private UserCacheService userCacheService;
+    private UserDetailsServiceImpl userDetailsService;
+
+    @BeforeEach
+    void setUp() {
+        TwoLevelCacheManager cacheManager = new TwoLevelCacheManager(new ConcurrentMapCacheManager(),
+                stringRedisTemplate, 100, Map.of(), Duration.ofMinutes(1), Set.of(), Set.of("userDetails"));
+        userCacheService = new UserCacheServiceImpl(cacheManager);
+        userDetailsService = new UserDetailsServiceImpl(userDao, userCacheService);
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void loadUserByUsername_secondCall_servedFromCache() {
+        when(userDao.findByUsername("alice")).thenReturn(Optional.of(user("alice")));
+
+        UserDetails first = userDetailsService.loadUserByUsername("alice");
+        UserDetails second = userDetailsService.loadUserByUsername("alice");
+
+        assertThat(second).isSameAs(first);
+        verify(userDao, times(1)).findByUsername("alice");
+    }
+
+    @Test
+    void loadUserByUsername_unknownUser_propagatesNotFoundAndCachesNothing() {
+        when(userDao.findByUsername("ghost")).thenReturn(Optional.empty());
+
+        assertThatThrownBy(() -> userDetailsService.loadUserByUsername("ghost"))
+                .isInstanceOf(UsernameNotFoundException.class);
+        assertThatThrownBy(() -> userDetailsService.loadUserByUsername("ghost"))
+                .isInstanceOf(UsernameNotFoundException.class);
+        verify(userDao, times(2)).findByUsername("ghost");
+    }
+
+    @Test
+    void evict_forcesReload() {
+        when(userDao.findByUsername("alice")).thenReturn(Optional.of(user("alice")));
+        userDetailsService.loadUserByUsername("alice");
+
+        userCacheService.evict("alice");
+        userDetailsService.loadUserByUsername("alice");
+
+        verify(userDao, times(2)).findByUsername("alice");
+    }
+
+    @Test
+    void evict_insideTransaction_deferredUntilCompletion() {
+        when(userDao.findByUsername("alice")).thenReturn(Optional.of(user("alice")));
+        userDetailsService.loadUserByUsername("alice");
+        TransactionSynchronizationManager.initSynchronization();
+
+        userCacheService.evict("alice");
+        userDetailsService.loadUserByUsername("alice");
+        verify(userDao, times(1)).findByUsername("alice");
+
+        TransactionSynchronizationManager.getSynchronizations()
+                .forEach(sync -> sync.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK));
+        userDetailsService.loadUserByUsername("alice");
+        verify(userDao, times(2)).findByUsername("alice");
+    }
+
+    private static User user(String username) {
+        User user = new User();
+        user.setId(1L);
+        user.setUsername(username);
+        user.setPassword("hash");
+        user.setEmailValidated(true);
+        return user;
+    }
+}
@@ -0,0 +1,71 @@
+package com.smallnine.apiserver.utils;
+
+import com.smallnine.apiserver.dto.CursorPage;
+import com.smallnine.apiserver.exception.BusinessException;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class CursorCodecTest {
+
+    @Test
+    void decode_withNullOrBlank_returnsNull() {
+        assertThat(CursorCodec.decode(null)).isNull();
+        assertThat(CursorCodec.decode("  ")).isNull();
+    }
+
+    @Test
+    void encodeThenDecode_roundTripsSortKeyAndId() {
+        String cursor = CursorCodec.encode("2025-01-01T10:00:00.123456", 42L);
+
+        CursorCodec.Cursor decoded = CursorCodec.decode(cursor);
+
+        assertThat(decoded.getSortKey()).isEqualTo("2025-01-01T10:00:00.123456");
+        assertThat(decoded.getId()).isEqualTo(42L);
+    }
+
+    @Test
+    void encode_isUrlSafe() {
+        String cursor = CursorCodec.encode("???>>>", 1L);
+
+        assertThat(cursor).doesNotContain("+", "/", "=");
+    }
+
+    @Test
+    void decode_withGarbage_throwsInvalidPagination() {
+        assertThatThrownBy(() -> CursorCodec.decode("%%%not-base64"))
+                .isInstanceOf(BusinessException.class);
+    }
+
+    @Test
+    void decode_withNonNumericId_throwsInvalidPagination() {
+        String tampered = Base64.getUrlEncoder().withoutPadding()
+                .encodeToString("2025-01-01T10:00|abc".getBytes(StandardCharsets.UTF_8));
+
+        assertThatThrownBy(() -> CursorCodec.decode(tampered))
+                .isInstanceOf(BusinessException.class);
+    }
+
+    @Test
+    void cursorPage_withExtraRow_trimsAndEmitsCursorOfLastKeptRow() {
+        CursorPage<Long> page = CursorPage.of(List.of(1L, 2L, 3L), 2, id -> "c" + id);
+
+        assertThat(page.getContent()).containsExactly(1L, 2L);
+        assertThat(page.isHasNext()).isTrue();
+        assertThat(page.getNextCursor()).isEqualTo("c2");
+    }
+
+    @Test
+    void cursorPage_lastPage_hasNoCursor() {
+        CursorPage<Long> page = CursorPage.of(List.of(1L, 2L), 2, id -> "c" + id);
+
+        assertThat(page.getContent()).containsExactly(1L, 2L);
+        assertThat(page.isHasNext()).isFalse();
+        assertThat(page.getNextCursor()).isNull();
+    }
+}
@@ -0,0 +1,89 @@
+package com.smallnine.apiserver.utils;
+
+import com.smallnine.apiserver.entity.User;
+import io.jsonwebtoken.ExpiredJwtException;
+import io.jsonwebtoken.JwtException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * parse 一次驗簽就要帶出 filter 需要的所有欄位；過期與竄改都在這一步擋下。
+ */
+class JwtUtilParseTest {
+
+    private JwtUtil jwtUtil;
+
+    @BeforeEach
+    void setUp() {
+        jwtUtil = new JwtUtil();
+        ReflectionTestUtils.setField(jwtUtil, "secret", "0123456789abcdef0123456789abcdef");
+        ReflectionTestUtils.setField(jwtUtil, "accessTokenExpiration", 900000L);
+        ReflectionTestUtils.setField(jwtUtil, "refreshTokenExpiration", 604800000L);
+        ReflectionTestUtils.invokeMethod(jwtUtil, "initSigningKey");
+    }
+
+    @Test
+    void parse_accessToken_returnsAllClaims() {
+        JwtUtil.ParsedToken parsed = jwtUtil.parse(jwtUtil.generateAccessToken("alice"));
+
+        assertThat(parsed.getSubject()).isEqualTo("alice");
+        assertThat(parsed.isAccessToken()).isTrue();
+        assertThat(parsed.isRefreshToken()).isFalse();
+        assertThat(Duration.between(parsed.getIssuedAt(), parsed.getExpiresAt()))
+                .isEqualTo(Duration.ofMillis(900000L));
+    }
+
+    @Test
+    void parse_legacyAccessToken_hasNoPrincipalClaims() {
+        assertThat(jwtUtil.parse(jwtUtil.generateAccessToken("alice")).hasPrincipalClaims()).isFalse();
+    }
+
+    @Test
+    void parse_userAccessToken_carriesPrincipalClaims() {
+        User user = new User();
+        user.setId(42L);
+        user.setUsername("alice");
+        user.setRole(User.Role.ADMIN);
+        user.setEmailValidated(true);
+
+        JwtUtil.ParsedToken parsed = jwtUtil.parse(jwtUtil.generateAccessToken(user));
+
+        assertThat(parsed.hasPrincipalClaims()).isTrue();
+        assertThat(parsed.getUserId()).isEqualTo(42L);
+        assertThat(parsed.getRole()).isEqualTo("ADMIN");
+        assertThat(parsed.getEnabled()).isTrue();
+        assertThat(parsed.isAccessToken()).isTrue();
+    }
+
+    @Test
+    void parse_refreshToken_isNotAccessToken() {
+        JwtUtil.ParsedToken parsed = jwtUtil.parse(jwtUtil.generateRefreshToken("alice"));
+
+        assertThat(parsed.isAccessToken()).isFalse();
+        assertThat(parsed.isRefreshToken()).isTrue();
+    }
+
+    @Test
+    void parse_expiredToken_throws() {
+        ReflectionTestUtils.setField(jwtUtil, "accessTokenExpiration", -1000L);
+        String token = jwtUtil.generateAccessToken("alice");
+
+        assertThatThrownBy(() -> jwtUtil.parse(token)).isInstanceOf(ExpiredJwtException.class);
+        assertThat(jwtUtil.validateToken(token)).isFalse();
+    }
+
+    @Test
+    void parse_tamperedSignature_throws() {
+        String token = jwtUtil.generateAccessToken("alice");
+        String tampered = token.substring(0, token.length() - 2)
+                + (token.endsWith("AA") ? "BB" : "AA");
+
+        assertThatThrownBy(() -> jwtUtil.parse(tampered)).isInstanceOf(JwtException.class);
+    }
+}
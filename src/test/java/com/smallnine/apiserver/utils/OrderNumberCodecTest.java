@@ -0,0 +1,62 @@
+package com.smallnine.apiserver.utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class OrderNumberCodecTest {
+
+    private final OrderNumberCodec codec = new OrderNumberCodec("test-secret");
+
+    @Test
+    void encode_hasLegacyShape() {
+        assertThat(codec.encode(0)).matches("ORD[A-HJ-NP-Z2-9]{12}");
+        assertThat(codec.encode(OrderNumberCodec.MAX_SEQUENCE - 1)).matches("ORD[A-HJ-NP-Z2-9]{12}");
+    }
+
+    @Test
+    void encode_isDeterministicPerKey() {
+        assertThat(new OrderNumberCodec("test-secret").encode(42)).isEqualTo(codec.encode(42));
+        assertThat(new OrderNumberCodec("other-secret").encode(42)).isNotEqualTo(codec.encode(42));
+    }
+
+    /** 置換必須一對一：連續序號不可撞號 */
+    @Test
+    void encode_consecutiveSequences_neverCollide() {
+        Set<String> seen = new HashSet<>();
+        for (long seq = 1_000; seq < 101_000; seq++) {
+            assertThat(seen.add(codec.encode(seq))).as("sequence %d", seq).isTrue();
+        }
+    }
+
+    /** 相鄰序號的訂單號不應看得出順序 */
+    @Test
+    void encode_adjacentSequences_lookUnrelated() {
+        String a = codec.encode(5_000);
+        String b = codec.encode(5_001);
+
+        int samePositions = 0;
+        for (int i = OrderNumberCodec.PREFIX.length(); i < a.length(); i++) {
+            if (a.charAt(i) == b.charAt(i)) {
+                samePositions++;
+            }
+        }
+        assertThat(samePositions).isLessThan(6);
+    }
+
+    @Test
+    void encode_outOfRange_throws() {
+        assertThatThrownBy(() -> codec.encode(-1)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> codec.encode(OrderNumberCodec.MAX_SEQUENCE))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void blankSecret_isRejected() {
+        assertThatThrownBy(() -> new OrderNumberCodec(" ")).isInstanceOf(IllegalArgumentException.class);
+    }
+}
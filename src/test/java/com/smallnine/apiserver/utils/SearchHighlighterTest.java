@@ -0,0 +1,46 @@
+package com.smallnine.apiserver.utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SearchHighlighterTest {
+
+    @Test
+    void highlight_wrapsEveryOccurrenceIgnoringCase() {
+        assertThat(SearchHighlighter.highlight("Royal royal 狗糧", List.of("ROYAL", "狗糧")))
+                .isEqualTo("<em>Royal</em> <em>royal</em> <em>狗糧</em>");
+    }
+
+    @Test
+    void highlight_mergesOverlappingTerms() {
+        assertThat(SearchHighlighter.highlight("成犬狗糧", List.of("成犬狗", "狗糧")))
+                .isEqualTo("<em>成犬狗糧</em>");
+    }
+
+    @Test
+    void highlight_escapesHtmlOutsideAndInsideMatches() {
+        assertThat(SearchHighlighter.highlight("<b>貓</b>砂", List.of("貓</b>")))
+                .isEqualTo("&lt;b&gt;<em>貓&lt;/b&gt;</em>砂");
+    }
+
+    @Test
+    void highlight_nullText_returnsNull() {
+        assertThat(SearchHighlighter.highlight(null, List.of("x"))).isNull();
+    }
+
+    @Test
+    void snippet_cutsAroundFirstHitWithEllipsis() {
+        String text = "0123456789狗糧0123456789";
+
+        assertThat(SearchHighlighter.snippet(text, List.of("狗糧"), 3))
+                .isEqualTo("…789<em>狗糧</em>012…");
+    }
+
+    @Test
+    void snippet_withoutHit_returnsHead() {
+        assertThat(SearchHighlighter.snippet("abcdefgh", List.of("z"), 2)).isEqualTo("abcd…");
+    }
+}